@@ -28,6 +28,7 @@ import static org.osgl.util.XML.HINT_PRETTY;
 import com.alibaba.fastjson.*;
 import org.osgl.cache.CacheService;
 import org.osgl.concurrent.ContextLocal;
+import org.osgl.concurrent.Scheduler;
 import org.osgl.exception.*;
 import org.osgl.util.*;
 import org.osgl.util.TypeReference;
@@ -50,7 +51,6 @@ import java.sql.ResultSet;
 import java.text.*;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <code>Osgl</code> is the umbrella namespace aggregates core utilities of OSGL toolkit:
@@ -2594,6 +2594,15 @@ public class Lang implements Serializable {
             this.payload = payload;
         }
 
+        /*
+         * Construct the shared Break instance. It is stackless and
+         * has suppression disabled so throwing it from multiple threads
+         * never mutates its state.
+         */
+        private Break(String message, boolean shared) {
+            super(message, null, !shared, !shared);
+        }
+
         /**
          * Return the payload
          *
@@ -2622,10 +2631,11 @@ public class Lang implements Serializable {
     }
 
     /**
-     * A predefined Break instance without payload
+     * A predefined Break instance without payload. It is preallocated, stackless
+     * and immutable, thus it can be thrown from hot path with no allocation.
      */
     @SuppressWarnings("unused")
-    public static final Break BREAK = new Break();
+    public static final Break BREAK = new Break("break out", true);
 
     /**
      * <p>An {@code IndexedVisitor} provide a tool to iterate through a Map or indexed list
@@ -7529,303 +7539,144 @@ public class Lang implements Serializable {
         }
     }
 
-    private static boolean testMethodParamType(Class[] pts, Object p, int pos) {
-        E.invalidArgIf(pos < 0);
-        if (pos < pts.length) {
-            Class pt = pts[pos];
-            pt = wrapperClassOf(pt);
-            return (pt.isAssignableFrom(p.getClass()));
-        } else {
-            return false;
-        }
-    }
-
     public static <T> T primitiveDefaultValue(Class<T> c) {
         return (T) __primitiveInstances.get(c);
     }
 
+    @SuppressWarnings("unchecked")
     public static <T> T newInstance(Class<T> c) {
-        Object o = __primitiveInstances.get(c);
+        ClassMeta meta = ClassMeta.of(c);
+        Func0<?> instantiator = meta.instantiator();
+        if (null == instantiator) {
+            instantiator = meta.cacheInstantiator(instantiatorOf(c));
+        }
+        return (T) instantiator.apply();
+    }
+
+    /*
+     * Resolve the way to create instances of a class, which is cached
+     * in the class metadata registry
+     */
+    private static Func0<?> instantiatorOf(final Class<?> c) {
+        final Object o = __primitiveInstances.get(c);
         if (null != o) {
-            return (T) o;
+            return new F0<Object>() {
+                @Override
+                public Object apply() throws NotAppliedException, Break {
+                    return o;
+                }
+            };
         }
         if (String.class == c) {
-            return (T) "";
+            return new F0<String>() {
+                @Override
+                public String apply() throws NotAppliedException, Break {
+                    return "";
+                }
+            };
         } else if (c.isEnum()) {
-            return c.getEnumConstants()[0];
+            final Object first = c.getEnumConstants()[0];
+            return new F0<Object>() {
+                @Override
+                public Object apply() throws NotAppliedException, Break {
+                    return first;
+                }
+            };
         } else if (Locale.class == c) {
-            return (T) Locale.getDefault();
+            return new F0<Locale>() {
+                @Override
+                public Locale apply() throws NotAppliedException, Break {
+                    return Locale.getDefault();
+                }
+            };
         } else if (Keyword.class == c) {
-            return (T) Keyword.of("");
-        } if (c.isInterface()) {
-            if (Map.class == c) {
-                return (T) new HashMap();
-            } else if (List.class == c) {
-                return (T) new ArrayList();
-            } else if (Set.class == c) {
-                return (T) new HashSet();
-            } else if (SortedMap.class == c) {
-                return (T) new TreeMap();
-            } else if (SortedSet.class == c) {
-                return (T) new TreeSet();
-            } else if (ConcurrentMap.class == c) {
-                return (T) new ConcurrentHashMap<>();
-            } else if (Deque.class == c) {
-                return (T) new ArrayDeque<>();
-            } else if (BlockingDeque.class == c) {
-                return (T) new LinkedBlockingDeque<>();
-            } else if (Queue.class == c) {
-                return (T) new LinkedList<>();
-            } else {
-                throw new UnsupportedOperationException("Instantiation of interface not supported: " + c);
+            return new F0<Keyword>() {
+                @Override
+                public Keyword apply() throws NotAppliedException, Break {
+                    return Keyword.of("");
+                }
+            };
+        } else if (c.isInterface()) {
+            final Class<?> impl = interfaceImplementations.get(c);
+            if (null == impl) {
+                return new F0<Object>() {
+                    @Override
+                    public Object apply() throws NotAppliedException, Break {
+                        throw new UnsupportedOperationException("Instantiation of interface not supported: " + c);
+                    }
+                };
             }
+            return instantiatorOf(impl);
         }
-        try {
-            Constructor<T> ct = c.getDeclaredConstructor();
-            ct.setAccessible(true);
-            return ct.newInstance();
-        } catch (InvocationTargetException e) {
-            Throwable t = e.getTargetException();
-            if (t instanceof RuntimeException) {
-                throw ((RuntimeException) t);
-            } else {
-                throw new UnexpectedNewInstanceException(e, "error instantiate instance of " + c.getName());
-            }
-        } catch (RuntimeException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new UnexpectedNewInstanceException(e, "error instantiate instance of " + c.getName());
+        final ConstructorInvoker<?> invoker = ClassMeta.of(c).defaultConstructor();
+        if (null == invoker) {
+            return new F0<Object>() {
+                @Override
+                public Object apply() throws NotAppliedException, Break {
+                    throw new UnexpectedNewInstanceException("error instantiate instance of %s: no-arg constructor not found", c.getName());
+                }
+            };
         }
+        return new F0<Object>() {
+            @Override
+            public Object apply() throws NotAppliedException, Break {
+                return invoker.newInstance();
+            }
+        };
+    }
+
+    private static final Map<Class<?>, Class<?>> interfaceImplementations = new HashMap<>();
+
+    static {
+        interfaceImplementations.put(Map.class, HashMap.class);
+        interfaceImplementations.put(List.class, ArrayList.class);
+        interfaceImplementations.put(Set.class, HashSet.class);
+        interfaceImplementations.put(SortedMap.class, TreeMap.class);
+        interfaceImplementations.put(SortedSet.class, TreeSet.class);
+        interfaceImplementations.put(ConcurrentMap.class, ConcurrentHashMap.class);
+        interfaceImplementations.put(Deque.class, ArrayDeque.class);
+        interfaceImplementations.put(BlockingDeque.class, LinkedBlockingDeque.class);
+        interfaceImplementations.put(Queue.class, LinkedList.class);
     }
 
     public static <T, P1> T newInstance(Class<T> c, P1 p1) {
-        try {
-            Constructor[] ca = c.getDeclaredConstructors();
-            for (Constructor<T> ct : ca) {
-                Class[] pts = ct.getParameterTypes();
-                if (pts.length != 1 && !ct.isVarArgs()) {
-                    continue;
-                }
-                if (!testMethodParamType(pts, p1, 0)) {
-                    continue;
-                }
-                return ct.newInstance(p1);
-            }
-            throw new UnexpectedNewInstanceException("Constructor not found on " + c.getName());
-        } catch (InvocationTargetException e) {
-            Throwable t = e.getTargetException();
-            if (t instanceof RuntimeException) {
-                throw ((RuntimeException) t);
-            } else {
-                throw new UnexpectedNewInstanceException(e, "error instantiate instance of " + c.getName());
-            }
-        } catch (RuntimeException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new UnexpectedNewInstanceException(e);
-        }
+        return newInstanceWith(c, false, p1);
     }
 
     public static <T, P1, P2> T newInstance(Class<T> c, P1 p1, P2 p2) {
-        try {
-            Constructor[] ca = c.getConstructors();
-            for (Constructor<T> ct : ca) {
-                Class[] pts = ct.getParameterTypes();
-                if (pts.length != 2 && !ct.isVarArgs()) {
-                    continue;
-                }
-                if (!testMethodParamType(pts, p1, 0)) {
-                    continue;
-                }
-                if (!testMethodParamType(pts, p2, 1)) {
-                    continue;
-                }
-                ct.setAccessible(true);
-                return ct.newInstance(p1, p2);
-            }
-            throw new UnexpectedNewInstanceException("constructor not found");
-        } catch (InvocationTargetException e) {
-            Throwable t = e.getTargetException();
-            if (t instanceof RuntimeException) {
-                throw ((RuntimeException) t);
-            } else {
-                throw new UnexpectedNewInstanceException(e, "error instantiate instance of " + c.getName());
-            }
-        } catch (RuntimeException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new UnexpectedNewInstanceException(e);
-        }
+        return newInstanceWith(c, true, p1, p2);
     }
 
     public static <T, P1, P2, P3> T newInstance(Class<T> c, P1 p1, P2 p2, P3 p3) {
-        try {
-            Constructor[] ca = c.getConstructors();
-            for (Constructor<T> ct : ca) {
-                Class[] pts = ct.getParameterTypes();
-                if (pts.length != 3 && !ct.isVarArgs()) {
-                    continue;
-                }
-                if (!testMethodParamType(pts, p1, 0)) {
-                    continue;
-                }
-                if (!testMethodParamType(pts, p2, 1)) {
-                    continue;
-                }
-                if (!testMethodParamType(pts, p3, 2)) {
-                    continue;
-                }
-                return ct.newInstance(p1, p2, p3);
-            }
-            throw new UnexpectedNewInstanceException("constructor not found on " + c.getName());
-        } catch (InvocationTargetException e) {
-            Throwable t = e.getTargetException();
-            if (t instanceof RuntimeException) {
-                throw ((RuntimeException) t);
-            } else {
-                throw new UnexpectedNewInstanceException(e, "error instantiate instance of " + c.getName());
-            }
-        } catch (RuntimeException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new UnexpectedNewInstanceException(e, "error instantiate instance of " + c.getName());
-        }
+        return newInstanceWith(c, true, p1, p2, p3);
     }
 
     public static <T, P1, P2, P3, P4> T newInstance(Class<T> c, P1 p1, P2 p2, P3 p3, P4 p4) {
-        try {
-            Constructor[] ca = c.getConstructors();
-            for (Constructor<T> ct : ca) {
-                Class[] pts = ct.getParameterTypes();
-                if (pts.length != 4 && !ct.isVarArgs()) {
-                    continue;
-                }
-                if (!testMethodParamType(pts, p1, 0)) {
-                    continue;
-                }
-                if (!testMethodParamType(pts, p2, 1)) {
-                    continue;
-                }
-                if (!testMethodParamType(pts, p3, 2)) {
-                    continue;
-                }
-                if (!testMethodParamType(pts, p4, 3)) {
-                    continue;
-                }
-                return ct.newInstance(p1, p2, p3, p4);
-            }
-            throw new UnexpectedNewInstanceException("constructor not found on " + c.getName());
-        } catch (InvocationTargetException e) {
-            Throwable t = e.getTargetException();
-            if (t instanceof RuntimeException) {
-                throw ((RuntimeException) t);
-            } else {
-                throw new UnexpectedNewInstanceException(e, "error instantiate instance of " + c.getName());
-            }
-        } catch (RuntimeException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new UnexpectedNewInstanceException(e, "error instantiate instance of " + c.getName());
-        }
+        return newInstanceWith(c, true, p1, p2, p3, p4);
     }
 
     public static <T, P1, P2, P3, P4, P5> T newInstance(Class<T> c, P1 p1, P2 p2, P3 p3, P4 p4, P5 p5) {
-        try {
-            Constructor[] ca = c.getConstructors();
-            for (Constructor<T> ct : ca) {
-                Class[] pts = ct.getParameterTypes();
-                if (pts.length != 5 && !ct.isVarArgs()) {
-                    continue;
-                }
-                if (!testMethodParamType(pts, p1, 0)) {
-                    continue;
-                }
-                if (!testMethodParamType(pts, p2, 1)) {
-                    continue;
-                }
-                if (!testMethodParamType(pts, p3, 2)) {
-                    continue;
-                }
-                if (!testMethodParamType(pts, p4, 3)) {
-                    continue;
-                }
-                if (!testMethodParamType(pts, p5, 4)) {
-                    continue;
-                }
-                return ct.newInstance(p1, p2, p3, p4, p5);
-            }
-            throw new UnexpectedNewInstanceException("constructor not found on " + c.getName());
-        } catch (InvocationTargetException e) {
-            Throwable t = e.getTargetException();
-            if (t instanceof RuntimeException) {
-                throw ((RuntimeException) t);
-            } else {
-                throw new UnexpectedNewInstanceException(e, "error instantiate instance of " + c.getName());
-            }
-        } catch (RuntimeException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new UnexpectedNewInstanceException(e, "error instantiate instance of " + c.getName());
-        }
+        return newInstanceWith(c, true, p1, p2, p3, p4, p5);
     }
 
     public static <T> T newInstance(Class<T> c, Object p1, Object p2, Object p3, Object p4, Object p5, Object... pa) {
-        try {
-            Constructor[] ca = c.getConstructors();
-            int len = pa.length;
-            for (Constructor<T> ct : ca) {
-                Class[] pts = ct.getParameterTypes();
-                if (pts.length != 5 + len && !ct.isVarArgs()) {
-                    continue;
-                }
-                if (!testMethodParamType(pts, p1, 0)) {
-                    continue;
-                }
-                if (!testMethodParamType(pts, p2, 1)) {
-                    continue;
-                }
-                if (!testMethodParamType(pts, p3, 2)) {
-                    continue;
-                }
-                if (!testMethodParamType(pts, p4, 3)) {
-                    continue;
-                }
-                if (!testMethodParamType(pts, p5, 4)) {
-                    continue;
-                }
-                boolean shouldContinue = false;
-                for (int i = 0; i < len; ++i) {
-                    Object p = pa[i];
-                    if (!testMethodParamType(pts, p, 5 + i)) {
-                        shouldContinue = true;
-                        break;
-                    }
-                }
-                if (shouldContinue) {
-                    continue;
-                }
-                Object[] oa = new Object[5 + len];
-                oa[0] = p1;
-                oa[1] = p2;
-                oa[2] = p3;
-                oa[3] = p4;
-                oa[4] = p5;
-                System.arraycopy(pa, 0, oa, 5, len);
-                return ct.newInstance(oa);
-            }
-            throw new UnexpectedNewInstanceException("constructor not found on " + c.getName());
-        } catch (InvocationTargetException e) {
-            Throwable t = e.getTargetException();
-            if (t instanceof RuntimeException) {
-                throw ((RuntimeException) t);
-            } else {
-                throw new UnexpectedNewInstanceException(e, "error instantiate instance of " + c.getName());
-            }
-        } catch (RuntimeException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new UnexpectedNewInstanceException(e, "error instantiate instance of " + c.getName());
+        int len = pa.length;
+        Object[] oa = new Object[5 + len];
+        oa[0] = p1;
+        oa[1] = p2;
+        oa[2] = p3;
+        oa[3] = p4;
+        oa[4] = p5;
+        System.arraycopy(pa, 0, oa, 5, len);
+        return newInstanceWith(c, true, oa);
+    }
+
+    private static <T> T newInstanceWith(Class<T> c, boolean publicOnly, Object... args) {
+        ConstructorInvoker<T> invoker = ClassMeta.of(c).constructorFor(args, publicOnly);
+        if (null == invoker) {
+            throw new UnexpectedNewInstanceException("constructor not found on %s", c.getName());
         }
+        return invoker.newInstance(args);
     }
 
     /**
@@ -7951,29 +7802,8 @@ public class Lang implements Serializable {
      * @return a list of fields
      */
     public static List<Field> fieldsOf(Class<?> c, Class<?> rootClass, boolean includeRootClass, boolean noStatic) {
-        String key = c.getName();
-        StringBuilder buf = null;
-        if (Object.class != rootClass) {
-            buf = new StringBuilder(key);
-            buf.append(":");
-            buf.append(rootClass.getName());
-        }
-        if (includeRootClass) {
-            if (null == buf) {
-                buf = new StringBuilder().append(key);
-            }
-            buf.append("+i");
-        }
-        if (!noStatic) {
-            if (null == buf) {
-                buf = new StringBuilder().append(key);
-            }
-            buf.append("-s");
-        }
-        if (null != buf) {
-            key = buf.toString();
-        }
-        List<Field> fields = cache().get(key);
+        ClassMeta meta = ClassMeta.of(c);
+        List<Field> fields = meta.fields(rootClass, includeRootClass, noStatic);
         if (null == fields) {
             fields = new ArrayList<>();
             $.Predicate<Field> filter = noStatic ? new $.Predicate<Field>() {
@@ -7983,7 +7813,7 @@ public class Lang implements Serializable {
                 }
             } : null;
             addFieldsToList(fields, c, rootClass, includeRootClass, filter);
-            cache().put(key, fields);
+            fields = meta.cacheFields(rootClass, includeRootClass, noStatic, fields);
         }
         return fields;
     }
@@ -8238,27 +8068,8 @@ public class Lang implements Serializable {
      * @return the method or `null` if not found
      */
     public static Method getMethod(Class c, String methodName, Object... pa) {
-        Method[] ma = c.getMethods();
-        for (Method m : ma) {
-            if (!m.getName().equals(methodName)) {
-                continue;
-            }
-            Class[] pts = m.getParameterTypes();
-            boolean shouldContinue = false;
-            int len = pts.length;
-            for (int i = 0; i < len; ++i) {
-                Object p = pa[i];
-                if (!testMethodParamType(pts, p, i)) {
-                    shouldContinue = true;
-                    break;
-                }
-            }
-            if (shouldContinue) {
-                continue;
-            }
-            return m;
-        }
-        return null;
+        MethodInvoker invoker = ClassMeta.of(c).invoker(methodName, argTypesOf(pa), true);
+        return null == invoker ? null : invoker.method();
     }
 
     /**
@@ -8281,50 +8092,41 @@ public class Lang implements Serializable {
     }
 
     private static <T, R> R invokeMethod(Var<Method> methodBag, Class c, T o, String methodName, Object... pa) {
-        try {
-            if (null == c) {
-                c = o.getClass();
-            }
-            Set<Method> methods = C.newSet();
-            methods.addAll(C.listOf(c.getMethods()));
-            methods.addAll(C.listOf(c.getDeclaredMethods()));
-            for (Method m : methods) {
-                if (!m.getName().equals(methodName)) {
-                    continue;
-                }
-                Class[] pts = m.getParameterTypes();
-                boolean shouldContinue = false;
-                int len = pts.length;
-                for (int i = 0; i < len; ++i) {
-                    Object p = pa[i];
-                    if (!testMethodParamType(pts, p, i)) {
-                        shouldContinue = true;
-                        break;
-                    }
-                }
-                if (shouldContinue) {
-                    continue;
-                }
-                if (!Modifier.isPublic(m.getModifiers())) {
-                    m.setAccessible(true);
-                }
-                if (null != methodBag) {
-                    methodBag.set(m);
-                }
-                return (R) m.invoke(o, pa);
-            }
+        if (null == c) {
+            c = o.getClass();
+        }
+        MethodInvoker invoker = ClassMeta.of(c).invoker(methodName, argTypesOf(pa), false);
+        if (null == invoker) {
             throw new UnexpectedNoSuchMethodException(c, methodName);
-        } catch (UnexpectedNoSuchMethodException e) {
-            throw e;
-        } catch (Exception e) {
-            throw UnexpectedMethodInvocationException.triage(e);
         }
+        if (null != methodBag) {
+            methodBag.set(invoker.method());
+        }
+        return invoker.invoke(o, pa);
+    }
+
+    private static Class<?>[] argTypesOf(Object[] pa) {
+        int len = pa.length;
+        if (0 == len) {
+            return EMPTY_CLASS_ARRAY;
+        }
+        Class<?>[] types = new Class<?>[len];
+        for (int i = 0; i < len; ++i) {
+            Object p = pa[i];
+            types[i] = null == p ? null : p.getClass();
+        }
+        return types;
     }
 
+    private static final Class<?>[] EMPTY_CLASS_ARRAY = new Class<?>[0];
+
     public static PropertyHandlerFactory propertyHandlerFactory = new ReflectionPropertyHandlerFactory();
 
     public static <T> T getProperty(Object entity, String property) {
-        return getProperty(OsglConfig.internalCache(), entity, property);
+        if (null == entity) {
+            return null;
+        }
+        return PropertyPath.of(property).get(entity);
     }
 
     @SuppressWarnings("unchecked")
@@ -8332,6 +8134,9 @@ public class Lang implements Serializable {
         if (null == entity) {
             return null;
         }
+        if (cache == OsglConfig.internalCache()) {
+            return PropertyPath.of(property).get(entity);
+        }
         if (property.contains("]")) {
             property = property.replace('[', '.').replace("]", "");
         }
@@ -8346,21 +8151,15 @@ public class Lang implements Serializable {
 
     public static void setProperty(Object entity, Object val, String property) {
         E.NPE(entity);
-        if (property.contains("]")) {
-            property = property.replace('[', '.').replace("]", "");
-        }
-        if (property.contains(".")) {
-            setProperty(entity, val, property.split("\\."));
-        } else if (property.contains("/")) {
-            setProperty(entity, val, property.split("\\/"));
-        } else {
-            PropertySetter setter = propertySetter(null, entity, property);
-            setter.set(entity, val, property);
-        }
+        PropertyPath.of(property).set(entity, val);
     }
 
     public static void setProperty(CacheService cache, Object entity, Object val, String property) {
         E.NPE(entity);
+        if (cache == OsglConfig.internalCache()) {
+            PropertyPath.of(property).set(entity, val);
+            return;
+        }
         if (property.contains("]")) {
             property = property.replace('[', '.').replace("]", "");
         }
@@ -8374,11 +8173,6 @@ public class Lang implements Serializable {
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private static <T> T getProperty(Object entity, String... propertyPath) {
-        return getProperty(null, entity, propertyPath);
-    }
-
     private static <T> T getProperty(CacheService cache, Object entity, String... propertyPath) {
         if (null == entity) {
             return null;
@@ -8446,8 +8240,15 @@ public class Lang implements Serializable {
     private static PropertyGetter propertyGetter(CacheService cache, Object entity, String property, boolean requireField) {
         PropertyGetter propertyGetter;
         Class c = entity.getClass();
+        // the internal cache is backed by the class metadata registry
+        ClassMeta meta = cache == OsglConfig.internalCache() ? ClassMeta.of(c) : null;
         String key = null;
-        if (null != cache) {
+        if (null != meta) {
+            propertyGetter = meta.propertyGetter(property, requireField);
+            if (null != propertyGetter) {
+                return propertyGetter;
+            }
+        } else if (null != cache) {
             key = propertyGetterKey(c, property, requireField);
             propertyGetter = cache.get(key);
             if (null != propertyGetter) {
@@ -8458,7 +8259,9 @@ public class Lang implements Serializable {
         if (requireField) {
             propertyGetter.setNullValuePolicy(PropertyGetter.NullValuePolicy.CREATE_NEW);
         }
-        if (null != cache) {
+        if (null != meta) {
+            propertyGetter = meta.cachePropertyGetter(property, requireField, propertyGetter);
+        } else if (null != cache) {
             cache.put(key, propertyGetter);
         }
         return propertyGetter;
@@ -8584,10 +8387,6 @@ public class Lang implements Serializable {
         }
     }
 
-    private static void setProperty(Object entity, Object val, String... propertyPath) {
-        setProperty(null, entity, val, propertyPath);
-    }
-
     private static String propertySetterKey(Class c, String p) {
         return S.builder("osgl:sg:").append(c.getName()).append(":").append(p).toString();
     }
@@ -8599,8 +8398,15 @@ public class Lang implements Serializable {
         }
         PropertySetter propertySetter;
         Class c = entity.getClass();
+        // the internal cache is backed by the class metadata registry
+        ClassMeta meta = cache == OsglConfig.internalCache() ? ClassMeta.of(c) : null;
         String key = null;
-        if (null != cache) {
+        if (null != meta) {
+            propertySetter = meta.propertySetter(property);
+            if (null != propertySetter) {
+                return propertySetter;
+            }
+        } else if (null != cache) {
             key = propertySetterKey(c, property);
             propertySetter = cache.get(key);
             if (null != propertySetter) {
@@ -8608,12 +8414,331 @@ public class Lang implements Serializable {
             }
         }
         propertySetter = propertyHandlerFactory.createPropertySetter(c, property);
-        if (null != cache) {
+        if (null != meta) {
+            propertySetter = meta.cachePropertySetter(property, propertySetter);
+        } else if (null != cache) {
             cache.put(key, propertySetter);
         }
         return propertySetter;
     }
 
+    /**
+     * A compiled property path, e.g. `foo.bar[0].name` or `foo/bar/0/name`.
+     *
+     * The path is parsed once. Each segment remembers the property handler resolved
+     * for the runtime class it has seen last, so evaluating the path again on entities
+     * of the same shape goes straight to the handlers without any string processing or
+     * registry lookup.
+     *
+     * Compiled paths are interned by {@link #of(String)}, which backs
+     * {@link #getProperty(Object, String)} and {@link #setProperty(Object, Object, String)}.
+     * Instances are thread safe.
+     */
+    public static final class PropertyPath {
+
+        /**
+         * The max number of paths interned
+         */
+        static final int CACHE_LIMIT = 4096;
+
+        /**
+         * Path longer than this will not be interned
+         */
+        static final int MAX_CACHED_LENGTH = 256;
+
+        private static final ConcurrentMap<String, PropertyPath> cache = new ConcurrentHashMap<>();
+
+        private final String path;
+        private final Segment[] segments;
+        // a path without separator applies to the entity directly
+        private final boolean simple;
+
+        private PropertyPath(String path, String[] names, boolean simple) {
+            this.path = path;
+            this.simple = simple;
+            int len = names.length;
+            this.segments = new Segment[len];
+            for (int i = 0; i < len; ++i) {
+                segments[i] = new Segment(names[i], i == 0 ? names[i] : names[i - 1]);
+            }
+        }
+
+        /**
+         * Evaluate the path on an entity.
+         *
+         * @param entity
+         *      the entity
+         * @param <T>
+         *      the property type
+         * @return the property value or `null` if any value on the path is `null`
+         * @see #getProperty(Object, String)
+         */
+        public <T> T get(Object entity) {
+            if (null == entity) {
+                return null;
+            }
+            if (simple) {
+                Segment seg = segments[0];
+                return cast(seg.getter(entity).get(entity, seg.name));
+            }
+            Object lastEntity = null;
+            for (int i = 0, len = segments.length; i < len; ++i) {
+                Segment seg = segments[i];
+                if (entity instanceof ValueObject) {
+                    ValueObject vo = (ValueObject) entity;
+                    if (vo.isUDF()) {
+                        entity = vo.value();
+                        if (null == entity) {
+                            return null;
+                        }
+                    }
+                }
+                Object next;
+                if (entity instanceof List) {
+                    ListPropertyGetter getter = seg.handler(Segment.LIST_GETTER, lastEntity);
+                    if (seg.isIndex) {
+                        next = getter.get(entity, seg.index);
+                    } else {
+                        // See https://github.com/osglworks/java-tool/issues/20
+                        next = getter.get(entity, 0);
+                        // we injected a '.0' into the path thus we must retreat one step
+                        i -= 1;
+                    }
+                } else if (entity.getClass().isArray()) {
+                    if (seg.isIndex) {
+                        next = element(entity, seg.index);
+                    } else {
+                        next = element(entity, 0);
+                        i -= 1;
+                    }
+                } else if (entity instanceof Map) {
+                    PropertyGetter getter = seg.handler(Segment.MAP_GETTER, lastEntity);
+                    if (null == getter) {
+                        getter = seg.getter(entity);
+                    }
+                    next = getter.get(entity, seg.name);
+                } else {
+                    next = seg.getter(entity).get(entity, null);
+                }
+                if (null == next) {
+                    return null;
+                }
+                lastEntity = entity;
+                entity = next;
+            }
+            return cast(entity);
+        }
+
+        /**
+         * Set value to the property on an entity specified by this path. Values
+         * missing on the path are created.
+         *
+         * @param entity
+         *      the entity
+         * @param val
+         *      the value
+         * @see #setProperty(Object, Object, String)
+         */
+        public void set(Object entity, Object val) {
+            E.NPE(entity);
+            if (simple) {
+                Segment seg = segments[0];
+                seg.<PropertySetter>handler(Segment.SETTER, entity).set(entity, val, seg.name);
+                return;
+            }
+            Object lastEntity = null;
+            for (int i = 0, last = segments.length - 1; i <= last; ++i) {
+                Segment seg = segments[i];
+                boolean isLast = i == last;
+                PropertyGetter getter;
+                Object index;
+                if (entity instanceof List) {
+                    if (isLast) {
+                        seg.<PropertySetter>handler(Segment.LIST_SETTER, lastEntity).set(entity, val, seg.index);
+                        return;
+                    }
+                    getter = seg.handler(Segment.LIST_CREATOR, lastEntity);
+                    index = seg.index;
+                } else if (entity instanceof Map) {
+                    if (isLast) {
+                        seg.<PropertySetter>handler(Segment.MAP_SETTER, lastEntity).set(entity, val, seg.name);
+                        return;
+                    }
+                    getter = seg.handler(Segment.MAP_CREATOR, lastEntity);
+                    index = seg.name;
+                } else {
+                    if (isLast) {
+                        seg.<PropertySetter>handler(Segment.SETTER, entity).set(entity, val, null);
+                        return;
+                    }
+                    getter = seg.handler(Segment.FIELD_GETTER, entity);
+                    index = null;
+                }
+                lastEntity = entity;
+                entity = getter.get(entity, index);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return path;
+        }
+
+        /**
+         * Returns the compiled path. Paths are interned in a bounded cache, which is
+         * cleared when it is full.
+         *
+         * @param path
+         *      the property path, segments are separated by `.` or `/`, list and
+         *      array elements can be referenced with `[n]`
+         * @return the compiled path
+         */
+        public static PropertyPath of(String path) {
+            PropertyPath compiled = cache.get(path);
+            if (null == compiled) {
+                compiled = compile(path);
+                if (path.length() <= MAX_CACHED_LENGTH) {
+                    if (cache.size() >= CACHE_LIMIT) {
+                        cache.clear();
+                    }
+                    PropertyPath existing = cache.putIfAbsent(path, compiled);
+                    if (null != existing) {
+                        compiled = existing;
+                    }
+                }
+            }
+            return compiled;
+        }
+
+        private static PropertyPath compile(String path) {
+            String s = path;
+            if (s.contains("]")) {
+                s = s.replace('[', '.').replace("]", "");
+            }
+            String[] names;
+            if (s.contains(".")) {
+                names = s.split("\\.");
+            } else if (s.contains("/")) {
+                names = s.split("\\/");
+            } else {
+                return new PropertyPath(path, new String[]{s}, true);
+            }
+            E.illegalArgumentIf(names.length < 1, "invalid property path: %s", path);
+            return new PropertyPath(path, names, false);
+        }
+
+        private static Object element(Object array, Object index) {
+            int id = index instanceof Integer ? (Integer) index : Integer.parseInt(S.string(index));
+            return id > -1 && id < Array.getLength(array) ? Array.get(array, id) : null;
+        }
+
+        private static final class Segment {
+            static final int GETTER = 0;
+            static final int FIELD_GETTER = 1;
+            static final int SETTER = 2;
+            static final int LIST_GETTER = 3;
+            static final int LIST_CREATOR = 4;
+            static final int LIST_SETTER = 5;
+            static final int MAP_GETTER = 6;
+            static final int MAP_CREATOR = 7;
+            static final int MAP_SETTER = 8;
+
+            final String name;
+            final String lastName;
+            final boolean isIndex;
+            // element index for list, Integer if the name can be parsed
+            final Object index;
+            // handlers resolved for the class seen last, indexed by handler kind
+            private final Site[] sites = new Site[9];
+
+            Segment(String name, String lastName) {
+                this.name = name;
+                this.lastName = lastName;
+                this.isIndex = N.isInt(name);
+                Object index = name;
+                if (isIndex) {
+                    try {
+                        index = Integer.valueOf(name);
+                    } catch (NumberFormatException e) {
+                        // keep the name so the handler reports it
+                    }
+                }
+                this.index = index;
+            }
+
+            PropertyGetter getter(Object entity) {
+                return handler(GETTER, entity);
+            }
+
+            /*
+             * Returns the handler of specified kind. Bean property handlers are keyed
+             * by the class of the entity, list and map handlers by the class of the
+             * entity that holds the list or map, which declares the element type.
+             */
+            @SuppressWarnings("unchecked")
+            <T> T handler(int kind, Object keyEntity) {
+                Class<?> type = null == keyEntity ? null : keyEntity.getClass();
+                Site site = sites[kind];
+                if (null == site || site.type != type) {
+                    site = new Site(type, resolve(kind, keyEntity));
+                    sites[kind] = site;
+                }
+                return (T) site.handler;
+            }
+
+            private Object resolve(int kind, Object keyEntity) {
+                CacheService internalCache = OsglConfig.internalCache();
+                switch (kind) {
+                    case GETTER:
+                        return propertyGetter(internalCache, keyEntity, name, false);
+                    case FIELD_GETTER:
+                        return propertyGetter(internalCache, keyEntity, name, true);
+                    case SETTER:
+                        return propertySetter(internalCache, keyEntity, name);
+                    case LIST_SETTER:
+                        return propertyHandlerFactory.createListPropertySetter(typeParam(keyEntity, 0));
+                    case LIST_GETTER:
+                    case LIST_CREATOR:
+                        ListPropertyGetter listGetter = propertyHandlerFactory.createListPropertyGetter(typeParam(keyEntity, 0));
+                        if (LIST_CREATOR == kind) {
+                            listGetter.setNullValuePolicy(PropertyGetter.NullValuePolicy.CREATE_NEW);
+                        }
+                        return listGetter;
+                    case MAP_SETTER:
+                        return propertyHandlerFactory.createMapPropertySetter(typeParam(keyEntity, 0), typeParam(keyEntity, 1));
+                    case MAP_GETTER:
+                        List<Class<?>> types = null == keyEntity ? null : findPropertyParameterizedType(keyEntity, lastName);
+                        if (null == types || types.size() < 2) {
+                            // fall back to bean property getter on the map
+                            return null;
+                        }
+                        return propertyHandlerFactory.createMapPropertyGetter(types.get(0), types.get(1));
+                    case MAP_CREATOR:
+                        MapPropertyGetter mapGetter = propertyHandlerFactory.createMapPropertyGetter(typeParam(keyEntity, 0), typeParam(keyEntity, 1));
+                        mapGetter.setNullValuePolicy(PropertyGetter.NullValuePolicy.CREATE_NEW);
+                        return mapGetter;
+                    default:
+                        throw E.unexpected("unknown handler kind: %s", kind);
+                }
+            }
+
+            private Class<?> typeParam(Object keyEntity, int pos) {
+                List<Class<?>> types = null == keyEntity ? null : findPropertyParameterizedType(keyEntity, lastName);
+                return null == types || types.size() <= pos ? Object.class : types.get(pos);
+            }
+        }
+
+        private static final class Site {
+            final Class<?> type;
+            final Object handler;
+
+            Site(Class<?> type, Object handler) {
+                this.type = type;
+                this.handler = handler;
+            }
+        }
+    }
+
     public static <T> byte[] serialize(T obj) {
         E.NPE(obj);
         try {
@@ -9921,42 +10046,11 @@ public class Lang implements Serializable {
     }
 
     /**
-     * The default thread factory
-     */
-    private static class DefaultThreadFactory implements ThreadFactory {
-        private static final AtomicInteger poolNumber = new AtomicInteger(1);
-        private final ThreadGroup group;
-        private final AtomicInteger threadNumber = new AtomicInteger(1);
-        private final String namePrefix;
-
-        DefaultThreadFactory() {
-            SecurityManager s = System.getSecurityManager();
-            group = (s != null) ? s.getThreadGroup() :
-                    Thread.currentThread().getThreadGroup();
-            namePrefix = "pool-" +
-                    poolNumber.getAndIncrement() +
-                    "-thread-";
-        }
-
-        public Thread newThread(Runnable r) {
-            Thread t = new Thread(group, r,
-                    namePrefix + threadNumber.getAndIncrement(),
-                    0);
-            if (!t.isDaemon())
-                t.setDaemon(true);
-            if (t.getPriority() != Thread.NORM_PRIORITY)
-                t.setPriority(Thread.NORM_PRIORITY);
-            return t;
-        }
-    }
-
-    private static ExecutorService _exec = new ThreadPoolExecutor(2, 2,
-            0L, TimeUnit.MILLISECONDS,
-            new LinkedBlockingQueue<Runnable>(), new DefaultThreadFactory() {
-    });
-
-    /**
-     * Execute callback asynchronously after delay specified
+     * Execute callback asynchronously after delay specified.
+     *
+     * The callback is scheduled on the {@link Scheduler#defaultScheduler() default scheduler},
+     * thus it does not occupy a thread while waiting for the delay. Use
+     * {@link Scheduler} directly for cancellation, repeating and composition.
      *
      * @param callback
      *         the callback function to be executed
@@ -9967,13 +10061,7 @@ public class Lang implements Serializable {
      * @return the result of the callback
      */
     public static <T> Future<T> async(final F0<T> callback, final int milliseconds) {
-        return _exec.submit(new Callable<T>() {
-            @Override
-            public T call() throws Exception {
-                Thread.sleep(milliseconds);
-                return callback.apply();
-            }
-        });
+        return Scheduler.defaultScheduler().schedule(callback, milliseconds, TimeUnit.MILLISECONDS);
     }
 
     private static ContextLocal.Factory clf;
@@ -32,6 +32,7 @@ import java.io.InputStream;
 import java.net.URL;
 import java.nio.CharBuffer;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.regex.Pattern;
 import javax.inject.Singleton;
 
@@ -77,10 +78,18 @@ public class OsglConfig {
             } else if (C.List.class == aClass) {
                 return C.newList();
             }
+            for (InstanceFactory factory : instanceFactories) {
+                Object o = factory.newInstance(aClass);
+                if (null != o) {
+                    return o;
+                }
+            }
             return $.newInstance(aClass);
         }
     };
 
+    private static final List<InstanceFactory> instanceFactories = new CopyOnWriteArrayList<>();
+
     public static $.Function<Class, ?> globalInstanceFactory() {
         return INSTANCE_FACTORY;
     }
@@ -105,6 +114,25 @@ public class OsglConfig {
         INSTANCE_FACTORY = $.requireNotNull(instanceFactory);
     }
 
+    /**
+     * Register an {@link InstanceFactory} to be consulted by the default
+     * {@link #globalInstanceFactory() global instance factory}.
+     *
+     * @param instanceFactory the instance factory
+     */
+    public static void registerInstanceFactory(InstanceFactory instanceFactory) {
+        instanceFactories.add($.requireNotNull(instanceFactory));
+    }
+
+    /**
+     * Remove an {@link InstanceFactory} registered with {@link #registerInstanceFactory(InstanceFactory)}.
+     *
+     * @param instanceFactory the instance factory
+     */
+    public static void unregisterInstanceFactory(InstanceFactory instanceFactory) {
+        instanceFactories.remove(instanceFactory);
+    }
+
     private static final Set<String> immutableClassNames = new HashSet<>();
     private static $.Predicate<Class> immutableClassPredicate = $.F.no();
     static {
@@ -305,7 +333,19 @@ public class OsglConfig {
         binaryDataProbe = $.requireNotNull(probe);
     }
 
-    private static $.Predicate<Readable> binaryDataProbe = new $.Predicate<Readable>() {
+    /**
+     * Check if a binary data probe has been registered through {@link #registerBinaryDataProbe($.Predicate)}.
+     *
+     * When not, {@link org.osgl.storage.impl.SObject} probes binary data with
+     * {@link org.osgl.util.ContentSniffer} instead of decoding the content.
+     *
+     * @return `true` if the default binary data probe has been replaced
+     */
+    public static boolean customBinaryDataProbe() {
+        return DEFAULT_BINARY_DATA_PROBE != binaryDataProbe;
+    }
+
+    private static final $.Predicate<Readable> DEFAULT_BINARY_DATA_PROBE = new $.Predicate<Readable>() {
         @Override
         public boolean test(Readable readable) {
             CharBuffer buf = CharBuffer.allocate(100);
@@ -332,6 +372,8 @@ public class OsglConfig {
         }
     };
 
+    private static $.Predicate<Readable> binaryDataProbe = DEFAULT_BINARY_DATA_PROBE;
+
     private static String xmlRootTag = "xml";
     public static void setXmlRootTag(String tag) {
         xmlRootTag = S.requireNotBlank(tag);
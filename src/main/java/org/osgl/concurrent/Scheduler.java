@@ -0,0 +1,761 @@
+package org.osgl.concurrent;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.osgl.$;
+import org.osgl.util.E;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs {@link $.Func0 callbacks} after a delay or repeatedly.
+ *
+ * Timing is handled by a single timer thread which never runs a callback: when
+ * a task is due the timer hands it over to the worker pool. Thus a delayed task
+ * does not occupy a worker thread while it is waiting, and a slow callback does
+ * not hold up other due tasks unless the worker pool is saturated.
+ *
+ * By default the workers are daemon threads in a pool sized to the number of
+ * processors. Any {@link ExecutorService} can be supplied instead, in which case
+ * the caller is responsible for shutting it down.
+ *
+ * Each scheduled callback is represented by a {@link Task}, which can be
+ * cancelled and composed with {@link Task#map(org.osgl.Lang.Function) map},
+ * {@link Task#flatMap(org.osgl.Lang.Function) flatMap} etc. The queue depth and
+ * the dispatch lag of the scheduler are exposed via {@link #metrics()}.
+ */
+public class Scheduler {
+
+    /**
+     * Queue and lag statistics of a {@link Scheduler}.
+     *
+     * The lag of an execution is the time elapsed between the moment the
+     * task is due and the moment a worker starts running it.
+     */
+    public static class Metrics {
+        private final ScheduledThreadPoolExecutor timer;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong executions = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong cancellations = new AtomicLong();
+        private final AtomicLong totalLag = new AtomicLong();
+        private final AtomicLong maxLag = new AtomicLong();
+
+        private Metrics(ScheduledThreadPoolExecutor timer) {
+            this.timer = timer;
+        }
+
+        /**
+         * Returns the number of tasks waiting for their due time.
+         */
+        public int delayed() {
+            return timer.getQueue().size();
+        }
+
+        /**
+         * Returns the number of due tasks waiting for a worker.
+         */
+        public int queued() {
+            return queued.get();
+        }
+
+        /**
+         * Returns the number of tasks that have not been started yet, i.e.
+         * the sum of {@link #delayed()} and {@link #queued()}.
+         */
+        public int queueDepth() {
+            return delayed() + queued();
+        }
+
+        /**
+         * Returns the number of tasks submitted to the scheduler.
+         */
+        public long submitted() {
+            return submitted.get();
+        }
+
+        /**
+         * Returns the number of callback executions started. A repeating
+         * task counts once per execution.
+         */
+        public long executions() {
+            return executions.get();
+        }
+
+        /**
+         * Returns the number of callback executions that raised an exception.
+         */
+        public long failures() {
+            return failures.get();
+        }
+
+        /**
+         * Returns the number of tasks cancelled.
+         */
+        public long cancellations() {
+            return cancellations.get();
+        }
+
+        /**
+         * Returns the max lag observed.
+         *
+         * @param unit the time unit of the result
+         * @return the max lag
+         */
+        public long maxLag(TimeUnit unit) {
+            return unit.convert(maxLag.get(), TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Returns the average lag of all executions.
+         *
+         * @param unit the time unit of the result
+         * @return the average lag or `0` if nothing has been executed yet
+         */
+        public long averageLag(TimeUnit unit) {
+            long n = executions.get();
+            return 0 == n ? 0 : unit.convert(totalLag.get() / n, TimeUnit.NANOSECONDS);
+        }
+
+        private void recordLag(long lag) {
+            if (lag < 0) {
+                lag = 0;
+            }
+            executions.incrementAndGet();
+            totalLag.addAndGet(lag);
+            long max = maxLag.get();
+            while (lag > max && !maxLag.compareAndSet(max, lag)) {
+                max = maxLag.get();
+            }
+        }
+    }
+
+    /**
+     * The handle of a scheduled callback or of a computation derived from it.
+     *
+     * Callbacks registered through the composition methods run in the thread
+     * that completes this task, or in the caller thread if this task has
+     * already been completed. Exceptions raised by such callbacks fail the
+     * derived task only.
+     *
+     * @param <T> the type of the result
+     */
+    public static class Task<T> implements Future<T> {
+        private static final int PENDING = 0;
+        private static final int SUCCEEDED = 1;
+        private static final int FAILED = 2;
+        private static final int CANCELLED = 3;
+
+        // guarded by this
+        private int state;
+        private T result;
+        private Throwable cause;
+        private List<Runnable> listeners;
+
+        private Task() {
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (!settle(CANCELLED, null, new CancellationException())) {
+                return false;
+            }
+            cancelled(mayInterruptIfRunning);
+            return true;
+        }
+
+        @Override
+        public synchronized boolean isCancelled() {
+            return CANCELLED == state;
+        }
+
+        @Override
+        public synchronized boolean isDone() {
+            return PENDING != state;
+        }
+
+        /**
+         * Returns `true` if the task completed with an exception.
+         */
+        public synchronized boolean isFailed() {
+            return FAILED == state;
+        }
+
+        @Override
+        public synchronized T get() throws InterruptedException, ExecutionException {
+            while (PENDING == state) {
+                wait();
+            }
+            return report();
+        }
+
+        @Override
+        public synchronized T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            long remaining = unit.toNanos(timeout);
+            long deadline = System.nanoTime() + remaining;
+            while (PENDING == state) {
+                if (remaining <= 0) {
+                    throw new TimeoutException();
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                remaining = deadline - System.nanoTime();
+            }
+            return report();
+        }
+
+        /**
+         * Returns a task completed with the result of applying the function
+         * to the result of this task.
+         *
+         * @param fn the function
+         * @param <R> the type of the result of the new task
+         * @return the new task
+         */
+        public <R> Task<R> map(final $.Function<? super T, ? extends R> fn) {
+            final Task<R> next = new Task<>();
+            whenSettled(new Runnable() {
+                @Override
+                public void run() {
+                    Throwable failure = failure();
+                    if (null != failure) {
+                        next.fail(failure);
+                        return;
+                    }
+                    try {
+                        next.succeed(fn.apply(result()));
+                    } catch (Throwable t) {
+                        next.fail(t);
+                    }
+                }
+            });
+            return next;
+        }
+
+        /**
+         * Returns a task completed with the result of the task returned by
+         * applying the function to the result of this task.
+         *
+         * @param fn the function
+         * @param <R> the type of the result of the new task
+         * @return the new task
+         */
+        public <R> Task<R> flatMap(final $.Function<? super T, Task<R>> fn) {
+            final Task<R> next = new Task<>();
+            whenSettled(new Runnable() {
+                @Override
+                public void run() {
+                    Throwable failure = failure();
+                    if (null != failure) {
+                        next.fail(failure);
+                        return;
+                    }
+                    final Task<R> inner;
+                    try {
+                        inner = fn.apply(result());
+                    } catch (Throwable t) {
+                        next.fail(t);
+                        return;
+                    }
+                    inner.whenSettled(new Runnable() {
+                        @Override
+                        public void run() {
+                            next.copy(inner);
+                        }
+                    });
+                }
+            });
+            return next;
+        }
+
+        /**
+         * Returns a task completed with the result of this task or, if this
+         * task fails or is cancelled, with the result of applying the function
+         * to the exception.
+         *
+         * @param fn the function
+         * @return the new task
+         */
+        public Task<T> recover(final $.Function<? super Throwable, ? extends T> fn) {
+            final Task<T> next = new Task<>();
+            whenSettled(new Runnable() {
+                @Override
+                public void run() {
+                    Throwable failure = failure();
+                    if (null == failure) {
+                        next.succeed(result());
+                        return;
+                    }
+                    try {
+                        next.succeed(fn.apply(failure));
+                    } catch (Throwable t) {
+                        next.fail(t);
+                    }
+                }
+            });
+            return next;
+        }
+
+        /**
+         * Calls the callback with the result once this task succeeds.
+         *
+         * @param callback the callback
+         * @return a task completed with the result of this task after the callback returns
+         */
+        public Task<T> onSuccess(final $.Function<? super T, ?> callback) {
+            final Task<T> next = new Task<>();
+            whenSettled(new Runnable() {
+                @Override
+                public void run() {
+                    Throwable failure = failure();
+                    if (null != failure) {
+                        next.fail(failure);
+                        return;
+                    }
+                    try {
+                        callback.apply(result());
+                        next.succeed(result());
+                    } catch (Throwable t) {
+                        next.fail(t);
+                    }
+                }
+            });
+            return next;
+        }
+
+        /**
+         * Calls the callback with the exception once this task fails or is cancelled.
+         *
+         * @param callback the callback
+         * @return a task completed the same way as this task after the callback returns
+         */
+        public Task<T> onFailure(final $.Function<? super Throwable, ?> callback) {
+            final Task<T> next = new Task<>();
+            whenSettled(new Runnable() {
+                @Override
+                public void run() {
+                    Throwable failure = failure();
+                    if (null != failure) {
+                        try {
+                            callback.apply(failure);
+                        } catch (Throwable t) {
+                            next.fail(t);
+                            return;
+                        }
+                    }
+                    next.copy(Task.this);
+                }
+            });
+            return next;
+        }
+
+        boolean succeed(T value) {
+            return settle(SUCCEEDED, value, null);
+        }
+
+        boolean fail(Throwable t) {
+            return settle(FAILED, null, t);
+        }
+
+        /*
+         * Called after this task has been cancelled
+         */
+        void cancelled(boolean mayInterruptIfRunning) {
+        }
+
+        private synchronized T result() {
+            return result;
+        }
+
+        /*
+         * Returns the exception of a failed or cancelled task
+         */
+        private synchronized Throwable failure() {
+            return cause;
+        }
+
+        private void copy(Task<T> source) {
+            Throwable failure = source.failure();
+            if (null == failure) {
+                succeed(source.result());
+            } else {
+                fail(failure);
+            }
+        }
+
+        private boolean settle(int state, T value, Throwable cause) {
+            List<Runnable> toRun;
+            synchronized (this) {
+                if (PENDING != this.state) {
+                    return false;
+                }
+                this.state = state;
+                this.result = value;
+                this.cause = cause;
+                toRun = listeners;
+                listeners = null;
+                notifyAll();
+            }
+            if (null != toRun) {
+                for (Runnable r : toRun) {
+                    r.run();
+                }
+            }
+            return true;
+        }
+
+        private void whenSettled(Runnable listener) {
+            synchronized (this) {
+                if (PENDING == state) {
+                    if (null == listeners) {
+                        listeners = new ArrayList<>(2);
+                    }
+                    listeners.add(listener);
+                    return;
+                }
+            }
+            listener.run();
+        }
+
+        private T report() throws ExecutionException {
+            switch (state) {
+                case SUCCEEDED:
+                    return result;
+                case CANCELLED:
+                    throw new CancellationException();
+                default:
+                    throw new ExecutionException(cause);
+            }
+        }
+    }
+
+    /*
+     * A task backed by a callback. `period` follows the ScheduledThreadPoolExecutor
+     * convention: positive for fixed rate, negative for fixed delay and zero for
+     * one shot execution.
+     */
+    private static final int NO_INTERRUPT = 0;
+    private static final int INTERRUPTING = 1;
+    private static final int INTERRUPTED = 2;
+
+    private class ScheduledTask<T> extends Task<T> implements Runnable {
+        private final $.Func0<T> callback;
+        private final long period;
+        // written before handing the task over to the timer or workers
+        private long due;
+        private volatile Future<?> timerFuture;
+        private volatile Thread runner;
+        // the interrupt sent by cancel(true), see awaitCancelInterrupt()
+        private final AtomicInteger interrupt = new AtomicInteger(NO_INTERRUPT);
+
+        private final Runnable dispatcher = new Runnable() {
+            @Override
+            public void run() {
+                dispatch();
+            }
+        };
+
+        ScheduledTask($.Func0<T> callback, long period) {
+            this.callback = $.requireNotNull(callback);
+            this.period = period;
+        }
+
+        @Override
+        public void run() {
+            metrics.queued.decrementAndGet();
+            if (isDone()) {
+                return;
+            }
+            metrics.recordLag(System.nanoTime() - due);
+            runner = Thread.currentThread();
+            try {
+                if (isDone()) {
+                    // cancelled before runner is published
+                    return;
+                }
+                T value = callback.apply();
+                if (0 == period) {
+                    succeed(value);
+                }
+            } catch ($.Break b) {
+                succeed(b.<T>get());
+            } catch (Throwable t) {
+                metrics.failures.incrementAndGet();
+                fail(t);
+            } finally {
+                runner = null;
+                awaitCancelInterrupt();
+            }
+            if (!isDone()) {
+                long now = System.nanoTime();
+                armAt(period > 0 ? due + period : now - period, now);
+            }
+        }
+
+        @Override
+        void cancelled(boolean mayInterruptIfRunning) {
+            metrics.cancellations.incrementAndGet();
+            Future<?> f = timerFuture;
+            if (null != f) {
+                f.cancel(false);
+            }
+            if (mayInterruptIfRunning && interrupt.compareAndSet(NO_INTERRUPT, INTERRUPTING)) {
+                Thread t = runner;
+                if (null == t) {
+                    interrupt.set(NO_INTERRUPT);
+                    return;
+                }
+                try {
+                    t.interrupt();
+                } finally {
+                    interrupt.set(INTERRUPTED);
+                }
+            }
+        }
+
+        /*
+         * Called by the runner after `runner` is cleared. If cancel(true) has
+         * read the runner, wait until the interrupt is delivered and clear it,
+         * so it does not hit the next task run by this worker thread. A cancel
+         * coming later reads a `null` runner and does not interrupt.
+         */
+        private void awaitCancelInterrupt() {
+            int state = interrupt.get();
+            while (INTERRUPTING == state) {
+                Thread.yield();
+                state = interrupt.get();
+            }
+            if (INTERRUPTED == state) {
+                Thread.interrupted();
+            }
+        }
+
+        void armAt(long due, long now) {
+            this.due = due;
+            long delay = due - now;
+            if (delay <= 0) {
+                dispatch();
+                return;
+            }
+            try {
+                Future<?> f = timer.schedule(dispatcher, delay, TimeUnit.NANOSECONDS);
+                timerFuture = f;
+                if (isDone()) {
+                    // cancelled before the timer future was published
+                    f.cancel(false);
+                }
+            } catch (RejectedExecutionException e) {
+                fail(e);
+            }
+        }
+
+        private void dispatch() {
+            if (isDone()) {
+                return;
+            }
+            metrics.queued.incrementAndGet();
+            try {
+                workers.execute(this);
+            } catch (RejectedExecutionException e) {
+                metrics.queued.decrementAndGet();
+                fail(e);
+            }
+        }
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+        private final String namePrefix;
+
+        DaemonThreadFactory(String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, namePrefix + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            t.setPriority(Thread.NORM_PRIORITY);
+            return t;
+        }
+    }
+
+    private static class DefaultSchedulerHolder {
+        static final Scheduler INSTANCE = new Scheduler();
+    }
+
+    private static final AtomicInteger schedulerNumber = new AtomicInteger(1);
+
+    private final ScheduledThreadPoolExecutor timer;
+    private final ExecutorService workers;
+    private final boolean ownWorkers;
+    private final Metrics metrics;
+
+    /**
+     * Construct a scheduler with a daemon worker pool sized to the number
+     * of processors, at least `2`.
+     */
+    public Scheduler() {
+        this(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Construct a scheduler with a daemon worker pool of the size specified.
+     *
+     * @param workerThreads the number of worker threads
+     */
+    public Scheduler(int workerThreads) {
+        this(newWorkerPool(workerThreads), true);
+    }
+
+    /**
+     * Construct a scheduler that runs callbacks with the executor specified.
+     *
+     * The executor is not shut down by {@link #shutdown()}.
+     *
+     * @param workers the executor that runs the callbacks
+     */
+    public Scheduler(ExecutorService workers) {
+        this($.requireNotNull(workers), false);
+    }
+
+    private Scheduler(ExecutorService workers, boolean ownWorkers) {
+        int n = schedulerNumber.getAndIncrement();
+        this.timer = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("osgl-scheduler-" + n + "-timer-"));
+        this.timer.setRemoveOnCancelPolicy(true);
+        this.workers = workers;
+        this.ownWorkers = ownWorkers;
+        this.metrics = new Metrics(timer);
+    }
+
+    /**
+     * Returns the shared scheduler backing {@link org.osgl.Lang#async(org.osgl.Lang.F0, int)}.
+     */
+    public static Scheduler defaultScheduler() {
+        return DefaultSchedulerHolder.INSTANCE;
+    }
+
+    /**
+     * Run the callback as soon as a worker is available.
+     *
+     * @param callback the callback
+     * @param <T> the type of the result
+     * @return the task
+     */
+    public <T> Task<T> submit($.Func0<T> callback) {
+        return start(new ScheduledTask<>(callback, 0), 0);
+    }
+
+    /**
+     * Run the callback once after the delay specified.
+     *
+     * @param callback the callback
+     * @param delay the delay
+     * @param unit the time unit of the delay
+     * @param <T> the type of the result
+     * @return the task
+     */
+    public <T> Task<T> schedule($.Func0<T> callback, long delay, TimeUnit unit) {
+        return start(new ScheduledTask<>(callback, 0), unit.toNanos(delay));
+    }
+
+    /**
+     * Run the callback repeatedly, starting after `initialDelay` and then
+     * every `period`. If an execution takes longer than the period, the next
+     * one starts late but never concurrently.
+     *
+     * The repetition stops when the task is cancelled, when the callback
+     * raises an exception, which fails the task, or when the callback throws
+     * a {@link $.Break}, whose payload becomes the result of the task.
+     *
+     * @param callback the callback
+     * @param initialDelay the delay of the first execution
+     * @param period the period between the start of successive executions
+     * @param unit the time unit of the delay and the period
+     * @param <T> the type of the {@link $.Break} payload
+     * @return the task
+     */
+    public <T> Task<T> scheduleAtFixedRate($.Func0<T> callback, long initialDelay, long period, TimeUnit unit) {
+        long nanos = unit.toNanos(period);
+        E.illegalArgumentIf(nanos <= 0, "period must be positive");
+        return start(new ScheduledTask<>(callback, nanos), unit.toNanos(initialDelay));
+    }
+
+    /**
+     * Run the callback repeatedly, starting after `initialDelay` and then
+     * with `delay` between the end of an execution and the start of the next.
+     *
+     * The repetition stops the same way as {@link #scheduleAtFixedRate(org.osgl.Lang.Func0, long, long, TimeUnit)}.
+     *
+     * @param callback the callback
+     * @param initialDelay the delay of the first execution
+     * @param delay the delay between successive executions
+     * @param unit the time unit of the delays
+     * @param <T> the type of the {@link $.Break} payload
+     * @return the task
+     */
+    public <T> Task<T> scheduleWithFixedDelay($.Func0<T> callback, long initialDelay, long delay, TimeUnit unit) {
+        long nanos = unit.toNanos(delay);
+        E.illegalArgumentIf(nanos <= 0, "delay must be positive");
+        return start(new ScheduledTask<>(callback, -nanos), unit.toNanos(initialDelay));
+    }
+
+    /**
+     * Returns the metrics of this scheduler.
+     */
+    public Metrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Stop accepting new tasks. Delayed tasks still get dispatched when due, but
+     * fail with {@link RejectedExecutionException} if the worker pool has been
+     * shut down, which is the case unless the workers were supplied by the caller.
+     */
+    public void shutdown() {
+        timer.shutdown();
+        if (ownWorkers) {
+            workers.shutdown();
+        }
+    }
+
+    private <T> Task<T> start(ScheduledTask<T> task, long delay) {
+        metrics.submitted.incrementAndGet();
+        long now = System.nanoTime();
+        task.armAt(now + Math.max(0, delay), now);
+        return task;
+    }
+
+    private static ExecutorService newWorkerPool(int threads) {
+        E.illegalArgumentIf(threads < 1, "threads must be positive");
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads,
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new DaemonThreadFactory("osgl-scheduler-" + schedulerNumber.get() + "-worker-"));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+}
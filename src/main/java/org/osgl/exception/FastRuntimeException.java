@@ -39,14 +39,17 @@ package org.osgl.exception;
  * #L%
  */
 
-import org.osgl.util.S;
-
 /**
  * Runtime exception without fill the stack trace. Which
  * makes it much faster
+ *
+ * When constructed with message template and arguments, the message
+ * is formatted lazily, see {@link LazyMessage}.
  */
 public class FastRuntimeException extends RuntimeException {
 
+    private LazyMessage lazyMessage;
+
     public FastRuntimeException(){
         super();
     }
@@ -56,7 +59,8 @@ public class FastRuntimeException extends RuntimeException {
     }
 
     public FastRuntimeException(String message, Object... args) {
-        super(S.fmt(message, args));
+        super(message);
+        this.lazyMessage = LazyMessage.of(message, args);
     }
 
     public FastRuntimeException(Throwable cause){
@@ -64,7 +68,26 @@ public class FastRuntimeException extends RuntimeException {
     }
 
     public FastRuntimeException(Throwable cause, String message, Object... args) {
-        super(S.fmt(message, args), cause);
+        super(message, cause);
+        this.lazyMessage = LazyMessage.of(message, args);
+    }
+
+    /**
+     * Construct a `FastRuntimeException` with suppression and writable stack trace
+     * enabled or disabled. Disabling both makes the exception instance immutable
+     * and thus safe to be preallocated and shared across threads as a signal.
+     *
+     * @param message
+     *      the detail message
+     * @param cause
+     *      the cause
+     * @param enableSuppression
+     *      whether or not suppression is enabled
+     * @param writableStackTrace
+     *      whether or not the stack trace should be writable
+     */
+    protected FastRuntimeException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
     }
 
     @Override
@@ -75,4 +98,15 @@ public class FastRuntimeException extends RuntimeException {
     public Throwable doFillInStackTrace() {
         return super.fillInStackTrace();
     }
+
+    /**
+     * Returns the detail message. If the exception is constructed with
+     * message template and arguments, see {@link LazyMessage}.
+     *
+     * @return the detail message
+     */
+    @Override
+    public String getMessage() {
+        return null == lazyMessage ? super.getMessage() : lazyMessage.get();
+    }
 }
@@ -39,13 +39,13 @@ package org.osgl.exception;
  * #L%
  */
 
-import org.osgl.util.S;
-
 /**
  * Argument(s) is not valid
  */
 public class InvalidArgException extends IllegalArgumentException {
 
+    private LazyMessage lazyMessage;
+
     public InvalidArgException() {
     }
     
@@ -54,7 +54,8 @@ public class InvalidArgException extends IllegalArgumentException {
     }
 
     public InvalidArgException(String message, Object... args){
-        super(S.fmt(message, args));
+        super(message);
+        this.lazyMessage = LazyMessage.of(message, args);
     }
 
     public InvalidArgException(Throwable cause){
@@ -77,5 +78,14 @@ public class InvalidArgException extends IllegalArgumentException {
         return e;
     }
 
-
+    /**
+     * Returns the detail message. If the exception is constructed with
+     * message template and arguments, see {@link LazyMessage}.
+     *
+     * @return the detail message
+     */
+    @Override
+    public String getMessage() {
+        return null == lazyMessage ? super.getMessage() : lazyMessage.get();
+    }
 }
@@ -0,0 +1,123 @@
+package org.osgl.exception;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.osgl.util.S;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IllegalFormatException;
+import java.util.Set;
+
+/**
+ * An exception message built from a template and arguments that is
+ * formatted the first time it is read, so exceptions that are caught and
+ * discarded do not pay for the formatting.
+ *
+ * Only arguments of immutable types, e.g. `String`, boxed primitives and
+ * enums, are kept until the message is formatted. If any argument is of
+ * other type, the message is formatted when it is constructed, as the
+ * caller might change that argument after the exception is thrown.
+ *
+ * The message is formatted before it is serialized, thus arguments need
+ * not be serializable.
+ */
+public final class LazyMessage implements Serializable {
+
+    private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class,
+            Long.class, Float.class, Double.class, BigInteger.class, BigDecimal.class, Class.class));
+
+    private final String template;
+    private transient Object[] args;
+    private String message;
+
+    private LazyMessage(String template, Object[] args) {
+        this.template = template;
+        this.args = args;
+    }
+
+    /**
+     * Returns the formatted message.
+     *
+     * If the template does not match the arguments, the template followed
+     * by the arguments is returned instead, as this method is usually
+     * called by a logger or an exception handler, where a formatting error
+     * would replace the exception being reported.
+     *
+     * @return the message
+     */
+    public synchronized String get() {
+        if (null == message) {
+            try {
+                message = S.fmt(template, args);
+            } catch (IllegalFormatException e) {
+                message = template + " " + Arrays.toString(args);
+            }
+            // no longer needed
+            args = null;
+        }
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return get();
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        get();
+        out.defaultWriteObject();
+    }
+
+    /**
+     * Create a lazy message from a template and arguments.
+     *
+     * @param template
+     *      the message template
+     * @param args
+     *      the message arguments
+     * @return the lazy message or `null` if `template` is `null` or there are no arguments
+     */
+    public static LazyMessage of(String template, Object... args) {
+        if (null == template || null == args || 0 == args.length) {
+            return null;
+        }
+        LazyMessage message = new LazyMessage(template, args);
+        for (Object arg : args) {
+            if (!isImmutable(arg)) {
+                message.get();
+                break;
+            }
+        }
+        return message;
+    }
+
+    private static boolean isImmutable(Object arg) {
+        return null == arg || arg instanceof Enum || IMMUTABLE_TYPES.contains(arg.getClass());
+    }
+
+}
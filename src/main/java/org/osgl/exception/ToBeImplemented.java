@@ -39,8 +39,6 @@ package org.osgl.exception;
  * #L%
  */
 
-import org.osgl.util.S;
-
 /**
  * Could be used when programmer think it is not logic to reach somewhere. 
  * For example, the default branch of a switch case on an enum value
@@ -56,7 +54,7 @@ public class ToBeImplemented extends UnsupportedException {
     }
 
     public ToBeImplemented(String message, Object... args){
-        super(S.fmt(message, args));
+        super(message, args);
     }
 
     public ToBeImplemented(Throwable cause){
@@ -64,6 +62,6 @@ public class ToBeImplemented extends UnsupportedException {
     }
 
     public ToBeImplemented(Throwable cause, String message, Object... args) {
-        super(S.fmt(message, args), cause);
+        super(cause, message, args);
     }
 }
@@ -39,14 +39,14 @@ package org.osgl.exception;
  * #L%
  */
 
-import org.osgl.util.S;
-
 /**
  * Could be used when programmer think it is not logic to reach somewhere. 
  * For example, the default branch of a switch case on an enum value
  */
 public class UnexpectedException extends RuntimeException {
 
+    private LazyMessage lazyMessage;
+
     public UnexpectedException(){
         super();
     }
@@ -56,7 +56,8 @@ public class UnexpectedException extends RuntimeException {
     }
 
     public UnexpectedException(String message, Object... args){
-        super(S.fmt(message, args));
+        super(message);
+        this.lazyMessage = LazyMessage.of(message, args);
     }
 
     public UnexpectedException(Throwable cause){
@@ -64,6 +65,18 @@ public class UnexpectedException extends RuntimeException {
     }
 
     public UnexpectedException(Throwable cause, String message, Object... args) {
-        super(S.fmt(message, args), cause);
+        super(message, cause);
+        this.lazyMessage = LazyMessage.of(message, args);
+    }
+
+    /**
+     * Returns the detail message. If the exception is constructed with
+     * message template and arguments, see {@link LazyMessage}.
+     *
+     * @return the detail message
+     */
+    @Override
+    public String getMessage() {
+        return null == lazyMessage ? super.getMessage() : lazyMessage.get();
     }
 }
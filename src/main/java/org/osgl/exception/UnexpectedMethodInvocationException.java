@@ -38,9 +38,21 @@ public class UnexpectedMethodInvocationException extends UnexpectedException {
     }
 
     public static RuntimeException triage(Exception exception) {
-        E.NPE(exception);
-        Throwable cause = (exception instanceof InvocationTargetException) ?
-                ((InvocationTargetException) exception).getTargetException() : exception;
+        return triage((Throwable) exception);
+    }
+
+    /**
+     * Triage a throwable raised by invoking a method, either reflectively or
+     * via method handle, which throws out the target exception directly.
+     *
+     * @param throwable
+     *      the throwable
+     * @return the cause if it is a runtime exception or an `UnexpectedMethodInvocationException` wrapping it
+     */
+    public static RuntimeException triage(Throwable throwable) {
+        E.NPE(throwable);
+        Throwable cause = (throwable instanceof InvocationTargetException) ?
+                ((InvocationTargetException) throwable).getTargetException() : throwable;
         return cause instanceof RuntimeException ? (RuntimeException) cause : new UnexpectedMethodInvocationException(cause);
     }
 }
@@ -42,7 +42,16 @@ public class UnexpectedNewInstanceException extends UnexpectedException {
         super(triage(cause), message, args);
     }
 
-    private static Throwable triage(Exception cause) {
+    /**
+     * Create an exception wrapping any throwable, e.g. one thrown through a
+     * {@link java.lang.invoke.MethodHandle}, which might be neither an
+     * {@link Exception} nor an {@link Error}.
+     */
+    public UnexpectedNewInstanceException(Throwable cause, String message, Object... args) {
+        super(triage(cause), message, args);
+    }
+
+    private static Throwable triage(Throwable cause) {
         E.NPE(cause);
         if (cause instanceof InvocationTargetException) {
             return ((InvocationTargetException) cause).getTargetException();
@@ -59,6 +59,10 @@ public class UnsupportedException extends UnexpectedException {
         super(cause);
     }
 
+    public UnsupportedException(Throwable cause, String message, Object... args) {
+        super(cause, message, args);
+    }
+
     /**
      * Convert to corresponding JDK exception. Warning, since there are synchronized method execution
      * please beware of the performance issue when calling this method
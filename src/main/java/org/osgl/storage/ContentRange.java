@@ -0,0 +1,172 @@
+package org.osgl.storage;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.osgl.util.E;
+import org.osgl.util.IO;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Implements the range access methods of {@link ISObject} on top of
+ * {@link ISObject#asInputStream()}.
+ */
+final class ContentRange {
+
+    private ContentRange() {
+    }
+
+    static void checkRange(long position, long length) {
+        E.illegalArgumentIf(position < 0, "position shall not be negative: %s", position);
+        E.illegalArgumentIf(length < -1, "invalid length: %s", length);
+    }
+
+    static ReadableByteChannel channel(ISObject sobj, long position, long length) {
+        checkRange(position, length);
+        InputStream is = sobj.asInputStream();
+        try {
+            skipFully(is, position);
+        } catch (IOException e) {
+            IO.close(is);
+            throw E.ioException(e);
+        }
+        return Channels.newChannel(length < 0 ? is : new RangeInputStream(is, length));
+    }
+
+    static ByteBuffer read(ISObject sobj, long position, int length) {
+        checkRange(position, length);
+        ReadableByteChannel channel = sobj.asChannel(position, length);
+        try {
+            if (length < 0) {
+                return ByteBuffer.wrap(IO.readContent(Channels.newInputStream(channel)));
+            }
+            ByteBuffer buf = ByteBuffer.allocate(length);
+            while (buf.hasRemaining() && channel.read(buf) > -1) {
+                // keep reading until buffer is full or end of content reached
+            }
+            buf.flip();
+            return buf;
+        } catch (IOException e) {
+            throw E.ioException(e);
+        } finally {
+            IO.close(channel);
+        }
+    }
+
+    static long transferTo(ISObject sobj, long position, long length, WritableByteChannel target) {
+        ReadableByteChannel channel = sobj.asChannel(position, length);
+        try {
+            ByteBuffer buf = ByteBuffer.allocate(8192);
+            long total = 0;
+            while (channel.read(buf) > -1) {
+                buf.flip();
+                total += writeFully(buf, target);
+                buf.clear();
+            }
+            return total;
+        } catch (IOException e) {
+            throw E.ioException(e);
+        } finally {
+            IO.close(channel);
+        }
+    }
+
+    private static int writeFully(ByteBuffer buf, WritableByteChannel target) throws IOException {
+        int n = buf.remaining();
+        while (buf.hasRemaining()) {
+            target.write(buf);
+        }
+        return n;
+    }
+
+    private static void skipFully(InputStream is, long n) throws IOException {
+        while (n > 0) {
+            long skipped = is.skip(n);
+            if (skipped <= 0) {
+                if (is.read() < 0) {
+                    return;
+                }
+                skipped = 1;
+            }
+            n -= skipped;
+        }
+    }
+
+    /*
+     * Limit the number of bytes can be read from the underline input stream
+     */
+    private static class RangeInputStream extends FilterInputStream {
+        private long remaining;
+
+        RangeInputStream(InputStream is, long length) {
+            super(is);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b > -1) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package org.osgl.storage;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.osgl.exception.UnexpectedIOException;
+
+import java.io.InputStream;
+
+/**
+ * Represent an ongoing chunked upload of a storage object.
+ *
+ * Parts can be uploaded in any order and from different threads. Uploading
+ * a part with an existing part number replaces the previous one, which makes
+ * retrying a failed part safe. Once {@link #complete() completed}, parts are
+ * concatenated in ascending order of part number to form the object content.
+ *
+ * @see IStorageService#startMultipartUpload(String, java.util.Map)
+ */
+public interface IMultipartUpload {
+
+    /**
+     * @return the key of the object being uploaded
+     */
+    String getKey();
+
+    /**
+     * Upload a part from an input stream. The input stream is closed
+     * after the part is uploaded.
+     *
+     * @param partNumber
+     *      the part number, shall not be negative
+     * @param is
+     *      the input stream of part content
+     * @return the number of bytes uploaded in this part
+     */
+    long uploadPart(int partNumber, InputStream is) throws UnexpectedIOException;
+
+    /**
+     * Upload a part from a storage object.
+     *
+     * @param partNumber
+     *      the part number, shall not be negative
+     * @param part
+     *      the part content
+     * @return the number of bytes uploaded in this part
+     */
+    long uploadPart(int partNumber, ISObject part) throws UnexpectedIOException;
+
+    /**
+     * @return number of bytes uploaded in all parts
+     */
+    long getUploadedLength();
+
+    /**
+     * Assemble all uploaded parts and store the object.
+     *
+     * @return the stored object
+     */
+    ISObject complete() throws UnexpectedIOException;
+
+    /**
+     * Discard all uploaded parts.
+     */
+    void abort();
+
+}
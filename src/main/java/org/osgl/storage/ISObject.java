@@ -46,6 +46,9 @@ import osgl.version.Version;
 import java.io.File;
 import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.util.Map;
 
@@ -243,6 +246,67 @@ public interface ISObject extends Serializable {
      */
     InputStream asInputStream() throws UnexpectedIOException;
 
+    /**
+     * Returns a {@link ReadableByteChannel} that reads a range of the content
+     * of this storage object. Note it is caller's responsibility to close the
+     * channel
+     *
+     * The default implementation skips to the position on {@link #asInputStream()}
+     *
+     * @param position
+     *      the position of the first byte to be read
+     * @param length
+     *      the max number of bytes to be read, `-1` means read to the end
+     * @return a channel to read the content range
+     */
+    default ReadableByteChannel asChannel(long position, long length) throws UnexpectedIOException {
+        return ContentRange.channel(this, position, length);
+    }
+
+    /**
+     * Read a range of the content of this storage object into a {@link ByteBuffer}.
+     *
+     * The buffer returned could be a read only view of the content
+     *
+     * @param position
+     *      the position of the first byte to be read
+     * @param length
+     *      the max number of bytes to be read, `-1` means read to the end
+     * @return a buffer with the bytes read, the remaining of the buffer
+     *      is less than `length` if end of content reached
+     */
+    default ByteBuffer read(long position, int length) throws UnexpectedIOException {
+        return ContentRange.read(this, position, length);
+    }
+
+    /**
+     * Write the content of this storage object into a {@link WritableByteChannel}.
+     *
+     * The implementation shall use zero copy transfer whenever possible
+     *
+     * @param target
+     *      the target channel
+     * @return the number of bytes written to the channel
+     */
+    default long transferTo(WritableByteChannel target) throws UnexpectedIOException {
+        return transferTo(0, -1, target);
+    }
+
+    /**
+     * Write a range of the content of this storage object into a {@link WritableByteChannel}.
+     *
+     * @param position
+     *      the position of the first byte to be written
+     * @param length
+     *      the max number of bytes to be written, `-1` means write to the end
+     * @param target
+     *      the target channel
+     * @return the number of bytes written to the channel
+     */
+    default long transferTo(long position, long length, WritableByteChannel target) throws UnexpectedIOException {
+        return ContentRange.transferTo(this, position, length, target);
+    }
+
     /**
      * Consume the inputstream of this storage object one time and then close the input stream
      *
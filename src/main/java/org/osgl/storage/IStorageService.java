@@ -181,6 +181,23 @@ public interface IStorageService {
      */
     IStorageService subFolder(String path);
 
+    /**
+     * Start a chunked upload of an object.
+     *
+     * The default implementation buffers parts in temp files and
+     * {@link #put(String, ISObject) put} the assembled object when
+     * the upload completes.
+     *
+     * @param key
+     *      the object key
+     * @param attrs
+     *      the object attributes
+     * @return a multipart upload instance
+     */
+    default IMultipartUpload startMultipartUpload(String key, Map<String, String> attrs) {
+        return new MultipartUpload(this, key, attrs);
+    }
+
     public static class f {
         public static $.F0<Void> put(final String key, final ISObject stuff, final IStorageService ss) {
             return put().curry(key, stuff, ss);
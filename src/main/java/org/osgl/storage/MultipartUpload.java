@@ -0,0 +1,325 @@
+package org.osgl.storage;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.osgl.$;
+import org.osgl.util.C;
+import org.osgl.util.ContentSniffer;
+import org.osgl.util.E;
+import org.osgl.util.IO;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The default {@link IMultipartUpload} implementation.
+ *
+ * Each part is written into a file in a work dir. When upload completes
+ * the part files are concatenated with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}
+ * and the result is committed to the storage service with
+ * {@link IStorageService#put(String, ISObject)}.
+ */
+public class MultipartUpload implements IMultipartUpload {
+
+    protected final IStorageService ss;
+    protected final String key;
+    protected final Map<String, String> attrs;
+    protected final File workDir;
+    private final ConcurrentSkipListMap<Integer, File> parts = new ConcurrentSkipListMap<>();
+    private volatile boolean closed;
+
+    public MultipartUpload(IStorageService ss, String key, Map<String, String> attrs) {
+        this(ss, key, attrs, null);
+    }
+
+    /**
+     * Construct a multipart upload.
+     *
+     * @param ss
+     *      the storage service to which the object is committed
+     * @param key
+     *      the object key
+     * @param attrs
+     *      the object attributes, could be `null`
+     * @param workDir
+     *      the dir to hold part files, a temp dir is created if `null`
+     */
+    public MultipartUpload(IStorageService ss, String key, Map<String, String> attrs, File workDir) {
+        this.ss = $.requireNotNull(ss);
+        this.key = $.requireNotNull(key);
+        this.attrs = null == attrs ? C.<String, String>newMap() : C.newMap(attrs);
+        if (null == workDir) {
+            workDir = IO.tmpFile("ss_upload_", null);
+            IO.delete(workDir);
+        }
+        if (!workDir.exists() && !workDir.mkdirs()) {
+            throw E.ioException("Cannot create upload work dir: %s", workDir);
+        }
+        this.workDir = workDir;
+    }
+
+    @Override
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public long uploadPart(int partNumber, InputStream is) {
+        ensureOpen();
+        E.illegalArgumentIf(partNumber < 0, "part number shall not be negative: %s", partNumber);
+        File tmp = IO.tmpFile("part_", null, workDir);
+        try {
+            IO.write(is).ensureCloseSink().to(new FileOutputStream(tmp));
+            File part = new File(workDir, "part." + partNumber);
+            Files.move(tmp.toPath(), part.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            parts.put(partNumber, part);
+            return part.length();
+        } catch (IOException e) {
+            throw E.ioException(e);
+        } finally {
+            if (tmp.exists()) {
+                IO.delete(tmp);
+            }
+        }
+    }
+
+    @Override
+    public long uploadPart(int partNumber, ISObject part) {
+        return uploadPart(partNumber, part.asInputStream());
+    }
+
+    @Override
+    public long getUploadedLength() {
+        long len = 0;
+        for (File part : parts.values()) {
+            len += part.length();
+        }
+        return len;
+    }
+
+    @Override
+    public synchronized ISObject complete() {
+        ensureOpen();
+        closed = true;
+        File assembled = IO.tmpFile("assembled_", null, workDir);
+        try {
+            FileChannel target = new FileOutputStream(assembled).getChannel();
+            try {
+                for (File part : parts.values()) {
+                    FileChannel source = new FileInputStream(part).getChannel();
+                    try {
+                        long size = source.size(), pos = 0;
+                        while (pos < size) {
+                            pos += source.transferTo(pos, size - pos, target);
+                        }
+                    } finally {
+                        IO.close(source);
+                    }
+                    IO.delete(part);
+                }
+            } finally {
+                IO.close(target);
+            }
+            return commit(assembled);
+        } catch (IOException e) {
+            throw E.ioException(e);
+        } finally {
+            IO.delete(workDir, true);
+        }
+    }
+
+    @Override
+    public synchronized void abort() {
+        closed = true;
+        parts.clear();
+        IO.delete(workDir, true);
+    }
+
+    /**
+     * Commit the assembled file to the storage service. The file is
+     * deleted after this method returns.
+     *
+     * @param assembled
+     *      the file contains all parts
+     * @return the stored object
+     */
+    protected ISObject commit(File assembled) {
+        return ss.put(key, new AssembledObject(key, assembled, attrs));
+    }
+
+    private void ensureOpen() {
+        E.illegalStateIf(closed, "upload already completed or aborted: %s", key);
+    }
+
+    /*
+     * The assembled file handed to IStorageService.put. Its file name is
+     * not exposed unless it is set in the attributes
+     */
+    private static class AssembledObject implements ISObject {
+        private final String key;
+        private final File file;
+        private final Map<String, String> attrs;
+
+        AssembledObject(String key, File file, Map<String, String> attrs) {
+            this.key = key;
+            this.file = file;
+            this.attrs = C.newMap(attrs);
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public long getLength() {
+            return file.length();
+        }
+
+        @Override
+        public String getUrl() {
+            return attrs.get(ATTR_URL);
+        }
+
+        @Override
+        public String getFilename() {
+            return attrs.get(ATTR_FILE_NAME);
+        }
+
+        @Override
+        public String getContentType() {
+            return attrs.get(ATTR_CONTENT_TYPE);
+        }
+
+        @Override
+        public void setFilename(String filename) {
+            attrs.put(ATTR_FILE_NAME, filename);
+        }
+
+        @Override
+        public void setContentType(String contentType) {
+            attrs.put(ATTR_CONTENT_TYPE, contentType);
+        }
+
+        @Override
+        public String getAttribute(String key) {
+            return attrs.get(key);
+        }
+
+        @Override
+        public ISObject setAttribute(String key, String val) {
+            attrs.put(key, val);
+            return this;
+        }
+
+        @Override
+        public ISObject setAttributes(Map<String, String> attrs) {
+            this.attrs.putAll(attrs);
+            return this;
+        }
+
+        @Override
+        public boolean hasAttribute() {
+            return !attrs.isEmpty();
+        }
+
+        @Override
+        public Map<String, String> getAttributes() {
+            return C.newMap(attrs);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return 0 == file.length();
+        }
+
+        @Override
+        public boolean isExists() {
+            return true;
+        }
+
+        @Override
+        public boolean isValid() {
+            return true;
+        }
+
+        @Override
+        public boolean isAccessDenied() {
+            return false;
+        }
+
+        @Override
+        public Throwable getException() {
+            return null;
+        }
+
+        @Override
+        public File asFile() {
+            return file;
+        }
+
+        @Override
+        public String asString() {
+            return asString(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String asString(Charset charset) {
+            return new String(asByteArray(), charset);
+        }
+
+        @Override
+        public byte[] asByteArray() {
+            return IO.readContent(file);
+        }
+
+        @Override
+        public InputStream asInputStream() {
+            return IO.inputStream(file);
+        }
+
+        @Override
+        public void consumeOnce($.Function<InputStream, ?> consumer) {
+            InputStream is = asInputStream();
+            try {
+                consumer.apply(is);
+            } finally {
+                IO.close(is);
+            }
+        }
+
+        @Override
+        public boolean isDumb() {
+            return false;
+        }
+
+        @Override
+        public boolean isBinary() {
+            return ContentSniffer.sniff(read(0, ContentSniffer.PEEK_SIZE)).isBinary();
+        }
+    }
+}
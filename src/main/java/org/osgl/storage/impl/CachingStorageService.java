@@ -0,0 +1,720 @@
+package org.osgl.storage.impl;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.osgl.$;
+import org.osgl.exception.UnexpectedIOException;
+import org.osgl.storage.ISObject;
+import org.osgl.storage.IStorageService;
+import org.osgl.util.C;
+import org.osgl.util.E;
+import org.osgl.util.IO;
+import org.osgl.util.S;
+
+import java.io.*;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A decorating {@link IStorageService} that caches objects fetched from
+ * the underline storage service.
+ *
+ * Hot objects are kept in a memory tier with a byte budget, while warm objects
+ * are kept in an optional disk tier also with a byte budget. Both tiers evict
+ * the least recently used object when the budget is exceeded. Objects too
+ * large for the memory tier are served from the disk tier as input stream
+ * sobjects, so that a concurrent eviction cannot delete the file being read.
+ *
+ * Concurrent misses on the same key are coalesced so that only one fetch
+ * is sent to the underline storage service. Cached objects are invalidated
+ * when {@link #put(String, ISObject)} or {@link #remove(String)} is called
+ * on this service. Changes made to the underline storage directly are not
+ * visible until the object is evicted or {@link #invalidate(String) invalidated}.
+ */
+public class CachingStorageService implements IStorageService {
+
+    /**
+     * Hit/miss statistics of a {@link CachingStorageService}.
+     */
+    public static class Metrics {
+        private final AtomicLong memoryHits = new AtomicLong();
+        private final AtomicLong diskHits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong coalescedMisses = new AtomicLong();
+        private final AtomicLong memoryEvictions = new AtomicLong();
+        private final AtomicLong diskEvictions = new AtomicLong();
+
+        public long memoryHits() {
+            return memoryHits.get();
+        }
+
+        public long diskHits() {
+            return diskHits.get();
+        }
+
+        public long hits() {
+            return memoryHits() + diskHits();
+        }
+
+        /**
+         * Returns number of requests that missed both tiers, including
+         * {@link #coalescedMisses() coalesced misses}.
+         *
+         * @return the number of misses
+         */
+        public long misses() {
+            return misses.get();
+        }
+
+        /**
+         * Returns number of misses that wait on the fetch triggered by
+         * another request instead of calling the underline service.
+         *
+         * @return number of coalesced misses
+         */
+        public long coalescedMisses() {
+            return coalescedMisses.get();
+        }
+
+        public long memoryEvictions() {
+            return memoryEvictions.get();
+        }
+
+        public long diskEvictions() {
+            return diskEvictions.get();
+        }
+
+        public double hitRatio() {
+            long hits = hits();
+            long total = hits + misses();
+            return 0 == total ? 0.0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return "memoryHits=" + memoryHits + ", diskHits=" + diskHits + ", misses=" + misses
+                    + ", coalescedMisses=" + coalescedMisses + ", memoryEvictions=" + memoryEvictions
+                    + ", diskEvictions=" + diskEvictions;
+        }
+    }
+
+    private static class Entry {
+        final byte[] content;
+        final long size;
+        final Map<String, String> attrs;
+        // the object fetched but not cached, only the fetching thread can use it
+        final ISObject uncached;
+
+        Entry(byte[] content, long size, Map<String, String> attrs) {
+            this.content = content;
+            this.size = size;
+            this.attrs = attrs;
+            this.uncached = null;
+        }
+
+        Entry(ISObject uncached) {
+            this.content = null;
+            this.size = -1;
+            this.attrs = null;
+            this.uncached = uncached;
+        }
+    }
+
+    /*
+     * A byte budgeted LRU index
+     */
+    private static class Tier {
+        private final long budget;
+        private final AtomicLong evictions;
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long size;
+
+        Tier(long budget, AtomicLong evictions) {
+            this.budget = budget;
+            this.evictions = evictions;
+        }
+
+        synchronized Entry get(String key) {
+            return entries.get(key);
+        }
+
+        /*
+         * does not change the access order
+         */
+        synchronized boolean contains(String key) {
+            return entries.containsKey(key);
+        }
+
+        /*
+         * returns keys evicted
+         */
+        synchronized C.List<String> put(String key, Entry entry) {
+            Entry old = entries.put(key, entry);
+            if (null != old) {
+                size -= old.size;
+            }
+            size += entry.size;
+            C.List<String> evicted = C.newList();
+            Iterator<Map.Entry<String, Entry>> itr = entries.entrySet().iterator();
+            while (size > budget && itr.hasNext()) {
+                Map.Entry<String, Entry> eldest = itr.next();
+                if (eldest.getKey().equals(key)) {
+                    continue;
+                }
+                size -= eldest.getValue().size;
+                evicted.add(eldest.getKey());
+                itr.remove();
+                evictions.incrementAndGet();
+            }
+            return evicted;
+        }
+
+        synchronized boolean remove(String key) {
+            Entry old = entries.remove(key);
+            if (null != old) {
+                size -= old.size;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void clear() {
+            entries.clear();
+            size = 0;
+        }
+
+        synchronized long size() {
+            return size;
+        }
+    }
+
+    /*
+     * Shared among a service and all its sub folder services
+     */
+    private static class Cache {
+        private final Tier memory;
+        private final long maxMemoryObjectSize;
+        private final Tier disk;
+        private final LocalStorageService diskStore;
+        private final Metrics metrics = new Metrics();
+        // the pending fetch of a key, also serves as the generation of the key:
+        // a fetch publishes its result only if it is still registered here
+        private final ConcurrentMap<String, Future<Entry>> loading = new ConcurrentHashMap<>();
+        // bumped by clear()
+        private final AtomicLong epoch = new AtomicLong();
+        // guards publishing, invalidating, opening and deleting the disk file of a key
+        private final Object[] locks = new Object[64];
+
+        Cache(long memoryBudget, File diskDir, long diskBudget) {
+            E.illegalArgumentIf(memoryBudget < 0, "memory budget shall not be negative");
+            this.memory = new Tier(memoryBudget, metrics.memoryEvictions);
+            this.maxMemoryObjectSize = memoryBudget / 8;
+            if (null != diskDir) {
+                E.illegalArgumentIf(diskBudget <= 0, "disk budget shall be positive");
+                this.disk = new Tier(diskBudget, metrics.diskEvictions);
+                this.diskStore = new LocalStorageService(C.Map(
+                        LocalStorageService.CONF_HOME_DIR, prepareDiskDir(diskDir).getAbsolutePath(),
+                        CONF_ID, DISK_STORE_ID));
+            } else {
+                this.disk = null;
+                this.diskStore = null;
+            }
+            for (int i = 0; i < locks.length; ++i) {
+                locks[i] = new Object();
+            }
+        }
+
+        Object lockOf(String fullKey) {
+            return locks[(fullKey.hashCode() & 0x7FFFFFFF) % locks.length];
+        }
+
+        void invalidate(String fullKey) {
+            synchronized (lockOf(fullKey)) {
+                loading.remove(fullKey);
+                memory.remove(fullKey);
+                if (null != disk && disk.remove(fullKey)) {
+                    diskStore.remove(fullKey);
+                }
+            }
+        }
+
+        /*
+         * Put the entry fetched by `task` into the tier unless the key has been
+         * invalidated or the cache has been cleared since the fetch started.
+         *
+         * Returns keys evicted from the tier, or `null` if the entry is not published
+         */
+        C.List<String> publish(Tier tier, String fullKey, Entry entry, Future<Entry> task, long epoch) {
+            C.List<String> evicted;
+            synchronized (lockOf(fullKey)) {
+                if (task != loading.get(fullKey) || epoch != this.epoch.get()) {
+                    return null;
+                }
+                evicted = tier.put(fullKey, entry);
+            }
+            if (epoch != this.epoch.get()) {
+                // cleared in between
+                tier.remove(fullKey);
+            }
+            return evicted;
+        }
+
+        void evictFromDisk(String fullKey) {
+            synchronized (lockOf(fullKey)) {
+                // the key might have been put back after it was evicted
+                if (!disk.contains(fullKey)) {
+                    diskStore.remove(fullKey);
+                }
+            }
+        }
+
+        /*
+         * Open the disk file of the entry under the key lock so that it
+         * cannot be deleted by a concurrent eviction before it is opened.
+         * The opened stream is still readable after the file is deleted.
+         *
+         * Returns `null` if the key is not in disk tier
+         */
+        InputStream openDiskFile(String fullKey) {
+            synchronized (lockOf(fullKey)) {
+                if (!disk.contains(fullKey)) {
+                    return null;
+                }
+                try {
+                    return new FileInputStream(diskStore.fileOf(fullKey));
+                } catch (FileNotFoundException e) {
+                    disk.remove(fullKey);
+                    return null;
+                }
+            }
+        }
+
+        void clear() {
+            epoch.incrementAndGet();
+            loading.clear();
+            memory.clear();
+            if (null != disk) {
+                disk.clear();
+                IO.delete(diskStore.root(), true);
+                prepareDiskDir(diskStore.root());
+            }
+        }
+
+        private static final String MARKER = ".osgl-ss-cache";
+
+        // must be different from the id of the underline service
+        private static final String DISK_STORE_ID = "__osgl_ss_cache";
+
+        private static File prepareDiskDir(File dir) {
+            if (dir.exists()) {
+                String[] children = dir.list();
+                boolean isCacheDir = new File(dir, MARKER).exists();
+                E.illegalArgumentIf(null == children || (children.length > 0 && !isCacheDir),
+                        "disk cache dir must be an empty dir: %s", dir);
+                if (isCacheDir) {
+                    IO.delete(dir, true);
+                }
+            }
+            if (!dir.exists() && !dir.mkdirs()) {
+                throw E.ioException("Cannot create disk cache dir: %s", dir);
+            }
+            try {
+                if (!new File(dir, MARKER).createNewFile()) {
+                    throw E.ioException("Cannot create cache marker in dir: %s", dir);
+                }
+            } catch (IOException e) {
+                throw E.ioException(e);
+            }
+            return dir;
+        }
+    }
+
+    private final IStorageService delegate;
+    private final Cache cache;
+    private final ConcurrentMap<String, CachingStorageService> subFolders = new ConcurrentHashMap<>();
+
+    /**
+     * Construct a caching storage service with memory tier only.
+     *
+     * @param delegate
+     *      the underline storage service
+     * @param memoryBudget
+     *      the max number of bytes cached in memory
+     */
+    public CachingStorageService(IStorageService delegate, long memoryBudget) {
+        this(delegate, new Cache(memoryBudget, null, 0));
+    }
+
+    /**
+     * Construct a caching storage service with both memory and disk tier.
+     *
+     * The `diskDir` is used exclusively by the cache and its content is
+     * cleared when the cache is constructed. It must be an empty or
+     * non-existing dir, or a dir previously used as a disk cache.
+     *
+     * @param delegate
+     *      the underline storage service
+     * @param memoryBudget
+     *      the max number of bytes cached in memory
+     * @param diskDir
+     *      the dir for disk tier
+     * @param diskBudget
+     *      the max number of bytes cached on disk
+     */
+    public CachingStorageService(IStorageService delegate, long memoryBudget, File diskDir, long diskBudget) {
+        this(delegate, new Cache(memoryBudget, $.requireNotNull(diskDir), diskBudget));
+    }
+
+    private CachingStorageService(IStorageService delegate, Cache cache) {
+        this.delegate = $.requireNotNull(delegate);
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the underline storage service.
+     *
+     * @return the underline storage service
+     */
+    public IStorageService delegate() {
+        return delegate;
+    }
+
+    /**
+     * Returns the hit/miss metrics of this cache.
+     *
+     * Note the metrics is shared with all {@link #subFolder(String) sub folders}
+     *
+     * @return the metrics
+     */
+    public Metrics metrics() {
+        return cache.metrics;
+    }
+
+    /**
+     * Returns number of bytes currently held in memory tier.
+     *
+     * @return size of memory tier
+     */
+    public long memorySize() {
+        return cache.memory.size();
+    }
+
+    /**
+     * Returns number of bytes currently held in disk tier.
+     *
+     * @return size of disk tier
+     */
+    public long diskSize() {
+        return null == cache.disk ? 0 : cache.disk.size();
+    }
+
+    /**
+     * Remove object specified by key from the cache.
+     *
+     * @param key
+     *      the object key
+     */
+    public void invalidate(String key) {
+        cache.invalidate(delegate.getKey(key));
+    }
+
+    /**
+     * Remove all objects from the cache.
+     */
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    @Override
+    public String id() {
+        return delegate.id();
+    }
+
+    @Override
+    public String contextPath() {
+        return delegate.contextPath();
+    }
+
+    @Override
+    public ISObject get(String key) {
+        return getFull(key);
+    }
+
+    @Override
+    public ISObject getLazy(String key, Map<String, String> attrs) {
+        // make sure lazy object is loaded through the cache
+        return SObject.lazyLoad(key, this, attrs);
+    }
+
+    @Override
+    @Deprecated
+    public ISObject forceGet(String key) {
+        return getFull(key);
+    }
+
+    @Override
+    public ISObject getFull(String key) {
+        String fullKey = delegate.getKey(key);
+        Entry entry = cache.memory.get(fullKey);
+        if (null != entry) {
+            cache.metrics.memoryHits.incrementAndGet();
+            return toSObject(key, entry);
+        }
+        if (null != cache.disk) {
+            entry = cache.disk.get(fullKey);
+            if (null != entry) {
+                InputStream is = cache.openDiskFile(fullKey);
+                if (null != is) {
+                    cache.metrics.diskHits.incrementAndGet();
+                    if (entry.size <= cache.maxMemoryObjectSize) {
+                        Entry promoted = new Entry(IO.readContent(is), entry.size, entry.attrs);
+                        promote(fullKey, entry, promoted);
+                        return toSObject(key, promoted);
+                    }
+                    return toSObject(key, is, entry);
+                }
+            }
+        }
+        return load(key, fullKey);
+    }
+
+    /*
+     * Put the entry read from disk tier into memory tier unless the disk entry
+     * has been invalidated or replaced in between
+     */
+    private void promote(String fullKey, Entry diskEntry, Entry promoted) {
+        synchronized (cache.lockOf(fullKey)) {
+            if (diskEntry == cache.disk.get(fullKey)) {
+                cache.memory.put(fullKey, promoted);
+            }
+        }
+    }
+
+    @Override
+    public ISObject loadContent(ISObject sobj) {
+        if (!(sobj instanceof SObject.LazyLoadSObject)) {
+            return sobj;
+        }
+        ISObject loaded = getFull(sobj.getKey());
+        if (null != loaded) {
+            loaded.setAttributes(sobj.getAttributes());
+        }
+        return loaded;
+    }
+
+    @Override
+    public ISObject put(String key, ISObject stuff) throws UnexpectedIOException {
+        String fullKey = delegate.getKey(key);
+        cache.invalidate(fullKey);
+        try {
+            return delegate.put(key, stuff);
+        } finally {
+            cache.invalidate(fullKey);
+        }
+    }
+
+    @Override
+    public boolean isManaged(ISObject sobj) {
+        return delegate.isManaged(sobj);
+    }
+
+    @Override
+    public void remove(String key) {
+        String fullKey = delegate.getKey(key);
+        cache.invalidate(fullKey);
+        try {
+            delegate.remove(key);
+        } finally {
+            cache.invalidate(fullKey);
+        }
+    }
+
+    @Override
+    public String getContextPath() {
+        return delegate.getContextPath();
+    }
+
+    @Override
+    public String getStaticWebEndpoint() {
+        return delegate.getStaticWebEndpoint();
+    }
+
+    @Override
+    public String getUrl(String key) {
+        return delegate.getUrl(key);
+    }
+
+    @Override
+    public String getKey(String key) {
+        return delegate.getKey(key);
+    }
+
+    @Override
+    public String getKey() {
+        return delegate.getKey();
+    }
+
+    @Override
+    public IStorageService subFolder(String path) {
+        CachingStorageService sub = subFolders.get(path);
+        if (null == sub) {
+            sub = new CachingStorageService(delegate.subFolder(path), cache);
+            CachingStorageService existing = subFolders.putIfAbsent(path, sub);
+            if (null != existing) {
+                sub = existing;
+            }
+        }
+        return sub;
+    }
+
+    private class Fetch implements Callable<Entry> {
+        private final String key;
+        private final String fullKey;
+        private FutureTask<Entry> task;
+
+        Fetch(String key, String fullKey) {
+            this.key = key;
+            this.fullKey = fullKey;
+        }
+
+        @Override
+        public Entry call() {
+            return fetch(key, fullKey, task);
+        }
+    }
+
+    private ISObject load(final String key, final String fullKey) {
+        cache.metrics.misses.incrementAndGet();
+        Fetch fetch = new Fetch(key, fullKey);
+        FutureTask<Entry> task = new FutureTask<>(fetch);
+        fetch.task = task;
+        Future<Entry> existing = cache.loading.putIfAbsent(fullKey, task);
+        boolean leader = null == existing;
+        if (leader) {
+            existing = task;
+            task.run();
+        } else {
+            cache.metrics.coalescedMisses.incrementAndGet();
+        }
+        Entry entry;
+        try {
+            entry = existing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw E.unexpected(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw E.unexpected(cause);
+        } finally {
+            if (leader) {
+                cache.loading.remove(fullKey, task);
+            }
+        }
+        if (null == entry) {
+            return null;
+        }
+        if (null != entry.uncached) {
+            return leader ? entry.uncached : delegate.getFull(key);
+        }
+        if (null == entry.content) {
+            InputStream is = cache.openDiskFile(fullKey);
+            if (null == is) {
+                // evicted or invalidated in between
+                return delegate.getFull(key);
+            }
+            return toSObject(key, is, entry);
+        }
+        return toSObject(key, entry);
+    }
+
+    private Entry fetch(String key, String fullKey, Future<Entry> task) {
+        long epoch = cache.epoch.get();
+        ISObject sobj = delegate.getFull(key);
+        if (null == sobj) {
+            return null;
+        }
+        if (!sobj.isValid() || sobj.isDumb()) {
+            return new Entry(sobj);
+        }
+        Map<String, String> attrs = sobj.getAttributes();
+        long len = knownLength(sobj);
+        Entry entry = null;
+        if (len >= 0 && len <= cache.maxMemoryObjectSize) {
+            byte[] content = sobj.asByteArray();
+            entry = new Entry(content, content.length, attrs);
+            if (null != cache.disk) {
+                sobj = SObject.of(key, content, attrs);
+            }
+        }
+        if (null != cache.disk) {
+            ISObject stored = cache.diskStore.put(fullKey, sobj);
+            long size = stored.getLength();
+            if (null == entry && size <= cache.maxMemoryObjectSize) {
+                // read it before it is published and exposed to eviction
+                entry = new Entry(stored.asByteArray(), size, attrs);
+            }
+            Entry diskEntry = new Entry(null, size, attrs);
+            C.List<String> evicted = cache.publish(cache.disk, fullKey, diskEntry, task, epoch);
+            if (null == evicted) {
+                cache.evictFromDisk(fullKey);
+                return null == entry ? diskEntry : entry;
+            }
+            for (String evictedKey : evicted) {
+                cache.evictFromDisk(evictedKey);
+            }
+            if (null == entry) {
+                return diskEntry;
+            }
+        } else if (null == entry) {
+            return new Entry(sobj);
+        }
+        cache.publish(cache.memory, fullKey, entry, task, epoch);
+        return entry;
+    }
+
+    private static long knownLength(ISObject sobj) {
+        try {
+            return sobj.getLength();
+        } catch (RuntimeException e) {
+            // e.g. input stream sobject does not support getLength()
+            return -1;
+        }
+    }
+
+    private static ISObject toSObject(String key, Entry entry) {
+        SObject sobj = SObject.of(key, entry.content);
+        sobj.setAttributes(entry.attrs);
+        return sobj;
+    }
+
+    private static ISObject toSObject(String key, InputStream is, Entry entry) {
+        SObject sobj = SObject.of(key, is, entry.attrs);
+        sobj.setAttribute(ISObject.ATTR_CONTENT_LENGTH, S.string(entry.size));
+        return sobj;
+    }
+
+}
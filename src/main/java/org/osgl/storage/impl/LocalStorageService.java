@@ -0,0 +1,551 @@
+package org.osgl.storage.impl;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.osgl.$;
+import org.osgl.exception.UnexpectedIOException;
+import org.osgl.storage.IMultipartUpload;
+import org.osgl.storage.ISObject;
+import org.osgl.storage.IStorageService;
+import org.osgl.storage.MultipartUpload;
+import org.osgl.util.*;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * An {@link IStorageService} implementation backed by local file system.
+ *
+ * Objects are stored under the {@link #CONF_HOME_DIR home dir} in a
+ * directory fan-out derived from the hash of the key, so that no single
+ * directory ends up with too many entries. A put operation always writes
+ * into a temporary file first and then moves it into place, thus reader
+ * never sees a partially written object.
+ *
+ * When {@link #CONF_DEDUP dedup} is enabled, the content of each object is
+ * stored only once in the blob folder (keyed by {@link IO#checksum(File)})
+ * and the object file is a hard link to the blob. Object files must
+ * therefore be treated as read only.
+ */
+public class LocalStorageService implements IStorageService {
+
+    /**
+     * Configure the root dir of the storage
+     */
+    public static final String CONF_HOME_DIR = "storage.local.home.dir";
+
+    /**
+     * Configure the static web endpoint that maps to the home dir
+     */
+    public static final String CONF_HOME_URL = "storage.local.home.url";
+
+    /**
+     * Configure the number of fan-out directory levels. Default value: `2`
+     */
+    public static final String CONF_FANOUT = "storage.local.fanout";
+
+    /**
+     * Configure whether to deduplicate object content. Default value: `false`
+     */
+    public static final String CONF_DEDUP = "storage.local.dedup";
+
+    private static final String ATTR_FILE_SUFFIX = ".attrs";
+    private static final String ATTR_BLOB = "__blob";
+    private static final String DIR_TMP = ".tmp";
+    private static final String DIR_BLOB = ".blob";
+    private static final int LOCK_STRIPES = 64;
+
+    private final String id;
+    private final File root;
+    private final String contextPath;
+    private final String staticWebEndpoint;
+    private final int fanout;
+    private final boolean dedup;
+    private final Map<String, String> conf;
+    private final Object[] locks;
+    private final Map<String, LocalStorageService> subFolders = new HashMap<>();
+
+    public LocalStorageService(File root) {
+        this(C.Map(CONF_HOME_DIR, root.getAbsolutePath()));
+    }
+
+    public LocalStorageService(Map<String, String> conf) {
+        this(conf, null);
+    }
+
+    private LocalStorageService(Map<String, String> conf, Object[] locks) {
+        this.conf = C.newMap(conf);
+        String homeDir = conf.get(CONF_HOME_DIR);
+        E.invalidConfigurationIf(S.blank(homeDir), "%s not configured", CONF_HOME_DIR);
+        this.root = new File(homeDir).getAbsoluteFile();
+        if (!root.exists() && !root.mkdirs()) {
+            throw E.invalidConfiguration("Cannot create storage home dir: %s", root);
+        }
+        E.invalidConfigurationIf(!root.isDirectory(), "Storage home is not a directory: %s", root);
+        this.id = S.blank(conf.get(CONF_ID)) ? DEFAULT : conf.get(CONF_ID);
+        this.contextPath = canonicalContextPath(conf.get(CONF_CONTEXT_PATH));
+        String url = conf.get(CONF_HOME_URL);
+        this.staticWebEndpoint = null == url ? null : S.ensure(url).endWith("/");
+        String fanout = conf.get(CONF_FANOUT);
+        this.fanout = S.blank(fanout) ? 2 : Integer.parseInt(fanout.trim());
+        E.invalidConfigurationIf(this.fanout < 0 || this.fanout > 4, "%s shall be between 0 and 4", CONF_FANOUT);
+        this.dedup = Boolean.parseBoolean(conf.get(CONF_DEDUP));
+        if (null == locks) {
+            locks = new Object[LOCK_STRIPES];
+            for (int i = 0; i < LOCK_STRIPES; ++i) {
+                locks[i] = new Object();
+            }
+        }
+        this.locks = locks;
+    }
+
+    /**
+     * Returns the root dir of the storage.
+     *
+     * Note the root dir is shared among this service and all
+     * its {@link #subFolder(String) sub folder} services.
+     *
+     * @return the storage home dir
+     */
+    public File root() {
+        return root;
+    }
+
+    @Override
+    public String id() {
+        return id;
+    }
+
+    @Override
+    public String contextPath() {
+        return contextPath;
+    }
+
+    @Override
+    public String getContextPath() {
+        return contextPath;
+    }
+
+    @Override
+    public String getStaticWebEndpoint() {
+        return staticWebEndpoint;
+    }
+
+    @Override
+    public ISObject get(String key) {
+        return getFull(key);
+    }
+
+    @Override
+    public ISObject getLazy(String key, Map<String, String> attrs) {
+        SObject sobj = SObject.lazyLoad(key, this, attrs);
+        markManaged(sobj);
+        return sobj;
+    }
+
+    @Override
+    @Deprecated
+    public ISObject forceGet(String key) {
+        return getFull(key);
+    }
+
+    @Override
+    public ISObject getFull(String key) {
+        File file = fileOf(key);
+        if (!file.exists()) {
+            return null;
+        }
+        Map<String, String> attrs = readUserAttributes(key);
+        SObject sobj = SObject.of(key, file);
+        if (null != attrs) {
+            sobj.setAttributes(attrs);
+        }
+        markManaged(sobj);
+        return sobj;
+    }
+
+    @Override
+    public ISObject loadContent(ISObject sobj) {
+        if (!(sobj instanceof SObject.LazyLoadSObject)) {
+            return sobj;
+        }
+        ISObject loaded = getFull(sobj.getKey());
+        if (null != loaded) {
+            loaded.setAttributes(sobj.getAttributes());
+        }
+        return loaded;
+    }
+
+    @Override
+    public ISObject put(String key, ISObject stuff) throws UnexpectedIOException {
+        E.NPE(stuff);
+        if (isManaged(stuff) && $.eq(key, stuff.getKey()) && !(stuff instanceof SObject.LazyLoadSObject)) {
+            return stuff;
+        }
+        Map<String, String> attrs = stuff.getAttributes();
+        attrs.remove(ISObject.ATTR_SS_ID);
+        attrs.remove(ISObject.ATTR_SS_CTX);
+        attrs.remove(ISObject.ATTR_URL);
+        File tmp = newTmpFile();
+        try {
+            InputStream is = stuff.asInputStream();
+            IO.write(is).ensureCloseSink().to(new FileOutputStream(tmp));
+        } catch (IOException e) {
+            IO.delete(tmp);
+            throw E.ioException(e);
+        }
+        return commit(key, tmp, attrs);
+    }
+
+    /**
+     * Start a multipart upload. Parts are kept in the temp dir under the
+     * storage root and the assembled file is moved into place directly.
+     */
+    @Override
+    public IMultipartUpload startMultipartUpload(final String key, final Map<String, String> attrs) {
+        File workDir = newTmpFile();
+        IO.delete(workDir);
+        return new MultipartUpload(this, key, attrs, workDir) {
+            @Override
+            protected ISObject commit(File assembled) {
+                return LocalStorageService.this.commit(key, assembled, this.attrs);
+            }
+        };
+    }
+
+    /*
+     * Move the temp file into place. The temp file must be in the same file system
+     */
+    private ISObject commit(String key, File tmp, Map<String, String> attrs) {
+        File target = fileOf(key);
+        try {
+            attrs.put(ISObject.ATTR_CONTENT_LENGTH, S.string(tmp.length()));
+            String checksum = dedup ? IO.checksum(tmp) : null;
+            if (null != checksum) {
+                attrs.put(ATTR_BLOB, checksum);
+            }
+            synchronized (lockOf(key)) {
+                ensureDir(target.getParentFile());
+                // the blob linked by the content being overwritten
+                File previous = dedup ? blobOf(key, target) : null;
+                if (null != checksum) {
+                    store(tmp, target, checksum);
+                } else {
+                    move(tmp, target);
+                }
+                writeAttributes(key, attrs);
+                release(previous);
+            }
+        } catch (IOException e) {
+            throw E.ioException(e);
+        } finally {
+            if (tmp.exists()) {
+                IO.delete(tmp);
+            }
+        }
+        return getFull(key);
+    }
+
+    @Override
+    public boolean isManaged(ISObject sobj) {
+        if (null == sobj) {
+            return false;
+        }
+        return $.eq(id, sobj.getAttribute(ISObject.ATTR_SS_ID)) && $.eq(contextPath, S.string(sobj.getAttribute(ISObject.ATTR_SS_CTX)));
+    }
+
+    @Override
+    public void remove(String key) {
+        File file = fileOf(key);
+        synchronized (lockOf(key)) {
+            File blob = dedup ? blobOf(key, file) : null;
+            IO.delete(attrFileOf(file));
+            IO.delete(file);
+            release(blob);
+        }
+    }
+
+    @Override
+    public String getUrl(String key) {
+        if (null == staticWebEndpoint) {
+            return null;
+        }
+        return staticWebEndpoint + relativePath(getKey(key));
+    }
+
+    @Override
+    public String getKey(String key) {
+        if (S.blank(contextPath) || key.startsWith(contextPath + "/")) {
+            return key;
+        }
+        return S.pathConcat(contextPath, '/', key);
+    }
+
+    @Override
+    public String getKey() {
+        return getKey(Codec.encodeUrl(S.random()));
+    }
+
+    @Override
+    public synchronized IStorageService subFolder(String path) {
+        LocalStorageService sub = subFolders.get(path);
+        if (null == sub) {
+            Map<String, String> subConf = C.newMap(conf);
+            String ctx = S.blank(contextPath) ? path : S.pathConcat(contextPath, '/', path);
+            subConf.put(CONF_CONTEXT_PATH, ctx);
+            sub = new LocalStorageService(subConf, locks);
+            subFolders.put(path, sub);
+        }
+        return sub;
+    }
+
+    /**
+     * Memory map the content of object specified by key.
+     *
+     * @param key
+     *      the object key
+     * @return
+     *      a read only {@link MappedByteBuffer} of the object content
+     *      or `null` if object not found
+     */
+    public MappedByteBuffer map(String key) {
+        File file = fileOf(key);
+        if (!file.exists()) {
+            return null;
+        }
+        try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw E.ioException(e);
+        }
+    }
+
+    /**
+     * Transfer the content of object specified by key to a {@link WritableByteChannel}.
+     *
+     * This method use {@link FileChannel#transferTo(long, long, WritableByteChannel)}
+     * so the bytes could be sent directly from file system cache to the target
+     * channel if supported by the operating system.
+     *
+     * @param key
+     *      the object key
+     * @param target
+     *      the target channel
+     * @return
+     *      the number of bytes transferred or `-1` if object not found
+     */
+    public long transferTo(String key, WritableByteChannel target) {
+        File file = fileOf(key);
+        if (!file.exists()) {
+            return -1;
+        }
+        try (FileChannel channel = new FileInputStream(file).getChannel()) {
+            long size = channel.size(), pos = 0;
+            while (pos < size) {
+                pos += channel.transferTo(pos, size - pos, target);
+            }
+            return pos;
+        } catch (IOException e) {
+            throw E.ioException(e);
+        }
+    }
+
+    File fileOf(String key) {
+        String fullKey = getKey(S.requireNotBlank(key));
+        E.illegalArgumentIf(fullKey.contains(".."), "Invalid key: %s", key);
+        return new File(root, relativePath(fullKey));
+    }
+
+    private String relativePath(String fullKey) {
+        S.Buffer buf = S.buffer();
+        int hash = fullKey.hashCode();
+        for (int i = 0; i < fanout; ++i) {
+            int b = (hash >>> (i << 3)) & 0xFF;
+            buf.append(HEX[b >>> 4]).append(HEX[b & 0xF]).append('/');
+        }
+        return buf.append(Codec.encodeUrl(fullKey)).toString();
+    }
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private File attrFileOf(File file) {
+        return new File(file.getParentFile(), file.getName() + ATTR_FILE_SUFFIX);
+    }
+
+    private Object lockOf(String key) {
+        return locks[(getKey(key).hashCode() & 0x7FFFFFFF) % LOCK_STRIPES];
+    }
+
+    private Map<String, String> readAttributes(String key) {
+        File file = attrFileOf(fileOf(key));
+        if (!file.exists()) {
+            return null;
+        }
+        Properties p;
+        try {
+            p = IO.loadProperties(file);
+        } catch (RuntimeException e) {
+            // attribute file could be replaced during a concurrent put
+            return null;
+        }
+        Map<String, String> attrs = new HashMap<>();
+        for (String name : p.stringPropertyNames()) {
+            attrs.put(name, p.getProperty(name));
+        }
+        return attrs;
+    }
+
+    private Map<String, String> readUserAttributes(String key) {
+        Map<String, String> attrs = readAttributes(key);
+        if (null != attrs) {
+            attrs.remove(ATTR_BLOB);
+        }
+        return attrs;
+    }
+
+    private void writeAttributes(String key, Map<String, String> attrs) throws IOException {
+        Properties p = new Properties();
+        for (Map.Entry<String, String> entry : attrs.entrySet()) {
+            if (null != entry.getValue()) {
+                p.setProperty(entry.getKey(), entry.getValue());
+            }
+        }
+        File tmp = newTmpFile();
+        OutputStream os = new FileOutputStream(tmp);
+        try {
+            p.store(os, null);
+        } finally {
+            IO.close(os);
+        }
+        move(tmp, attrFileOf(fileOf(key)));
+    }
+
+    private void markManaged(SObject sobj) {
+        sobj.setAttribute(ISObject.ATTR_SS_ID, id);
+        sobj.setAttribute(ISObject.ATTR_SS_CTX, contextPath);
+        String url = getUrl(sobj.getKey());
+        if (null != url) {
+            sobj.setAttribute(ISObject.ATTR_URL, url);
+        }
+    }
+
+    // store temp file into blob folder and link it to the target
+    private void store(File tmp, File target, String checksum) throws IOException {
+        File blob = blobFile(checksum);
+        if (!blob.exists()) {
+            ensureDir(blob.getParentFile());
+            move(tmp, blob);
+        } else if (target.exists() && Files.isSameFile(blob.toPath(), target.toPath())) {
+            // same content, note renaming a link onto another link of the same file does nothing
+            return;
+        }
+        File link = newTmpFile();
+        IO.delete(link);
+        try {
+            Files.createLink(link.toPath(), blob.toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            // hard link not supported, fallback to plain file
+            if (tmp.exists()) {
+                move(tmp, target);
+            } else {
+                Files.copy(blob.toPath(), link.toPath());
+                move(link, target);
+            }
+            return;
+        }
+        move(link, target);
+    }
+
+    private File blobFile(String checksum) {
+        return new File(root, DIR_BLOB + "/" + checksum.substring(0, 2) + "/" + checksum);
+    }
+
+    private File blobOf(String key, File file) {
+        Map<String, String> attrs = readAttributes(key);
+        String checksum = null == attrs ? null : attrs.get(ATTR_BLOB);
+        if (null == checksum || !file.exists()) {
+            return null;
+        }
+        File blob = blobFile(checksum);
+        try {
+            return blob.exists() && Files.isSameFile(blob.toPath(), file.toPath()) ? blob : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // delete the blob once no object links to it
+    private static void release(File blob) {
+        if (null != blob && linkCount(blob) == 1) {
+            IO.delete(blob);
+        }
+    }
+
+    private static int linkCount(File file) {
+        try {
+            return (Integer) Files.getAttribute(file.toPath(), "unix:nlink");
+        } catch (IOException | RuntimeException e) {
+            // link count not available, keep the blob
+            return -1;
+        }
+    }
+
+    private File newTmpFile() {
+        File dir = new File(root, DIR_TMP);
+        ensureDir(dir);
+        return IO.tmpFile("ss_", null, dir);
+    }
+
+    private static void ensureDir(File dir) {
+        if (!dir.exists() && !dir.mkdirs() && !dir.exists()) {
+            throw E.ioException("Cannot create dir: %s", dir);
+        }
+    }
+
+    private static void move(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String canonicalContextPath(String path) {
+        if (S.blank(path)) {
+            return "";
+        }
+        path = path.replace('\\', '/');
+        while (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        while (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        return path;
+    }
+
+}
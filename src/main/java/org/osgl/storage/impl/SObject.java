@@ -40,24 +40,25 @@ package org.osgl.storage.impl;
  */
 
 import org.osgl.$;
-import org.osgl.Lang;
 import org.osgl.OsglConfig;
 import org.osgl.exception.AccessDeniedException;
-import org.osgl.exception.NotAppliedException;
 import org.osgl.exception.ResourceNotFoundException;
 import org.osgl.exception.UnexpectedIOException;
 import org.osgl.storage.ISObject;
 import org.osgl.storage.IStorageService;
 import org.osgl.util.*;
 
-import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.Reader;
+import java.io.*;
 import java.lang.ref.SoftReference;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -71,6 +72,7 @@ public abstract class SObject implements ISObject {
     protected boolean exists = true;
     protected boolean accessDenied = false;
     protected RuntimeException cause = null;
+    private volatile ContentSniffer.Result sniffed;
 
     /*
      * got to make this public to fix the cross classloader
@@ -114,10 +116,28 @@ public abstract class SObject implements ISObject {
         return getAttribute(ATTR_FILE_NAME);
     }
 
+    /**
+     * Returns the {@link #ATTR_CONTENT_TYPE content type} attribute. If not presented,
+     * returns the type found by the filename extension, or by {@link #sniff() sniffing}
+     * the content.
+     *
+     * @return the content type or `null` if unknown
+     */
     @Override
     public String getContentType() {
         assertValid();
-        return getAttribute(ATTR_CONTENT_TYPE);
+        String contentType = getAttribute(ATTR_CONTENT_TYPE);
+        if (null != contentType) {
+            return contentType;
+        }
+        String filename = getAttribute(ATTR_FILE_NAME);
+        if (null != filename && filename.contains(".")) {
+            MimeType mimeType = MimeType.findByName(S.cut(filename).afterLast("."));
+            if (null != mimeType) {
+                return mimeType.type();
+            }
+        }
+        return isDumb() ? null : sniff().contentType();
     }
 
     @Override
@@ -205,6 +225,12 @@ public abstract class SObject implements ISObject {
         }
     }
 
+    @Override
+    public ReadableByteChannel asChannel(long position, long length) {
+        assertValid();
+        return ISObject.super.asChannel(position, length);
+    }
+
     @Override
     public boolean isBinary() {
         if (isDumb() || !isValid()) {
@@ -222,16 +248,42 @@ public abstract class SObject implements ISObject {
                 return !mimeType.test(MimeType.Trait.text);
             }
         }
-        final $.Var<Boolean> var = new $.Var<>(false);
-        consumeOnce(new $.F1<InputStream, Object>() {
-            @Override
-            public Object apply(InputStream is) throws NotAppliedException, Lang.Break {
-                boolean isBinary = OsglConfig.binaryDataProbe().apply($.convert(is).to(Reader.class));
-                var.set(isBinary);
-                return null;
-            }
-        });
-        return var.get();
+        if (OsglConfig.customBinaryDataProbe()) {
+            ByteBuffer prefix = peek(ContentSniffer.PEEK_SIZE);
+            InputStream is = new ByteBufferInputStream(prefix);
+            return OsglConfig.binaryDataProbe().apply($.convert(is).to(Reader.class));
+        }
+        return sniff().isBinary();
+    }
+
+    /**
+     * Sniff the leading bytes of the content with {@link ContentSniffer}. The result
+     * is cached in this object.
+     *
+     * The content is not consumed, i.e. the content of an SObject backed by
+     * an input stream is still fully readable afterwards.
+     *
+     * @return the result of sniffing
+     */
+    public ContentSniffer.Result sniff() {
+        assertValid();
+        ContentSniffer.Result result = sniffed;
+        if (null == result) {
+            result = ContentSniffer.sniff(peek(ContentSniffer.PEEK_SIZE));
+            sniffed = result;
+        }
+        return result;
+    }
+
+    /**
+     * Read up to `length` leading bytes of the content without consuming it.
+     *
+     * @param length
+     *      the max number of bytes to read
+     * @return the bytes read
+     */
+    protected ByteBuffer peek(int length) {
+        return read(0, length);
     }
 
     protected final String suffix() {
@@ -252,6 +304,62 @@ public abstract class SObject implements ISObject {
         }
     }
 
+    private static void checkRange(long position, long length) {
+        E.illegalArgumentIf(position < 0, "position shall not be negative: %s", position);
+        E.illegalArgumentIf(length < -1, "invalid length: %s", length);
+    }
+
+    private static int writeFully(ByteBuffer buf, WritableByteChannel target) throws IOException {
+        int n = buf.remaining();
+        while (buf.hasRemaining()) {
+            target.write(buf);
+        }
+        return n;
+    }
+
+    /*
+     * Limit the number of bytes can be read from a file channel
+     */
+    private static class RangeChannel implements ReadableByteChannel {
+        private final FileChannel channel;
+        private long remaining;
+
+        RangeChannel(FileChannel channel, long length) {
+            this.channel = channel;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int limit = dst.limit();
+            if (dst.remaining() > remaining) {
+                dst.limit(dst.position() + (int) remaining);
+            }
+            try {
+                int n = channel.read(dst);
+                if (n > 0) {
+                    remaining -= n;
+                }
+                return n;
+            } finally {
+                dst.limit(limit);
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
     private static void setCause(Throwable cause, SObject sobj) {
         if (cause instanceof RuntimeException) {
             sobj.cause = $.cast(cause);
@@ -822,11 +930,91 @@ public abstract class SObject implements ISObject {
                 byte[] ba = cache.get();
                 if (null != ba) return ba;
             }
-            byte[] ba = IO.readContent(file_);
+            byte[] ba = readFully();
             cache = new SoftReference<byte[]>(ba);
             return ba;
         }
 
+        private byte[] readFully() {
+            try (FileChannel channel = openChannel()) {
+                long size = channel.size();
+                E.unexpectedIf(size > Integer.MAX_VALUE - 8, "File too large to be read into byte array: %s", file_);
+                ByteBuffer buf = ByteBuffer.allocate((int) size);
+                while (buf.hasRemaining() && channel.read(buf) > -1) {
+                    // keep reading until buffer is full
+                }
+                return buf.position() == buf.capacity() ? buf.array() : Arrays.copyOf(buf.array(), buf.position());
+            } catch (IOException e) {
+                throw E.ioException(e);
+            }
+        }
+
+        private FileChannel openChannel() {
+            try {
+                return new FileInputStream(file_).getChannel();
+            } catch (FileNotFoundException e) {
+                throw new ResourceNotFoundException(e);
+            }
+        }
+
+        @Override
+        public ReadableByteChannel asChannel(long position, long length) {
+            checkRange(position, length);
+            FileChannel channel = openChannel();
+            try {
+                channel.position(position);
+            } catch (IOException e) {
+                IO.close(channel);
+                throw E.ioException(e);
+            }
+            return length < 0 ? channel : new RangeChannel(channel, length);
+        }
+
+        @Override
+        public ByteBuffer read(long position, int length) {
+            checkRange(position, length);
+            try (FileChannel channel = openChannel()) {
+                long remaining = Math.max(0, channel.size() - position);
+                if (length >= 0) {
+                    remaining = Math.min(length, remaining);
+                }
+                E.unsupportedIf(remaining > Integer.MAX_VALUE, "content too large to be read into a buffer");
+                ByteBuffer buf = ByteBuffer.allocate((int) remaining);
+                while (buf.hasRemaining()) {
+                    int n = channel.read(buf, position + buf.position());
+                    if (n < 0) {
+                        break;
+                    }
+                }
+                buf.flip();
+                return buf;
+            } catch (IOException e) {
+                throw E.ioException(e);
+            }
+        }
+
+        @Override
+        public long transferTo(long position, long length, WritableByteChannel target) {
+            checkRange(position, length);
+            try (FileChannel channel = openChannel()) {
+                long end = channel.size();
+                if (length >= 0) {
+                    end = Math.min(end, position + length);
+                }
+                long pos = position;
+                while (pos < end) {
+                    long n = channel.transferTo(pos, end - pos, target);
+                    if (n <= 0) {
+                        break;
+                    }
+                    pos += n;
+                }
+                return pos - position;
+            } catch (IOException e) {
+                throw E.ioException(e);
+            }
+        }
+
         @Override
         public long getLength() {
             return file_.length();
@@ -859,7 +1047,8 @@ public abstract class SObject implements ISObject {
 
         @Override
         public String getFilename() {
-            return file_.getName();
+            String fn = super.getFilename();
+            return null == fn ? file_.getName() : fn;
         }
 
         @Override
@@ -932,32 +1121,78 @@ public abstract class SObject implements ISObject {
         public long getLength() {
             return buf_.length;
         }
+
+        @Override
+        public ReadableByteChannel asChannel(long position, long length) {
+            return Channels.newChannel(new ByteBufferInputStream(slice(position, length)));
+        }
+
+        @Override
+        public ByteBuffer read(long position, int length) {
+            return slice(position, length).asReadOnlyBuffer();
+        }
+
+        @Override
+        public long transferTo(long position, long length, WritableByteChannel target) {
+            try {
+                return writeFully(slice(position, length), target);
+            } catch (IOException e) {
+                throw E.ioException(e);
+            }
+        }
+
+        private ByteBuffer slice(long position, long length) {
+            checkRange(position, length);
+            int start = (int) Math.min(position, buf_.length);
+            int len = buf_.length - start;
+            if (length >= 0 && length < len) {
+                len = (int) length;
+            }
+            return ByteBuffer.wrap(buf_, start, len).slice();
+        }
     }
 
     public static class InputStreamSObject extends SObject {
+        // always supports mark so content can be sniffed without consuming it
         private final InputStream is_;
+        // once the stream has been dumped into a temp file, all access goes to the file
+        private volatile File tmpFile_;
 
         InputStreamSObject(String key, InputStream is) {
             super(key);
             E.NPE(is);
-            this.is_ = is;
+            this.is_ = is.markSupported() ? is : new BufferedInputStream(is);
         }
 
         @Override
         public byte[] asByteArray() {
-            return IO.readContent(is_);
+            File file = tmpFile_;
+            return null != file ? IO.readContent(file) : IO.readContent(is_);
         }
 
         @Override
-        public File asFile() {
-            File tmpFile = createTempFile(suffix());
-            IO.write(is_, tmpFile);
-            return tmpFile;
+        public synchronized File asFile() {
+            if (null == tmpFile_) {
+                File tmpFile = createTempFile(suffix());
+                IO.write(is_, tmpFile);
+                tmpFile_ = tmpFile;
+            }
+            return tmpFile_;
         }
 
         @Override
         public InputStream asInputStream() {
-            return is_;
+            File file = tmpFile_;
+            return null != file ? IO.inputStream(file) : is_;
+        }
+
+        @Override
+        protected synchronized ByteBuffer peek(int length) {
+            File file = tmpFile_;
+            if (null != file) {
+                return SObject.of(file).read(0, length);
+            }
+            return ByteBuffer.wrap(ContentSniffer.peek(is_, length));
         }
 
         @Override
@@ -970,8 +1205,24 @@ public abstract class SObject implements ISObject {
             return new String(asByteArray(), charset);
         }
 
+        /**
+         * Returns the length from {@link #ATTR_CONTENT_LENGTH} attribute if
+         * presented, or the length of the temp file if {@link #asFile()} has
+         * been called.
+         *
+         * @return the length of the content
+         * @throws org.osgl.exception.UnsupportedException if the length is unknown
+         */
         @Override
         public long getLength() {
+            File file = tmpFile_;
+            if (null != file) {
+                return file.length();
+            }
+            String len = getAttribute(ATTR_CONTENT_LENGTH);
+            if (S.isIntOrLong(len)) {
+                return Long.parseLong(len);
+            }
             throw E.unsupport();
         }
     }
@@ -1024,6 +1275,21 @@ public abstract class SObject implements ISObject {
         public InputStream asInputStream() throws UnexpectedIOException {
             return force().asInputStream();
         }
+
+        @Override
+        public ReadableByteChannel asChannel(long position, long length) {
+            return force().asChannel(position, length);
+        }
+
+        @Override
+        public ByteBuffer read(long position, int length) {
+            return force().read(position, length);
+        }
+
+        @Override
+        public long transferTo(long position, long length, WritableByteChannel target) {
+            return force().transferTo(position, length, target);
+        }
     }
 
     private static String randomKey() {
@@ -272,6 +272,20 @@ public class BigLines implements Iterable<String> {
         }
     }
 
+    /**
+     * Returns a {@link CsvReader} of the file. The first line is taken
+     * as header unless {@link #setIterateFirstLine(boolean) iterateFirstLine}
+     * is set.
+     *
+     * Unlike splitting lines, the CSV reader handles quoted fields that
+     * contain separators and line breaks.
+     *
+     * @return a CSV reader of the file
+     */
+    public CsvReader csv() {
+        return new CsvReader(file).header(!iterateFirstLine);
+    }
+
     private class ReadThread extends Thread {
 
         private Integer offset;
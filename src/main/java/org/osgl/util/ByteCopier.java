@@ -0,0 +1,282 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Copies bytes for {@link IO#copy(InputStream, OutputStream)} and the
+ * {@link IO.WriteStageBase write stages}.
+ *
+ * * File to file, and file channel to any channel, e.g. a socket channel,
+ *   go through {@link FileChannel#transferTo(long, long, WritableByteChannel)}
+ *   which the OS may do without copying into the JVM
+ * * Any channel to a file channel goes through {@link FileChannel#transferFrom(ReadableByteChannel, long, long)}
+ * * Other streams are copied through a byte array reused by the thread
+ *
+ * Transfers are only used for regular files. FIFOs, which cannot seek, and
+ * procfs like files, which report a size of `0`, are copied by buffer.
+ *
+ * Progress is reported after each chunk copied, and if a rate limit is set
+ * the copying thread sleeps between chunks to keep under the limit.
+ */
+final class ByteCopier {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    // max bytes of a transferTo call, keeps progress updates and rate limit smooth
+    static final long TRANSFER_CHUNK = 8L * 1024 * 1024;
+
+    private static final ThreadLocal<byte[]> buffers = new ThreadLocal<>();
+    private static final ThreadLocal<ByteBuffer> byteBuffers = new ThreadLocal<>();
+
+    static final ByteCopier DEFAULT = new ByteCopier(null, 0);
+
+    private final IO.ProgressListener listener;
+    private final long bytesPerSecond;
+
+    ByteCopier(IO.ProgressListener listener, long bytesPerSecond) {
+        this.listener = listener;
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    static ByteCopier of(IO.ProgressListener listener, long bytesPerSecond) {
+        return null == listener && bytesPerSecond <= 0 ? DEFAULT : new ByteCopier(listener, bytesPerSecond);
+    }
+
+    /**
+     * Copy all bytes from the input stream to the output stream. Neither
+     * stream is closed.
+     */
+    long copy(InputStream is, OutputStream os) throws IOException {
+        if (is instanceof FileInputStream && os instanceof FileOutputStream) {
+            return copy(((FileInputStream) is).getChannel(), ((FileOutputStream) os).getChannel());
+        }
+        byte[] buf = buffers.get();
+        buffers.set(null);
+        if (null == buf) {
+            buf = new byte[BUFFER_SIZE];
+        }
+        try {
+            Progress progress = new Progress(total(is));
+            int len = chunk(buf.length);
+            int read;
+            while ((read = is.read(buf, 0, len)) > -1) {
+                os.write(buf, 0, read);
+                progress.add(read);
+            }
+            return progress.copied;
+        } finally {
+            buffers.set(buf);
+        }
+    }
+
+    /**
+     * Copy all bytes from the readable channel to the writable channel. Neither
+     * channel is closed.
+     */
+    long copy(ReadableByteChannel in, WritableByteChannel out) throws IOException {
+        if (in instanceof FileChannel) {
+            long copied = transferTo((FileChannel) in, out);
+            if (copied > -1) {
+                return copied;
+            }
+        }
+        if (out instanceof FileChannel) {
+            long copied = transferFrom(in, (FileChannel) out);
+            if (copied > -1) {
+                return copied;
+            }
+        }
+        return copyByBuffer(in, out, new Progress(-1));
+    }
+
+    /*
+     * Returns -1 if the file channel is not a regular file, e.g. FIFO, or
+     * does not report its size, e.g. procfs files
+     */
+    private long transferTo(FileChannel fc, WritableByteChannel out) throws IOException {
+        long size = sizeOf(fc);
+        long position = size > 0 ? positionOf(fc) : -1;
+        if (position < 0) {
+            return -1;
+        }
+        Progress progress = new Progress(Math.max(0, size - position));
+        long chunk = chunk(TRANSFER_CHUNK);
+        try {
+            long n;
+            // transferTo returns 0 when the target is a non-blocking channel
+            // that cannot accept more bytes for now, the rest is copied by buffer
+            while (position < size && (n = fc.transferTo(position, chunk, out)) > 0) {
+                position += n;
+                progress.add(n);
+            }
+        } catch (IOException e) {
+            // the rest is copied by buffer
+        } finally {
+            fc.position(position);
+        }
+        return copyByBuffer(fc, out, progress);
+    }
+
+    /*
+     * Returns -1 if the file channel is not seekable, e.g. FIFO, or the source
+     * is a file channel not handled by transferTo, which transferFrom would
+     * seek and size as well
+     */
+    private long transferFrom(ReadableByteChannel in, FileChannel fc) throws IOException {
+        if (in instanceof FileChannel) {
+            return -1;
+        }
+        long position = positionOf(fc);
+        if (position < 0) {
+            return -1;
+        }
+        Progress progress = new Progress(-1);
+        long chunk = chunk(TRANSFER_CHUNK);
+        try {
+            long n;
+            // transferFrom returns 0 at the end of stream, and when the source has
+            // nothing available for now, which is checked with a buffered read
+            while ((n = fc.transferFrom(in, position, chunk)) > 0) {
+                position += n;
+                progress.add(n);
+            }
+        } finally {
+            fc.position(position);
+        }
+        return copyByBuffer(in, fc, progress);
+    }
+
+    private long copyByBuffer(ReadableByteChannel in, WritableByteChannel out, Progress progress) throws IOException {
+        ByteBuffer buf = byteBuffers.get();
+        byteBuffers.set(null);
+        if (null == buf) {
+            buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+        try {
+            buf.clear();
+            buf.limit(chunk(buf.capacity()));
+            while (in.read(buf) > -1) {
+                buf.flip();
+                int n = buf.remaining();
+                while (buf.hasRemaining()) {
+                    out.write(buf);
+                }
+                progress.add(n);
+                buf.clear();
+                buf.limit(chunk(buf.capacity()));
+            }
+            return progress.copied;
+        } finally {
+            byteBuffers.set(buf);
+        }
+    }
+
+    /*
+     * Only regular files report a size, the bytes available from
+     * a FIFO are not the total
+     */
+    private static long total(InputStream is) {
+        if (is instanceof FileInputStream && sizeOf(((FileInputStream) is).getChannel()) > 0) {
+            try {
+                int available = is.available();
+                return available < Integer.MAX_VALUE ? available : -1;
+            } catch (IOException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static long sizeOf(FileChannel fc) {
+        try {
+            return fc.size();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static long positionOf(FileChannel fc) {
+        try {
+            return fc.position();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /*
+     * Limit chunk size to a tenth of the rate, so the copy does not
+     * burst a second of bytes at once
+     */
+    private int chunk(int max) {
+        return (int) chunk((long) max);
+    }
+
+    private long chunk(long max) {
+        if (bytesPerSecond <= 0) {
+            return max;
+        }
+        return Math.max(1, Math.min(max, bytesPerSecond / 10));
+    }
+
+    private class Progress {
+        final long total;
+        final long start = System.nanoTime();
+        long copied;
+
+        Progress(long total) {
+            this.total = total;
+        }
+
+        void add(long n) throws IOException {
+            copied += n;
+            if (null != listener) {
+                listener.onProgress(copied, total);
+            }
+            if (bytesPerSecond > 0) {
+                throttle();
+            }
+        }
+
+        private void throttle() throws IOException {
+            long expected = (long) (copied * 1e9 / bytesPerSecond);
+            long ahead = expected - (System.nanoTime() - start);
+            if (ahead > 0) {
+                try {
+                    Thread.sleep(ahead / 1000000, (int) (ahead % 1000000));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+        }
+    }
+
+}
@@ -2185,14 +2185,7 @@ public class C {
                 this.key = $.requireNotNull(key);
             }
             public Map<K, V> to(V val) {
-                Map<K, V> me = Map.this;
-                if (me.ro) {
-                    Map<K, V> mapBuffer = C.newMap(me);
-                    mapBuffer.put(key, val);
-                    return C.Map(mapBuffer);
-                }
-                Map.this.put(key, val);
-                return Map.this;
+                return with(key, val);
             }
         }
 
@@ -2202,8 +2195,17 @@ public class C {
 
         @SuppressWarnings("unchecked")
         protected Map(boolean readOnly, Object... args) {
-            HashMap<K, V> map = new HashMap<>();
             int len = args.length;
+            ro = readOnly;
+            if (readOnly) {
+                HashTrieMap.Builder<K, V> builder = HashTrieMap.builder();
+                for (int i = 0; i < len; i += 2) {
+                    builder.put((K) args[i], i + 1 < len ? (V) args[i + 1] : null);
+                }
+                _m = builder.build();
+                return;
+            }
+            HashMap<K, V> map = new HashMap<>();
             for (int i = 0; i < len; i += 2) {
                 K k = (K) args[i];
                 V v = null;
@@ -2212,17 +2214,18 @@ public class C {
                 }
                 map.put(k, v);
             }
-            ro = readOnly;
-            if (readOnly) {
-                _m = Collections.unmodifiableMap(map);
-            } else {
-                _m = map;
-            }
+            _m = map;
         }
 
         protected Map(boolean readOnly, java.util.Map<? extends K, ? extends V> map) {
             E.NPE(map);
             boolean sorted = map instanceof SortedMap;
+            if (readOnly && !sorted) {
+                // a read only map shares the trie of the source map if there is one
+                ro = true;
+                _m = HashTrieMap.of(map instanceof Map ? ((Map<? extends K, ? extends V>) map)._m : map);
+                return;
+            }
             java.util.Map<K, V> m = sorted ? new TreeMap<K, V>() : new HashMap<K, V>();
             for (K k : map.keySet()) {
                 V v = map.get(k);
@@ -2236,6 +2239,11 @@ public class C {
             }
         }
 
+        private Map(HashTrieMap<K, V> trie) {
+            ro = true;
+            _m = trie;
+        }
+
         @Override
         public int size() {
             return _m.size();
@@ -2297,6 +2305,9 @@ public class C {
 
         @Override
         public Set<java.util.Map.Entry<K, V>> entrySet() {
+            if (_m instanceof HashTrieMap) {
+                return new DelegatingSet<>(_m.entrySet(), true);
+            }
             Set<java.util.Map.Entry<K, V>> set = C.newSet();
             for (K k : _m.keySet()) {
                 V v = _m.get(k);
@@ -2341,6 +2352,48 @@ public class C {
             return new _Builder(key);
         }
 
+        /**
+         * Returns a map with the mapping of `key` to `val` added.
+         *
+         * If this map is read only, a new read only map is returned, which
+         * shares most of its storage with this map. Otherwise the mapping is
+         * put into this map and this map is returned.
+         *
+         * @param key
+         *      the key
+         * @param val
+         *      the value
+         * @return the map with the mapping
+         */
+        public Map<K, V> with(K key, V val) {
+            if (!ro) {
+                put(key, val);
+                return this;
+            }
+            HashTrieMap<K, V> trie = trie().with(key, val);
+            return trie == _m ? this : new Map<K, V>(trie);
+        }
+
+        /**
+         * Returns a map without the mapping of `key`.
+         *
+         * If this map is read only, a new read only map is returned, which
+         * shares most of its storage with this map. Otherwise the mapping is
+         * removed from this map and this map is returned.
+         *
+         * @param key
+         *      the key
+         * @return the map without the key
+         */
+        public Map<K, V> without(K key) {
+            if (!ro) {
+                remove(key);
+                return this;
+            }
+            HashTrieMap<K, V> trie = trie().without(key);
+            return trie == _m ? this : new Map<K, V>(trie);
+        }
+
         @SuppressWarnings("unused")
         public boolean isReadOnly() {
             return ro;
@@ -2475,6 +2528,10 @@ public class C {
         private void ensureWritable() {
             C.ensureWritable(ro, "map");
         }
+
+        private HashTrieMap<K, V> trie() {
+            return _m instanceof HashTrieMap ? (HashTrieMap<K, V>) _m : HashTrieMap.of(_m);
+        }
     }
 
     public interface Set<T> extends java.util.Set<T>, Traversable<T> {
@@ -0,0 +1,569 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.osgl.$;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per class metadata registry.
+ *
+ * A `ClassMeta` is attached to a {@link Class} via {@link ClassValue}, thus
+ *
+ * * it is keyed by the class itself rather than the class name, so classes with
+ *   the same name loaded by different class loaders never collide
+ * * it does not pin the class loader: the metadata is collected together with
+ *   the class it is attached to. Methods and constructors resolved by argument
+ *   types are only cached when each argument type is loaded by the loader of
+ *   the class or by one of its parents
+ * * reads are lock free once the entry is computed
+ *
+ * The registry holds reflection data that are expensive to compute, e.g. fields,
+ * methods, constructors, generic type parameter implementations and property
+ * accessors. Arrays and lists returned are shared and must not be modified.
+ */
+public final class ClassMeta {
+
+    private static final ClassValue<ClassMeta> REGISTRY = new ClassValue<ClassMeta>() {
+        @Override
+        protected ClassMeta computeValue(Class<?> type) {
+            return new ClassMeta(type);
+        }
+    };
+
+    private final Class<?> type;
+
+    // indexed by fieldsSlot(includeRootClass, noStatic), keyed by root class
+    private final ConcurrentMap<Class<?>, List<Field>>[] fields;
+
+    // keyed by root class
+    private final ConcurrentMap<Class<?>, List<Type>> typeParamImplementations = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, PropertyGetter> propertyGetters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, PropertyGetter> fieldPropertyGetters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, PropertySetter> propertySetters = new ConcurrentHashMap<>();
+
+    // method resolved by name and argument types
+    private final ConcurrentMap<Signature, MethodInvoker> publicInvokers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Signature, MethodInvoker> invokers = new ConcurrentHashMap<>();
+
+    // constructor resolved by argument types
+    private final ConcurrentMap<Signature, ConstructorInvoker<?>> publicConstructorInvokers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Signature, ConstructorInvoker<?>> constructorInvokers = new ConcurrentHashMap<>();
+
+    private volatile Method[] publicMethods;
+    private volatile Method[] methods;
+    private volatile Constructor<?>[] constructors;
+    private volatile ConstructorInvoker<?> defaultConstructor;
+    private volatile ConstructorSite lastConstructor;
+    private volatile $.Func0<?> instantiator;
+
+    @SuppressWarnings("unchecked")
+    private ClassMeta(Class<?> type) {
+        this.type = type;
+        this.fields = new ConcurrentMap[4];
+        for (int i = 0; i < 4; ++i) {
+            this.fields[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Returns the class this metadata is attached to.
+     *
+     * @return the class
+     */
+    public Class<?> type() {
+        return type;
+    }
+
+    /**
+     * Returns cached fields of the class and its super classes until `rootClass`.
+     *
+     * @param rootClass
+     *      the class that stops the recursive lookup
+     * @param includeRootClass
+     *      whether fields of the root class are included
+     * @param noStatic
+     *      whether static fields are excluded
+     * @return the cached fields or `null` if not cached yet
+     */
+    public List<Field> fields(Class<?> rootClass, boolean includeRootClass, boolean noStatic) {
+        return fields[fieldsSlot(includeRootClass, noStatic)].get(rootClass);
+    }
+
+    /**
+     * Cache fields of the class. If fields has been cached by another thread, then
+     * the cached one is returned.
+     *
+     * @param rootClass
+     *      the class that stops the recursive lookup
+     * @param includeRootClass
+     *      whether fields of the root class are included
+     * @param noStatic
+     *      whether static fields are excluded
+     * @param fieldList
+     *      the fields to be cached
+     * @return the fields cached
+     */
+    public List<Field> cacheFields(Class<?> rootClass, boolean includeRootClass, boolean noStatic, List<Field> fieldList) {
+        return cache(fields[fieldsSlot(includeRootClass, noStatic)], rootClass, fieldList);
+    }
+
+    /**
+     * Returns all public methods of the class, including those inherited.
+     *
+     * @return the public methods
+     * @see Class#getMethods()
+     */
+    public Method[] publicMethods() {
+        Method[] ma = publicMethods;
+        if (null == ma) {
+            ma = type.getMethods();
+            publicMethods = ma;
+        }
+        return ma;
+    }
+
+    /**
+     * Returns the union of all public methods, including those inherited, and all
+     * methods declared by the class.
+     *
+     * @return the methods
+     */
+    public Method[] methods() {
+        Method[] ma = methods;
+        if (null == ma) {
+            Set<Method> set = C.newSet();
+            set.addAll(C.listOf(publicMethods()));
+            set.addAll(C.listOf(type.getDeclaredMethods()));
+            ma = set.toArray(new Method[set.size()]);
+            methods = ma;
+        }
+        return ma;
+    }
+
+    /**
+     * Resolve a method by name and argument types and returns an invoker of the method.
+     * The resolution result, including method not found, is cached.
+     *
+     * A method matches if it has the same name, the same number of parameters and each
+     * argument type is assignable to the corresponding parameter type, where `null`
+     * argument type, standing for a `null` argument, matches any non-primitive parameter.
+     * If multiple methods match, the most specific one is picked.
+     *
+     * @param name
+     *      the method name
+     * @param argTypes
+     *      the argument types, the array shall not be modified after calling this method
+     * @param publicOnly
+     *      if `true` then resolve among {@link #publicMethods()}, otherwise among {@link #methods()}
+     * @return the method invoker or `null` if no method matches
+     */
+    public MethodInvoker invoker(String name, Class<?>[] argTypes, boolean publicOnly) {
+        ConcurrentMap<Signature, MethodInvoker> map = publicOnly ? publicInvokers : invokers;
+        Signature signature = new Signature(name, argTypes);
+        MethodInvoker invoker = map.get(signature);
+        if (null == invoker) {
+            Method method = resolve(publicOnly ? publicMethods() : methods(), name, argTypes);
+            invoker = null == method ? NOT_FOUND : new MethodInvoker(method);
+            if (visible(argTypes)) {
+                invoker = cache(map, signature, invoker);
+            }
+        }
+        return NOT_FOUND == invoker ? null : invoker;
+    }
+
+    /**
+     * Returns all constructors declared by the class.
+     *
+     * @return the declared constructors
+     * @see Class#getDeclaredConstructors()
+     */
+    public Constructor<?>[] constructors() {
+        Constructor<?>[] ca = constructors;
+        if (null == ca) {
+            ca = type.getDeclaredConstructors();
+            constructors = ca;
+        }
+        return ca;
+    }
+
+    /**
+     * Returns an invoker of the no-arg constructor declared by the class. The
+     * result, including constructor not found, is cached.
+     *
+     * @param <T>
+     *      the type of the instance created
+     * @return the invoker or `null` if the class does not declare a no-arg constructor
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ConstructorInvoker<T> defaultConstructor() {
+        ConstructorInvoker<?> invoker = defaultConstructor;
+        if (null == invoker) {
+            Constructor<?> ct = null;
+            for (Constructor<?> c : constructors()) {
+                if (0 == c.getParameterTypes().length) {
+                    ct = c;
+                    break;
+                }
+            }
+            invoker = null == ct ? NO_CONSTRUCTOR : new ConstructorInvoker<>(ct);
+            defaultConstructor = invoker;
+        }
+        return NO_CONSTRUCTOR == invoker ? null : (ConstructorInvoker<T>) invoker;
+    }
+
+    /**
+     * Resolve a constructor by argument types and returns an invoker of the constructor.
+     * The resolution result, including constructor not found, is cached.
+     *
+     * Constructors are matched the same way as methods in {@link #invoker(String, Class[], boolean)}.
+     *
+     * @param argTypes
+     *      the argument types, the array shall not be modified after calling this method
+     * @param publicOnly
+     *      if `true` then resolve among public constructors, otherwise among {@link #constructors()}
+     * @param <T>
+     *      the type of the instance created
+     * @return the invoker or `null` if no constructor matches
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ConstructorInvoker<T> constructor(Class<?>[] argTypes, boolean publicOnly) {
+        ConcurrentMap<Signature, ConstructorInvoker<?>> map = publicOnly ? publicConstructorInvokers : constructorInvokers;
+        Signature signature = new Signature("<init>", argTypes);
+        ConstructorInvoker<?> invoker = map.get(signature);
+        if (null == invoker) {
+            Constructor<?> ct = resolve(publicOnly ? type.getConstructors() : constructors(), argTypes);
+            invoker = null == ct ? NO_CONSTRUCTOR : new ConstructorInvoker<>(ct);
+            if (visible(argTypes)) {
+                invoker = cache(map, signature, invoker);
+            }
+        }
+        return NO_CONSTRUCTOR == invoker ? null : (ConstructorInvoker<T>) invoker;
+    }
+
+    /**
+     * Resolve a constructor by arguments and returns an invoker of the constructor.
+     *
+     * This is the same as calling {@link #constructor(Class[], boolean)} with the
+     * classes of the arguments, except the constructor resolved last is checked
+     * first without creating the argument type array.
+     *
+     * @param args
+     *      the arguments
+     * @param publicOnly
+     *      if `true` then resolve among public constructors, otherwise among {@link #constructors()}
+     * @param <T>
+     *      the type of the instance created
+     * @return the invoker or `null` if no constructor matches
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ConstructorInvoker<T> constructorFor(Object[] args, boolean publicOnly) {
+        ConstructorSite site = lastConstructor;
+        if (null != site && site.matches(args, publicOnly)) {
+            return (ConstructorInvoker<T>) site.invoker;
+        }
+        int len = args.length;
+        Class<?>[] argTypes = new Class<?>[len];
+        for (int i = 0; i < len; ++i) {
+            Object arg = args[i];
+            argTypes[i] = null == arg ? null : arg.getClass();
+        }
+        ConstructorInvoker<T> invoker = constructor(argTypes, publicOnly);
+        if (null != invoker && visible(argTypes)) {
+            lastConstructor = new ConstructorSite(argTypes, publicOnly, invoker);
+        }
+        return invoker;
+    }
+
+    /**
+     * Returns cached function that creates instances of the class.
+     *
+     * @return the cached instantiator or `null` if not cached yet
+     * @see org.osgl.Lang#newInstance(Class)
+     */
+    public $.Func0<?> instantiator() {
+        return instantiator;
+    }
+
+    /**
+     * Cache the function that creates instances of the class.
+     *
+     * @param instantiator
+     *      the instantiator
+     * @return the instantiator cached
+     */
+    public $.Func0<?> cacheInstantiator($.Func0<?> instantiator) {
+        this.instantiator = $.requireNotNull(instantiator);
+        return instantiator;
+    }
+
+    /**
+     * Returns cached implementations of the type parameters declared in `rootClass`.
+     *
+     * @param rootClass
+     *      the root class or interface
+     * @return the cached type parameter implementations or `null` if not cached yet
+     * @see Generics#typeParamImplementations(Class, Class)
+     */
+    public List<Type> typeParamImplementations(Class<?> rootClass) {
+        return typeParamImplementations.get(rootClass);
+    }
+
+    /**
+     * Cache implementations of the type parameters declared in `rootClass`.
+     *
+     * @param rootClass
+     *      the root class or interface
+     * @param types
+     *      the type parameter implementations
+     * @return the type parameter implementations cached
+     */
+    public List<Type> cacheTypeParamImplementations(Class<?> rootClass, List<Type> types) {
+        return cache(typeParamImplementations, rootClass, types);
+    }
+
+    /**
+     * Returns cached property getter.
+     *
+     * @param property
+     *      the property name
+     * @param requireField
+     *      whether the getter is created with `requireField` option
+     * @return the cached getter or `null` if not cached yet
+     */
+    public PropertyGetter propertyGetter(String property, boolean requireField) {
+        return (requireField ? fieldPropertyGetters : propertyGetters).get(property);
+    }
+
+    /**
+     * Cache property getter.
+     *
+     * @param property
+     *      the property name
+     * @param requireField
+     *      whether the getter is created with `requireField` option
+     * @param getter
+     *      the getter
+     * @return the getter cached
+     */
+    public PropertyGetter cachePropertyGetter(String property, boolean requireField, PropertyGetter getter) {
+        return cache(requireField ? fieldPropertyGetters : propertyGetters, property, getter);
+    }
+
+    /**
+     * Returns cached property setter.
+     *
+     * @param property
+     *      the property name
+     * @return the cached setter or `null` if not cached yet
+     */
+    public PropertySetter propertySetter(String property) {
+        return propertySetters.get(property);
+    }
+
+    /**
+     * Cache property setter.
+     *
+     * @param property
+     *      the property name
+     * @param setter
+     *      the setter
+     * @return the setter cached
+     */
+    public PropertySetter cachePropertySetter(String property, PropertySetter setter) {
+        return cache(propertySetters, property, setter);
+    }
+
+    /**
+     * Returns the metadata of a class.
+     *
+     * @param type
+     *      the class
+     * @return the metadata attached to the class
+     */
+    public static ClassMeta of(Class<?> type) {
+        return REGISTRY.get(type);
+    }
+
+    // whether the resolution of the signature is cached
+    boolean cached(String name, Class<?>[] argTypes, boolean publicOnly) {
+        Signature signature = new Signature(name, argTypes);
+        return "<init>".equals(name)
+                ? (publicOnly ? publicConstructorInvokers : constructorInvokers).containsKey(signature)
+                : (publicOnly ? publicInvokers : invokers).containsKey(signature);
+    }
+
+    /*
+     * Whether the classes can be kept in this metadata without pinning their
+     * class loaders, i.e. each class is loaded by the loader of the class this
+     * metadata is attached to or by one of its parents
+     */
+    private boolean visible(Class<?>[] classes) {
+        ClassLoader loader = type.getClassLoader();
+        for (Class<?> c : classes) {
+            if (null != c && !isSelfOrParent(c.getClassLoader(), loader)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSelfOrParent(ClassLoader candidate, ClassLoader loader) {
+        if (null == candidate) {
+            // the bootstrap class loader is never collected
+            return true;
+        }
+        for (ClassLoader l = loader; null != l; l = l.getParent()) {
+            if (l == candidate) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Method resolve(Method[] candidates, String name, Class<?>[] argTypes) {
+        Method found = null;
+        for (Method m : candidates) {
+            if (!m.getName().equals(name)) {
+                continue;
+            }
+            Class<?>[] pts = m.getParameterTypes();
+            if (!assignable(pts, argTypes)) {
+                continue;
+            }
+            if (null == found || assignable(found.getParameterTypes(), pts)) {
+                // m is more specific than the one found
+                found = m;
+            }
+        }
+        return found;
+    }
+
+    private static Constructor<?> resolve(Constructor<?>[] candidates, Class<?>[] argTypes) {
+        Constructor<?> found = null;
+        for (Constructor<?> c : candidates) {
+            Class<?>[] pts = c.getParameterTypes();
+            if (!assignable(pts, argTypes)) {
+                continue;
+            }
+            if (null == found || assignable(found.getParameterTypes(), pts)) {
+                found = c;
+            }
+        }
+        return found;
+    }
+
+    private static boolean assignable(Class<?>[] paramTypes, Class<?>[] argTypes) {
+        int len = paramTypes.length;
+        if (len != argTypes.length) {
+            return false;
+        }
+        for (int i = 0; i < len; ++i) {
+            Class<?> pt = paramTypes[i];
+            Class<?> at = argTypes[i];
+            if (null == at) {
+                if (pt.isPrimitive()) {
+                    return false;
+                }
+            } else if (!$.wrapperClassOf(pt).isAssignableFrom($.wrapperClassOf(at))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int fieldsSlot(boolean includeRootClass, boolean noStatic) {
+        return (includeRootClass ? 2 : 0) + (noStatic ? 1 : 0);
+    }
+
+    private static final MethodInvoker NOT_FOUND = new MethodInvoker(null);
+    private static final ConstructorInvoker<?> NO_CONSTRUCTOR = new ConstructorInvoker<>(null);
+
+    private static final class Signature {
+        private final String name;
+        private final Class<?>[] argTypes;
+        private final int hash;
+
+        Signature(String name, Class<?>[] argTypes) {
+            this.name = name;
+            this.argTypes = argTypes;
+            this.hash = 31 * name.hashCode() + Arrays.hashCode(argTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Signature)) {
+                return false;
+            }
+            Signature that = (Signature) obj;
+            return hash == that.hash && name.equals(that.name) && Arrays.equals(argTypes, that.argTypes);
+        }
+    }
+
+    private static final class ConstructorSite {
+        private final Class<?>[] argTypes;
+        private final boolean publicOnly;
+        private final ConstructorInvoker<?> invoker;
+
+        ConstructorSite(Class<?>[] argTypes, boolean publicOnly, ConstructorInvoker<?> invoker) {
+            this.argTypes = argTypes;
+            this.publicOnly = publicOnly;
+            this.invoker = invoker;
+        }
+
+        boolean matches(Object[] args, boolean publicOnly) {
+            if (this.publicOnly != publicOnly || args.length != argTypes.length) {
+                return false;
+            }
+            for (int i = 0, len = args.length; i < len; ++i) {
+                Object arg = args[i];
+                if ((null == arg ? null : arg.getClass()) != argTypes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static <K, V> V cache(ConcurrentMap<K, V> map, K key, V value) {
+        V existing = map.putIfAbsent(key, value);
+        return null == existing ? value : existing;
+    }
+
+}
@@ -0,0 +1,127 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.osgl.exception.UnexpectedNewInstanceException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Invokes a resolved {@link Constructor} through a {@link MethodHandle}.
+ *
+ * The handle is adapted to `(Object[] args) -> Object`. If a handle cannot be
+ * created, e.g. because the class is abstract, it falls back to
+ * {@link Constructor#newInstance(Object...)}.
+ *
+ * Instances are created and cached by {@link ClassMeta#defaultConstructor()} and
+ * {@link ClassMeta#constructor(Class[], boolean)}.
+ *
+ * @param <T> the type of the instance created
+ */
+public final class ConstructorInvoker<T> {
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object[].class);
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private final Constructor<T> constructor;
+    private final MethodHandle handle;
+
+    ConstructorInvoker(Constructor<T> constructor) {
+        this.constructor = constructor;
+        this.handle = handleOf(constructor);
+    }
+
+    /**
+     * Returns the constructor this invoker invokes.
+     *
+     * @return the constructor
+     */
+    public Constructor<T> constructor() {
+        return constructor;
+    }
+
+    /**
+     * Create an instance with the no-arg constructor.
+     *
+     * @return the instance created
+     */
+    public T newInstance() {
+        return newInstance(NO_ARGS);
+    }
+
+    /**
+     * Create an instance.
+     *
+     * If the constructor throws out a {@link RuntimeException} or {@link Error} it
+     * is rethrown as it is, otherwise it is wrapped into {@link UnexpectedNewInstanceException}.
+     *
+     * @param args
+     *      the constructor arguments
+     * @return the instance created
+     */
+    @SuppressWarnings("unchecked")
+    public T newInstance(Object... args) {
+        try {
+            if (null != handle) {
+                return (T) (Object) handle.invokeExact(args);
+            }
+            return constructor.newInstance(args);
+        } catch (InvocationTargetException e) {
+            Throwable t = e.getTargetException();
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            }
+            if (t instanceof Error) {
+                throw (Error) t;
+            }
+            throw new UnexpectedNewInstanceException(e, "error instantiate instance of %s", constructor.getDeclaringClass().getName());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UnexpectedNewInstanceException(t, "error instantiate instance of %s", constructor.getDeclaringClass().getName());
+        }
+    }
+
+    private static MethodHandle handleOf(Constructor<?> constructor) {
+        if (null == constructor) {
+            return null;
+        }
+        try {
+            if (!constructor.isAccessible()) {
+                constructor.setAccessible(true);
+            }
+            MethodHandle mh = MethodHandles.lookup().unreflectConstructor(constructor).asFixedArity();
+            int paramCount = constructor.getParameterTypes().length;
+            mh = mh.asType(mh.type().generic());
+            mh = mh.asSpreader(Object[].class, paramCount);
+            return mh.asType(INVOKER_TYPE);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,439 @@
+package org.osgl.util;
+
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Classifies content by its leading bytes without decoding it.
+ *
+ * The prefix is matched against a table of well known magic numbers first,
+ * e.g. `\x89PNG` or `%PDF-`. If nothing matches the bytes are scanned:
+ * content with control characters other than the usual whitespace, `BEL`,
+ * `BS` and `ESC` is binary, otherwise it is text, and the charset is
+ * reported if the prefix has a byte order mark, is pure ASCII or is valid UTF-8.
+ *
+ * Streams are peeked through {@link InputStream#mark(int)} and
+ * {@link InputStream#reset()}, so they are still fully readable afterwards.
+ */
+public final class ContentSniffer {
+
+    /**
+     * The number of leading bytes examined
+     */
+    public static final int PEEK_SIZE = 512;
+
+    /**
+     * The result of sniffing some content.
+     */
+    public static final class Result {
+
+        private final MimeType mimeType;
+        private final boolean binary;
+        private final Charset charset;
+
+        private Result(MimeType mimeType, boolean binary, Charset charset) {
+            this.mimeType = mimeType;
+            this.binary = binary;
+            this.charset = charset;
+        }
+
+        /**
+         * Returns the mime type identified by magic number, or `null` if not identified.
+         *
+         * @return the mime type
+         */
+        public MimeType mimeType() {
+            return mimeType;
+        }
+
+        /**
+         * Returns the content type identified by magic number, or `null` if not identified.
+         *
+         * @return the content type
+         */
+        public String contentType() {
+            return null == mimeType ? null : mimeType.type();
+        }
+
+        /**
+         * Returns `true` if the content is binary.
+         *
+         * @return whether the content is binary
+         */
+        public boolean isBinary() {
+            return binary;
+        }
+
+        /**
+         * Returns the charset of text content if it can be told from the bytes,
+         * or `null` if the content is binary or its charset is unknown.
+         *
+         * @return the charset
+         */
+        public Charset charset() {
+            return charset;
+        }
+
+        @Override
+        public String toString() {
+            return S.concat(binary ? "binary" : "text", null == mimeType ? "" : " " + mimeType.type(),
+                    null == charset ? "" : " " + charset.name());
+        }
+    }
+
+    private static final Result BINARY = new Result(null, true, null);
+    private static final Result TEXT = new Result(null, false, null);
+    private static final Result ASCII = new Result(null, false, StandardCharsets.US_ASCII);
+    private static final Result UTF_8 = new Result(null, false, StandardCharsets.UTF_8);
+
+    private static final Charset UTF_32BE = Charset.forName("UTF-32BE");
+    private static final Charset UTF_32LE = Charset.forName("UTF-32LE");
+
+    private static final Magic[] MAGICS = {
+            // images
+            new Magic("png", true, 0, "\u0089PNG\r\n\u001a\n"),
+            new Magic("jpg", true, 0, "\u00ff\u00d8\u00ff"),
+            new Magic("gif", true, 0, "GIF87a"),
+            new Magic("gif", true, 0, "GIF89a"),
+            new Magic("tif", true, 0, "II*\u0000"),
+            new Magic("tif", true, 0, "MM\u0000*"),
+            new Magic("bmp", true, 0, "BM", 6, "\u0000\u0000\u0000\u0000"),
+            new Magic("ico", true, 0, "\u0000\u0000\u0001\u0000"),
+            new Magic("webp", true, 0, "RIFF", 8, "WEBP"),
+            new Magic("psd", true, 0, "8BPS"),
+            // audio and video
+            new Magic("wav", true, 0, "RIFF", 8, "WAVE"),
+            new Magic("avi", true, 0, "RIFF", 8, "AVI "),
+            new Magic("mp3", true, 0, "ID3"),
+            new Magic("ogg", true, 0, "OggS"),
+            new Magic("flac", true, 0, "fLaC"),
+            new Magic("mid", true, 0, "MThd"),
+            new Magic("mp4", true, 4, "ftyp"),
+            // documents
+            new Magic("pdf", true, 0, "%PDF-"),
+            new Magic("doc", true, 0, "\u00d0\u00cf\u0011\u00e0\u00a1\u00b1\u001a\u00e1"),
+            // archives
+            new Magic("zip", true, 0, "PK\u0003\u0004"),
+            new Magic("zip", true, 0, "PK\u0005\u0006"),
+            new Magic("gz", true, 0, "\u001f\u008b"),
+            new Magic("bz2", true, 0, "BZh", 4, "1AY&SY"),
+            new Magic("7z", true, 0, "7z\u00bc\u00af'\u001c"),
+            new Magic("rar", true, 0, "Rar!\u001a\u0007"),
+            new Magic("xz", true, 0, "\u00fd7zXZ\u0000"),
+            new Magic("zst", true, 0, "(\u00b5/\u00fd"),
+            new Magic("tar", true, 257, "ustar"),
+            // others
+            new Magic("class", true, 0, "\u00ca\u00fe\u00ba\u00be"),
+            new Magic("wasm", true, 0, "\u0000asm"),
+            new Magic("elf", true, 0, "\u007fELF"),
+            new Magic("sqlite", true, 0, "SQLite format 3\u0000"),
+            new Magic("woff", true, 0, "wOFF"),
+            new Magic("woff2", true, 0, "wOF2"),
+            // text, matched case insensitively after leading white spaces
+            new Magic("xml", false, 0, "<?xml"),
+            new Magic("html", false, 0, "<!doctype html"),
+            new Magic("html", false, 0, "<html"),
+            new Magic("svg", false, 0, "<svg"),
+            new Magic("ps", false, 0, "%!PS"),
+            new Magic("rtf", false, 0, "{\\rtf")
+    };
+
+    private ContentSniffer() {
+    }
+
+    /**
+     * Sniff the leading bytes of some content.
+     *
+     * @param prefix
+     *      the leading bytes, only the first {@link #PEEK_SIZE} bytes are examined
+     * @return the result
+     */
+    public static Result sniff(byte[] prefix) {
+        return sniff(prefix, 0, prefix.length);
+    }
+
+    /**
+     * Sniff the leading bytes of some content.
+     *
+     * @param buf
+     *      the leading bytes between its position and limit. The buffer's position is not changed
+     * @return the result
+     */
+    public static Result sniff(ByteBuffer buf) {
+        if (buf.hasArray()) {
+            return sniff(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+        }
+        byte[] ba = new byte[Math.min(buf.remaining(), PEEK_SIZE)];
+        buf.duplicate().get(ba);
+        return sniff(ba);
+    }
+
+    /**
+     * Sniff the leading bytes of some content.
+     *
+     * @param bytes
+     *      the byte array
+     * @param offset
+     *      the offset of the content in the array
+     * @param length
+     *      the number of bytes available, only the first {@link #PEEK_SIZE} bytes are examined
+     * @return the result
+     */
+    public static Result sniff(byte[] bytes, int offset, int length) {
+        int end = offset + Math.min(length, PEEK_SIZE);
+        for (Magic magic : MAGICS) {
+            if (magic.binary && magic.matches(bytes, offset, end)) {
+                return new Result(magic.mimeType(), true, null);
+            }
+        }
+        Charset bomCharset = null;
+        int start = offset;
+        if (startsWith(bytes, offset, end, 0xef, 0xbb, 0xbf)) {
+            start += 3;
+        } else if (startsWith(bytes, offset, end, 0x00, 0x00, 0xfe, 0xff)) {
+            bomCharset = UTF_32BE;
+        } else if (startsWith(bytes, offset, end, 0xff, 0xfe, 0x00, 0x00)) {
+            bomCharset = UTF_32LE;
+        } else if (startsWith(bytes, offset, end, 0xfe, 0xff)) {
+            bomCharset = StandardCharsets.UTF_16BE;
+        } else if (startsWith(bytes, offset, end, 0xff, 0xfe)) {
+            bomCharset = StandardCharsets.UTF_16LE;
+        }
+        if (null != bomCharset) {
+            // wide charset text has zero bytes, no need to scan
+            return new Result(null, false, bomCharset);
+        }
+        Result result = scan(bytes, start, end);
+        if (result.binary) {
+            return result;
+        }
+        if (result == ASCII && start > offset) {
+            // ASCII after UTF-8 BOM
+            result = UTF_8;
+        }
+        int textStart = start;
+        while (textStart < end && isWhitespace(bytes[textStart])) {
+            textStart++;
+        }
+        for (Magic magic : MAGICS) {
+            if (!magic.binary && magic.matches(bytes, textStart, end)) {
+                return new Result(magic.mimeType(), false, result.charset);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sniff the leading bytes of an input stream without consuming it.
+     *
+     * @param is
+     *      the input stream, must support {@link InputStream#mark(int) mark}
+     * @return the result
+     * @see #peek(InputStream, int)
+     */
+    public static Result sniff(InputStream is) {
+        return sniff(peek(is, PEEK_SIZE));
+    }
+
+    /**
+     * Read up to `limit` leading bytes from an input stream and reset the stream
+     * to where it was, so the bytes can be read again.
+     *
+     * @param is
+     *      the input stream, must support {@link InputStream#mark(int) mark}
+     * @param limit
+     *      the max number of bytes to read
+     * @return the bytes read, which is shorter than `limit` if the end of stream reached
+     */
+    public static byte[] peek(InputStream is, int limit) {
+        E.illegalArgumentIf(!is.markSupported(), "input stream does not support mark: %s", is.getClass());
+        byte[] buf = new byte[limit];
+        int n = 0;
+        is.mark(limit);
+        try {
+            while (n < limit) {
+                int read = is.read(buf, n, limit - n);
+                if (read < 0) {
+                    break;
+                }
+                n += read;
+            }
+            is.reset();
+        } catch (IOException e) {
+            throw E.ioException(e);
+        }
+        return n == limit ? buf : Arrays.copyOf(buf, n);
+    }
+
+    /*
+     * Scan the bytes for binary control characters and check UTF-8 validity. An
+     * incomplete sequence at the end is tolerated as the prefix might be cut there.
+     */
+    private static Result scan(byte[] bytes, int start, int end) {
+        boolean ascii = true;
+        boolean utf8 = true;
+        int i = start;
+        while (i < end) {
+            int b = bytes[i] & 0xff;
+            if (b < 0x80) {
+                if (isBinaryControl(b)) {
+                    return BINARY;
+                }
+                i++;
+                continue;
+            }
+            ascii = false;
+            if (utf8) {
+                int len = utf8SequenceLength(bytes, i, end);
+                if (len > 0) {
+                    i += len;
+                    continue;
+                }
+                utf8 = false;
+            }
+            i++;
+        }
+        return ascii ? ASCII : utf8 ? UTF_8 : TEXT;
+    }
+
+    /*
+     * Returns the length of the well formed UTF-8 sequence starting at `i`, or
+     * `0` if it is malformed. See the table 3-7 of the Unicode standard.
+     */
+    private static int utf8SequenceLength(byte[] bytes, int i, int end) {
+        int b = bytes[i] & 0xff;
+        int len, min = 0x80, max = 0xbf;
+        if (b >= 0xc2 && b <= 0xdf) {
+            len = 2;
+        } else if (b >= 0xe0 && b <= 0xef) {
+            len = 3;
+            if (b == 0xe0) {
+                min = 0xa0;
+            } else if (b == 0xed) {
+                max = 0x9f;
+            }
+        } else if (b >= 0xf0 && b <= 0xf4) {
+            len = 4;
+            if (b == 0xf0) {
+                min = 0x90;
+            } else if (b == 0xf4) {
+                max = 0x8f;
+            }
+        } else {
+            return 0;
+        }
+        for (int j = 1; j < len; ++j) {
+            if (i + j >= end) {
+                return end - i;
+            }
+            int c = bytes[i + j] & 0xff;
+            if (c < min || c > max) {
+                return 0;
+            }
+            min = 0x80;
+            max = 0xbf;
+        }
+        return len;
+    }
+
+    // text may contain BEL, BS, TAB, LF, VT, FF, CR and ESC
+    private static boolean isBinaryControl(int b) {
+        return b < 0x07 || (b > 0x0d && b < 0x20 && b != 0x1b) || b == 0x7f;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f';
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, int end, int... prefix) {
+        if (end - offset < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; ++i) {
+            if ((bytes[offset + i] & 0xff) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Magic {
+        private final String name;
+        private final boolean binary;
+        private final int[] offsets;
+        private final byte[][] patterns;
+        private volatile MimeType mimeType;
+        private volatile boolean resolved;
+
+        /*
+         * `parts` are pairs of offset and the bytes expected at that offset, each char
+         * of the string is a byte
+         */
+        Magic(String name, boolean binary, Object... parts) {
+            this.name = name;
+            this.binary = binary;
+            int n = parts.length / 2;
+            this.offsets = new int[n];
+            this.patterns = new byte[n][];
+            for (int i = 0; i < n; ++i) {
+                offsets[i] = (Integer) parts[i * 2];
+                patterns[i] = ((String) parts[i * 2 + 1]).getBytes(StandardCharsets.ISO_8859_1);
+            }
+        }
+
+        boolean matches(byte[] bytes, int start, int end) {
+            for (int i = 0; i < offsets.length; ++i) {
+                byte[] pattern = patterns[i];
+                int from = start + offsets[i];
+                if (end - from < pattern.length) {
+                    return false;
+                }
+                for (int j = 0; j < pattern.length; ++j) {
+                    byte b = bytes[from + j];
+                    if (b != pattern[j] && (binary || toLowerCase(b) != pattern[j])) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        MimeType mimeType() {
+            if (!resolved) {
+                mimeType = MimeType.findByName(name);
+                resolved = true;
+            }
+            return mimeType;
+        }
+
+        private static byte toLowerCase(byte b) {
+            return b >= 'A' && b <= 'Z' ? (byte) (b + 32) : b;
+        }
+    }
+
+}
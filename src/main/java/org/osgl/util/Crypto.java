@@ -110,7 +110,7 @@ public enum Crypto {
     }
 
     public static char[] generatePassword(char[] ca) {
-        return generatePassword(ca, new SecureRandom());
+        return generatePassword(ca, IdGenerator.secureRandom());
     }
 
     private static char[] generatePassword(char[] ca, Random r) {
@@ -251,8 +251,7 @@ public enum Crypto {
             byte[] ba = md.digest();
             byte[] key = new byte[32], iv = new byte[16];
             System.arraycopy(ba, 0, key, 0, 32);
-            SecureRandom sr = new SecureRandom();
-            sr.nextBytes(iv);
+            IdGenerator.secureRandom().nextBytes(iv);
 
             SecretKeySpec keySpec = new SecretKeySpec(key, "AES");
             IvParameterSpec ivSpec = new IvParameterSpec(iv);
@@ -475,10 +474,7 @@ public enum Crypto {
      * @return the secret
      */
     public static String genSecret(int len) {
-        SecureRandom random = new SecureRandom();
-        byte[] bytes = new byte[len];
-        random.nextBytes(bytes);
-        String s = Codec.encodeUrlSafeBase64(bytes);
+        String s = Codec.encodeUrlSafeBase64(IdGenerator.secureBytes(len));
         if (s.endsWith(".")) {
             s = S.beforeFirst(s, ".");
         }
@@ -521,8 +517,7 @@ public enum Crypto {
     public static String genRandomDigits(int len) {
         E.illegalArgumentIf(len < 1);
         if (len < 10) {
-            SecureRandom random = new SecureRandom();
-            int n = random.nextInt(POWER_OF_TEN[len]);
+            int n = IdGenerator.secureRandom().nextInt(POWER_OF_TEN[len]);
             int base = POWER_OF_TEN[len - 1];
             if (n < base) {
                 n += base;
@@ -539,8 +534,7 @@ public enum Crypto {
      * @see #genRandomDigits(int)
      */
     public static String genRandomDigits() {
-        SecureRandom random = new SecureRandom();
-        int n = random.nextInt(8) + 4;
+        int n = IdGenerator.secureRandom().nextInt(8) + 4;
         return genRandomDigits(n);
     }
 
@@ -572,7 +566,7 @@ public enum Crypto {
     }
 
     private static String genRandomX(int len, char[] space, int spaceSize) {
-        SecureRandom random = new SecureRandom();
+        Random random = IdGenerator.secureRandom();
         char[] ca = new char[len];
         for (int i = 0; i < len; ++i) {
             ca[i] = space[random.nextInt(spaceSize)];
@@ -586,8 +580,7 @@ public enum Crypto {
      * @see #genRandomStr(int)
      */
     public static String genRandomStr() {
-        SecureRandom random = new SecureRandom();
-        int len = random.nextInt(12) + 4;
+        int len = IdGenerator.secureRandom().nextInt(12) + 4;
         return genRandomStr(len);
     }
 
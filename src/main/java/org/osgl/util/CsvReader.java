@@ -0,0 +1,1016 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2018 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.osgl.$;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Reads records from a CSV file as specified by
+ * [RFC 4180](https://tools.ietf.org/html/rfc4180).
+ *
+ * * fields are separated by `,` (configurable)
+ * * fields may be enclosed in double quotes (configurable), in which case
+ *   they can contain separators, line breaks, and quotes escaped as `""`
+ * * records end with `\n`, `\r\n` or `\r`, blank lines are skipped
+ *
+ * Records are parsed from the bytes read into a buffer. A {@link Record}
+ * is a view of field offsets in the buffer, which is reused for the next
+ * record, so a field is decoded to `String` only when it is requested,
+ * and numbers can be parsed without decoding.
+ *
+ * The charset must encode the separator, quote and line breaks as single
+ * ASCII bytes, e.g. UTF-8 and ISO-8859-1. A UTF-8 byte order mark at the
+ * beginning of the file is skipped.
+ *
+ * Usage:
+ *
+ * ```java
+ * CsvReader csv = new CsvReader(file).header(true);
+ * for (CsvReader.Record record : csv) {
+ *     total += record.getLong("amount");
+ * }
+ * ```
+ */
+public class CsvReader implements Iterable<CsvReader.Record> {
+
+    /**
+     * Receives records from {@link #accept(RecordReader)}.
+     */
+    public abstract static class RecordReader {
+
+        /**
+         * Read a record.
+         *
+         * The record is reused for the next record, thus shall not be kept.
+         *
+         * @param record
+         *      the record
+         * @param recordNo
+         *      the number of the record, starting from `0`, not counting the header
+         */
+        public abstract void read(Record record, long recordNo);
+
+        /**
+         * Called when a batch of records has been read. In parallel read
+         * each thread calls it once after reading its part of the file.
+         */
+        public void batchFinished() {
+        }
+    }
+
+    /**
+     * A record is a view of the fields in the read buffer.
+     */
+    public static final class Record {
+        private final CsvReader csv;
+        private byte[] buf;
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        // field is quoted and contains `""` or malformed quote
+        private boolean[] escaped = new boolean[16];
+        private int size;
+        private long recordNo;
+        private final ByteChars chars = new ByteChars();
+
+        private Record(CsvReader csv) {
+            this.csv = csv;
+        }
+
+        /**
+         * Returns the number of fields.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Returns the number of the record, starting from `0`, not counting the header.
+         */
+        public long recordNo() {
+            return recordNo;
+        }
+
+        /**
+         * Returns the field at index `i`.
+         *
+         * @param i
+         *      the field index
+         * @return the field value
+         */
+        public String get(int i) {
+            check(i);
+            int start = starts[i];
+            if (escaped[i]) {
+                return unescape(start, ends[i]);
+            }
+            return new String(buf, start, ends[i] - start, csv.charset);
+        }
+
+        /**
+         * Returns the field of the header.
+         *
+         * @param header
+         *      the header name
+         * @return the field value
+         */
+        public String get(String header) {
+            return get(csv.indexOf(header));
+        }
+
+        /**
+         * Returns `true` if the field is empty or contains only whitespace.
+         */
+        public boolean isBlank(int i) {
+            check(i);
+            chars.buf = buf;
+            return NumberScanner.trimStart(chars, starts[i], ends[i]) == ends[i];
+        }
+
+        /**
+         * Returns the field as `int`. It is parsed the same way as the
+         * predefined `int` {@link StringValueResolver} does, without
+         * decoding the field into a `String`.
+         */
+        public int getInt(int i) {
+            if (isBlank(i)) {
+                return 0;
+            }
+            if (escaped[i]) {
+                String s = get(i);
+                return StringValueResolver.intOf(s, 0, s.length());
+            }
+            return StringValueResolver.intOf(chars, starts[i], ends[i]);
+        }
+
+        public int getInt(String header) {
+            return getInt(csv.indexOf(header));
+        }
+
+        /**
+         * Returns the field as `long`. See {@link #getInt(int)}.
+         */
+        public long getLong(int i) {
+            if (isBlank(i)) {
+                return 0L;
+            }
+            if (escaped[i]) {
+                String s = get(i);
+                return StringValueResolver.longOf(s, 0, s.length());
+            }
+            return StringValueResolver.longOf(chars, starts[i], ends[i]);
+        }
+
+        public long getLong(String header) {
+            return getLong(csv.indexOf(header));
+        }
+
+        /**
+         * Returns the field as `double`. See {@link #getInt(int)}.
+         */
+        public double getDouble(int i) {
+            if (isBlank(i)) {
+                return 0d;
+            }
+            double n;
+            if (escaped[i]) {
+                String s = get(i);
+                n = StringValueResolver.doubleOf(s, 0, s.length());
+            } else {
+                n = StringValueResolver.doubleOf(chars, starts[i], ends[i]);
+            }
+            if (Double.isInfinite(n) || Double.isNaN(n)) {
+                throw new IllegalArgumentException("double value out of scope: " + get(i));
+            }
+            return n;
+        }
+
+        public double getDouble(String header) {
+            return getDouble(csv.indexOf(header));
+        }
+
+        /**
+         * Returns the field as `boolean`, i.e. `true` if it is `true` ignoring case.
+         */
+        public boolean getBoolean(int i) {
+            check(i);
+            int start = starts[i];
+            if (ends[i] - start != 4 || escaped[i]) {
+                return !escaped[i] ? false : Boolean.parseBoolean(get(i));
+            }
+            return (buf[start] | 0x20) == 't' && (buf[start + 1] | 0x20) == 'r'
+                    && (buf[start + 2] | 0x20) == 'u' && (buf[start + 3] | 0x20) == 'e';
+        }
+
+        public boolean getBoolean(String header) {
+            return getBoolean(csv.indexOf(header));
+        }
+
+        /**
+         * Returns the field converted by the predefined {@link StringValueResolver}
+         * of the type.
+         *
+         * @param i
+         *      the field index
+         * @param type
+         *      the target type, e.g. `Integer.class`, `BigDecimal.class`
+         * @param <T>
+         *      the generic type
+         * @return the value
+         */
+        public <T> T get(int i, Class<T> type) {
+            StringValueResolver<T> resolver = StringValueResolver.predefined(type);
+            E.unsupportedIf(null == resolver, "type not supported: %s", type);
+            return resolver.resolve(get(i));
+        }
+
+        public <T> T get(String header, Class<T> type) {
+            return get(csv.indexOf(header), type);
+        }
+
+        /**
+         * Returns all fields as a list.
+         */
+        public List<String> toList() {
+            List<String> list = new ArrayList<>(size);
+            for (int i = 0; i < size; ++i) {
+                list.add(get(i));
+            }
+            return list;
+        }
+
+        @Override
+        public String toString() {
+            return toList().toString();
+        }
+
+        private void check(int i) {
+            if (i < 0 || i >= size) {
+                throw new IndexOutOfBoundsException("field index out of range: " + i);
+            }
+        }
+
+        private String unescape(int start, int end) {
+            byte quote = csv.quote;
+            byte[] ba = new byte[end - start];
+            int n = 0;
+            for (int i = start; i < end; ++i) {
+                byte b = buf[i];
+                if (b == quote) {
+                    // `""` is an escaped quote, a single quote is the closing quote
+                    if (i + 1 < end && buf[i + 1] == quote) {
+                        ba[n++] = quote;
+                        i++;
+                    }
+                    continue;
+                }
+                ba[n++] = b;
+            }
+            return new String(ba, 0, n, csv.charset);
+        }
+
+        private void reset(byte[] buf) {
+            this.buf = buf;
+            this.chars.buf = buf;
+            this.size = 0;
+        }
+
+        private void add(int start, int end, boolean escaped) {
+            if (size == starts.length) {
+                int len = size * 2;
+                starts = Arrays.copyOf(starts, len);
+                ends = Arrays.copyOf(ends, len);
+                this.escaped = Arrays.copyOf(this.escaped, len);
+            }
+            starts[size] = start;
+            ends[size] = end;
+            this.escaped[size] = escaped;
+            size++;
+        }
+    }
+
+    /*
+     * Files smaller than this are not split for parallel read
+     */
+    static final int MIN_PARALLEL_SIZE = 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    private final byte[] bytes;
+    private byte separator = ',';
+    private byte quote = '"';
+    private Charset charset = StandardCharsets.UTF_8;
+    private boolean header;
+    private volatile List<String> headers;
+    private volatile Map<String, Integer> headerIndex;
+
+    public CsvReader(File file) {
+        E.illegalArgumentIfNot(file.exists() && file.isFile() && file.canRead(), "file must exists and be a readable file: " + file);
+        this.file = file;
+        this.bytes = null;
+    }
+
+    public CsvReader(byte[] bytes) {
+        this.file = null;
+        this.bytes = $.requireNotNull(bytes);
+    }
+
+    /**
+     * Set the field separator. Default is `,`.
+     */
+    public CsvReader separator(char separator) {
+        this.separator = asciiByte(separator);
+        return this;
+    }
+
+    /**
+     * Set the quote char. Default is `"`.
+     */
+    public CsvReader quote(char quote) {
+        this.quote = asciiByte(quote);
+        return this;
+    }
+
+    /**
+     * Set the charset. Default is UTF-8.
+     */
+    public CsvReader charset(Charset charset) {
+        for (char c : new char[]{'\n', '\r', (char) separator, (char) quote}) {
+            byte[] ba = String.valueOf(c).getBytes(charset);
+            E.illegalArgumentIf(ba.length != 1 || ba[0] != c, "charset not supported: %s", charset);
+        }
+        this.charset = charset;
+        return this;
+    }
+
+    /**
+     * Specify if the first record is a header. Default is `false`.
+     *
+     * The header record is not passed to readers, and fields can be
+     * got by header name.
+     */
+    public CsvReader header(boolean header) {
+        this.header = header;
+        this.headers = null;
+        this.headerIndex = null;
+        return this;
+    }
+
+    /**
+     * Returns the header names or an empty list if the header is not enabled.
+     */
+    public List<String> headers() {
+        if (!header) {
+            return C.list();
+        }
+        if (null == headers) {
+            synchronized (this) {
+                if (null == headers) {
+                    Parser parser = new Parser(0, size());
+                    try {
+                        List<String> list = parser.next() ? parser.record.toList() : new ArrayList<String>();
+                        Map<String, Integer> index = new HashMap<>();
+                        for (int i = list.size() - 1; i >= 0; --i) {
+                            index.put(list.get(i), i);
+                        }
+                        headerIndex = index;
+                        headers = Collections.unmodifiableList(list);
+                    } finally {
+                        parser.close();
+                    }
+                }
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * Iterate through the records. The same {@link Record} instance is
+     * returned by each call to `next()`.
+     */
+    @Override
+    public Iterator<Record> iterator() {
+        headers();
+        final Parser parser = new Parser(0, size());
+        if (header) {
+            parser.next();
+            parser.recordNo = 0;
+        }
+        return new Iterator<Record>() {
+            // null: not checked, TRUE: record parsed but not returned
+            private Boolean hasNext;
+
+            @Override
+            public boolean hasNext() {
+                if (null == hasNext) {
+                    hasNext = parser.next();
+                    if (!hasNext) {
+                        parser.close();
+                    }
+                }
+                return hasNext;
+            }
+
+            @Override
+            public Record next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                hasNext = null;
+                return parser.record;
+            }
+
+            @Override
+            public void remove() {
+                throw E.unsupport();
+            }
+        };
+    }
+
+    /**
+     * Read all records with the calling thread.
+     *
+     * @param reader
+     *      the record reader
+     */
+    public void accept(RecordReader reader) {
+        headers();
+        read(new Part(0, size(), 0), reader);
+    }
+
+    /**
+     * Read records in parallel.
+     *
+     * The file is split into parts on record boundaries, see {@link #split(int)}.
+     * Each part is read by a thread, the record numbers are the same as those
+     * of sequential read.
+     *
+     * @param reader
+     *      the record reader, which shall be thread safe
+     * @param threads
+     *      the number of threads
+     */
+    public void accept(final RecordReader reader, int threads) {
+        headers();
+        long size = size();
+        if (threads < 2 || size < MIN_PARALLEL_SIZE) {
+            accept(reader);
+            return;
+        }
+        List<Runnable> tasks = new ArrayList<>();
+        for (final Part part : split(threads)) {
+            tasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    read(part, reader);
+                }
+            });
+        }
+        runInParallel(tasks);
+    }
+
+    /*
+     * Run each task with a thread and wait for all of them to finish,
+     * the first error is rethrown
+     */
+    private static void runInParallel(List<Runnable> tasks) {
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        List<Thread> threadStore = new ArrayList<>();
+        for (final Runnable task : tasks) {
+            Thread t = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.run();
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+            }, "csv-reader-" + threadStore.size());
+            threadStore.add(t);
+            t.start();
+        }
+        for (Thread t : threadStore) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw E.unexpected(e);
+            }
+        }
+        if (!errors.isEmpty()) {
+            Throwable e = errors.get(0);
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+            throw E.unexpected(e);
+        }
+    }
+
+    private void read(Part part, RecordReader reader) {
+        Parser parser = new Parser(part.start, part.end);
+        try {
+            if (0 == part.start && header) {
+                parser.next();
+            }
+            parser.recordNo = part.firstRecordNo;
+            while (parser.next()) {
+                reader.read(parser.record, parser.record.recordNo);
+            }
+            reader.batchFinished();
+        } finally {
+            parser.close();
+        }
+    }
+
+    private int indexOf(String header) {
+        headers();
+        Integer i = null == headerIndex ? null : headerIndex.get(header);
+        E.illegalArgumentIf(null == i, "header not found: %s", header);
+        return i;
+    }
+
+    private long size() {
+        return null != file ? file.length() : bytes.length;
+    }
+
+    private InputStream open(long start) throws IOException {
+        if (null != bytes) {
+            return new ByteArrayInputStream(bytes, (int) start, bytes.length - (int) start);
+        }
+        FileInputStream fis = new FileInputStream(file);
+        fis.getChannel().position(start);
+        return fis;
+    }
+
+    private static byte asciiByte(char c) {
+        E.illegalArgumentIf(c > 127 || '\n' == c || '\r' == c, "Invalid char: %s", c);
+        return (byte) c;
+    }
+
+    private static class Part {
+        final long start;
+        final long end;
+        final long firstRecordNo;
+
+        Part(long start, long end, long firstRecordNo) {
+            this.start = start;
+            this.end = end;
+            this.firstRecordNo = firstRecordNo;
+        }
+    }
+
+    private static final int START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+
+    /*
+     * The state of the quote aware state machine is encoded as `state << 1 | any`,
+     * where `any` tells if the current record has any content. These are
+     * all the states possible at an arbitrary position.
+     */
+    private static final int[] ENTRY_STATES = {
+            START << 1, START << 1 | 1, UNQUOTED << 1 | 1, QUOTED << 1 | 1, QUOTE_IN_QUOTED << 1 | 1
+    };
+
+    // flags returned by step()
+    private static final int BOUNDARY = 8;
+    private static final int RECORD_END = 16;
+
+    /*
+     * Returns the state after byte `b` from `code`, with BOUNDARY set if `b`
+     * is a line break out of quotes, and RECORD_END set if it also ends a
+     * record. The rules are the same as the parser's, so a line break in a
+     * quoted field is not taken as a boundary.
+     */
+    private static int step(int code, byte b, byte sep, byte quote) {
+        int state = code >> 1;
+        switch (state) {
+            case QUOTED:
+                return b == quote ? QUOTE_IN_QUOTED << 1 | 1 : code;
+            case QUOTE_IN_QUOTED:
+                if (b == quote) {
+                    return QUOTED << 1 | 1;
+                }
+                break;
+            case START:
+                if (b == quote) {
+                    return QUOTED << 1 | 1;
+                }
+                break;
+            default:
+        }
+        if ('\n' != b && '\r' != b) {
+            return (b == sep ? START : UNQUOTED) << 1 | 1;
+        }
+        return 0 != (code & 1) ? START << 1 | BOUNDARY | RECORD_END : START << 1 | BOUNDARY;
+    }
+
+    /*
+     * The result of scanning a chunk from each of the ENTRY_STATES
+     */
+    private static class ChunkScan {
+        final int[] exit = new int[ENTRY_STATES.length];
+        // number of records ended in the chunk
+        final long[] records = new long[ENTRY_STATES.length];
+        // position after the first boundary in the chunk or -1
+        final long[] boundary = new long[ENTRY_STATES.length];
+        // number of records ended up to the first boundary
+        final long[] recordsBefore = new long[ENTRY_STATES.length];
+    }
+
+    /*
+     * Split the file into parts on record boundaries.
+     *
+     * The file is cut into chunks at even offsets which are scanned in
+     * parallel. As the state at the start of a chunk is only known after the
+     * previous chunk is scanned, each chunk is scanned from all the possible
+     * states at once. Scans from different states reach the same state,
+     * usually within a few fields, and then go on as one.
+     *
+     * The states are then resolved chunk by chunk from the start of the file,
+     * which gives the first record boundary in each chunk and the number of
+     * records before it.
+     */
+    List<Part> split(int threads) {
+        final long size = size();
+        long chunkSize = size / threads;
+        final ChunkScan[] scans = new ChunkScan[threads];
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < threads; ++i) {
+            final int chunk = i;
+            final long start = i * chunkSize;
+            final long end = i == threads - 1 ? size : start + chunkSize;
+            tasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    scans[chunk] = scan(start, end);
+                }
+            });
+        }
+        runInParallel(tasks);
+        List<Part> parts = new ArrayList<>();
+        long partStart = 0;
+        long partRecordNo = 0;
+        long records = header ? -1 : 0;
+        int code = START << 1;
+        for (int i = 0; i < threads; ++i) {
+            ChunkScan scan = scans[i];
+            int h = Arrays.binarySearch(ENTRY_STATES, code);
+            long boundary = scan.boundary[h];
+            long recordNo = records + scan.recordsBefore[h];
+            if (i > 0 && boundary >= 0 && recordNo >= 0) {
+                parts.add(new Part(partStart, boundary, partRecordNo));
+                partStart = boundary;
+                partRecordNo = recordNo;
+            }
+            records += scan.records[h];
+            code = scan.exit[h];
+        }
+        parts.add(new Part(partStart, size, partRecordNo));
+        return parts;
+    }
+
+    /*
+     * Scan `[start, end)` from each of the ENTRY_STATES in lockstep. A scan
+     * follows another one once they are in the same state and have both
+     * or neither found the first boundary, after which they differ only in
+     * the number of records.
+     */
+    private ChunkScan scan(long start, long end) {
+        int n = ENTRY_STATES.length;
+        ChunkScan scan = new ChunkScan();
+        int[] code = ENTRY_STATES.clone();
+        // the scan followed, `h` itself if it is active
+        int[] leader = new int[n];
+        // records of `h` minus records of its leader
+        long[] offset = new long[n];
+        int[] active = new int[n];
+        int activeCount = n;
+        for (int h = 0; h < n; ++h) {
+            leader[h] = h;
+            active[h] = h;
+            scan.boundary[h] = -1;
+        }
+        long[] records = scan.records;
+        byte sep = separator, quote = this.quote;
+        InputStream is = null;
+        try {
+            is = open(start);
+            byte[] buf = new byte[BUFFER_SIZE];
+            long pos = start;
+            while (pos < end) {
+                int len = is.read(buf, 0, (int) Math.min(buf.length, end - pos));
+                if (len < 0) {
+                    break;
+                }
+                for (int i = 0; i < len; ++i) {
+                    if (1 == activeCount && scan.boundary[active[0]] >= 0) {
+                        // only the records are left to count
+                        int h = active[0];
+                        int c = code[h];
+                        long count = records[h];
+                        for (; i < len; ++i) {
+                            int r = step(c, buf[i], sep, quote);
+                            c = r & 7;
+                            if (0 != (r & RECORD_END)) {
+                                count++;
+                            }
+                        }
+                        code[h] = c;
+                        records[h] = count;
+                        break;
+                    }
+                    byte b = buf[i];
+                    for (int a = 0; a < activeCount; ++a) {
+                        int h = active[a];
+                        int r = step(code[h], b, sep, quote);
+                        code[h] = r & 7;
+                        if (0 != (r & RECORD_END)) {
+                            records[h]++;
+                        }
+                        if (0 != (r & BOUNDARY) && scan.boundary[h] < 0) {
+                            for (int x = 0; x < n; ++x) {
+                                if (leader[x] == h) {
+                                    scan.boundary[x] = pos + i + 1;
+                                    scan.recordsBefore[x] = records[h] + offset[x];
+                                }
+                            }
+                        }
+                    }
+                    if (activeCount > 1) {
+                        activeCount = merge(code, leader, offset, records, scan.boundary, active, activeCount);
+                    }
+                }
+                pos += len;
+            }
+        } catch (IOException e) {
+            throw E.ioException(e);
+        } finally {
+            IO.close(is);
+        }
+        for (int h = 0; h < n; ++h) {
+            int l = leader[h];
+            scan.exit[h] = code[l];
+            if (l != h) {
+                records[h] = records[l] + offset[h];
+            }
+        }
+        return scan;
+    }
+
+    /*
+     * Let an active scan follow an earlier one in the same state.
+     * Returns the number of active scans
+     */
+    private static int merge(int[] code, int[] leader, long[] offset, long[] records, long[] boundary, int[] active, int activeCount) {
+        for (int a = activeCount - 1; a > 0; --a) {
+            int h = active[a];
+            for (int c = 0; c < a; ++c) {
+                int g = active[c];
+                if (code[g] == code[h] && (boundary[g] < 0) == (boundary[h] < 0)) {
+                    long diff = records[h] - records[g];
+                    for (int x = 0; x < leader.length; ++x) {
+                        if (leader[x] == h) {
+                            leader[x] = g;
+                            offset[x] += diff;
+                        }
+                    }
+                    active[a] = active[--activeCount];
+                    break;
+                }
+            }
+        }
+        return activeCount;
+    }
+
+    /*
+     * Parse records from `[start, end)` of the source
+     */
+    private class Parser {
+        private final InputStream is;
+        private long remaining;
+        private byte[] buf = new byte[BUFFER_SIZE];
+        private int pos;
+        private int limit;
+        private boolean eof;
+        private final Record record = new Record(CsvReader.this);
+        long recordNo;
+
+        Parser(long start, long end) {
+            try {
+                this.is = open(start);
+            } catch (IOException e) {
+                throw E.ioException(e);
+            }
+            this.remaining = end - start;
+            if (0 == start) {
+                fill();
+                if (limit >= 3 && (buf[0] & 0xFF) == 0xEF && (buf[1] & 0xFF) == 0xBB && (buf[2] & 0xFF) == 0xBF) {
+                    pos = 3;
+                }
+            }
+        }
+
+        boolean next() {
+            while (true) {
+                while (pos < limit && ('\n' == buf[pos] || '\r' == buf[pos])) {
+                    pos++;
+                }
+                if (pos == limit) {
+                    if (eof) {
+                        return false;
+                    }
+                    fill();
+                    continue;
+                }
+                int end = parse(pos);
+                if (end < 0) {
+                    fill();
+                    continue;
+                }
+                pos = end;
+                record.recordNo = recordNo++;
+                return true;
+            }
+        }
+
+        /*
+         * Parse a record from `start`, returns the position after the record,
+         * or `-1` if more bytes are needed
+         */
+        private int parse(int start) {
+            byte[] buf = this.buf;
+            int limit = this.limit;
+            boolean eof = this.eof;
+            byte sep = separator, quote = CsvReader.this.quote;
+            Record record = this.record;
+            record.reset(buf);
+            int p = start;
+            while (true) {
+                if (p == limit) {
+                    if (!eof) {
+                        return -1;
+                    }
+                    record.add(p, p, false);
+                    return p;
+                }
+                if (buf[p] == quote) {
+                    int fieldStart = ++p;
+                    boolean escaped = false;
+                    int fieldEnd;
+                    while (true) {
+                        while (p < limit && buf[p] != quote) {
+                            p++;
+                        }
+                        if (p + 1 >= limit && !eof) {
+                            return -1;
+                        }
+                        if (p == limit) {
+                            // unclosed quote ends at the end of file
+                            record.add(fieldStart, p, escaped);
+                            return p;
+                        }
+                        if (p + 1 < limit && buf[p + 1] == quote) {
+                            escaped = true;
+                            p += 2;
+                            continue;
+                        }
+                        fieldEnd = p++;
+                        break;
+                    }
+                    if (p < limit && buf[p] != sep && '\n' != buf[p] && '\r' != buf[p]) {
+                        // malformed, keep bytes after the closing quote
+                        while (p < limit && buf[p] != sep && '\n' != buf[p] && '\r' != buf[p]) {
+                            p++;
+                        }
+                        if (p == limit && !eof) {
+                            return -1;
+                        }
+                        record.add(fieldStart, p, true);
+                    } else {
+                        record.add(fieldStart, fieldEnd, escaped);
+                    }
+                } else {
+                    int fieldStart = p;
+                    while (p < limit) {
+                        byte b = buf[p];
+                        if (b == sep || '\n' == b || '\r' == b) {
+                            break;
+                        }
+                        p++;
+                    }
+                    if (p == limit && !eof) {
+                        return -1;
+                    }
+                    record.add(fieldStart, p, false);
+                }
+                if (p == limit) {
+                    return p;
+                }
+                byte b = buf[p++];
+                if (b == sep) {
+                    continue;
+                }
+                if ('\r' == b) {
+                    if (p == limit && !eof) {
+                        return -1;
+                    }
+                    if (p < limit && '\n' == buf[p]) {
+                        p++;
+                    }
+                }
+                return p;
+            }
+        }
+
+        /*
+         * Move the unparsed bytes to the beginning of the buffer, grow the
+         * buffer if it is full, and read more bytes
+         */
+        private void fill() {
+            if (pos > 0) {
+                System.arraycopy(buf, pos, buf, 0, limit - pos);
+                limit -= pos;
+                pos = 0;
+            }
+            if (limit == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            if (remaining <= 0) {
+                eof = true;
+                return;
+            }
+            try {
+                int n = is.read(buf, limit, (int) Math.min(buf.length - limit, remaining));
+                if (n < 0) {
+                    eof = true;
+                } else {
+                    limit += n;
+                    remaining -= n;
+                }
+            } catch (IOException e) {
+                throw E.ioException(e);
+            }
+        }
+
+        void close() {
+            IO.close(is);
+        }
+    }
+
+    /*
+     * Exposes the bytes as chars for number parsing, which only
+     * needs ASCII chars
+     */
+    private static class ByteChars implements CharSequence {
+        byte[] buf;
+
+        @Override
+        public int length() {
+            return buf.length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buf[index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(buf, start, end - start, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return new String(buf, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+}
@@ -65,7 +65,7 @@ public class E {
      * Throws out an {@link InvalidStateException} with message specified.
      */
     public static InvalidStateException invalidState(String msg, Object... args) {
-        throw new InvalidStateException(S.fmt(msg, args));
+        throw new InvalidStateException(msg, args);
     }
 
     /**
@@ -724,7 +724,7 @@ public class E {
      */
     public static void illegalArgumentIf(boolean tester, String msg, Object... args) {
         if (tester) {
-            throw new IllegalArgumentException(S.fmt(msg, args));
+            throw new InvalidArgException(msg, args);
         }
     }
 
@@ -741,7 +741,7 @@ public class E {
      */
     public static void illegalArgumentIfNot(boolean tester, String msg, Object... args) {
         if (!tester) {
-            throw new IllegalArgumentException(S.fmt(msg, args));
+            throw new InvalidArgException(msg, args);
         }
     }
 
@@ -812,7 +812,7 @@ public class E {
      */
     public static void illegalStateIf(boolean tester, String msg, Object... args) {
         if (tester) {
-            throw new IllegalStateException(S.fmt(msg, args));
+            throw new LazyIllegalStateException(msg, args);
         }
     }
 
@@ -829,7 +829,7 @@ public class E {
      */
     public static void illegalStateIfNot(boolean tester, String msg, Object... args) {
         if (!tester) {
-            throw new IllegalStateException(S.fmt(msg, args));
+            throw new LazyIllegalStateException(msg, args);
         }
     }
 
@@ -858,5 +858,22 @@ public class E {
         t.printStackTrace(pw);
         return sw.getBuffer().toString();
     }
-    
+
+    /*
+     * An IllegalStateException with a lazy message
+     */
+    private static class LazyIllegalStateException extends IllegalStateException {
+        private final LazyMessage lazyMessage;
+
+        LazyIllegalStateException(String msg, Object... args) {
+            super(msg);
+            this.lazyMessage = LazyMessage.of(msg, args);
+        }
+
+        @Override
+        public String getMessage() {
+            return null == lazyMessage ? super.getMessage() : lazyMessage.get();
+        }
+    }
+
 }
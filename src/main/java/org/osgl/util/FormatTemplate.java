@@ -0,0 +1,337 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.math.BigInteger;
+import java.text.DecimalFormatSymbols;
+import java.text.MessageFormat;
+import java.util.Formattable;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A precompiled message template backing {@link S#fmt(String, Object...)} and
+ * {@link S#msgFmt(String, Object...)}.
+ *
+ * Only the common subset is compiled:
+ *
+ * * {@link String#format(String, Object...)} style: `%s`, `%d`, `%%` and `%n`
+ * * {@link MessageFormat} style: `{0}`, `{1}` ... without format type and quotes
+ *
+ * Templates using anything else, as well as arguments that the JDK formats
+ * in a special way, e.g. {@link Formattable} or {@link java.util.Date}, are
+ * delegated to the JDK formatter so the output is always the same.
+ *
+ * Compiled templates are kept in a bounded concurrent cache. The cache is
+ * cleared when it is full, which keeps templates built dynamically from
+ * occupying the memory.
+ */
+final class FormatTemplate {
+
+    /**
+     * The max number of templates cached for each style
+     */
+    static final int CACHE_LIMIT = 1024;
+
+    /**
+     * Template longer than this will not be cached
+     */
+    static final int MAX_CACHED_LENGTH = 512;
+
+    private static final char STRING = 's';
+    private static final char INTEGER = 'd';
+    private static final char MESSAGE = 'm';
+
+    // marks template that cannot be compiled
+    private static final FormatTemplate FALLBACK = new FormatTemplate(null, new char[0], null, false);
+
+    private static final ConcurrentMap<String, FormatTemplate> printfCache = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, FormatTemplate> messageCache = new ConcurrentHashMap<>();
+
+    private static volatile LocaleDigits localeDigits = new LocaleDigits(null);
+
+    private final String[] literals;
+    private final char[] types;
+    private final int[] indexes;
+    private final int arity;
+    // is it MessageFormat style template
+    private final boolean message;
+
+    private FormatTemplate(String[] literals, char[] types, int[] indexes, boolean message) {
+        this.literals = literals;
+        this.types = types;
+        this.indexes = indexes;
+        this.arity = types.length;
+        this.message = message;
+    }
+
+    /**
+     * Format with {@link String#format(String, Object...)} semantic.
+     */
+    static String printf(String template, Object... args) {
+        if (null != template) {
+            FormatTemplate compiled = lookup(printfCache, template, false);
+            if (compiled.accept(args)) {
+                return compiled.render(args);
+            }
+        }
+        return String.format(template, args);
+    }
+
+    /**
+     * Format with {@link MessageFormat#format(String, Object...)} semantic.
+     */
+    static String msgFmt(String template, Object... args) {
+        FormatTemplate compiled = lookup(messageCache, template, true);
+        if (compiled.accept(args)) {
+            return compiled.render(args);
+        }
+        return MessageFormat.format(template, args);
+    }
+
+    static void clearCache() {
+        printfCache.clear();
+        messageCache.clear();
+    }
+
+    static int cacheSize() {
+        return printfCache.size() + messageCache.size();
+    }
+
+    private static FormatTemplate lookup(ConcurrentMap<String, FormatTemplate> cache, String template, boolean message) {
+        FormatTemplate compiled = cache.get(template);
+        if (null == compiled) {
+            compiled = message ? compileMessage(template) : compilePrintf(template);
+            if (template.length() <= MAX_CACHED_LENGTH) {
+                if (cache.size() >= CACHE_LIMIT) {
+                    cache.clear();
+                }
+                cache.put(template, compiled);
+            }
+        }
+        return compiled;
+    }
+
+    static FormatTemplate compilePrintf(String template) {
+        Builder builder = new Builder(template.length(), false);
+        int argIndex = 0;
+        for (int i = 0, len = template.length(); i < len; ++i) {
+            char c = template.charAt(i);
+            if ('%' != c) {
+                builder.literal(c);
+                continue;
+            }
+            if (++i == len) {
+                return FALLBACK;
+            }
+            c = template.charAt(i);
+            switch (c) {
+                case '%':
+                    builder.literal('%');
+                    break;
+                case 'n':
+                    builder.literal(System.lineSeparator());
+                    break;
+                case STRING:
+                case INTEGER:
+                    builder.slot(c, argIndex++);
+                    break;
+                default:
+                    return FALLBACK;
+            }
+        }
+        return builder.build();
+    }
+
+    static FormatTemplate compileMessage(String template) {
+        Builder builder = new Builder(template.length(), true);
+        for (int i = 0, len = template.length(); i < len; ++i) {
+            char c = template.charAt(i);
+            if ('\'' == c || '}' == c) {
+                return FALLBACK;
+            }
+            if ('{' != c) {
+                builder.literal(c);
+                continue;
+            }
+            int index = 0, digits = 0;
+            while (++i < len) {
+                c = template.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                index = index * 10 + (c - '0');
+                digits++;
+            }
+            if (i == len || '}' != c || 0 == digits || digits > 4) {
+                return FALLBACK;
+            }
+            builder.slot(MESSAGE, index);
+        }
+        return builder.build();
+    }
+
+    /*
+     * Check if the args can be rendered by this template, i.e. whether
+     * the JDK formatter produces exactly the same output
+     */
+    private boolean accept(Object[] args) {
+        if (FALLBACK == this || !message && args.length < arity) {
+            return false;
+        }
+        for (int i = 0; i < arity; ++i) {
+            int index = indexes[i];
+            if (index >= args.length) {
+                // MessageFormat keeps `{n}` for missing arguments
+                continue;
+            }
+            Object arg = args[index];
+            if (null == arg) {
+                continue;
+            }
+            switch (types[i]) {
+                case STRING:
+                    if (arg instanceof Formattable) {
+                        return false;
+                    }
+                    break;
+                case INTEGER:
+                    if (!isIntegral(arg) || !plainDigits()) {
+                        return false;
+                    }
+                    break;
+                default:
+                    if (arg instanceof Number) {
+                        // MessageFormat uses NumberFormat, which groups digits
+                        if (!isIntegral(arg) || !lessThanThousand((Number) arg) || !plainDigits()) {
+                            return false;
+                        }
+                    } else if (arg instanceof java.util.Date) {
+                        return false;
+                    }
+            }
+        }
+        return true;
+    }
+
+    private String render(Object[] args) {
+        S.Buffer buf = S.buffer();
+        buf.append(literals[0]);
+        for (int i = 0; i < arity; ++i) {
+            int index = indexes[i];
+            if (index >= args.length) {
+                buf.append('{').append(index).append('}');
+            } else {
+                Object arg = args[index];
+                if (null == arg) {
+                    buf.append("null");
+                } else if (arg instanceof Long || arg instanceof Integer || arg instanceof Short || arg instanceof Byte) {
+                    buf.append(((Number) arg).longValue());
+                } else {
+                    buf.append(arg.toString());
+                }
+            }
+            buf.append(literals[i + 1]);
+        }
+        return buf.toString();
+    }
+
+    private static boolean isIntegral(Object arg) {
+        return arg instanceof Integer || arg instanceof Long || arg instanceof Short
+                || arg instanceof Byte || arg instanceof BigInteger;
+    }
+
+    private static boolean lessThanThousand(Number n) {
+        if (n instanceof BigInteger) {
+            return ((BigInteger) n).bitLength() < 10 && Math.abs(n.intValue()) < 1000;
+        }
+        long l = n.longValue();
+        return l > -1000 && l < 1000;
+    }
+
+    /*
+     * Returns `true` if the default format locale prints numbers
+     * with ASCII digits and minus sign
+     */
+    private static boolean plainDigits() {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        LocaleDigits digits = localeDigits;
+        if (locale != digits.locale) {
+            digits = new LocaleDigits(locale);
+            localeDigits = digits;
+        }
+        return digits.plain;
+    }
+
+    private static class LocaleDigits {
+        final Locale locale;
+        final boolean plain;
+
+        LocaleDigits(Locale locale) {
+            this.locale = locale;
+            if (null == locale) {
+                plain = false;
+            } else {
+                DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+                plain = '0' == symbols.getZeroDigit() && '-' == symbols.getMinusSign();
+            }
+        }
+    }
+
+    private static class Builder {
+        private final StringBuilder literal;
+        private final C.List<String> literals = C.newList();
+        private final StringBuilder types = new StringBuilder();
+        private final C.List<Integer> indexes = C.newList();
+        private final boolean message;
+
+        Builder(int capacity, boolean message) {
+            this.literal = new StringBuilder(capacity);
+            this.message = message;
+        }
+
+        void literal(char c) {
+            literal.append(c);
+        }
+
+        void literal(String s) {
+            literal.append(s);
+        }
+
+        void slot(char type, int index) {
+            literals.add(literal.toString());
+            literal.setLength(0);
+            types.append(type);
+            indexes.add(index);
+        }
+
+        FormatTemplate build() {
+            literals.add(literal.toString());
+            int[] ia = new int[indexes.size()];
+            for (int i = 0; i < ia.length; ++i) {
+                ia[i] = indexes.get(i);
+            }
+            return new FormatTemplate(literals.toArray(new String[literals.size()]), types.toString().toCharArray(), ia, message);
+        }
+    }
+
+}
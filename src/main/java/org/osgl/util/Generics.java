@@ -53,6 +53,9 @@ public class Generics {
      * If the specified class doesn't have generic type declared then it shall return
      * an empty list
      *
+     * <p>
+     * The result is cached in the {@link ClassMeta} of `theClass`, and the list returned is immutable.
+     *
      * @param theClass  the end class
      * @param rootClass the root class or interface
      * @return a list of type variable implementation on root class
@@ -61,8 +64,14 @@ public class Generics {
         if (rootClass.getTypeParameters().length == 0) {
             return C.list();
         }
+        ClassMeta meta = ClassMeta.of(theClass);
+        List<Type> types = meta.typeParamImplementations(rootClass);
+        if (null != types) {
+            return types;
+        }
         try {
-            return typeParamImplementations(theClass, rootClass, new ArrayList<Type>(), true);
+            types = typeParamImplementations(theClass, rootClass, new ArrayList<Type>(), true);
+            return types.isEmpty() ? types : meta.cacheTypeParamImplementations(rootClass, C.list(types));
         } catch (IndexOutOfBoundsException e) {
             throw new IllegalArgumentException(S.fmt("Cannot infer type parameter implementation on %s against %s", theClass.getName(), rootClass.getName()), e);
         }
@@ -82,8 +91,14 @@ public class Generics {
         if (rootClass.getTypeParameters().length == 0) {
             return C.list();
         }
+        ClassMeta meta = ClassMeta.of(theClass);
+        List<Type> types = meta.typeParamImplementations(rootClass);
+        if (null != types) {
+            return types;
+        }
         try {
-            return typeParamImplementations(theClass, rootClass, new ArrayList<Type>(), false);
+            types = typeParamImplementations(theClass, rootClass, new ArrayList<Type>(), false);
+            return types.isEmpty() ? types : meta.cacheTypeParamImplementations(rootClass, C.list(types));
         } catch (IndexOutOfBoundsException e) {
             throw new IllegalArgumentException(S.fmt("Cannot infer type parameter implementation on %s against %s", theClass.getName(), rootClass.getName()), e);
         }
@@ -0,0 +1,558 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.CRC32;
+
+/**
+ * Hash algorithms used by {@link IO#checksum(InputStream, Algorithm)} and friends.
+ *
+ * Besides the {@link MessageDigest} algorithms, it provides checksums
+ * that are much faster to compute when the hash is used to detect
+ * changes or duplicates rather than for security:
+ *
+ * * {@link #CRC32} - backed by {@link java.util.zip.CRC32}
+ * * {@link #CRC32C} - the Castagnoli CRC used by iSCSI, ext4 and cloud storage services
+ * * {@link #XXHASH64} - 64 bit xxHash with seed `0`
+ *
+ * Other algorithms can be plugged in by extending {@link Algorithm}.
+ */
+public final class Hash {
+
+    private Hash() {
+    }
+
+    /**
+     * Computes the hash of a stream of bytes.
+     *
+     * A hasher is not thread safe and shall not be used after
+     * {@link #digest()} is called.
+     */
+    public static abstract class Hasher {
+
+        /**
+         * Update the hash with bytes from an array.
+         *
+         * @param bytes
+         *      the byte array
+         * @param offset
+         *      the offset of the first byte
+         * @param len
+         *      the number of bytes
+         */
+        public abstract void update(byte[] bytes, int offset, int len);
+
+        /**
+         * Update the hash with the remaining bytes of a buffer.
+         *
+         * The buffer position is moved to its limit.
+         *
+         * @param buffer
+         *      the byte buffer
+         */
+        public void update(ByteBuffer buffer) {
+            if (buffer.hasArray()) {
+                update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                buffer.position(buffer.limit());
+                return;
+            }
+            byte[] chunk = new byte[Math.min(buffer.remaining(), 8192)];
+            while (buffer.hasRemaining()) {
+                int len = Math.min(chunk.length, buffer.remaining());
+                buffer.get(chunk, 0, len);
+                update(chunk, 0, len);
+            }
+        }
+
+        /**
+         * Complete the hash computation.
+         *
+         * @return the hash bytes
+         */
+        public abstract byte[] digest();
+    }
+
+    /**
+     * A hash algorithm.
+     */
+    public static abstract class Algorithm {
+
+        private final String name;
+
+        protected Algorithm(String name) {
+            this.name = S.requireNotBlank(name);
+        }
+
+        /**
+         * Returns the name of the algorithm.
+         *
+         * @return the name
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Create a new {@link Hasher} of this algorithm.
+         *
+         * @return a hasher
+         */
+        public abstract Hasher newHasher();
+
+        /**
+         * Returns the hash of a byte array.
+         *
+         * @param bytes
+         *      the bytes
+         * @return the hash bytes
+         */
+        public byte[] digest(byte[] bytes) {
+            Hasher hasher = newHasher();
+            hasher.update(bytes, 0, bytes.length);
+            return hasher.digest();
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    public static final Algorithm MD5 = messageDigest("MD5");
+    public static final Algorithm SHA1 = messageDigest("SHA-1");
+    public static final Algorithm SHA256 = messageDigest("SHA-256");
+    public static final Algorithm SHA512 = messageDigest("SHA-512");
+
+    public static final Algorithm CRC32 = new Algorithm("CRC32") {
+        @Override
+        public Hasher newHasher() {
+            return new Crc32Hasher();
+        }
+    };
+
+    public static final Algorithm CRC32C = new Algorithm("CRC32C") {
+        @Override
+        public Hasher newHasher() {
+            return new Crc32cHasher();
+        }
+    };
+
+    public static final Algorithm XXHASH64 = new Algorithm("XXHASH64") {
+        @Override
+        public Hasher newHasher() {
+            return new XxHash64Hasher(0);
+        }
+    };
+
+    private static final Algorithm[] BUILT_IN = {MD5, SHA1, SHA256, SHA512, CRC32, CRC32C, XXHASH64};
+
+    /**
+     * Returns an {@link Algorithm} backed by {@link MessageDigest}.
+     *
+     * @param algorithm
+     *      the message digest algorithm name, e.g. `SHA-384`
+     * @return the algorithm
+     * @throws org.osgl.exception.UnexpectedException
+     *      if the algorithm is not supported by the JVM
+     */
+    public static Algorithm messageDigest(String algorithm) {
+        return new MessageDigestAlgorithm(algorithm);
+    }
+
+    /**
+     * Returns an {@link Algorithm} by name.
+     *
+     * The name is matched against the built in algorithms ignoring case
+     * and dashes, e.g. `sha256` and `SHA-256` are the same. Other names
+     * are looked up as {@link MessageDigest} algorithm.
+     *
+     * @param name
+     *      the algorithm name
+     * @return the algorithm
+     */
+    public static Algorithm valueOf(String name) {
+        String key = name.replace("-", "");
+        for (Algorithm algorithm : BUILT_IN) {
+            if (algorithm.name().replace("-", "").equalsIgnoreCase(key)) {
+                return algorithm;
+            }
+        }
+        return messageDigest(name);
+    }
+
+    /*
+     * Read the stream once and update all hashers
+     */
+    static byte[][] digest(InputStream is, Algorithm... algorithms) throws IOException {
+        Hasher[] hashers = new Hasher[algorithms.length];
+        for (int i = 0; i < hashers.length; ++i) {
+            hashers[i] = algorithms[i].newHasher();
+        }
+        byte[] buf = new byte[BUFFER_SIZE];
+        int len;
+        while ((len = is.read(buf)) > -1) {
+            for (Hasher hasher : hashers) {
+                hasher.update(buf, 0, len);
+            }
+        }
+        byte[][] digests = new byte[hashers.length][];
+        for (int i = 0; i < hashers.length; ++i) {
+            digests[i] = hashers[i].digest();
+        }
+        return digests;
+    }
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    /*
+     * Returns hash of the hashes of each chunk of the file. Chunks are
+     * memory mapped and hashed in parallel.
+     */
+    static byte[] tree(File file, Algorithm algorithm, int chunkSize) throws IOException {
+        E.illegalArgumentIf(chunkSize < 1, "chunkSize must be positive");
+        FileInputStream fis = new FileInputStream(file);
+        try {
+            FileChannel channel = fis.getChannel();
+            long size = channel.size();
+            int chunks = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+            byte[][] digests = new byte[chunks][];
+            ChunkTask task = new ChunkTask(channel, algorithm, chunkSize, size, digests, 0, chunks);
+            if (1 == chunks) {
+                task.compute();
+            } else {
+                ForkJoinPool.commonPool().invoke(task);
+            }
+            if (null != task.error) {
+                throw task.error;
+            }
+            Hasher root = algorithm.newHasher();
+            for (byte[] digest : digests) {
+                root.update(digest, 0, digest.length);
+            }
+            return root.digest();
+        } finally {
+            IO.close(fis);
+        }
+    }
+
+    private static class ChunkTask extends RecursiveAction {
+        private final FileChannel channel;
+        private final Algorithm algorithm;
+        private final int chunkSize;
+        private final long size;
+        private final byte[][] digests;
+        private final int from;
+        private final int to;
+        volatile IOException error;
+
+        ChunkTask(FileChannel channel, Algorithm algorithm, int chunkSize, long size, byte[][] digests, int from, int to) {
+            this.channel = channel;
+            this.algorithm = algorithm;
+            this.chunkSize = chunkSize;
+            this.size = size;
+            this.digests = digests;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                try {
+                    long position = (long) from * chunkSize;
+                    Hasher hasher = algorithm.newHasher();
+                    long len = Math.min(chunkSize, size - position);
+                    if (len > 0) {
+                        hasher.update(channel.map(FileChannel.MapMode.READ_ONLY, position, len));
+                    }
+                    digests[from] = hasher.digest();
+                } catch (IOException e) {
+                    error = e;
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            ChunkTask left = new ChunkTask(channel, algorithm, chunkSize, size, digests, from, mid);
+            ChunkTask right = new ChunkTask(channel, algorithm, chunkSize, size, digests, mid, to);
+            invokeAll(left, right);
+            error = null != left.error ? left.error : right.error;
+        }
+    }
+
+    private static class MessageDigestAlgorithm extends Algorithm {
+
+        private final MessageDigest prototype;
+        private final boolean cloneable;
+
+        MessageDigestAlgorithm(String algorithm) {
+            super(algorithm);
+            try {
+                prototype = MessageDigest.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw E.unexpected(e, "hash algorithm not supported: %s", algorithm);
+            }
+            boolean cloneable;
+            try {
+                prototype.clone();
+                cloneable = true;
+            } catch (CloneNotSupportedException e) {
+                cloneable = false;
+            }
+            this.cloneable = cloneable;
+        }
+
+        @Override
+        public Hasher newHasher() {
+            return new MessageDigestHasher(newDigest());
+        }
+
+        // clone is much cheaper than looking up the provider again
+        private MessageDigest newDigest() {
+            try {
+                if (cloneable) {
+                    return (MessageDigest) prototype.clone();
+                }
+                return MessageDigest.getInstance(name());
+            } catch (CloneNotSupportedException | NoSuchAlgorithmException e) {
+                throw E.unexpected(e);
+            }
+        }
+    }
+
+    private static class MessageDigestHasher extends Hasher {
+        private final MessageDigest md;
+
+        MessageDigestHasher(MessageDigest md) {
+            this.md = md;
+        }
+
+        @Override
+        public void update(byte[] bytes, int offset, int len) {
+            md.update(bytes, offset, len);
+        }
+
+        @Override
+        public void update(ByteBuffer buffer) {
+            md.update(buffer);
+        }
+
+        @Override
+        public byte[] digest() {
+            return md.digest();
+        }
+    }
+
+    private static class Crc32Hasher extends Hasher {
+        private final CRC32 crc = new CRC32();
+
+        @Override
+        public void update(byte[] bytes, int offset, int len) {
+            crc.update(bytes, offset, len);
+        }
+
+        @Override
+        public void update(ByteBuffer buffer) {
+            crc.update(buffer);
+        }
+
+        @Override
+        public byte[] digest() {
+            return intBytes((int) crc.getValue());
+        }
+    }
+
+    /*
+     * CRC-32C (Castagnoli) with slicing-by-8 tables
+     */
+    static class Crc32cHasher extends Hasher {
+        private static final int POLY = 0x82F63B78;
+        private static final int[][] T = new int[8][256];
+
+        static {
+            for (int n = 0; n < 256; ++n) {
+                int c = n;
+                for (int k = 0; k < 8; ++k) {
+                    c = (c & 1) != 0 ? (c >>> 1) ^ POLY : c >>> 1;
+                }
+                T[0][n] = c;
+            }
+            for (int n = 0; n < 256; ++n) {
+                for (int k = 1; k < 8; ++k) {
+                    int c = T[k - 1][n];
+                    T[k][n] = (c >>> 8) ^ T[0][c & 0xFF];
+                }
+            }
+        }
+
+        private int crc = 0xFFFFFFFF;
+
+        @Override
+        public void update(byte[] b, int offset, int len) {
+            int c = crc;
+            int i = offset, end = offset + len;
+            int[] t0 = T[0], t1 = T[1], t2 = T[2], t3 = T[3], t4 = T[4], t5 = T[5], t6 = T[6], t7 = T[7];
+            for (int end8 = end - 7; i < end8; i += 8) {
+                c ^= (b[i] & 0xFF) | (b[i + 1] & 0xFF) << 8 | (b[i + 2] & 0xFF) << 16 | (b[i + 3] & 0xFF) << 24;
+                c = t7[c & 0xFF] ^ t6[(c >>> 8) & 0xFF] ^ t5[(c >>> 16) & 0xFF] ^ t4[c >>> 24]
+                        ^ t3[b[i + 4] & 0xFF] ^ t2[b[i + 5] & 0xFF] ^ t1[b[i + 6] & 0xFF] ^ t0[b[i + 7] & 0xFF];
+            }
+            for (; i < end; ++i) {
+                c = (c >>> 8) ^ t0[(c ^ b[i]) & 0xFF];
+            }
+            crc = c;
+        }
+
+        @Override
+        public byte[] digest() {
+            return intBytes(~crc);
+        }
+    }
+
+    /*
+     * Streaming XXH64
+     */
+    static class XxHash64Hasher extends Hasher {
+        private static final long P1 = 0x9E3779B185EBCA87L;
+        private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+        private static final long P3 = 0x165667B19E3779F9L;
+        private static final long P4 = 0x85EBCA77C2B2AE63L;
+        private static final long P5 = 0x27D4EB2F165667C5L;
+
+        private final long seed;
+        private long v1, v2, v3, v4;
+        private long total;
+        // bytes not yet consumed by a 32 byte stripe
+        private final byte[] mem = new byte[32];
+        private int memSize;
+
+        XxHash64Hasher(long seed) {
+            this.seed = seed;
+            v1 = seed + P1 + P2;
+            v2 = seed + P2;
+            v3 = seed;
+            v4 = seed - P1;
+        }
+
+        @Override
+        public void update(byte[] b, int offset, int len) {
+            total += len;
+            int i = offset, end = offset + len;
+            if (memSize > 0) {
+                int fill = Math.min(32 - memSize, len);
+                System.arraycopy(b, i, mem, memSize, fill);
+                memSize += fill;
+                i += fill;
+                if (memSize < 32) {
+                    return;
+                }
+                stripe(mem, 0);
+                memSize = 0;
+            }
+            for (int limit = end - 32; i <= limit; i += 32) {
+                stripe(b, i);
+            }
+            if (i < end) {
+                System.arraycopy(b, i, mem, 0, end - i);
+                memSize = end - i;
+            }
+        }
+
+        private void stripe(byte[] b, int i) {
+            v1 = round(v1, readLong(b, i));
+            v2 = round(v2, readLong(b, i + 8));
+            v3 = round(v3, readLong(b, i + 16));
+            v4 = round(v4, readLong(b, i + 24));
+        }
+
+        @Override
+        public byte[] digest() {
+            long h;
+            if (total >= 32) {
+                h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+                h = merge(h, v1);
+                h = merge(h, v2);
+                h = merge(h, v3);
+                h = merge(h, v4);
+            } else {
+                h = seed + P5;
+            }
+            h += total;
+            int i = 0;
+            for (; i + 8 <= memSize; i += 8) {
+                h ^= round(0, readLong(mem, i));
+                h = Long.rotateLeft(h, 27) * P1 + P4;
+            }
+            if (i + 4 <= memSize) {
+                h ^= (readInt(mem, i) & 0xFFFFFFFFL) * P1;
+                h = Long.rotateLeft(h, 23) * P2 + P3;
+                i += 4;
+            }
+            for (; i < memSize; ++i) {
+                h ^= (mem[i] & 0xFF) * P5;
+                h = Long.rotateLeft(h, 11) * P1;
+            }
+            h ^= h >>> 33;
+            h *= P2;
+            h ^= h >>> 29;
+            h *= P3;
+            h ^= h >>> 32;
+            byte[] ba = new byte[8];
+            for (int k = 7; k >= 0; --k) {
+                ba[k] = (byte) h;
+                h >>>= 8;
+            }
+            return ba;
+        }
+
+        private static long round(long acc, long input) {
+            acc += input * P2;
+            acc = Long.rotateLeft(acc, 31);
+            return acc * P1;
+        }
+
+        private static long merge(long acc, long val) {
+            acc ^= round(0, val);
+            return acc * P1 + P4;
+        }
+
+        private static long readLong(byte[] b, int i) {
+            return (readInt(b, i) & 0xFFFFFFFFL) | ((long) readInt(b, i + 4) << 32);
+        }
+
+        private static int readInt(byte[] b, int i) {
+            return (b[i] & 0xFF) | (b[i + 1] & 0xFF) << 8 | (b[i + 2] & 0xFF) << 16 | (b[i + 3] & 0xFF) << 24;
+        }
+    }
+
+    private static byte[] intBytes(int v) {
+        return new byte[]{(byte) (v >>> 24), (byte) (v >>> 16), (byte) (v >>> 8), (byte) v};
+    }
+
+}
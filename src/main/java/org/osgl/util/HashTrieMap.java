@@ -0,0 +1,707 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.osgl.$;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * An immutable, persistent hash map implemented as a hash array mapped trie.
+ *
+ * {@link #with(Object, Object)} and {@link #without(Object)} return a new map in
+ * `O(log32 n)` time and share all nodes not on the path to the changed entry
+ * with this map. A {@link Builder} mutates nodes it owns in place, so a map of
+ * `n` entries can be built without creating `n` intermediate maps.
+ *
+ * Each node keeps its entries followed by its sub nodes in one array indexed by
+ * two bitmaps, and a node never holds a single sub node that contains only one
+ * entry, thus the trie shape only depends on the entries it holds.
+ *
+ * `null` key and `null` values are supported. The map is used as the storage of
+ * read only {@link C.Map}.
+ */
+final class HashTrieMap<K, V> extends AbstractMap<K, V> implements Serializable {
+
+    private static final long serialVersionUID = -3427409591296315212L;
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final int MAX_SHIFT = 30;
+    // max depth: 7 levels of bitmap node plus one collision node
+    private static final int MAX_DEPTH = 8;
+
+    private static final Object NOT_FOUND = new Object();
+
+    @SuppressWarnings("unchecked")
+    private static final HashTrieMap EMPTY = new HashTrieMap(BitmapNode.EMPTY, 0);
+
+    private final transient Node root;
+    private final transient int size;
+
+    private transient Set<Map.Entry<K, V>> entrySet;
+
+    private HashTrieMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return 0 == size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return NOT_FOUND != find(root, key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        Object v = find(root, key);
+        return NOT_FOUND == v ? null : (V) v;
+    }
+
+    /**
+     * Returns a map contains all entries in this map plus the mapping specified.
+     *
+     * @param key
+     *      the key
+     * @param val
+     *      the value
+     * @return the map with the mapping, or this map if the mapping exists
+     */
+    public HashTrieMap<K, V> with(K key, V val) {
+        Change change = new Change();
+        Node newRoot = root.put(null, key, val, hash(key), 0, change);
+        if (newRoot == root) {
+            return this;
+        }
+        return new HashTrieMap<>(newRoot, change.added ? size + 1 : size);
+    }
+
+    /**
+     * Returns a map contains all entries in this map except the one with the key specified.
+     *
+     * @param key
+     *      the key
+     * @return the map without the key, or this map if the key does not exist
+     */
+    public HashTrieMap<K, V> without(Object key) {
+        Change change = new Change();
+        Node newRoot = root.remove(null, key, hash(key), 0, change);
+        if (!change.removed) {
+            return this;
+        }
+        return 1 == size ? HashTrieMap.<K, V>empty() : new HashTrieMap<K, V>(newRoot, size - 1);
+    }
+
+    /**
+     * Returns a builder initialized with entries of this map.
+     *
+     * @return the builder
+     */
+    public Builder<K, V> toBuilder() {
+        return new Builder<>(root, size);
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        Set<Map.Entry<K, V>> set = entrySet;
+        if (null == set) {
+            set = new AbstractSet<Map.Entry<K, V>>() {
+                @Override
+                public Iterator<Map.Entry<K, V>> iterator() {
+                    return new EntryIterator<>(root);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    if (!(o instanceof Map.Entry)) {
+                        return false;
+                    }
+                    Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+                    Object key = entry.getKey();
+                    Object v = find(root, key);
+                    return NOT_FOUND != v && $.eq(v, entry.getValue());
+                }
+            };
+            entrySet = set;
+        }
+        return set;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> HashTrieMap<K, V> empty() {
+        return (HashTrieMap<K, V>) EMPTY;
+    }
+
+    static <K, V> Builder<K, V> builder() {
+        return new Builder<>(BitmapNode.EMPTY, 0);
+    }
+
+    /**
+     * Returns a map contains all entries of the map specified.
+     *
+     * @param map
+     *      the map
+     * @return the trie map
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> HashTrieMap<K, V> of(Map<? extends K, ? extends V> map) {
+        if (map instanceof HashTrieMap) {
+            return (HashTrieMap<K, V>) map;
+        }
+        Builder<K, V> builder = builder();
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            builder.put(entry.getKey(), entry.getValue());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Build a {@link HashTrieMap} by mutating trie nodes owned by the builder.
+     *
+     * A builder shall not be shared between threads.
+     */
+    static final class Builder<K, V> {
+        private Object edit = new Object();
+        private Node root;
+        private int size;
+
+        private Builder(Node root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        Builder<K, V> put(K key, V val) {
+            Change change = new Change();
+            root = root.put(edit, key, val, hash(key), 0, change);
+            if (change.added) {
+                size++;
+            }
+            return this;
+        }
+
+        Builder<K, V> remove(Object key) {
+            Change change = new Change();
+            root = root.remove(edit, key, hash(key), 0, change);
+            if (change.removed) {
+                size--;
+            }
+            return this;
+        }
+
+        int size() {
+            return size;
+        }
+
+        HashTrieMap<K, V> build() {
+            // nodes are shared with the map from now on
+            edit = new Object();
+            return 0 == size ? HashTrieMap.<K, V>empty() : new HashTrieMap<K, V>(root, size);
+        }
+    }
+
+    private static int hash(Object key) {
+        if (null == key) {
+            return 0;
+        }
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    // iterative lookup through bitmap nodes
+    private static Object find(Node node, Object key) {
+        int hash = hash(key);
+        int shift = 0;
+        while (node instanceof BitmapNode) {
+            BitmapNode bn = (BitmapNode) node;
+            int bit = 1 << fragment(hash, shift);
+            if (0 != (bn.dataMap & bit)) {
+                int i = 2 * BitmapNode.index(bn.dataMap, bit);
+                Object[] content = bn.content;
+                return $.eq(key, content[i]) ? content[i + 1] : NOT_FOUND;
+            }
+            if (0 == (bn.nodeMap & bit)) {
+                return NOT_FOUND;
+            }
+            node = bn.nodeAt(bit);
+            shift += BITS;
+        }
+        return ((CollisionNode) node).find(key);
+    }
+
+    private static int fragment(int hash, int shift) {
+        return (hash >>> shift) & MASK;
+    }
+
+    // records whether an entry is added or removed
+    private static final class Change {
+        boolean added;
+        boolean removed;
+    }
+
+    private abstract static class Node {
+        abstract Node put(Object edit, Object key, Object val, int hash, int shift, Change change);
+
+        abstract Node remove(Object edit, Object key, int hash, int shift, Change change);
+
+        // the builder owning this node
+        abstract Object edit();
+
+        abstract int payloadCount();
+
+        abstract Object key(int i);
+
+        abstract Object value(int i);
+
+        abstract int nodeCount();
+
+        abstract Node node(int i);
+
+        boolean hasSinglePayload() {
+            return 0 == nodeCount() && 1 == payloadCount();
+        }
+    }
+
+    private static final class BitmapNode extends Node {
+
+        static final BitmapNode EMPTY = new BitmapNode(null, 0, 0, new Object[0]);
+
+        private final Object edit;
+        private int dataMap;
+        private int nodeMap;
+        // key/value pairs of payload followed by sub nodes in reverse order
+        private Object[] content;
+
+        BitmapNode(Object edit, int dataMap, int nodeMap, Object[] content) {
+            this.edit = edit;
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+        }
+
+        @Override
+        Node put(Object edit, Object key, Object val, int hash, int shift, Change change) {
+            int bit = 1 << fragment(hash, shift);
+            if (0 != (dataMap & bit)) {
+                int i = 2 * index(dataMap, bit);
+                Object k = content[i];
+                if ($.eq(key, k)) {
+                    if (content[i + 1] == val) {
+                        return this;
+                    }
+                    BitmapNode node = editable(edit);
+                    node.content[i + 1] = val;
+                    return node;
+                }
+                change.added = true;
+                Node sub = merge(edit, k, content[i + 1], hash(k), key, val, hash, shift + BITS);
+                return dataToNode(edit, bit, sub);
+            }
+            if (0 != (nodeMap & bit)) {
+                Node sub = nodeAt(bit);
+                Node newSub = sub.put(edit, key, val, hash, shift + BITS, change);
+                if (newSub == sub) {
+                    return this;
+                }
+                BitmapNode node = editable(edit);
+                node.content[nodeSlot(bit)] = newSub;
+                return node;
+            }
+            change.added = true;
+            return insertData(edit, bit, key, val);
+        }
+
+        @Override
+        Node remove(Object edit, Object key, int hash, int shift, Change change) {
+            int bit = 1 << fragment(hash, shift);
+            if (0 != (dataMap & bit)) {
+                int i = 2 * index(dataMap, bit);
+                if (!$.eq(key, content[i])) {
+                    return this;
+                }
+                change.removed = true;
+                return removeData(edit, bit, i);
+            }
+            if (0 != (nodeMap & bit)) {
+                Node sub = nodeAt(bit);
+                Node newSub = sub.remove(edit, key, hash, shift + BITS, change);
+                if (!change.removed) {
+                    return this;
+                }
+                if (newSub.hasSinglePayload()) {
+                    // inline the only entry left in the sub node
+                    return nodeToData(edit, bit, newSub.key(0), newSub.value(0));
+                }
+                if (newSub == sub) {
+                    // sub node owned by the builder has been changed in place
+                    return this;
+                }
+                BitmapNode node = editable(edit);
+                node.content[nodeSlot(bit)] = newSub;
+                return node;
+            }
+            return this;
+        }
+
+        @Override
+        int payloadCount() {
+            return Integer.bitCount(dataMap);
+        }
+
+        @Override
+        Object key(int i) {
+            return content[2 * i];
+        }
+
+        @Override
+        Object value(int i) {
+            return content[2 * i + 1];
+        }
+
+        @Override
+        int nodeCount() {
+            return Integer.bitCount(nodeMap);
+        }
+
+        @Override
+        Node node(int i) {
+            return (Node) content[content.length - 1 - i];
+        }
+
+        private Node nodeAt(int bit) {
+            return (Node) content[nodeSlot(bit)];
+        }
+
+        private int nodeSlot(int bit) {
+            return content.length - 1 - index(nodeMap, bit);
+        }
+
+        private BitmapNode editable(Object edit) {
+            if (null != edit && edit == this.edit) {
+                return this;
+            }
+            return new BitmapNode(edit, dataMap, nodeMap, content.clone());
+        }
+
+        private Node update(Object edit, int dataMap, int nodeMap, Object[] content) {
+            if (null != edit && edit == this.edit) {
+                this.dataMap = dataMap;
+                this.nodeMap = nodeMap;
+                this.content = content;
+                return this;
+            }
+            return new BitmapNode(edit, dataMap, nodeMap, content);
+        }
+
+        private Node insertData(Object edit, int bit, Object key, Object val) {
+            int i = 2 * index(dataMap, bit);
+            Object[] src = content;
+            Object[] dst = new Object[src.length + 2];
+            System.arraycopy(src, 0, dst, 0, i);
+            dst[i] = key;
+            dst[i + 1] = val;
+            System.arraycopy(src, i, dst, i + 2, src.length - i);
+            return update(edit, dataMap | bit, nodeMap, dst);
+        }
+
+        private Node removeData(Object edit, int bit, int i) {
+            Object[] src = content;
+            Object[] dst = new Object[src.length - 2];
+            System.arraycopy(src, 0, dst, 0, i);
+            System.arraycopy(src, i + 2, dst, i, src.length - i - 2);
+            return update(edit, dataMap ^ bit, nodeMap, dst);
+        }
+
+        private Node dataToNode(Object edit, int bit, Node sub) {
+            int i = 2 * index(dataMap, bit);
+            // position of the node in the new array
+            int j = content.length - 2 - index(nodeMap, bit);
+            Object[] src = content;
+            Object[] dst = new Object[src.length - 1];
+            System.arraycopy(src, 0, dst, 0, i);
+            System.arraycopy(src, i + 2, dst, i, j - i);
+            dst[j] = sub;
+            System.arraycopy(src, j + 2, dst, j + 1, src.length - j - 2);
+            return update(edit, dataMap ^ bit, nodeMap | bit, dst);
+        }
+
+        private Node nodeToData(Object edit, int bit, Object key, Object val) {
+            int i = 2 * index(dataMap, bit);
+            int j = content.length - 1 - index(nodeMap, bit);
+            Object[] src = content;
+            Object[] dst = new Object[src.length + 1];
+            System.arraycopy(src, 0, dst, 0, i);
+            dst[i] = key;
+            dst[i + 1] = val;
+            System.arraycopy(src, i, dst, i + 2, j - i);
+            System.arraycopy(src, j + 1, dst, j + 2, src.length - j - 1);
+            return update(edit, dataMap | bit, nodeMap ^ bit, dst);
+        }
+
+        private static int index(int bitmap, int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Object edit() {
+            return edit;
+        }
+    }
+
+    private static final class CollisionNode extends Node {
+        private final Object edit;
+        private final int hash;
+        private Object[] content;
+
+        CollisionNode(Object edit, int hash, Object[] content) {
+            this.edit = edit;
+            this.hash = hash;
+            this.content = content;
+        }
+
+        Object find(Object key) {
+            int i = indexOf(key);
+            return i < 0 ? NOT_FOUND : content[i + 1];
+        }
+
+        @Override
+        Node put(Object edit, Object key, Object val, int hash, int shift, Change change) {
+            if (hash != this.hash) {
+                change.added = true;
+                return wrap(edit, this, this.hash, key, val, hash, shift);
+            }
+            int i = indexOf(key);
+            if (i >= 0) {
+                if (content[i + 1] == val) {
+                    return this;
+                }
+                Object[] dst = content.clone();
+                dst[i + 1] = val;
+                return update(edit, dst);
+            }
+            change.added = true;
+            Object[] dst = Arrays.copyOf(content, content.length + 2);
+            dst[content.length] = key;
+            dst[content.length + 1] = val;
+            return update(edit, dst);
+        }
+
+        @Override
+        Node remove(Object edit, Object key, int hash, int shift, Change change) {
+            int i = indexOf(key);
+            if (i < 0) {
+                return this;
+            }
+            change.removed = true;
+            Object[] dst = new Object[content.length - 2];
+            System.arraycopy(content, 0, dst, 0, i);
+            System.arraycopy(content, i + 2, dst, i, content.length - i - 2);
+            return update(edit, dst);
+        }
+
+        @Override
+        int payloadCount() {
+            return content.length / 2;
+        }
+
+        @Override
+        Object key(int i) {
+            return content[2 * i];
+        }
+
+        @Override
+        Object value(int i) {
+            return content[2 * i + 1];
+        }
+
+        @Override
+        int nodeCount() {
+            return 0;
+        }
+
+        @Override
+        Node node(int i) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        @Override
+        Object edit() {
+            return edit;
+        }
+
+        private int indexOf(Object key) {
+            Object[] a = content;
+            for (int i = 0; i < a.length; i += 2) {
+                if ($.eq(key, a[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private Node update(Object edit, Object[] content) {
+            if (null != edit && edit == this.edit) {
+                this.content = content;
+                return this;
+            }
+            return new CollisionNode(edit, hash, content);
+        }
+    }
+
+    /*
+     * Create a node holding two entries with different keys
+     */
+    private static Node merge(Object edit, Object k1, Object v1, int h1, Object k2, Object v2, int h2, int shift) {
+        if (h1 == h2 || shift > MAX_SHIFT) {
+            return new CollisionNode(edit, h1, new Object[]{k1, v1, k2, v2});
+        }
+        int f1 = fragment(h1, shift);
+        int f2 = fragment(h2, shift);
+        if (f1 == f2) {
+            Node sub = merge(edit, k1, v1, h1, k2, v2, h2, shift + BITS);
+            return new BitmapNode(edit, 0, 1 << f1, new Object[]{sub});
+        }
+        Object[] content = f1 < f2 ? new Object[]{k1, v1, k2, v2} : new Object[]{k2, v2, k1, v1};
+        return new BitmapNode(edit, (1 << f1) | (1 << f2), 0, content);
+    }
+
+    /*
+     * Create a node holding a collision node and an entry with different hash
+     */
+    private static Node wrap(Object edit, Node collision, int h1, Object key, Object val, int h2, int shift) {
+        int f1 = fragment(h1, shift);
+        int f2 = fragment(h2, shift);
+        if (f1 == f2) {
+            Node sub = wrap(edit, collision, h1, key, val, h2, shift + BITS);
+            return new BitmapNode(edit, 0, 1 << f1, new Object[]{sub});
+        }
+        return new BitmapNode(edit, 1 << f2, 1 << f1, new Object[]{key, val, collision});
+    }
+
+    private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+        private final Node[] nodes = new Node[MAX_DEPTH];
+        private final int[] payloadCursors = new int[MAX_DEPTH];
+        private final int[] nodeCursors = new int[MAX_DEPTH];
+        private int depth;
+        private Node current;
+        private int payloadCursor;
+        private int payloadCount;
+
+        EntryIterator(Node root) {
+            nodes[0] = root;
+            current = root;
+            payloadCount = root.payloadCount();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (payloadCursor < payloadCount) {
+                return true;
+            }
+            return advance();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int i = payloadCursor++;
+            return new AbstractMap.SimpleImmutableEntry<>((K) current.key(i), (V) current.value(i));
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        // move to the next node with payload, depth first
+        private boolean advance() {
+            while (depth >= 0) {
+                Node node = nodes[depth];
+                int nodeCursor = nodeCursors[depth];
+                if (nodeCursor < node.nodeCount()) {
+                    nodeCursors[depth] = nodeCursor + 1;
+                    Node child = node.node(nodeCursor);
+                    ++depth;
+                    nodes[depth] = child;
+                    nodeCursors[depth] = 0;
+                    int count = child.payloadCount();
+                    if (count > 0) {
+                        current = child;
+                        payloadCursor = 0;
+                        payloadCount = count;
+                        return true;
+                    }
+                } else {
+                    nodes[depth] = null;
+                    --depth;
+                }
+            }
+            return false;
+        }
+    }
+
+    private void writeObject(ObjectOutputStream s) throws IOException {
+        s.defaultWriteObject();
+        s.writeInt(size);
+        for (Map.Entry<K, V> entry : entrySet()) {
+            s.writeObject(entry.getKey());
+            s.writeObject(entry.getValue());
+        }
+    }
+
+    private Object readResolve() {
+        return resolved;
+    }
+
+    private transient HashTrieMap<K, V> resolved;
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        int n = s.readInt();
+        Builder<K, V> builder = builder();
+        for (int i = 0; i < n; ++i) {
+            builder.put((K) s.readObject(), (V) s.readObject());
+        }
+        resolved = builder.build();
+    }
+
+}
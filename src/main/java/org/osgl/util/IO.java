@@ -51,14 +51,13 @@ import java.io.*;
 import java.lang.reflect.Type;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.AccessDeniedException;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.*;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 import javax.imageio.stream.ImageInputStream;
 
 /**
@@ -186,6 +185,24 @@ public class IO {
         }
     }
 
+    /**
+     * A `ProgressListener` is notified each time a chunk of bytes has been
+     * copied by a {@link WriteStageBase write stage}.
+     *
+     * @see WriteStageBase#progress(ProgressListener)
+     */
+    public interface ProgressListener {
+        /**
+         * Report the copy progress.
+         *
+         * @param copied
+         *      the number of bytes copied so far
+         * @param total
+         *      the number of bytes to be copied or `-1` if unknown
+         */
+        void onProgress(long copied, long total);
+    }
+
     /**
      * A stage class support fluent IO write operations.
      *
@@ -218,6 +235,16 @@ public class IO {
          */
         protected Charset charset = StandardCharsets.UTF_8;
 
+        /**
+         * Notified when bytes are copied to an output stream.
+         */
+        protected ProgressListener progressListener;
+
+        /**
+         * Max number of bytes copied per second, `0` means unlimited.
+         */
+        protected long bytesPerSecond;
+
         /**
          * Specify that it shall close the target (output stream or writer) once
          * the written operation finished.
@@ -242,6 +269,38 @@ public class IO {
             return me();
         }
 
+        /**
+         * Specify a {@link ProgressListener} to be notified when bytes
+         * are copied to the output stream.
+         *
+         * Progress is reported by stages with byte stream sources, e.g.
+         * input stream, file, URL and SObject.
+         *
+         * @param listener
+         *         the progress listener
+         * @return this write stage instance
+         */
+        public STAGE progress(ProgressListener listener) {
+            this.progressListener = listener;
+            return me();
+        }
+
+        /**
+         * Limit the rate at which bytes are copied to the output stream.
+         *
+         * The rate limit applies to stages with byte stream sources, e.g.
+         * input stream, file, URL and SObject.
+         *
+         * @param bytesPerSecond
+         *         the max number of bytes copied per second, `0` for unlimited
+         * @return this write stage instance
+         */
+        public STAGE throttle(long bytesPerSecond) {
+            E.illegalArgumentIf(bytesPerSecond < 0, "bytesPerSecond cannot be negative");
+            this.bytesPerSecond = bytesPerSecond;
+            return me();
+        }
+
         /**
          * Commit the write stage to a {@link Writer}.
          *
@@ -273,8 +332,22 @@ public class IO {
          * @return the number of bytes that has been written to the output stream.
          */
         public int to(OutputStream sink) {
+            return toInt(transferTo(sink));
+        }
+
+        /**
+         * Commit this write stage to a {@link OutputStream}.
+         *
+         * Unlike {@link #to(OutputStream)}, the number of bytes returned
+         * is a `long`, which works with content larger than 2GB.
+         *
+         * @param sink
+         *         the target output stream to which this write stage is committed.
+         * @return the number of bytes that has been written to the output stream.
+         */
+        public long transferTo(OutputStream sink) {
             try {
-                return doWriteTo(sink);
+                return doTransferTo(sink);
             } catch (AccessDeniedException e) {
                 throw new org.osgl.exception.AccessDeniedException(e);
             } catch (IOException e) {
@@ -296,8 +369,27 @@ public class IO {
          * @return the number of bytes that has been written to the file.
          */
         public int to(File file) {
-            BufferedOutputStream bos = buffered(outputStream(file));
-            return to(bos);
+            return toInt(transferTo(file));
+        }
+
+        /**
+         * Commit this write stage into a {@link File}.
+         *
+         * The file output stream is closed after written.
+         *
+         * @param file
+         *         the target file to which this write stage is committed.
+         * @return the number of bytes that has been written to the file.
+         */
+        public long transferTo(File file) {
+            OutputStream os = outputStream(file);
+            boolean closeSink = this.closeSink;
+            this.closeSink = true;
+            try {
+                return transferTo(copyInBulk() ? os : buffered(os));
+            } finally {
+                this.closeSink = closeSink;
+            }
         }
 
         /**
@@ -322,6 +414,38 @@ public class IO {
          */
         protected abstract int doWriteTo(OutputStream sink) throws IOException;
 
+        /**
+         * Sub class to implement the commit to a `OutputStream` logic with
+         * `long` counts, progress report and rate limit.
+         *
+         * The default implementation calls {@link #doWriteTo(OutputStream)}.
+         *
+         * @param sink
+         *         the output stream target to which this write stage committed.
+         * @return the number of bytes written to the output stream.
+         * @throws IOException
+         *         in case IOException encountered.
+         */
+        protected long doTransferTo(OutputStream sink) throws IOException {
+            return doWriteTo(sink);
+        }
+
+        /**
+         * Returns `true` if this stage writes to the output stream in large
+         * chunks, in which case the file output stream does not need to be buffered.
+         */
+        boolean copyInBulk() {
+            return false;
+        }
+
+        ByteCopier copier() {
+            return ByteCopier.of(progressListener, bytesPerSecond);
+        }
+
+        static int toInt(long n) {
+            return (int) Math.min(Integer.MAX_VALUE, n);
+        }
+
         protected final STAGE me() {
             return (STAGE) this;
         }
@@ -464,15 +588,14 @@ public class IO {
 
         @Override
         protected int doWriteTo(OutputStream sink) throws IOException {
+            return toInt(doTransferTo(sink));
+        }
+
+        @Override
+        protected long doTransferTo(OutputStream sink) throws IOException {
             ensureNotConsumed();
             try {
-                int read, total = 0;
-                byte[] buffer = new byte[8096];
-                while ((read = source.read(buffer)) > -1) {
-                    sink.write(buffer, 0, read);
-                    total += read;
-                }
-                return total;
+                return copier().copy(source, sink);
             } finally {
                 consumed = true;
                 if (closeSource) {
@@ -498,6 +621,11 @@ public class IO {
             E.illegalStateIf(consumed, "Input stream already consumed");
         }
 
+        @Override
+        boolean copyInBulk() {
+            return true;
+        }
+
     }
 
 
@@ -514,7 +642,18 @@ public class IO {
 
         @Override
         protected int doWriteTo(OutputStream sink) throws IOException {
-            return new InputStreamWriteStage(buffered(inputStream(source))).doWriteTo(sink);
+            return toInt(doTransferTo(sink));
+        }
+
+        @Override
+        protected long doTransferTo(OutputStream sink) throws IOException {
+            // file input stream is not buffered so file to file copy can use FileChannel.transferTo
+            return new InputStreamWriteStage(inputStream(source)).progress(progressListener).throttle(bytesPerSecond).doTransferTo(sink);
+        }
+
+        @Override
+        boolean copyInBulk() {
+            return true;
         }
     }
 
@@ -530,7 +669,17 @@ public class IO {
 
         @Override
         protected int doWriteTo(OutputStream sink) throws IOException {
-            return new InputStreamWriteStage(buffered(is(source))).doWriteTo(sink);
+            return toInt(doTransferTo(sink));
+        }
+
+        @Override
+        protected long doTransferTo(OutputStream sink) throws IOException {
+            return new InputStreamWriteStage(is(source)).progress(progressListener).throttle(bytesPerSecond).doTransferTo(sink);
+        }
+
+        @Override
+        boolean copyInBulk() {
+            return true;
         }
     }
 
@@ -552,14 +701,24 @@ public class IO {
 
         @Override
         protected int doWriteTo(OutputStream sink) throws IOException {
+            return toInt(doTransferTo(sink));
+        }
+
+        @Override
+        protected long doTransferTo(OutputStream sink) throws IOException {
             try {
-                return write(source.asInputStream()).doWriteTo(sink);
+                return write(source.asInputStream()).progress(progressListener).throttle(bytesPerSecond).doTransferTo(sink);
             } finally {
                 if (closeSink) {
                     close(sink);
                 }
             }
         }
+
+        @Override
+        boolean copyInBulk() {
+            return true;
+        }
     }
 
     public static abstract class ReadStageBase<SOURCE, STAGE extends ReadStageBase> {
@@ -1350,43 +1509,122 @@ public class IO {
     }
 
     /**
-     * Returns checksum of a file.
+     * Returns SHA1 checksum of a file.
      *
      * @param file
      *         the file
      * @return the checksum of the file
      */
     public static String checksum(File file) {
-        return checksum(inputStream(file));
+        return checksum(file, Hash.SHA1);
     }
 
     /**
-     * Returns checksum from an input stream.
+     * Returns checksum of a file.
+     *
+     * @param file
+     *         the file
+     * @param algorithm
+     *         the hash algorithm, e.g. {@link Hash#SHA256} or {@link Hash#XXHASH64}
+     * @return the checksum of the file in lower case hex
+     */
+    public static String checksum(File file, Hash.Algorithm algorithm) {
+        InputStream is = inputStream(file);
+        try {
+            return checksum(is, algorithm);
+        } finally {
+            close(is);
+        }
+    }
+
+    /**
+     * Returns SHA1 checksum from an input stream.
      *
      * @param is
      *         the inputstream
      * @return the checksum of the content from the inputstream
      */
     public static String checksum(InputStream is) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA1");
-            byte[] dataBytes = new byte[1024];
+        return checksum(is, Hash.SHA1);
+    }
+
+    /**
+     * Returns checksum from an input stream.
+     *
+     * The input stream is not closed.
+     *
+     * @param is
+     *         the inputstream
+     * @param algorithm
+     *         the hash algorithm
+     * @return the checksum of the content from the inputstream in lower case hex
+     */
+    public static String checksum(InputStream is, Hash.Algorithm algorithm) {
+        return checksums(is, algorithm).get(algorithm);
+    }
 
-            int nread;
+    /**
+     * Returns SHA1 checksum of a byte array.
+     *
+     * @param ba
+     *         the byte array
+     * @return the checksum of the bytes
+     */
+    public static String checksum(byte[] ba) {
+        return checksum(ba, Hash.SHA1);
+    }
 
-            while ((nread = is.read(dataBytes)) != -1) {
-                md.update(dataBytes, 0, nread);
-            }
+    /**
+     * Returns checksum of a byte array.
+     *
+     * @param ba
+     *         the byte array
+     * @param algorithm
+     *         the hash algorithm
+     * @return the checksum of the bytes in lower case hex
+     */
+    public static String checksum(byte[] ba, Hash.Algorithm algorithm) {
+        return Codec.byteToHexString(algorithm.digest(ba), false);
+    }
 
-            byte[] mdbytes = md.digest();
+    /**
+     * Returns checksums of a file computed by several algorithms. The file
+     * is read only once.
+     *
+     * @param file
+     *         the file
+     * @param algorithms
+     *         the hash algorithms
+     * @return a map from algorithm to the checksum in lower case hex
+     */
+    public static Map<Hash.Algorithm, String> checksums(File file, Hash.Algorithm... algorithms) {
+        InputStream is = inputStream(file);
+        try {
+            return checksums(is, algorithms);
+        } finally {
+            close(is);
+        }
+    }
 
-            S.Buffer sb = S.buffer();
-            for (int i = 0; i < mdbytes.length; i++) {
-                sb.append(Integer.toString((mdbytes[i] & 0xff) + 0x100, 16).substring(1));
+    /**
+     * Returns checksums of the content from an input stream computed by
+     * several algorithms. The input stream is read only once and is
+     * not closed.
+     *
+     * @param is
+     *         the inputstream
+     * @param algorithms
+     *         the hash algorithms
+     * @return a map from algorithm to the checksum in lower case hex
+     */
+    public static Map<Hash.Algorithm, String> checksums(InputStream is, Hash.Algorithm... algorithms) {
+        try {
+            byte[][] digests = Hash.digest(is, algorithms);
+            Map<Hash.Algorithm, String> checksums = new LinkedHashMap<>();
+            for (int i = 0; i < algorithms.length; ++i) {
+                checksums.put(algorithms[i], Codec.byteToHexString(digests[i], false));
             }
-            return sb.toString();
-        } catch (NoSuchAlgorithmException e) {
-            throw E.unexpected("SHA1 algorithm not found");
+            return checksums;
         } catch (AccessDeniedException e) {
             throw new org.osgl.exception.AccessDeniedException(e);
         } catch (FileNotFoundException e) {
@@ -1396,18 +1634,42 @@ public class IO {
         }
     }
 
-    public static String checksum(byte[] ba) {
+    /**
+     * Returns tree checksum of a file with 4MB chunks.
+     *
+     * @see #treeChecksum(File, Hash.Algorithm, int)
+     */
+    public static String treeChecksum(File file, Hash.Algorithm algorithm) {
+        return treeChecksum(file, algorithm, 4 * 1024 * 1024);
+    }
+
+    /**
+     * Returns tree checksum of a file.
+     *
+     * The file is split into chunks of `chunkSize` bytes. Chunks are memory
+     * mapped and hashed in parallel, and the result is the hash of the
+     * concatenated chunk hashes. Thus the tree checksum is different
+     * from {@link #checksum(File, Hash.Algorithm)} of the same file, and
+     * is only comparable to tree checksums with the same algorithm and
+     * chunk size.
+     *
+     * @param file
+     *         the file
+     * @param algorithm
+     *         the hash algorithm
+     * @param chunkSize
+     *         the number of bytes in each chunk
+     * @return the tree checksum in lower case hex
+     */
+    public static String treeChecksum(File file, Hash.Algorithm algorithm, int chunkSize) {
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA1");
-            md.update(ba);
-            byte[] mdbytes = md.digest();
-            S.Buffer sb = S.buffer();
-            for (int i = 0; i < mdbytes.length; i++) {
-                sb.append(Integer.toString((mdbytes[i] & 0xff) + 0x100, 16).substring(1));
-            }
-            return sb.toString();
-        } catch (NoSuchAlgorithmException e) {
-            throw E.unexpected("SHA1 algorithm not found");
+            return Codec.byteToHexString(Hash.tree(file, algorithm, chunkSize), false);
+        } catch (AccessDeniedException e) {
+            throw new org.osgl.exception.AccessDeniedException(e);
+        } catch (FileNotFoundException e) {
+            throw new ResourceNotFoundException(e);
+        } catch (IOException e) {
+            throw E.ioException(e);
         }
     }
 
@@ -1972,9 +2234,66 @@ public class IO {
      *      the number of bytes written to the file
      */
     public static int write(InputStream is, File f) {
+        return WriteStageBase.toInt(write(is).transferTo(f));
+    }
+
+    /**
+     * Copy content from one file to another.
+     *
+     * The content is copied with {@link FileChannel#transferTo(long, long, WritableByteChannel)},
+     * which allows the operating system to copy without reading bytes into
+     * the JVM.
+     *
+     * @param from
+     *      the source file
+     * @param to
+     *      the target file
+     * @return
+     *      the number of bytes copied
+     */
+    public static long copy(File from, File to) {
+        return write(from).transferTo(to);
+    }
+
+    /**
+     * Read from InputStream `is` and write to OutputStream `os`.
+     *
+     * This method is the same as {@link #copy(InputStream, OutputStream)} except
+     * that it returns the number of bytes copied in `long`, which works
+     * with content larger than 2GB.
+     *
+     * After writing both input stream and output stream are closed.
+     *
+     * @param is
+     *      The input stream
+     * @param os
+     *      The output stream
+     * @return
+     *      the number of bytes copied
+     */
+    public static long transfer(InputStream is, OutputStream os) {
+        return write(is).ensureCloseSink().transferTo(os);
+    }
+
+    /**
+     * Read all bytes from channel `in` and write to channel `out`.
+     *
+     * If either channel is a {@link FileChannel} then the bytes are
+     * transferred by the file channel directly.
+     *
+     * Neither channel is closed after the operation.
+     *
+     * @param in
+     *      the readable channel
+     * @param out
+     *      the writable channel
+     * @return
+     *      the number of bytes copied
+     */
+    public static long transfer(ReadableByteChannel in, WritableByteChannel out) {
         try {
-            return copy(is, new BufferedOutputStream(new FileOutputStream(f)));
-        } catch (FileNotFoundException e) {
+            return ByteCopier.DEFAULT.copy(in, out);
+        } catch (IOException e) {
             throw E.ioException(e);
         }
     }
@@ -2156,6 +2475,29 @@ public class IO {
         }
     }
 
+    /**
+     * Start building a zip archive into an output stream. The output
+     * stream is closed when the builder is {@link ZipBuilder#close() closed}.
+     *
+     * @param sink
+     *         the output stream
+     * @return a zip builder
+     */
+    public static ZipBuilder zipTo(OutputStream sink) {
+        return new ZipBuilder(sink, true);
+    }
+
+    /**
+     * Start building a zip archive into a file.
+     *
+     * @param target
+     *         the zip file
+     * @return a zip builder
+     */
+    public static ZipBuilder zipTo(File target) {
+        return zipTo(outputStream(target));
+    }
+
     /**
      * Zip a list of sobject into a single sobject.
      *
@@ -2165,23 +2507,15 @@ public class IO {
      */
     public static ISObject zip(ISObject... objects) {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ZipOutputStream zos = new ZipOutputStream(baos);
+        ZipBuilder zip = zipTo(baos);
+        boolean added = false;
         try {
             for (ISObject obj : objects) {
-                ZipEntry entry = new ZipEntry(obj.getAttribute(SObject.ATTR_FILE_NAME));
-                InputStream is = obj.asInputStream();
-                zos.putNextEntry(entry);
-                copy(is, zos, false);
-                zos.closeEntry();
+                zip.add(obj);
             }
-        } catch (AccessDeniedException e) {
-            throw new org.osgl.exception.AccessDeniedException(e);
-        } catch (FileNotFoundException e) {
-            throw new ResourceNotFoundException(e);
-        } catch (IOException e) {
-            throw E.ioException(e);
+            added = true;
         } finally {
-            close(zos);
+            finish(zip, added);
         }
         return SObject.of(Codec.encodeUrl(S.random()), baos.toByteArray());
     }
@@ -2217,29 +2551,24 @@ public class IO {
      *         the files to be zipped.
      */
     public static void zipInto(File target, File... files) {
-        ZipOutputStream zos = null;
+        ZipBuilder zip = zipTo(target);
+        boolean added = false;
         try {
-            zos = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(target)));
-            byte[] buffer = new byte[128];
             for (File f : files) {
-                ZipEntry entry = new ZipEntry(f.getName());
-                InputStream is = new BufferedInputStream(new FileInputStream(f));
-                zos.putNextEntry(entry);
-                int read = 0;
-                while ((read = is.read(buffer)) != -1) {
-                    zos.write(buffer, 0, read);
-                }
-                zos.closeEntry();
-                IO.close(is);
+                zip.add(f);
             }
-        } catch (AccessDeniedException e) {
-            throw new org.osgl.exception.AccessDeniedException(e);
-        } catch (FileNotFoundException e) {
-            throw new ResourceNotFoundException(e);
-        } catch (IOException e) {
-            throw E.ioException(e);
+            added = true;
         } finally {
-            IO.close(zos);
+            finish(zip, added);
+        }
+    }
+
+    // a failed archive is aborted so its central directory is not written
+    private static void finish(ZipBuilder zip, boolean success) {
+        if (success) {
+            zip.close();
+        } else {
+            zip.abort();
         }
     }
 
@@ -0,0 +1,466 @@
+package org.osgl.util;
+
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates ids and random tokens.
+ *
+ * * {@link #uuid()} and {@link #uuidV7()}: random (version 4) and time ordered
+ *   (version 7) UUID strings, also available as {@link UUID} objects and
+ *   formatted into a caller supplied buffer
+ * * {@link #ulid()}: 26 char lexicographically sortable id
+ * * {@link Snowflake}: 64 bit time ordered id with node and sequence bits
+ * * {@link #token(int)}: URL safe random token
+ *
+ * Random bits come from a {@link SecureRandom} owned by the calling thread,
+ * which fetches random bytes in batches, see {@link #secureRandom()}. Thus
+ * generating ids neither creates a `SecureRandom` nor contends on a shared one.
+ */
+public final class IdGenerator {
+
+    /**
+     * The number of random bytes fetched from a {@link SecureRandom} at a time
+     */
+    static final int PREFETCH_SIZE = 512;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // Crockford's base32, used by ULID
+    private static final char[] BASE32 = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private static final int UUID_LENGTH = 36;
+    private static final int ULID_LENGTH = 26;
+
+    private static final ThreadLocal<PrefetchedSecureRandom> secureRandoms = new ThreadLocal<PrefetchedSecureRandom>() {
+        @Override
+        protected PrefetchedSecureRandom initialValue() {
+            return new PrefetchedSecureRandom();
+        }
+    };
+
+    private static final ThreadLocal<char[]> buffers = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[UUID_LENGTH];
+        }
+    };
+
+    private IdGenerator() {
+    }
+
+    /**
+     * Returns the secure random generator of the current thread.
+     *
+     * The generator draws its bits from a {@link SecureRandom} created once per
+     * thread, {@link #PREFETCH_SIZE 512} bytes at a time. The instance returned
+     * must not be shared with other threads.
+     *
+     * @return the secure random generator of the current thread
+     */
+    public static Random secureRandom() {
+        return secureRandoms.get();
+    }
+
+    /**
+     * Returns secure random bytes.
+     *
+     * @param len the number of bytes
+     * @return an array of `len` random bytes
+     */
+    public static byte[] secureBytes(int len) {
+        byte[] bytes = new byte[len];
+        secureRandom().nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Returns a URL safe token of 16 secure random bytes.
+     *
+     * @return the token
+     * @see #token(int)
+     */
+    public static String token() {
+        return token(16);
+    }
+
+    /**
+     * Returns a URL safe token made of secure random bytes encoded with
+     * {@link Codec#encodeUrlSafeBase64(byte[])}, without padding.
+     *
+     * @param bytes the number of random bytes
+     * @return the token
+     */
+    public static String token(int bytes) {
+        E.illegalArgumentIf(bytes < 1, "bytes must be positive");
+        String s = Codec.encodeUrlSafeBase64(secureBytes(bytes));
+        int end = s.length();
+        while (end > 0 && s.charAt(end - 1) == UrlSafeBase64.CHAR_PADDING) {
+            end--;
+        }
+        return s.substring(0, end);
+    }
+
+    /**
+     * Returns a random, i.e. version 4, {@link UUID}.
+     *
+     * Same as {@link UUID#randomUUID()} but without contending on a shared `SecureRandom`.
+     *
+     * @return a random UUID
+     */
+    public static UUID randomUUID() {
+        Random r = secureRandom();
+        return new UUID(v4Msb(r.nextLong()), variant(r.nextLong()));
+    }
+
+    /**
+     * Returns a time ordered, i.e. version 7, {@link UUID}: 48 bits of unix
+     * time in milliseconds followed by 74 random bits.
+     *
+     * @return a time ordered UUID
+     */
+    public static UUID timeOrderedUUID() {
+        Random r = secureRandom();
+        return new UUID(v7Msb(System.currentTimeMillis(), r.nextInt()), variant(r.nextLong()));
+    }
+
+    /**
+     * Returns the string form of a {@link #randomUUID() random UUID}.
+     *
+     * @return a random UUID string
+     */
+    public static String uuid() {
+        char[] buf = buffers.get();
+        uuid(buf, 0);
+        return new String(buf, 0, UUID_LENGTH);
+    }
+
+    /**
+     * Write the string form of a {@link #randomUUID() random UUID} into a buffer.
+     *
+     * @param buf the buffer
+     * @param offset the position to write the 36 chars
+     */
+    public static void uuid(char[] buf, int offset) {
+        Random r = secureRandom();
+        format(v4Msb(r.nextLong()), variant(r.nextLong()), buf, offset);
+    }
+
+    /**
+     * Returns the string form of a {@link #timeOrderedUUID() time ordered UUID}.
+     *
+     * @return a time ordered UUID string
+     */
+    public static String uuidV7() {
+        char[] buf = buffers.get();
+        uuidV7(buf, 0);
+        return new String(buf, 0, UUID_LENGTH);
+    }
+
+    /**
+     * Write the string form of a {@link #timeOrderedUUID() time ordered UUID} into a buffer.
+     *
+     * @param buf the buffer
+     * @param offset the position to write the 36 chars
+     */
+    public static void uuidV7(char[] buf, int offset) {
+        Random r = secureRandom();
+        format(v7Msb(System.currentTimeMillis(), r.nextInt()), variant(r.nextLong()), buf, offset);
+    }
+
+    /**
+     * Returns the same string as {@link UUID#toString()}.
+     *
+     * @param uuid the UUID
+     * @return the string form of the UUID
+     */
+    public static String toString(UUID uuid) {
+        char[] buf = buffers.get();
+        format(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), buf, 0);
+        return new String(buf, 0, UUID_LENGTH);
+    }
+
+    /**
+     * Returns a <a href="https://github.com/ulid/spec">ULID</a>: 48 bits of unix time in
+     * milliseconds followed by 80 random bits, encoded in 26 chars of Crockford's base32.
+     *
+     * ULIDs created in different milliseconds sort in time order.
+     *
+     * @return a ULID string
+     */
+    public static String ulid() {
+        char[] buf = buffers.get();
+        ulid(buf, 0);
+        return new String(buf, 0, ULID_LENGTH);
+    }
+
+    /**
+     * Write a {@link #ulid() ULID} into a buffer.
+     *
+     * @param buf the buffer
+     * @param offset the position to write the 26 chars
+     */
+    public static void ulid(char[] buf, int offset) {
+        Random r = secureRandom();
+        encodeBase32(System.currentTimeMillis() & 0xFFFFFFFFFFFFL, buf, offset, 10);
+        encodeBase32(r.nextLong(), buf, offset + 10, 8);
+        encodeBase32(r.nextLong(), buf, offset + 18, 8);
+    }
+
+    /**
+     * Returns the unix time in milliseconds of a {@link #ulid() ULID}.
+     *
+     * @param ulid the ULID
+     * @return the timestamp
+     */
+    public static long timestampOfUlid(String ulid) {
+        E.illegalArgumentIf(ulid.length() != ULID_LENGTH, "invalid ULID: %s", ulid);
+        long time = 0;
+        for (int i = 0; i < 10; ++i) {
+            int digit = indexOfBase32(ulid.charAt(i));
+            E.illegalArgumentIf(digit < 0, "invalid ULID: %s", ulid);
+            time = (time << 5) | digit;
+        }
+        return time;
+    }
+
+    /**
+     * Returns a {@link Snowflake} generator for the node specified.
+     *
+     * @param nodeId the node id from `0` to {@link Snowflake#MAX_NODE_ID}
+     * @return the generator
+     */
+    public static Snowflake snowflake(int nodeId) {
+        return new Snowflake(nodeId);
+    }
+
+    /**
+     * Generates 64 bit ids made of, from the highest bits:
+     *
+     * * 41 bits: milliseconds since the {@link #DEFAULT_EPOCH epoch}
+     * * 10 bits: node id
+     * * 12 bits: sequence within the millisecond
+     *
+     * Ids from one generator are unique and increasing. The state is updated
+     * with compare-and-set, so the generator can be shared by threads without locking.
+     * When more than 4096 ids are requested in one millisecond, or the clock goes
+     * backwards, the time part runs ahead of the clock until the clock catches up.
+     */
+    public static final class Snowflake {
+
+        /**
+         * `2020-01-01T00:00:00Z`
+         */
+        public static final long DEFAULT_EPOCH = 1577836800000L;
+
+        public static final int MAX_NODE_ID = 1023;
+
+        private static final int NODE_BITS = 10;
+        private static final int SEQUENCE_BITS = 12;
+        private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+        private final long epoch;
+        private final long node;
+        // time since epoch << SEQUENCE_BITS | sequence of the last id
+        private final AtomicLong state = new AtomicLong();
+
+        public Snowflake(int nodeId) {
+            this(nodeId, DEFAULT_EPOCH);
+        }
+
+        public Snowflake(int nodeId, long epoch) {
+            E.illegalArgumentIf(nodeId < 0 || nodeId > MAX_NODE_ID, "node id must be between 0 and %s: %s", MAX_NODE_ID, nodeId);
+            E.illegalArgumentIf(epoch > System.currentTimeMillis(), "epoch must not be in the future");
+            this.epoch = epoch;
+            this.node = nodeId;
+        }
+
+        /**
+         * Returns the next id.
+         *
+         * @return the id
+         */
+        public long nextId() {
+            for (;;) {
+                long prev = state.get();
+                long now = System.currentTimeMillis() - epoch;
+                long next;
+                if (now > prev >>> SEQUENCE_BITS) {
+                    next = now << SEQUENCE_BITS;
+                } else {
+                    // same millisecond or the clock went backwards, or the sequence exhausted
+                    // which carries to the time part
+                    next = prev + 1;
+                }
+                if (state.compareAndSet(prev, next)) {
+                    long time = next >>> SEQUENCE_BITS;
+                    return time << (NODE_BITS + SEQUENCE_BITS) | node << SEQUENCE_BITS | next & SEQUENCE_MASK;
+                }
+            }
+        }
+
+        /**
+         * Returns the unix time in milliseconds of an id generated by this generator.
+         *
+         * @param id the id
+         * @return the timestamp
+         */
+        public long timestampOf(long id) {
+            return (id >>> (NODE_BITS + SEQUENCE_BITS)) + epoch;
+        }
+
+        /**
+         * Returns the node id of an id.
+         *
+         * @param id the id
+         * @return the node id
+         */
+        public static int nodeOf(long id) {
+            return (int) (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+        }
+
+        /**
+         * Returns the sequence of an id within its millisecond.
+         *
+         * @param id the id
+         * @return the sequence
+         */
+        public static int sequenceOf(long id) {
+            return (int) (id & SEQUENCE_MASK);
+        }
+    }
+
+    private static long v4Msb(long random) {
+        return random & ~0xF000L | 0x4000L;
+    }
+
+    private static long v7Msb(long millis, int random) {
+        return (millis & 0xFFFFFFFFFFFFL) << 16 | 0x7000L | random & 0xFFFL;
+    }
+
+    private static long variant(long random) {
+        return random & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+    }
+
+    private static void format(long msb, long lsb, char[] buf, int offset) {
+        hex(msb >>> 32, buf, offset, 8);
+        buf[offset + 8] = '-';
+        hex(msb >>> 16, buf, offset + 9, 4);
+        buf[offset + 13] = '-';
+        hex(msb, buf, offset + 14, 4);
+        buf[offset + 18] = '-';
+        hex(lsb >>> 48, buf, offset + 19, 4);
+        buf[offset + 23] = '-';
+        hex(lsb, buf, offset + 24, 12);
+    }
+
+    // write the lowest `digits` hex digits of `value`
+    private static void hex(long value, char[] buf, int offset, int digits) {
+        for (int i = offset + digits - 1; i >= offset; --i) {
+            buf[i] = HEX[(int) value & 0xF];
+            value >>>= 4;
+        }
+    }
+
+    // write the lowest `digits` * 5 bits of `value`
+    private static void encodeBase32(long value, char[] buf, int offset, int digits) {
+        for (int i = offset + digits - 1; i >= offset; --i) {
+            buf[i] = BASE32[(int) value & 0x1F];
+            value >>>= 5;
+        }
+    }
+
+    private static int indexOfBase32(char c) {
+        c = Character.toUpperCase(c);
+        for (int i = 0; i < BASE32.length; ++i) {
+            if (BASE32[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A {@link Random} serving bits from a {@link SecureRandom}, which is asked for
+     * {@link #PREFETCH_SIZE} bytes at a time. Not thread safe.
+     */
+    private static final class PrefetchedSecureRandom extends Random {
+
+        private final SecureRandom secureRandom = new SecureRandom();
+        private final byte[] buf = new byte[PREFETCH_SIZE];
+        private int pos = PREFETCH_SIZE;
+
+        @Override
+        protected int next(int bits) {
+            if (pos > PREFETCH_SIZE - 4) {
+                refill();
+            }
+            byte[] buf = this.buf;
+            int i = pos;
+            pos = i + 4;
+            int n = (buf[i] & 0xFF) << 24 | (buf[i + 1] & 0xFF) << 16 | (buf[i + 2] & 0xFF) << 8 | buf[i + 3] & 0xFF;
+            return n >>> (32 - bits);
+        }
+
+        @Override
+        public void nextBytes(byte[] bytes) {
+            int len = bytes.length;
+            if (len > PREFETCH_SIZE / 2) {
+                secureRandom.nextBytes(bytes);
+                return;
+            }
+            int off = 0;
+            while (off < len) {
+                if (pos == PREFETCH_SIZE) {
+                    refill();
+                }
+                int n = Math.min(len - off, PREFETCH_SIZE - pos);
+                System.arraycopy(buf, pos, bytes, off, n);
+                pos += n;
+                off += n;
+            }
+        }
+
+        /**
+         * Supplements the seed of the underlying {@link SecureRandom}, it never
+         * makes the generator predictable.
+         */
+        @Override
+        public synchronized void setSeed(long seed) {
+            // called by the constructor of Random before the fields are initialized
+            if (null != secureRandom) {
+                secureRandom.setSeed(seed);
+                pos = PREFETCH_SIZE;
+            }
+        }
+
+        private void refill() {
+            secureRandom.nextBytes(buf);
+            pos = 0;
+        }
+    }
+
+}
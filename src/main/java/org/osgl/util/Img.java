@@ -32,9 +32,6 @@ import org.osgl.exception.NotAppliedException;
 import java.awt.*;
 import java.awt.Dimension;
 import java.awt.image.BufferedImage;
-import java.awt.image.BufferedImageOp;
-import java.awt.image.ConvolveOp;
-import java.awt.image.Kernel;
 import java.io.*;
 import java.lang.reflect.Type;
 import java.net.URL;
@@ -847,6 +844,17 @@ public enum Img {
         return source(imageProvider).watermark();
     }
 
+    /**
+     * Create an {@link ImgBatch} to process many images.
+     *
+     * @param threads    the number of threads running jobs
+     * @param maxPending the max number of jobs submitted but not finished
+     * @return a new batch
+     */
+    public static ImgBatch batch(int threads, int maxPending) {
+        return new ImgBatch(threads, maxPending);
+    }
+
     public static Concatenater.Stage concat($.Func0<BufferedImage> image1) {
         return new Concatenater.Stage(image1.apply());
     }
@@ -891,7 +899,7 @@ public enum Img {
         return mimeType(target.getName());
     }
 
-    private static String mimeType(String hint) {
+    static String mimeType(String hint) {
         String mimeType = DEF_MIME_TYPE;
         if (S.blank(hint)) {
             return mimeType;
@@ -1065,16 +1073,7 @@ public enum Img {
             }
 
             // out
-            setTargetSpec(w, h);
-            Graphics g = g();
-            if (!source.getColorModel().hasAlpha()) {
-                // Create a white background if not transparency define
-                g = target.getGraphics();
-                g.setColor(Color.WHITE);
-                g.fillRect(0, 0, w, h);
-            }
-            Image srcResized = source.getScaledInstance(w, h, Image.SCALE_SMOOTH);
-            g.drawImage(srcResized, 0, 0, null);
+            target = ImgRaster.of(source).resize(w, h).toImage();
             return target;
         }
     }
@@ -1215,7 +1214,6 @@ public enum Img {
 
         static final int DEFAULT_LEVEL = 3;
 
-        float[] matrix;
         int level;
 
         Blur() {
@@ -1229,17 +1227,11 @@ public enum Img {
 
         void setLevel(int level) {
             this.level = requirePositive(level);
-            int max = level * level;
-            matrix = new float[requirePositive(max)];
-            for (int i = 0; i < max; ++i) {
-                matrix[i] = (float) 1 / (float) max;
-            }
         }
 
         @Override
         protected BufferedImage run() {
-            BufferedImageOp op = new ConvolveOp(new Kernel(level, level, matrix), ConvolveOp.EDGE_NO_OP, null);
-            target = op.filter(target, null);
+            target = ImgRaster.of(target).boxBlur(level).toImage();
             return target;
         }
     }
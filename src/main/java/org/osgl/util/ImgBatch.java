@@ -0,0 +1,487 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import static org.osgl.util.N.requireNonNegative;
+import static org.osgl.util.N.requirePositive;
+
+import org.osgl.$;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Process many images, e.g. generating thumbnails of uploaded photos.
+ *
+ * Unlike a chain of {@link Img.Processor processors}, a {@link Job} does
+ * not decode the full source image:
+ *
+ * * only the crop region is decoded
+ * * if the target is much smaller than the region, the decoder skips
+ *   pixels by {@link ImageReadParam#setSourceSubsampling(int, int, int, int) subsampling},
+ *   keeping at least twice the target size for the resampling filter
+ * * crop and resize are then done in one pass on the pixel array, and
+ *   the watermark is drawn on the resized image in place
+ *
+ * Jobs run on a fixed number of threads. {@link #submit(Job)} blocks once
+ * the number of jobs pending reaches the limit, so a large batch does not
+ * hold all its images in memory.
+ *
+ * Usage:
+ *
+ * ```java
+ * ImgBatch batch = Img.batch(4, 16);
+ * for (File photo : photos) {
+ *     batch.submit(ImgBatch.job(photo).resize(200, 200).watermark("osgl").to(thumbFile(photo)));
+ * }
+ * ImgBatch.Stats stats = batch.await();
+ * batch.close();
+ * ```
+ */
+public class ImgBatch implements Closeable {
+
+    /**
+     * Specification of processing a source image into a target image.
+     */
+    public static class Job {
+        private final $.Func0<InputStream> source;
+        private boolean crop;
+        private int x1;
+        private int y1;
+        private int x2;
+        private int y2;
+        private int w;
+        private int h;
+        private boolean keepRatio = true;
+        private String watermark;
+        private String mimeType = Img.DEF_MIME_TYPE;
+        private float compressionQuality = Float.NaN;
+        private $.Func0<OutputStream> target;
+
+        private Job($.Func0<InputStream> source) {
+            this.source = $.requireNotNull(source);
+        }
+
+        /**
+         * Crop the source image. The coordinates are interpreted the same way
+         * as {@link Img.Cropper}, i.e. negative `x2`, `y2` count from the
+         * right and bottom edges.
+         */
+        public Job crop(int x1, int y1, int x2, int y2) {
+            this.crop = true;
+            this.x1 = requireNonNegative(x1);
+            this.y1 = requireNonNegative(y1);
+            this.x2 = x2;
+            this.y2 = y2;
+            return this;
+        }
+
+        /**
+         * Resize the (cropped) image to fit in `w` x `h` keeping the
+         * width/height ratio.
+         */
+        public Job resize(int w, int h) {
+            return resize(w, h, true);
+        }
+
+        /**
+         * Resize the (cropped) image.
+         *
+         * @param w the target width
+         * @param h the target height
+         * @param keepRatio if `true` the image is resized to fit in `w` x `h`,
+         *                  otherwise it is stretched to exactly `w` x `h`
+         * @return this job
+         */
+        public Job resize(int w, int h, boolean keepRatio) {
+            this.w = requirePositive(w);
+            this.h = requirePositive(h);
+            this.keepRatio = keepRatio;
+            return this;
+        }
+
+        /**
+         * Draw a watermark the same way as {@link Img._Load#watermark(String)}.
+         */
+        public Job watermark(String text) {
+            this.watermark = S.requireNotBlank(text);
+            return this;
+        }
+
+        /**
+         * Set the target image MIME type, e.g. `image/jpeg`. Default to {@link Img#DEF_MIME_TYPE}.
+         */
+        public Job mimeType(String mimeType) {
+            this.mimeType = S.requireNotBlank(mimeType);
+            return this;
+        }
+
+        public Job compressionQuality(float compressionQuality) {
+            this.compressionQuality = N.requireAlpha(compressionQuality);
+            return this;
+        }
+
+        /**
+         * Write the target image to a file. If the MIME type is not set
+         * it is guessed from the file name.
+         */
+        public Job to(final File file) {
+            $.requireNotNull(file);
+            if (Img.DEF_MIME_TYPE.equals(mimeType)) {
+                mimeType = Img.mimeType(file.getName());
+            }
+            return to(new $.F0<OutputStream>() {
+                @Override
+                public OutputStream apply() {
+                    return IO.outputStream(file);
+                }
+            });
+        }
+
+        /**
+         * Write the target image to the output stream provided by the function.
+         * The output stream is closed after the image is written.
+         */
+        public Job to($.Func0<OutputStream> target) {
+            this.target = $.requireNotNull(target);
+            return this;
+        }
+
+        /*
+         * Run the job and returns the bytes written if no target is specified
+         */
+        byte[] run(AtomicLong pixelBytes, AtomicLong peakPixelBytes) {
+            ImageReader reader = null;
+            ImageInputStream iis = null;
+            InputStream is = source.apply();
+            long bytes = 0;
+            try {
+                iis = ImageIO.createImageInputStream(is);
+                Iterator<ImageReader> readers = null == iis ? null : ImageIO.getImageReaders(iis);
+                if (null == readers || !readers.hasNext()) {
+                    throw E.unexpected("No image reader found for the source");
+                }
+                reader = readers.next();
+                reader.setInput(iis, true, true);
+                Rectangle region = region(reader.getWidth(0), reader.getHeight(0));
+                Dimension size = targetSize(region.width, region.height);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceRegion(region);
+                int subsampling = subsampling(region, size);
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                BufferedImage image = reader.read(0, param);
+                bytes = 4L * (2L * image.getWidth() * image.getHeight() + (long) size.width * size.height);
+                peak(peakPixelBytes, pixelBytes.addAndGet(bytes));
+                if (image.getWidth() != size.width || image.getHeight() != size.height) {
+                    image = ImgRaster.of(image).resize(size.width, size.height).toImage();
+                }
+                Img._Load<?> out = Img.source(image);
+                if (null != watermark) {
+                    out = out.watermark(watermark).pipeline();
+                }
+                if (!Float.isNaN(compressionQuality)) {
+                    out.compressionQuality(compressionQuality);
+                }
+                if (null == target) {
+                    return out.toByteArray(mimeType);
+                }
+                OutputStream os = target.apply();
+                try {
+                    out.writeTo(os, mimeType);
+                } finally {
+                    IO.close(os);
+                }
+                return null;
+            } catch (IOException e) {
+                throw E.ioException(e);
+            } finally {
+                pixelBytes.addAndGet(-bytes);
+                if (null != reader) {
+                    reader.dispose();
+                }
+                IO.close(iis);
+                IO.close(is);
+            }
+        }
+
+        private Rectangle region(int sourceWidth, int sourceHeight) {
+            if (!crop) {
+                return new Rectangle(0, 0, sourceWidth, sourceHeight);
+            }
+            int x1 = this.x1, y1 = this.y1;
+            int x2 = this.x2 < 0 ? sourceWidth + this.x2 : this.x2;
+            int y2 = this.y2 < 0 ? sourceHeight + this.y2 : this.y2;
+            int w = x2 - x1;
+            int h = y2 - y1;
+            if (w < 0) {
+                x1 = x2;
+                w = -w;
+            }
+            if (h < 0) {
+                y1 = y2;
+                h = -h;
+            }
+            E.illegalArgumentIf(w == 0 || h == 0 || x1 + w > sourceWidth || y1 + h > sourceHeight,
+                    "Crop region out of source image bounds");
+            return new Rectangle(x1, y1, w, h);
+        }
+
+        private Dimension targetSize(int regionWidth, int regionHeight) {
+            if (0 == w) {
+                return new Dimension(regionWidth, regionHeight);
+            }
+            if (!keepRatio) {
+                return new Dimension(w, h);
+            }
+            double ratio = Math.min((double) w / regionWidth, (double) h / regionHeight);
+            return new Dimension(Math.max(1, (int) (regionWidth * ratio)), Math.max(1, (int) (regionHeight * ratio)));
+        }
+
+        /*
+         * The decoder subsamples by picking pixels, keep at least twice
+         * the target size so that the resampling filter can smooth it
+         */
+        private static int subsampling(Rectangle region, Dimension size) {
+            return Math.max(1, Math.min(region.width / (2 * size.width), region.height / (2 * size.height)));
+        }
+
+        private static void peak(AtomicLong peak, long value) {
+            long current;
+            while (value > (current = peak.get())) {
+                if (peak.compareAndSet(current, value)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Statistics of the jobs run by a batch.
+     */
+    public static class Stats {
+        private final int jobs;
+        private final int failures;
+        private final long elapsedNanos;
+        private final long peakPixelBytes;
+
+        Stats(int jobs, int failures, long elapsedNanos, long peakPixelBytes) {
+            this.jobs = jobs;
+            this.failures = failures;
+            this.elapsedNanos = elapsedNanos;
+            this.peakPixelBytes = peakPixelBytes;
+        }
+
+        /**
+         * Returns the number of jobs finished, including failed jobs.
+         */
+        public int jobs() {
+            return jobs;
+        }
+
+        public int failures() {
+            return failures;
+        }
+
+        /**
+         * Returns milliseconds from the first job submitted to the last job finished.
+         */
+        public long elapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        }
+
+        /**
+         * Returns the number of jobs finished per second.
+         */
+        public double throughput() {
+            return 0 == elapsedNanos ? 0 : jobs * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * Returns the peak bytes of pixels held by the jobs running at the
+         * same time, counting the decoded image, its pixel array and the
+         * target image.
+         */
+        public long peakPixelBytes() {
+            return peakPixelBytes;
+        }
+
+        @Override
+        public String toString() {
+            return S.fmt("%s jobs (%s failed) in %sms, %s jobs/s, peak pixel memory %sKB",
+                    jobs, failures, elapsedMillis(), (long) throughput(), peakPixelBytes / 1024);
+        }
+    }
+
+    private final ExecutorService executor;
+    private final Semaphore pending;
+    private final int maxPending;
+    private final AtomicInteger finished = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicLong pixelBytes = new AtomicLong();
+    private final AtomicLong peakPixelBytes = new AtomicLong();
+    private final AtomicLong start = new AtomicLong();
+    private final AtomicLong end = new AtomicLong();
+
+    /**
+     * Construct a batch.
+     *
+     * @param threads the number of threads running jobs
+     * @param maxPending the max number of jobs submitted but not finished
+     */
+    public ImgBatch(int threads, int maxPending) {
+        this.maxPending = requirePositive(maxPending);
+        this.pending = new Semaphore(maxPending);
+        this.executor = Executors.newFixedThreadPool(requirePositive(threads), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "img-batch-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Create a {@link Job} with image source from a file.
+     */
+    public static Job job(final File file) {
+        $.requireNotNull(file);
+        return new Job(new $.F0<InputStream>() {
+            @Override
+            public InputStream apply() {
+                return IO.inputStream(file);
+            }
+        });
+    }
+
+    public static Job job(final URL url) {
+        $.requireNotNull(url);
+        return new Job(new $.F0<InputStream>() {
+            @Override
+            public InputStream apply() {
+                return IO.inputStream(url);
+            }
+        });
+    }
+
+    public static Job job(final byte[] bytes) {
+        $.requireNotNull(bytes);
+        return new Job(new $.F0<InputStream>() {
+            @Override
+            public InputStream apply() {
+                return IO.inputStream(bytes);
+            }
+        });
+    }
+
+    /**
+     * Create a {@link Job} with a function that opens the source input stream.
+     * The input stream is closed after the image is decoded.
+     */
+    public static Job job($.Func0<InputStream> source) {
+        return new Job(source);
+    }
+
+    /**
+     * Submit a job. This method blocks if the number of jobs pending has
+     * reached the limit.
+     *
+     * @param job the job
+     * @return a future of the target image bytes if the job has no target specified,
+     *         or `null` otherwise
+     */
+    public Future<byte[]> submit(final Job job) {
+        $.requireNotNull(job);
+        try {
+            pending.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw E.unexpected(e);
+        }
+        start.compareAndSet(0, System.nanoTime());
+        try {
+            return executor.submit(new Callable<byte[]>() {
+                @Override
+                public byte[] call() {
+                    try {
+                        return job.run(pixelBytes, peakPixelBytes);
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                        throw e;
+                    } finally {
+                        finished.incrementAndGet();
+                        end.set(System.nanoTime());
+                        pending.release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Wait for all jobs submitted to finish.
+     *
+     * @return the statistics of the jobs finished so far
+     */
+    public Stats await() {
+        try {
+            pending.acquire(maxPending);
+            pending.release(maxPending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw E.unexpected(e);
+        }
+        return stats();
+    }
+
+    /**
+     * Returns the statistics of the jobs finished so far.
+     */
+    public Stats stats() {
+        long start = this.start.get();
+        long elapsed = 0 == start ? 0 : Math.max(0, end.get() - start);
+        return new Stats(finished.get(), failures.get(), elapsed, peakPixelBytes.get());
+    }
+
+    /**
+     * Shutdown the threads after jobs submitted are finished.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+}
@@ -0,0 +1,501 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.WritableRaster;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Image operations working directly on `int[]` ARGB pixel data, used by
+ * {@link Img.Resizer} and {@link Img.Blur}.
+ *
+ * Images with alpha channel are processed with premultiplied color so that
+ * transparent pixels do not bleed into their neighbours. Each pass splits the
+ * rows of the output into bands which are processed in parallel.
+ */
+final class ImgRaster {
+
+    // rows of a band are chosen so that a band has about this number of pixels
+    private static final int BAND_PIXELS = 1 << 15;
+
+    final int[] pixels;
+    final int width;
+    final int height;
+    final boolean alpha;
+
+    ImgRaster(int[] pixels, int width, int height, boolean alpha) {
+        this.pixels = pixels;
+        this.width = width;
+        this.height = height;
+        this.alpha = alpha;
+    }
+
+    /**
+     * Read the pixels of an image. If the image has alpha channel, the color
+     * of the pixels returned is premultiplied.
+     */
+    static ImgRaster of(BufferedImage image) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        boolean alpha = image.getColorModel().hasAlpha();
+        int[] pixels = pixels(image);
+        ImgRaster raster = new ImgRaster(pixels, w, h, alpha);
+        if (alpha) {
+            raster.premultiply();
+        }
+        return raster;
+    }
+
+    /*
+     * Read pixels from the data buffer directly for common image types,
+     * which is much faster than converting pixels through color model
+     */
+    private static int[] pixels(BufferedImage image) {
+        final int w = image.getWidth();
+        final int h = image.getHeight();
+        final int type = image.getType();
+        WritableRaster raster = image.getRaster();
+        DataBuffer buffer = raster.getDataBuffer();
+        if (null != raster.getParent() || buffer.getNumBanks() != 1 || buffer.getOffset() != 0) {
+            return image.getRGB(0, 0, w, h, null, 0, w);
+        }
+        final int[] pixels = new int[w * h];
+        switch (type) {
+            case BufferedImage.TYPE_INT_ARGB:
+                System.arraycopy(((DataBufferInt) buffer).getData(), 0, pixels, 0, pixels.length);
+                return pixels;
+            case BufferedImage.TYPE_INT_RGB:
+                final int[] ints = ((DataBufferInt) buffer).getData();
+                parallel(h, w, new Band() {
+                    @Override
+                    void run(int from, int to) {
+                        for (int i = from * w, end = to * w; i < end; ++i) {
+                            pixels[i] = 0xFF000000 | ints[i];
+                        }
+                    }
+                });
+                return pixels;
+            case BufferedImage.TYPE_3BYTE_BGR:
+            case BufferedImage.TYPE_4BYTE_ABGR:
+                final byte[] bytes = ((DataBufferByte) buffer).getData();
+                final boolean alpha = type == BufferedImage.TYPE_4BYTE_ABGR;
+                parallel(h, w, new Band() {
+                    @Override
+                    void run(int from, int to) {
+                        int j = from * w * (alpha ? 4 : 3);
+                        for (int i = from * w, end = to * w; i < end; ++i) {
+                            int a = alpha ? (bytes[j++] & 0xFF) : 0xFF;
+                            int b = bytes[j++] & 0xFF;
+                            int g = bytes[j++] & 0xFF;
+                            int r = bytes[j++] & 0xFF;
+                            pixels[i] = (a << 24) | (r << 16) | (g << 8) | b;
+                        }
+                    }
+                });
+                return pixels;
+            default:
+                return image.getRGB(0, 0, w, h, null, 0, w);
+        }
+    }
+
+    /**
+     * Create a `TYPE_INT_ARGB` or `TYPE_INT_RGB` image of this raster.
+     * The raster is not changed, thus can be converted again.
+     */
+    BufferedImage toImage() {
+        BufferedImage image = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        if (alpha) {
+            unpremultiply(((DataBufferInt) image.getRaster().getDataBuffer()).getData());
+        } else {
+            // the alpha bits are ignored by the color model of TYPE_INT_RGB
+            image.getRaster().setDataElements(0, 0, width, height, pixels);
+        }
+        return image;
+    }
+
+    // -- resize
+
+    /**
+     * Resize to `w` x `h`.
+     *
+     * While the raster is at least twice as large as the target in a dimension,
+     * it is halved by averaging pixel pairs in that dimension. The remaining
+     * scale is done by a separable Lanczos kernel when downscaling, and a
+     * bicubic kernel when upscaling, which does not ring as much on edges.
+     */
+    ImgRaster resize(int w, int h) {
+        E.illegalArgumentIf(w <= 0 || h <= 0, "Width (%s) and height (%s) cannot be <= 0", w, h);
+        ImgRaster r = this;
+        while (r.width >= 2 * w || r.height >= 2 * h) {
+            r = r.halve(r.width >= 2 * w, r.height >= 2 * h);
+        }
+        if (r.width != w) {
+            r = r.resample(w, true);
+        }
+        if (r.height != h) {
+            r = r.resample(h, false);
+        }
+        return r;
+    }
+
+    private ImgRaster halve(final boolean horizontal, final boolean vertical) {
+        final int w = horizontal ? width / 2 : width;
+        final int h = vertical ? height / 2 : height;
+        final int[] out = new int[w * h];
+        final int sx = horizontal ? 1 : 0;
+        final int sy = vertical ? width : 0;
+        final int xStep = horizontal ? 2 : 1;
+        parallel(h, w, new Band() {
+            @Override
+            void run(int from, int to) {
+                for (int y = from; y < to; ++y) {
+                    int row = (vertical ? 2 * y : y) * width;
+                    int o = y * w;
+                    for (int x = 0, i = row; x < w; ++x, i += xStep) {
+                        out[o + x] = average(pixels[i], pixels[i + sx], pixels[i + sy], pixels[i + sx + sy]);
+                    }
+                }
+            }
+        });
+        return new ImgRaster(out, w, h, alpha);
+    }
+
+    private static int average(int p0, int p1, int p2, int p3) {
+        int a = ((p0 >>> 24) + (p1 >>> 24) + (p2 >>> 24) + (p3 >>> 24) + 2) >> 2;
+        int r = (((p0 >> 16) & 0xFF) + ((p1 >> 16) & 0xFF) + ((p2 >> 16) & 0xFF) + ((p3 >> 16) & 0xFF) + 2) >> 2;
+        int g = (((p0 >> 8) & 0xFF) + ((p1 >> 8) & 0xFF) + ((p2 >> 8) & 0xFF) + ((p3 >> 8) & 0xFF) + 2) >> 2;
+        int b = ((p0 & 0xFF) + (p1 & 0xFF) + (p2 & 0xFF) + (p3 & 0xFF) + 2) >> 2;
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    /*
+     * Resample in one dimension
+     */
+    private ImgRaster resample(int size, final boolean horizontal) {
+        final int srcSize = horizontal ? width : height;
+        final Weights weights = new Weights(srcSize, size);
+        final int w = horizontal ? size : width;
+        final int h = horizontal ? height : size;
+        final int[] out = new int[w * h];
+        final int step = horizontal ? 1 : width;
+        parallel(h, w, new Band() {
+            @Override
+            void run(int from, int to) {
+                for (int y = from; y < to; ++y) {
+                    int o = y * w;
+                    for (int x = 0; x < w; ++x) {
+                        // index of the output pixel in the resampled dimension
+                        int d = horizontal ? x : y;
+                        int start = weights.start[d];
+                        int base = horizontal ? y * width + start : start * width + x;
+                        out[o + x] = weights.apply(pixels, base, step, d);
+                    }
+                }
+            }
+        });
+        return new ImgRaster(out, w, h, alpha);
+    }
+
+    /*
+     * Precomputed kernel weights of each output pixel in one dimension
+     */
+    private static final class Weights {
+        final int[] start;
+        final int[] count;
+        final float[][] values;
+
+        Weights(int srcSize, int dstSize) {
+            double scale = (double) dstSize / srcSize;
+            boolean downscale = scale < 1;
+            double radius = downscale ? 3 : 2;
+            // widen the kernel when downscaling to cover all source pixels
+            double stretch = downscale ? 1 / scale : 1;
+            double support = radius * stretch;
+            start = new int[dstSize];
+            count = new int[dstSize];
+            values = new float[dstSize][];
+            for (int i = 0; i < dstSize; ++i) {
+                double center = (i + 0.5) / scale - 0.5;
+                int left = Math.max(0, (int) Math.floor(center - support) + 1);
+                int right = Math.min(srcSize - 1, (int) Math.ceil(center + support) - 1);
+                if (right < left) {
+                    left = right = Math.min(srcSize - 1, Math.max(0, (int) Math.round(center)));
+                }
+                float[] w = new float[right - left + 1];
+                double sum = 0;
+                for (int j = left; j <= right; ++j) {
+                    double x = (j - center) / stretch;
+                    double v = downscale ? lanczos3(x) : bicubic(x);
+                    w[j - left] = (float) v;
+                    sum += v;
+                }
+                if (0 == sum) {
+                    w[(int) Math.min(w.length - 1, Math.max(0, Math.round(center) - left))] = 1;
+                } else {
+                    for (int j = 0; j < w.length; ++j) {
+                        w[j] /= sum;
+                    }
+                }
+                start[i] = left;
+                count[i] = w.length;
+                values[i] = w;
+            }
+        }
+
+        int apply(int[] pixels, int base, int step, int d) {
+            float[] w = values[d];
+            float a = 0, r = 0, g = 0, b = 0;
+            for (int j = 0, n = count[d], i = base; j < n; ++j, i += step) {
+                int p = pixels[i];
+                float f = w[j];
+                a += f * (p >>> 24);
+                r += f * ((p >> 16) & 0xFF);
+                g += f * ((p >> 8) & 0xFF);
+                b += f * (p & 0xFF);
+            }
+            int ia = clamp(a);
+            // premultiplied color never exceeds alpha
+            return (ia << 24) | (Math.min(clamp(r), ia) << 16) | (Math.min(clamp(g), ia) << 8) | Math.min(clamp(b), ia);
+        }
+    }
+
+    private static double lanczos3(double x) {
+        if (x < 0) {
+            x = -x;
+        }
+        if (x < 1e-8) {
+            return 1;
+        }
+        if (x >= 3) {
+            return 0;
+        }
+        double px = Math.PI * x;
+        return 3 * Math.sin(px) * Math.sin(px / 3) / (px * px);
+    }
+
+    /*
+     * Catmull-Rom cubic kernel
+     */
+    private static double bicubic(double x) {
+        if (x < 0) {
+            x = -x;
+        }
+        if (x < 1) {
+            return (1.5 * x - 2.5) * x * x + 1;
+        }
+        if (x < 2) {
+            return ((-0.5 * x + 2.5) * x - 4) * x + 2;
+        }
+        return 0;
+    }
+
+    private static int clamp(float v) {
+        int i = (int) (v + 0.5f);
+        return i < 0 ? 0 : i > 255 ? 255 : i;
+    }
+
+    // -- blur
+
+    /**
+     * Replace each pixel with the mean of the `size` x `size` pixels around it.
+     *
+     * The box filter is applied as a horizontal and a vertical pass, each
+     * keeping a running sum so the cost per pixel does not depend on `size`.
+     * Same as `ConvolveOp.EDGE_NO_OP`, pixels too close to the edge for the
+     * kernel to fit are left unchanged.
+     */
+    ImgRaster boxBlur(final int size) {
+        if (size < 2 || size > width || size > height) {
+            return this;
+        }
+        // ConvolveOp flips the kernel, which moves the origin of an even sized kernel
+        final int origin = size / 2;
+        final int w = width;
+        final int h = height;
+        final int[] horizontal = new int[w * h];
+        parallel(h, w, new Band() {
+            @Override
+            void run(int from, int to) {
+                for (int y = from; y < to; ++y) {
+                    int row = y * w;
+                    int a = 0, r = 0, g = 0, b = 0;
+                    for (int x = 0; x < w; ++x) {
+                        int p = pixels[row + x];
+                        a += p >>> 24;
+                        r += (p >> 16) & 0xFF;
+                        g += (p >> 8) & 0xFF;
+                        b += p & 0xFF;
+                        if (x >= size) {
+                            int q = pixels[row + x - size];
+                            a -= q >>> 24;
+                            r -= (q >> 16) & 0xFF;
+                            g -= (q >> 8) & 0xFF;
+                            b -= q & 0xFF;
+                        }
+                        if (x >= size - 1) {
+                            horizontal[row + x - size + 1 + origin] = mean(a, r, g, b, size);
+                        }
+                    }
+                }
+            }
+        });
+        final int[] out = pixels.clone();
+        final int x0 = origin;
+        // same as ConvolveOp, the edge excluded is as wide as the origin on both sides
+        final int x1 = w - origin;
+        parallel(h - 2 * origin, w, new Band() {
+            @Override
+            void run(int from, int to) {
+                // output rows are [from + origin, to + origin)
+                int n = x1 - x0;
+                int[] a = new int[n], r = new int[n], g = new int[n], b = new int[n];
+                for (int y = from; y < to + size - 1; ++y) {
+                    int row = y * w + x0;
+                    for (int i = 0; i < n; ++i) {
+                        int p = horizontal[row + i];
+                        a[i] += p >>> 24;
+                        r[i] += (p >> 16) & 0xFF;
+                        g[i] += (p >> 8) & 0xFF;
+                        b[i] += p & 0xFF;
+                    }
+                    int top = y - size + 1;
+                    if (top < from) {
+                        continue;
+                    }
+                    int o = (top + origin) * w + x0;
+                    row = top * w + x0;
+                    for (int i = 0; i < n; ++i) {
+                        out[o + i] = mean(a[i], r[i], g[i], b[i], size);
+                        int p = horizontal[row + i];
+                        a[i] -= p >>> 24;
+                        r[i] -= (p >> 16) & 0xFF;
+                        g[i] -= (p >> 8) & 0xFF;
+                        b[i] -= p & 0xFF;
+                    }
+                }
+            }
+        });
+        return new ImgRaster(out, w, h, alpha);
+    }
+
+    private static int mean(int a, int r, int g, int b, int n) {
+        int half = n / 2;
+        return (((a + half) / n) << 24) | (((r + half) / n) << 16) | (((g + half) / n) << 8) | ((b + half) / n);
+    }
+
+    // -- alpha
+
+    private void premultiply() {
+        parallel(height, width, new Band() {
+            @Override
+            void run(int from, int to) {
+                for (int i = from * width, end = to * width; i < end; ++i) {
+                    int p = pixels[i];
+                    int a = p >>> 24;
+                    if (a == 0) {
+                        pixels[i] = 0;
+                    } else if (a < 255) {
+                        int r = ((p >> 16) & 0xFF) * a / 255;
+                        int g = ((p >> 8) & 0xFF) * a / 255;
+                        int b = (p & 0xFF) * a / 255;
+                        pixels[i] = (a << 24) | (r << 16) | (g << 8) | b;
+                    }
+                }
+            }
+        });
+    }
+
+    /*
+     * Write the unpremultiplied pixels into `target`
+     */
+    private void unpremultiply(final int[] target) {
+        parallel(height, width, new Band() {
+            @Override
+            void run(int from, int to) {
+                for (int i = from * width, end = to * width; i < end; ++i) {
+                    int p = pixels[i];
+                    int a = p >>> 24;
+                    if (a > 0 && a < 255) {
+                        int r = Math.min(255, (((p >> 16) & 0xFF) * 255 + a / 2) / a);
+                        int g = Math.min(255, (((p >> 8) & 0xFF) * 255 + a / 2) / a);
+                        int b = Math.min(255, ((p & 0xFF) * 255 + a / 2) / a);
+                        p = (a << 24) | (r << 16) | (g << 8) | b;
+                    }
+                    target[i] = p;
+                }
+            }
+        });
+    }
+
+    // -- parallel
+
+    /*
+     * Process rows [from, to)
+     */
+    private abstract static class Band {
+        abstract void run(int from, int to);
+    }
+
+    /*
+     * Run the band over `rows` rows, split into sub bands which run
+     * in parallel if there are enough pixels
+     */
+    private static void parallel(int rows, int rowWidth, Band band) {
+        if (rows <= 0) {
+            return;
+        }
+        int bandRows = Math.max(1, BAND_PIXELS / Math.max(1, rowWidth));
+        if (rows <= bandRows) {
+            band.run(0, rows);
+            return;
+        }
+        ForkJoinPool.commonPool().invoke(new BandTask(band, 0, rows, bandRows));
+    }
+
+    private static final class BandTask extends RecursiveAction {
+        private final Band band;
+        private final int from;
+        private final int to;
+        private final int bandRows;
+
+        BandTask(Band band, int from, int to, int bandRows) {
+            this.band = band;
+            this.from = from;
+            this.to = to;
+            this.bandRows = bandRows;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= bandRows) {
+                band.run(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BandTask(band, from, mid, bandRows), new BandTask(band, mid, to, bandRows));
+        }
+    }
+
+}
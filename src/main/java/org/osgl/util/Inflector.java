@@ -26,9 +26,9 @@ package org.osgl.util;
  * #L%
  */
 
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -38,12 +38,32 @@ import java.util.regex.Pattern;
  * href="http://www.rubyonrails.org">Ruby on Rails</a>, which is distributed under the <a
  * href="http://wiki.rubyonrails.org/rails/pages/License">Rails license</a>.
  *
+ * Results of {@link #pluralize(Object)} and {@link #singularize(Object)} are memoized in a bounded
+ * cache per instance, which is cleared whenever the rules or the uncountable words change. On a cache
+ * miss only the rules whose literal suffix matches the end of the word are tried, in the same order
+ * as they were added; rules that cannot be indexed by suffix are always tried.
+ *
  * @author Randall Hauch
  */
 public class Inflector {
 
     protected static final Inflector INSTANCE = new Inflector();
 
+    /**
+     * The max number of words memoized for each of plural and singular forms
+     */
+    static final int CACHE_LIMIT = 4096;
+
+    /**
+     * Word longer than this will not be memoized
+     */
+    static final int MAX_CACHED_LENGTH = 128;
+
+    private static final Pattern CAMEL_CASE_BOUNDARY = Pattern.compile("(^|_)(.)");
+    private static final Pattern ID_SUFFIX = Pattern.compile("_id$");
+    private static final Pattern UNDERSCORES = Pattern.compile("_+");
+    private static final Pattern WORD_START = Pattern.compile("\\b([a-z])");
+
     public static final Inflector getInstance() {
         return INSTANCE;
     }
@@ -97,11 +117,17 @@ public class Inflector {
 
     private LinkedList<Rule> plurals = new LinkedList<Rule>();
     private LinkedList<Rule> singulars = new LinkedList<Rule>();
+    private final ConcurrentMap<String, String> pluralCache = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> singularCache = new ConcurrentHashMap<>();
+    // uncountable check lowercases with the default locale
+    private volatile Locale cacheLocale;
+    private volatile RuleIndex pluralIndex;
+    private volatile RuleIndex singularIndex;
     /**
      * The lowercase words that are to be excluded and not processed. This map can be modified by the users via
      * {@link #getUncountables()}.
      */
-    private final Set<String> uncountables = new HashSet<String>();
+    private final Set<String> uncountables = new UncountableSet();
 
     public Inflector() {
         initialize();
@@ -149,12 +175,7 @@ public class Inflector {
         if (word == null) return null;
         String wordStr = word.toString().trim();
         if (wordStr.length() == 0) return wordStr;
-        if (isUncountable(wordStr)) return wordStr;
-        for (Rule rule : this.plurals) {
-            String result = rule.apply(wordStr);
-            if (result != null) return result;
-        }
-        return wordStr;
+        return inflect(wordStr, true);
     }
 
     public String pluralize( Object word,
@@ -193,12 +214,7 @@ public class Inflector {
         if (word == null) return null;
         String wordStr = word.toString().trim();
         if (wordStr.length() == 0) return wordStr;
-        if (isUncountable(wordStr)) return wordStr;
-        for (Rule rule : this.singulars) {
-            String result = rule.apply(wordStr);
-            if (result != null) return result;
-        }
-        return wordStr;
+        return inflect(wordStr, false);
     }
 
     /**
@@ -296,7 +312,7 @@ public class Inflector {
             }
 
             // Change the case at the beginning at after each underscore ...
-            return replaceAllWithUppercase(result, "(^|_)(.)", 2);
+            return upperCaseAfterUnderscore(result);
         }
         if (lowerCaseAndUnderscoredWord.length() < 2) return lowerCaseAndUnderscoredWord;
         return "" + Character.toLowerCase(lowerCaseAndUnderscoredWord.charAt(0))
@@ -329,8 +345,7 @@ public class Inflector {
         if (camelCaseWord == null) return null;
         String result = camelCaseWord.trim();
         if (result.length() == 0) return "";
-        result = result.replaceAll("([A-Z]+)([A-Z][a-z])", "$1_$2");
-        result = result.replaceAll("([a-z\\d])([A-Z])", "$1_$2");
+        result = splitCamelCase(result);
         result = result.replace('-', '_');
         if (delimiterChars != null) {
             for (char delimiterChar : delimiterChars) {
@@ -378,14 +393,14 @@ public class Inflector {
         String result = lowerCaseAndUnderscoredWords.trim();
         if (result.length() == 0) return "";
         // Remove a trailing "_id" token
-        result = result.replaceAll("_id$", "");
+        result = ID_SUFFIX.matcher(result).replaceAll("");
         // Remove all of the tokens that should be removed
         if (removableTokens != null) {
             for (String removableToken : removableTokens) {
                 result = result.replaceAll(removableToken, "");
             }
         }
-        result = result.replaceAll("_+", " "); // replace all adjacent underscores with a single space
+        result = UNDERSCORES.matcher(result).replaceAll(" "); // replace all adjacent underscores with a single space
         return capitalize(result);
     }
 
@@ -410,7 +425,7 @@ public class Inflector {
     public String titleCase( String words,
                              String... removableTokens ) {
         String result = humanize(words, removableTokens);
-        result = replaceAllWithUppercase(result, "\\b([a-z])", 1); // change first char of each word to uppercase
+        result = upperCaseWordStart(result); // change first char of each word to uppercase
         return result;
     }
 
@@ -464,12 +479,14 @@ public class Inflector {
                               String replacement ) {
         final Rule pluralizeRule = new Rule(rule, replacement);
         this.plurals.addFirst(pluralizeRule);
+        rulesChanged();
     }
 
     public void addSingularize( String rule,
                                 String replacement ) {
         final Rule singularizeRule = new Rule(rule, replacement);
         this.singulars.addFirst(singularizeRule);
+        rulesChanged();
     }
 
     public void addIrregular( String singular,
@@ -507,8 +524,13 @@ public class Inflector {
     protected static String replaceAllWithUppercase( String input,
                                                      String regex,
                                                      int groupNumberToUppercase ) {
-        Pattern underscoreAndDotPattern = Pattern.compile(regex);
-        Matcher matcher = underscoreAndDotPattern.matcher(input);
+        return replaceAllWithUppercase(input, Pattern.compile(regex), groupNumberToUppercase);
+    }
+
+    private static String replaceAllWithUppercase( String input,
+                                                   Pattern pattern,
+                                                   int groupNumberToUppercase ) {
+        Matcher matcher = pattern.matcher(input);
         StringBuffer sb = new StringBuffer();
         while (matcher.find()) {
             matcher.appendReplacement(sb, matcher.group(groupNumberToUppercase).toUpperCase());
@@ -524,6 +546,351 @@ public class Inflector {
         this.uncountables.clear();
         this.plurals.clear();
         this.singulars.clear();
+        rulesChanged();
+    }
+
+    private String inflect( String word,
+                            boolean plural ) {
+        Locale locale = Locale.getDefault();
+        if (locale != cacheLocale) {
+            clearCache();
+            cacheLocale = locale;
+        }
+        ConcurrentMap<String, String> cache = plural ? pluralCache : singularCache;
+        String result = cache.get(word);
+        if (null == result) {
+            result = isUncountable(word) ? word : ruleIndex(plural).apply(word);
+            if (word.length() <= MAX_CACHED_LENGTH) {
+                if (cache.size() >= CACHE_LIMIT) {
+                    cache.clear();
+                }
+                cache.put(word, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Inflect the word by trying all rules in order, without memo cache and suffix index.
+     */
+    String inflectByScan( String word,
+                          boolean plural ) {
+        String wordStr = word.trim();
+        if (wordStr.length() == 0) return wordStr;
+        if (isUncountable(wordStr)) return wordStr;
+        for (Rule rule : plural ? this.plurals : this.singulars) {
+            String result = rule.apply(wordStr);
+            if (result != null) return result;
+        }
+        return wordStr;
+    }
+
+    int cacheSize() {
+        return pluralCache.size() + singularCache.size();
+    }
+
+    private RuleIndex ruleIndex( boolean plural ) {
+        RuleIndex index = plural ? pluralIndex : singularIndex;
+        if (null == index) {
+            if (plural) {
+                index = new RuleIndex(plurals);
+                pluralIndex = index;
+            } else {
+                index = new RuleIndex(singulars);
+                singularIndex = index;
+            }
+        }
+        return index;
+    }
+
+    private void rulesChanged() {
+        pluralIndex = null;
+        singularIndex = null;
+        clearCache();
+    }
+
+    private void clearCache() {
+        pluralCache.clear();
+        singularCache.clear();
+    }
+
+    /*
+     * Same as replacing `([A-Z]+)([A-Z][a-z])` and then `([a-z\d])([A-Z])` with `$1_$2`
+     */
+    private static String splitCamelCase( String s ) {
+        int len = s.length();
+        StringBuilder sb = new StringBuilder(len + 8);
+        sb.append(s.charAt(0));
+        for (int i = 1; i < len; ++i) {
+            char c = s.charAt(i);
+            if (isAsciiUpper(c)) {
+                char prev = s.charAt(i - 1);
+                if (isAsciiLower(prev) || isDigit(prev)
+                        || isAsciiUpper(prev) && i + 1 < len && isAsciiLower(s.charAt(i + 1))) {
+                    sb.append('_');
+                }
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /*
+     * Same as replaceAllWithUppercase(s, "(^|_)(.)", 2) for ASCII input
+     */
+    private static String upperCaseAfterUnderscore( String s ) {
+        if (!asciiCaseMapping(s)) return replaceAllWithUppercase(s, CAMEL_CASE_BOUNDARY, 2);
+        int len = s.length();
+        StringBuilder sb = new StringBuilder(len);
+        char first = s.charAt(0);
+        sb.append(isLineTerminator(first) ? first : toAsciiUpper(first));
+        for (int i = 1; i < len; ++i) {
+            char c = s.charAt(i);
+            if ('_' == c && i + 1 < len && !isLineTerminator(s.charAt(i + 1))) {
+                sb.append(toAsciiUpper(s.charAt(++i)));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /*
+     * Same as replaceAllWithUppercase(s, "\\b([a-z])", 1) for ASCII input
+     */
+    private static String upperCaseWordStart( String s ) {
+        if (!asciiCaseMapping(s)) return replaceAllWithUppercase(s, WORD_START, 1);
+        char[] ca = s.toCharArray();
+        for (int i = 0; i < ca.length; ++i) {
+            char c = ca[i];
+            if (isAsciiLower(c) && (0 == i || !isWordChar(ca[i - 1]))) {
+                ca[i] = toAsciiUpper(c);
+            }
+        }
+        return new String(ca);
+    }
+
+    /*
+     * Check if the string can be upper cased char by char with the same result as
+     * String.toUpperCase(), and contains nothing that has a special meaning in
+     * regex replacement
+     */
+    private static boolean asciiCaseMapping( String s ) {
+        if (s.length() == 0) return false;
+        for (int i = 0, len = s.length(); i < len; ++i) {
+            char c = s.charAt(i);
+            if (c > 127 || '$' == c || '\\' == c) return false;
+        }
+        String lang = Locale.getDefault().getLanguage();
+        return !"tr".equals(lang) && !"az".equals(lang);
+    }
+
+    private static boolean isAsciiUpper( char c ) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    private static boolean isAsciiLower( char c ) {
+        return c >= 'a' && c <= 'z';
+    }
+
+    private static boolean isDigit( char c ) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWordChar( char c ) {
+        return isAsciiLower(c) || isAsciiUpper(c) || isDigit(c) || '_' == c;
+    }
+
+    private static char toAsciiUpper( char c ) {
+        return isAsciiLower(c) ? (char) (c - 32) : c;
+    }
+
+    private static char toAsciiLower( char c ) {
+        return isAsciiUpper(c) ? (char) (c + 32) : c;
+    }
+
+    private static boolean isLineTerminator( char c ) {
+        return '\n' == c || '\r' == c || '\u0085' == c || '\u2028' == c || '\u2029' == c;
+    }
+
+    /**
+     * Rules of one kind indexed by the literal suffix they require, kept in a trie keyed by the
+     * characters from the end of the word. A rule whose pattern cannot be analyzed is kept at the
+     * root, thus is a candidate for every word.
+     */
+    static final class RuleIndex {
+        private final Rule[] rules;
+        private final Node root = new Node();
+
+        RuleIndex( List<Rule> rules ) {
+            this.rules = rules.toArray(new Rule[rules.size()]);
+            for (int i = 0; i < this.rules.length; ++i) {
+                String[] suffixes = suffixesOf(this.rules[i].expression);
+                if (null == suffixes) {
+                    root.add(i);
+                    continue;
+                }
+                for (String suffix : suffixes) {
+                    Node node = root;
+                    for (int j = suffix.length() - 1; j >= 0; --j) {
+                        node = node.child(toAsciiLower(suffix.charAt(j)));
+                    }
+                    node.add(i);
+                }
+            }
+        }
+
+        String apply( String word ) {
+            int len = word.length();
+            BitSet candidates = new BitSet(rules.length);
+            if (isLineTerminator(word.charAt(len - 1))) {
+                // `$` also matches before a final line terminator
+                candidates.set(0, rules.length);
+            } else {
+                Node node = root;
+                node.mark(candidates);
+                for (int i = len - 1; i >= 0; --i) {
+                    node = node.get(toAsciiLower(word.charAt(i)));
+                    if (null == node) break;
+                    node.mark(candidates);
+                }
+            }
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                String result = rules[i].apply(word);
+                if (result != null) return result;
+            }
+            return word;
+        }
+
+        /*
+         * Returns the literal suffixes one of which a word must end with, case insensitively, to
+         * match the regex, or `null` if that cannot be decided. Only `abc$`, `(...)abc$` and
+         * `(a|bc)$` forms without escapes are analyzed.
+         */
+        static String[] suffixesOf( String regex ) {
+            int end = regex.length() - 1;
+            if (end < 1 || '$' != regex.charAt(end) || regex.indexOf('\\') >= 0) return null;
+            int depth = 0;
+            boolean inClass = false;
+            for (int i = 0; i < end; ++i) {
+                char c = regex.charAt(i);
+                if (inClass) {
+                    if (']' == c) inClass = false;
+                } else if ('[' == c) {
+                    inClass = true;
+                } else if ('(' == c) {
+                    if (i + 1 < end && '?' == regex.charAt(i + 1) && (i + 2 >= end || ':' != regex.charAt(i + 2))) {
+                        // flags, e.g. (?m), or look around
+                        return null;
+                    }
+                    depth++;
+                } else if (')' == c) {
+                    depth--;
+                } else if ('|' == c && 0 == depth) {
+                    return null;
+                }
+            }
+            int start = end;
+            while (start > 0 && isLiteral(regex.charAt(start - 1))) start--;
+            if (start < end) return new String[]{regex.substring(start, end)};
+            if (')' != regex.charAt(end - 1)) return null;
+            int open = regex.lastIndexOf('(', end - 1);
+            if (open < 0) return null;
+            String group = regex.substring(open + 1, end - 1);
+            if (group.startsWith("?:")) group = group.substring(2);
+            String[] alternatives = group.split("\\|", -1);
+            for (String alternative : alternatives) {
+                if (alternative.length() == 0) return null;
+                for (int i = alternative.length() - 1; i >= 0; --i) {
+                    if (!isLiteral(alternative.charAt(i))) return null;
+                }
+            }
+            return alternatives;
+        }
+
+        private static boolean isLiteral( char c ) {
+            return isAsciiLower(c) || isAsciiUpper(c) || isDigit(c);
+        }
+    }
+
+    private static final class Node {
+        private Map<Character, Node> children;
+        private int[] rules = new int[0];
+
+        Node get( char c ) {
+            return null == children ? null : children.get(c);
+        }
+
+        Node child( char c ) {
+            if (null == children) {
+                children = new HashMap<>();
+            }
+            Node node = children.get(c);
+            if (null == node) {
+                node = new Node();
+                children.put(c, node);
+            }
+            return node;
+        }
+
+        void add( int rule ) {
+            rules = Arrays.copyOf(rules, rules.length + 1);
+            rules[rules.length - 1] = rule;
+        }
+
+        void mark( BitSet candidates ) {
+            for (int rule : rules) {
+                candidates.set(rule);
+            }
+        }
+    }
+
+    /**
+     * Clears the memoized words whenever the set is modified.
+     */
+    private final class UncountableSet extends HashSet<String> {
+
+        @Override
+        public boolean add( String s ) {
+            boolean added = super.add(s);
+            if (added) clearCache();
+            return added;
+        }
+
+        @Override
+        public boolean remove( Object o ) {
+            boolean removed = super.remove(o);
+            if (removed) clearCache();
+            return removed;
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            clearCache();
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            final Iterator<String> itr = super.iterator();
+            return new Iterator<String>() {
+                @Override
+                public boolean hasNext() {
+                    return itr.hasNext();
+                }
+
+                @Override
+                public String next() {
+                    return itr.next();
+                }
+
+                @Override
+                public void remove() {
+                    itr.remove();
+                    clearCache();
+                }
+            };
+        }
     }
 
     protected void initialize() {
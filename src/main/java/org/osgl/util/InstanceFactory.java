@@ -0,0 +1,46 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Creates instances of classes it manages, e.g. a dependency injection
+ * container that needs objects created by {@link DataMapper} or
+ * {@link ResultSetRecordConverter} to be injected.
+ *
+ * Instance factories are registered with {@link org.osgl.OsglConfig#registerInstanceFactory(InstanceFactory)}
+ * and consulted by {@link org.osgl.OsglConfig#globalInstanceFactory()} in the order they are
+ * registered. Classes not managed by any registered factory are instantiated with
+ * {@link org.osgl.Lang#newInstance(Class)}.
+ */
+public interface InstanceFactory {
+
+    /**
+     * Create an instance of a class.
+     *
+     * @param type
+     *      the class
+     * @param <T>
+     *      the type of the instance
+     * @return the instance created or `null` if the class is not managed by this factory
+     */
+    <T> T newInstance(Class<T> type);
+
+}
@@ -56,7 +56,7 @@ class IteratorSeq<T> extends SequenceBase<T> {
         if (n == 0) {
             return Nil.seq();
         }
-        return of(Iterators.filterIndex(itr_, N.F.lt(n)));
+        return PipelineSeq.of(this).head(n);
     }
 
     @Override
@@ -69,17 +69,20 @@ class IteratorSeq<T> extends SequenceBase<T> {
 
     @Override
     public C.Sequence<T> takeWhile($.Function<? super T, Boolean> predicate) {
-        return of(Iterators.filterWhile(itr_, predicate));
+        return PipelineSeq.of(this).takeWhile(predicate);
     }
 
     @Override
     public C.Sequence<T> drop(int n) {
-        return of(Iterators.filterIndex(itr_, N.F.gte(n)));
+        if (n <= 0) {
+            return this;
+        }
+        return PipelineSeq.of(this).drop(n);
     }
 
     @Override
     public C.Sequence<T> dropWhile($.Function<? super T, Boolean> predicate) {
-        return of(Iterators.filterUntil(itr_, $.F.negate(predicate)));
+        return PipelineSeq.of(this).dropWhile(predicate);
     }
 
     @Override
@@ -114,7 +117,7 @@ class IteratorSeq<T> extends SequenceBase<T> {
 
     @Override
     public C.Sequence<T> filter($.Function<? super T, Boolean> predicate) {
-        return of(Iterators.filter(itr_, predicate));
+        return PipelineSeq.of(this).filter(predicate);
     }
 
     @Override
@@ -124,7 +127,7 @@ class IteratorSeq<T> extends SequenceBase<T> {
 
     @Override
     public <R> C.Sequence<R> map($.Function<? super T, ? extends R> mapper) {
-        return new IteratorSeq<R>(Iterators.map(itr_, mapper));
+        return PipelineSeq.of(this).map(mapper);
     }
 
     @Override
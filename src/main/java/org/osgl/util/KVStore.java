@@ -19,20 +19,67 @@ package org.osgl.util;
  * limitations under the License.
  * #L%
  */
+import org.osgl.$;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /**
- * A simple implementation of {@link KV} using {@link HashMap}
+ * A simple implementation of {@link KV}.
+ *
+ * Entries are stored in an open addressing hash table with parallel arrays of
+ * keys, value types, primitive values and reference values, so a stored `int`
+ * costs neither a {@link ValueObject} nor an {@link Integer}. The
+ * {@link ValueObject} returned by {@link #get(Object)} is restored from the
+ * slots on each call.
+ *
+ * Use {@link #getInt(String, int)} and {@link #getLong(String, long)} to read
+ * numbers without boxing.
+ *
+ * The table inherited from {@link HashMap} stays empty. It is only used to
+ * read streams written by the `HashMap` based `KVStore`.
  */
 @SuppressWarnings("unused")
 public class KVStore extends HashMap<String, ValueObject> implements KV {
 
+    // computed from the HashMap based KVStore
+    private static final long serialVersionUID = 4021189563237347074L;
+
+    // streams written by the HashMap based KVStore have no size field
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("size", int.class)
+    };
+
+    private static final int MIN_CAPACITY = 8;
+
+    // the null key is stored as this instance
+    private static final String NULL_KEY = new String("");
+
+    // type of a null value
+    private static final byte NULL_VALUE = -1;
+
+    private transient String[] keys;
+    private transient byte[] types;
+    private transient long[] bits;
+    private transient Object[] refs;
+    private transient int size;
+    private transient int modCount;
+
+    private transient Set<Map.Entry<String, ValueObject>> entrySet;
+    private transient Set<String> keySet;
+    private transient Collection<ValueObject> values;
+
     /**
      * Create an empty {@code KVStore}
      */
     public KVStore() {
+        allocate(MIN_CAPACITY);
     }
 
     /**
@@ -40,7 +87,7 @@ public class KVStore extends HashMap<String, ValueObject> implements KV {
      * @param copy the KVStore in which all (K,V) pairs will be copied into the new KVStore instance
      */
     public KVStore(KVStore copy) {
-        putAll(copy);
+        copyTable(copy);
     }
 
     /**
@@ -48,9 +95,337 @@ public class KVStore extends HashMap<String, ValueObject> implements KV {
      * @param values the map in which all entries will be stored into the new KVStore instance
      */
     public KVStore(Map<String, Object> values) {
+        allocate(capacityFor(values.size()));
         putValues(values);
     }
 
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return 0 == size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public ValueObject get(Object key) {
+        int i = indexOf(key);
+        return i < 0 ? null : valueAt(i);
+    }
+
+    @Override
+    public ValueObject put(String key, ValueObject value) {
+        int i = indexOf(key);
+        if (i >= 0) {
+            ValueObject old = valueAt(i);
+            set(i, value);
+            return old;
+        }
+        set(insert(key), value);
+        return null;
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends ValueObject> map) {
+        for (Map.Entry<? extends String, ? extends ValueObject> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public ValueObject remove(Object key) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        ValueObject old = valueAt(i);
+        delete(i);
+        return old;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (int i = 0; i < keys.length; ++i) {
+            if (null != keys[i] && $.eq(valueAt(i), value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public ValueObject getOrDefault(Object key, ValueObject defaultValue) {
+        int i = indexOf(key);
+        return i < 0 ? defaultValue : valueAt(i);
+    }
+
+    @Override
+    public ValueObject putIfAbsent(String key, ValueObject value) {
+        int i = indexOf(key);
+        if (i < 0) {
+            set(insert(key), value);
+            return null;
+        }
+        ValueObject old = valueAt(i);
+        if (null == old) {
+            set(i, value);
+        }
+        return old;
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        int i = indexOf(key);
+        if (i < 0 || !$.eq(valueAt(i), value)) {
+            return false;
+        }
+        delete(i);
+        return true;
+    }
+
+    @Override
+    public boolean replace(String key, ValueObject oldValue, ValueObject newValue) {
+        int i = indexOf(key);
+        if (i < 0 || !$.eq(valueAt(i), oldValue)) {
+            return false;
+        }
+        set(i, newValue);
+        return true;
+    }
+
+    @Override
+    public ValueObject replace(String key, ValueObject value) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        ValueObject old = valueAt(i);
+        set(i, value);
+        return old;
+    }
+
+    @Override
+    public ValueObject computeIfAbsent(String key, Function<? super String, ? extends ValueObject> mappingFunction) {
+        ValueObject old = get(key);
+        if (null != old) {
+            return old;
+        }
+        ValueObject value = mappingFunction.apply(key);
+        if (null != value) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public ValueObject computeIfPresent(String key, BiFunction<? super String, ? super ValueObject, ? extends ValueObject> remappingFunction) {
+        ValueObject old = get(key);
+        if (null == old) {
+            return null;
+        }
+        ValueObject value = remappingFunction.apply(key, old);
+        if (null == value) {
+            remove(key);
+        } else {
+            put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public ValueObject compute(String key, BiFunction<? super String, ? super ValueObject, ? extends ValueObject> remappingFunction) {
+        ValueObject old = get(key);
+        ValueObject value = remappingFunction.apply(key, old);
+        if (null != value) {
+            put(key, value);
+        } else if (null != old || containsKey(key)) {
+            remove(key);
+        }
+        return value;
+    }
+
+    @Override
+    public ValueObject merge(String key, ValueObject value, BiFunction<? super ValueObject, ? super ValueObject, ? extends ValueObject> remappingFunction) {
+        E.NPE(value, remappingFunction);
+        ValueObject old = get(key);
+        ValueObject merged = null == old ? value : remappingFunction.apply(old, value);
+        if (null == merged) {
+            remove(key);
+        } else {
+            put(key, merged);
+        }
+        return merged;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super ValueObject> action) {
+        int expectedModCount = modCount;
+        String[] keys = this.keys;
+        for (int i = 0; i < keys.length; ++i) {
+            String key = keys[i];
+            if (null != key) {
+                action.accept(NULL_KEY == key ? null : key, valueAt(i));
+            }
+        }
+        if (expectedModCount != modCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super String, ? super ValueObject, ? extends ValueObject> function) {
+        int expectedModCount = modCount;
+        String[] keys = this.keys;
+        for (int i = 0; i < keys.length; ++i) {
+            String key = keys[i];
+            if (null != key) {
+                set(i, function.apply(NULL_KEY == key ? null : key, valueAt(i)));
+            }
+        }
+        if (expectedModCount != modCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    @Override
+    public KVStore clone() {
+        KVStore copy = (KVStore) super.clone();
+        copy.copyTable(this);
+        return copy;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(refs, null);
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<Map.Entry<String, ValueObject>> entrySet() {
+        Set<Map.Entry<String, ValueObject>> set = entrySet;
+        if (null == set) {
+            set = new AbstractSet<Map.Entry<String, ValueObject>>() {
+                @Override
+                public Iterator<Map.Entry<String, ValueObject>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public void clear() {
+                    KVStore.this.clear();
+                }
+            };
+            entrySet = set;
+        }
+        return set;
+    }
+
+    @Override
+    public Set<String> keySet() {
+        Set<String> set = keySet;
+        if (null == set) {
+            set = new AbstractSet<String>() {
+                @Override
+                public Iterator<String> iterator() {
+                    final Iterator<Map.Entry<String, ValueObject>> itr = new EntryIterator();
+                    return new Iterator<String>() {
+                        @Override
+                        public boolean hasNext() {
+                            return itr.hasNext();
+                        }
+
+                        @Override
+                        public String next() {
+                            return itr.next().getKey();
+                        }
+
+                        @Override
+                        public void remove() {
+                            itr.remove();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return containsKey(o);
+                }
+
+                @Override
+                public void clear() {
+                    KVStore.this.clear();
+                }
+            };
+            keySet = set;
+        }
+        return set;
+    }
+
+    @Override
+    public Collection<ValueObject> values() {
+        Collection<ValueObject> collection = values;
+        if (null == collection) {
+            collection = new AbstractCollection<ValueObject>() {
+                @Override
+                public Iterator<ValueObject> iterator() {
+                    final Iterator<Map.Entry<String, ValueObject>> itr = new EntryIterator();
+                    return new Iterator<ValueObject>() {
+                        @Override
+                        public boolean hasNext() {
+                            return itr.hasNext();
+                        }
+
+                        @Override
+                        public ValueObject next() {
+                            return itr.next().getValue();
+                        }
+
+                        @Override
+                        public void remove() {
+                            itr.remove();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return containsValue(o);
+                }
+
+                @Override
+                public void clear() {
+                    KVStore.this.clear();
+                }
+            };
+            values = collection;
+        }
+        return collection;
+    }
+
     /**
      * Put a simple data into the store with a key. The type of simple data
      * should be allowed by {@link ValueObject}
@@ -65,6 +440,28 @@ public class KVStore extends HashMap<String, ValueObject> implements KV {
         return this;
     }
 
+    /**
+     * Put an `int` value into the store with a key without boxing
+     * @param key the key
+     * @param val the value
+     * @return this store instance after the put operation finished
+     */
+    public KVStore putValue(String key, int val) {
+        setPrimitive(key, ValueObject.TYPE_INT, val);
+        return this;
+    }
+
+    /**
+     * Put a `long` value into the store with a key without boxing
+     * @param key the key
+     * @param val the value
+     * @return this store instance after the put operation finished
+     */
+    public KVStore putValue(String key, long val) {
+        setPrimitive(key, ValueObject.TYPE_LONG, val);
+        return this;
+    }
+
     /**
      * Get {@link ValueObject#value() value object value} by key from the
      * store.
@@ -82,6 +479,74 @@ public class KVStore extends HashMap<String, ValueObject> implements KV {
         return vo.value();
     }
 
+    /**
+     * Returns the `int` value associated with the key or `0` if
+     * no value found.
+     *
+     * @param key the key
+     * @return the int value
+     * @see #getInt(String, int)
+     */
+    public int getInt(String key) {
+        return getInt(key, 0);
+    }
+
+    /**
+     * Returns the `int` value associated with the key.
+     *
+     * Values of integral types are returned without boxing. Values of other
+     * numeric types are narrowed and strings are parsed.
+     *
+     * @param key the key
+     * @param defaultValue the value returned if no value is associated with the key
+     * @return the int value
+     */
+    public int getInt(String key, int defaultValue) {
+        int i = indexOf(key);
+        if (i < 0 || NULL_VALUE == types[i]) {
+            return defaultValue;
+        }
+        if (ValueObject.isIntegral(types[i])) {
+            return (int) bits[i];
+        }
+        Object v = valueAt(i).value();
+        return v instanceof Number ? ((Number) v).intValue() : Integer.parseInt(S.string(v));
+    }
+
+    /**
+     * Returns the `long` value associated with the key or `0` if
+     * no value found.
+     *
+     * @param key the key
+     * @return the long value
+     * @see #getLong(String, long)
+     */
+    public long getLong(String key) {
+        return getLong(key, 0L);
+    }
+
+    /**
+     * Returns the `long` value associated with the key.
+     *
+     * Values of integral types are returned without boxing. Values of other
+     * numeric types are narrowed and strings are parsed.
+     *
+     * @param key the key
+     * @param defaultValue the value returned if no value is associated with the key
+     * @return the long value
+     */
+    public long getLong(String key, long defaultValue) {
+        int i = indexOf(key);
+        if (i < 0 || NULL_VALUE == types[i]) {
+            return defaultValue;
+        }
+        if (ValueObject.isIntegral(types[i])) {
+            return bits[i];
+        }
+        Object v = valueAt(i).value();
+        return v instanceof Number ? ((Number) v).longValue() : Long.parseLong(S.string(v));
+    }
+
     /**
      * Put a map of (key, value) pair into the store. The value could be any type
      * that supported by {@link ValueObject}
@@ -89,8 +554,8 @@ public class KVStore extends HashMap<String, ValueObject> implements KV {
      */
     @Override
     public KVStore putValues(Map<String, Object> kvMap) {
-        for (String key : kvMap.keySet()) {
-            put(key, ValueObject.of(kvMap.get(key)));
+        for (Map.Entry<String, Object> entry : kvMap.entrySet()) {
+            put(entry.getKey(), ValueObject.of(entry.getValue()));
         }
         return this;
     }
@@ -111,4 +576,279 @@ public class KVStore extends HashMap<String, ValueObject> implements KV {
         return map;
     }
 
+    int capacity() {
+        return keys.length;
+    }
+
+    // the number of slots holding an object, i.e. String, Enum and UDF values
+    int references() {
+        int n = 0;
+        for (Object ref : refs) {
+            if (null != ref) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /*
+     * Copy the slots of another store. Also drops the entries HashMap.clone
+     * puts into the inherited table
+     */
+    private void copyTable(KVStore that) {
+        super.clear();
+        keys = that.keys.clone();
+        types = that.types.clone();
+        bits = that.bits.clone();
+        refs = that.refs.clone();
+        size = that.size;
+        entrySet = null;
+        keySet = null;
+        values = null;
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        types = new byte[capacity];
+        bits = new long[capacity];
+        refs = new Object[capacity];
+    }
+
+    private static int capacityFor(int n) {
+        int capacity = MIN_CAPACITY;
+        while (n >= threshold(capacity)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int threshold(int capacity) {
+        return capacity - (capacity >>> 2);
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int indexOf(Object key) {
+        if (null == key) {
+            key = NULL_KEY;
+        } else if (!(key instanceof String)) {
+            return -1;
+        }
+        String[] keys = this.keys;
+        int mask = keys.length - 1;
+        int i = hash((String) key) & mask;
+        for (String k = keys[i]; null != k; k = keys[i = (i + 1) & mask]) {
+            if (k == key || k != NULL_KEY && key != NULL_KEY && k.equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // returns the slot for a key that does not exist in the table
+    private int insert(String key) {
+        if (size >= threshold(keys.length)) {
+            resize(keys.length << 1);
+        }
+        if (null == key) {
+            key = NULL_KEY;
+        }
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (null != keys[i]) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        size++;
+        modCount++;
+        return i;
+    }
+
+    private void setPrimitive(String key, byte type, long val) {
+        int i = indexOf(key);
+        if (i < 0) {
+            i = insert(key);
+        }
+        types[i] = type;
+        bits[i] = val;
+        refs[i] = null;
+    }
+
+    private void set(int i, ValueObject value) {
+        if (null == value) {
+            types[i] = NULL_VALUE;
+            bits[i] = 0;
+            refs[i] = null;
+        } else {
+            types[i] = value.typeCode();
+            bits[i] = value.bits();
+            refs[i] = value.ref();
+        }
+    }
+
+    private ValueObject valueAt(int i) {
+        byte type = types[i];
+        return NULL_VALUE == type ? null : new ValueObject(type, bits[i], refs[i]);
+    }
+
+    private void resize(int capacity) {
+        String[] oldKeys = keys;
+        byte[] oldTypes = types;
+        long[] oldBits = bits;
+        Object[] oldRefs = refs;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; ++j) {
+            String key = oldKeys[j];
+            if (null == key) {
+                continue;
+            }
+            int i = hash(key) & mask;
+            while (null != keys[i]) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            types[i] = oldTypes[j];
+            bits[i] = oldBits[j];
+            refs[i] = oldRefs[j];
+        }
+    }
+
+    /*
+     * Remove the entry at slot `i` and shift back following entries of the
+     * same probe run, so no tombstone is needed
+     */
+    private void delete(int i) {
+        String[] keys = this.keys;
+        int mask = keys.length - 1;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            String key = keys[j];
+            if (null == key) {
+                break;
+            }
+            int home = hash(key) & mask;
+            // move the entry if its home slot is not in the range (i, j]
+            if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+                keys[i] = key;
+                types[i] = types[j];
+                bits[i] = bits[j];
+                refs[i] = refs[j];
+                i = j;
+            }
+        }
+        keys[i] = null;
+        refs[i] = null;
+        size--;
+        modCount++;
+    }
+
+    /*
+     * Iterates from the slot next to an empty slot. As a probe run never
+     * crosses an empty slot, removing the current entry only moves entries
+     * not yet visited into the current slot.
+     */
+    private class EntryIterator implements Iterator<Map.Entry<String, ValueObject>> {
+        private final int start;
+        private int steps;
+        private int current = -1;
+        private int expectedModCount = modCount;
+
+        EntryIterator() {
+            int i = 0;
+            while (null != keys[i]) {
+                i++;
+            }
+            start = i;
+        }
+
+        @Override
+        public boolean hasNext() {
+            String[] keys = KVStore.this.keys;
+            int mask = keys.length - 1;
+            while (steps < keys.length && null == keys[(start + steps) & mask]) {
+                steps++;
+            }
+            return steps < keys.length;
+        }
+
+        @Override
+        public Map.Entry<String, ValueObject> next() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            current = (start + steps++) & (keys.length - 1);
+            String key = keys[current];
+            return new Entry(NULL_KEY == key ? null : key, current);
+        }
+
+        @Override
+        public void remove() {
+            if (current < 0) {
+                throw new IllegalStateException();
+            }
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            delete(current);
+            expectedModCount = modCount;
+            current = -1;
+            // revisit the slot which might be filled by a following entry
+            steps--;
+        }
+    }
+
+    private class Entry extends AbstractMap.SimpleEntry<String, ValueObject> {
+        private final int index;
+
+        Entry(String key, int index) {
+            super(key, valueAt(index));
+            this.index = index;
+        }
+
+        @Override
+        public ValueObject setValue(ValueObject value) {
+            KVStore.this.set(index, value);
+            return super.setValue(value);
+        }
+    }
+
+    private void writeObject(ObjectOutputStream s) throws IOException {
+        ObjectOutputStream.PutField fields = s.putFields();
+        fields.put("size", size);
+        s.writeFields();
+        for (int i = 0; i < keys.length; ++i) {
+            String key = keys[i];
+            if (null != key) {
+                s.writeObject(NULL_KEY == key ? null : key);
+                s.writeObject(valueAt(i));
+            }
+        }
+    }
+
+    private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = s.readFields();
+        if (fields.defaulted("size")) {
+            // the entries of a HashMap based KVStore have been read into the inherited table
+            allocate(capacityFor(super.size()));
+            for (Map.Entry<String, ValueObject> entry : super.entrySet()) {
+                put(entry.getKey(), entry.getValue());
+            }
+            super.clear();
+            return;
+        }
+        int n = fields.get("size", 0);
+        allocate(capacityFor(n));
+        for (int i = 0; i < n; ++i) {
+            put((String) s.readObject(), (ValueObject) s.readObject());
+        }
+    }
+
 }
@@ -31,6 +31,7 @@ import java.util.Iterator;
 class LazySeq<T> extends SequenceBase<T> implements C.Sequence<T> {
     protected T head;
     protected $.F0<C.Sequence<T>> tail;
+    private volatile C.Sequence<T> evaluatedTail;
 
 
     /**
@@ -59,9 +60,21 @@ class LazySeq<T> extends SequenceBase<T> implements C.Sequence<T> {
         return head;
     }
 
+    /**
+     * Returns the tail sequence. The tail is evaluated once and
+     * memoized, thus traversing the sequence again does not recompute
+     * the elements.
+     *
+     * @return the tail sequence
+     */
     @Override
     public C.Sequence<T> tail() throws UnsupportedOperationException {
-        return tail.apply();
+        C.Sequence<T> seq = evaluatedTail;
+        if (null == seq) {
+            seq = tail.apply();
+            evaluatedTail = seq;
+        }
+        return seq;
     }
 
     @Override
@@ -0,0 +1,203 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.osgl.exception.UnexpectedMethodInvocationException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Invokes a resolved {@link Method} through a {@link MethodHandle}.
+ *
+ * The handle is adapted to `(Object target, Object[] args) -> Object`, so
+ * unboxing of primitive arguments and boxing of the return value are done
+ * by the handle rather than by reflection. If a handle cannot be created,
+ * e.g. because of a security manager, it falls back to {@link Method#invoke(Object, Object...)}.
+ *
+ * A method returning `int`, `long`, `double` or `boolean` also gets a handle
+ * adapted to `(Object target, Object[] args) -> ` the primitive type, which
+ * is used by {@link #invokeInt(Object, Object...)} and its siblings to
+ * return the value without boxing.
+ *
+ * Instances are created and cached by {@link ClassMeta#invoker(String, Class[], boolean)}.
+ */
+public final class MethodInvoker {
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    private final Method method;
+    private final MethodHandle handle;
+    private final Class<?> returnType;
+    // returns the primitive value, `null` if the method does not return int, long, double or boolean
+    private final MethodHandle primitiveHandle;
+
+    MethodInvoker(Method method) {
+        this.method = method;
+        this.handle = handleOf(method, Object.class);
+        this.returnType = null == method ? null : method.getReturnType();
+        this.primitiveHandle = null == handle || !hasPrimitiveFastPath(returnType) ? null : handleOf(method, returnType);
+    }
+
+    /**
+     * Returns the method this invoker invokes.
+     *
+     * @return the method
+     */
+    public Method method() {
+        return method;
+    }
+
+    /**
+     * Invoke the method.
+     *
+     * @param target
+     *      the target object, ignored if the method is static
+     * @param args
+     *      the arguments
+     * @param <R>
+     *      the return type
+     * @return the value returned by the method or `null` if it is a `void` method
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R invoke(Object target, Object... args) {
+        try {
+            if (null != handle) {
+                return (R) (Object) handle.invokeExact(target, args);
+            }
+            return (R) method.invoke(target, args);
+        } catch (Throwable t) {
+            throw UnexpectedMethodInvocationException.triage(t);
+        }
+    }
+
+    /**
+     * Invoke a method returning `int` without boxing the result.
+     *
+     * Methods of other return types are invoked through {@link #invoke(Object, Object...)}
+     * and the result, which must be a {@link Number}, is unboxed.
+     *
+     * @param target
+     *      the target object, ignored if the method is static
+     * @param args
+     *      the arguments
+     * @return the value returned by the method
+     */
+    public int invokeInt(Object target, Object... args) {
+        if (int.class == returnType && null != primitiveHandle) {
+            try {
+                return (int) primitiveHandle.invokeExact(target, args);
+            } catch (Throwable t) {
+                throw UnexpectedMethodInvocationException.triage(t);
+            }
+        }
+        return this.<Number>invoke(target, args).intValue();
+    }
+
+    /**
+     * Invoke a method returning `long` without boxing the result.
+     *
+     * @see #invokeInt(Object, Object...)
+     */
+    public long invokeLong(Object target, Object... args) {
+        if (long.class == returnType && null != primitiveHandle) {
+            try {
+                return (long) primitiveHandle.invokeExact(target, args);
+            } catch (Throwable t) {
+                throw UnexpectedMethodInvocationException.triage(t);
+            }
+        }
+        return this.<Number>invoke(target, args).longValue();
+    }
+
+    /**
+     * Invoke a method returning `double` without boxing the result.
+     *
+     * @see #invokeInt(Object, Object...)
+     */
+    public double invokeDouble(Object target, Object... args) {
+        if (double.class == returnType && null != primitiveHandle) {
+            try {
+                return (double) primitiveHandle.invokeExact(target, args);
+            } catch (Throwable t) {
+                throw UnexpectedMethodInvocationException.triage(t);
+            }
+        }
+        return this.<Number>invoke(target, args).doubleValue();
+    }
+
+    /**
+     * Invoke a method returning `boolean` without boxing the result.
+     *
+     * Methods of other return types are invoked through {@link #invoke(Object, Object...)}
+     * and the result, which must be a {@link Boolean}, is unboxed.
+     *
+     * @param target
+     *      the target object, ignored if the method is static
+     * @param args
+     *      the arguments
+     * @return the value returned by the method
+     */
+    public boolean invokeBoolean(Object target, Object... args) {
+        if (boolean.class == returnType && null != primitiveHandle) {
+            try {
+                return (boolean) primitiveHandle.invokeExact(target, args);
+            } catch (Throwable t) {
+                throw UnexpectedMethodInvocationException.triage(t);
+            }
+        }
+        return this.<Boolean>invoke(target, args);
+    }
+
+    private static boolean hasPrimitiveFastPath(Class<?> type) {
+        return int.class == type || long.class == type || double.class == type || boolean.class == type;
+    }
+
+    /*
+     * Adapt the method to `(Object, Object[]) -> returnType`, where
+     * `returnType` is either `Object` or the primitive return type
+     */
+    private static MethodHandle handleOf(Method method, Class<?> returnType) {
+        if (null == method) {
+            return null;
+        }
+        try {
+            if (!method.isAccessible()) {
+                method.setAccessible(true);
+            }
+            MethodHandle mh = MethodHandles.lookup().unreflect(method).asFixedArity();
+            int paramCount = method.getParameterTypes().length;
+            boolean isStatic = Modifier.isStatic(method.getModifiers());
+            mh = mh.asType(mh.type().generic().changeReturnType(returnType));
+            mh = mh.asSpreader(Object[].class, paramCount);
+            if (isStatic) {
+                mh = MethodHandles.dropArguments(mh, 0, Object.class);
+            }
+            return mh.asType(INVOKER_TYPE.changeReturnType(returnType));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+}
@@ -26,7 +26,6 @@ import org.osgl.exception.NotAppliedException;
 
 import java.io.Serializable;
 import java.math.*;
-import java.security.SecureRandom;
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -81,8 +80,6 @@ public class N {
             , 1000000000000000000l
     };
 
-    private static Random random = ThreadLocalRandom.current();
-
     N() {}
 
     public enum Type {
@@ -1252,15 +1249,8 @@ public class N {
         if (S.isBlank(s)) {
             return false;
         }
-        if (isInt(s)) {
-            return true;
-        }
-        try {
-            Double.parseDouble(s);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        NumberScanner scanner = NumberScanner.scan(s);
+        return scanner.isNumber() || (scanner.stoppedAtNonAscii() && isInt(s));
     }
 
     /**
@@ -1309,10 +1299,10 @@ public class N {
 
     /**
      * The secure version of {@link #randInt()}
-     * @return
+     * @return a random int value generated by the {@link IdGenerator#secureRandom() secure random} of the current thread
      */
     public static int secureRandInt() {
-        return new SecureRandom().nextInt();
+        return IdGenerator.secureRandom().nextInt();
     }
 
     public static int randIntWithSymbol() {
@@ -1320,7 +1310,7 @@ public class N {
     }
 
     public static int secureRandIntWithSymbol() {
-        Random r = new SecureRandom();
+        Random r = IdGenerator.secureRandom();
         return randSymbol(r) * r.nextInt();
     }
 
@@ -1338,11 +1328,11 @@ public class N {
     }
 
     public static int secureRandInt(int max) {
-        return new SecureRandom().nextInt(max);
+        return IdGenerator.secureRandom().nextInt(max);
     }
 
     public static int secureRandInt(int min, int max) {
-        return new SecureRandom().nextInt(max - min) + min;
+        return IdGenerator.secureRandom().nextInt(max - min) + min;
     }
 
     public static int randIntWithSymbol(int max) {
@@ -1350,7 +1340,7 @@ public class N {
     }
 
     public static int secureRandIntWithSymbol(int max) {
-        Random r = new SecureRandom();
+        Random r = IdGenerator.secureRandom();
         return randSymbol(r) * r.nextInt(max);
     }
 
@@ -1359,7 +1349,7 @@ public class N {
     }
 
     public static float secureRandFloat() {
-        return new SecureRandom().nextFloat();
+        return IdGenerator.secureRandom().nextFloat();
     }
 
     public static float randFloatWithSymbol() {
@@ -1367,7 +1357,7 @@ public class N {
     }
 
     public static float secureRandFloatWithSymbol() {
-        Random r = new SecureRandom();
+        Random r = IdGenerator.secureRandom();
         return randSymbol(r) * r.nextFloat();
     }
 
@@ -1380,7 +1370,7 @@ public class N {
     }
 
     public static long secureRandLong() {
-        return new SecureRandom().nextLong();
+        return IdGenerator.secureRandom().nextLong();
     }
 
     public static long randLongWithSymbol() {
@@ -1388,7 +1378,7 @@ public class N {
     }
 
     public static long secureRandLongWithSymbol() {
-        Random r = new SecureRandom();
+        Random r = IdGenerator.secureRandom();
         return randSymbol(r) * r.nextLong();
     }
 
@@ -1401,7 +1391,7 @@ public class N {
     }
 
     public static double secureRandDouble() {
-        return new SecureRandom().nextDouble();
+        return IdGenerator.secureRandom().nextDouble();
     }
 
     public static double randDoubleWithSymbol() {
@@ -1409,7 +1399,7 @@ public class N {
     }
 
     public static double secureRandDoubleWithSymbol() {
-        Random r = new SecureRandom();
+        Random r = IdGenerator.secureRandom();
         return randSymbol(r) * r.nextDouble();
     }
 
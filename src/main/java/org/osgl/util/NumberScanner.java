@@ -0,0 +1,495 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+/**
+ * Scans a region of a {@link CharSequence} for a number in one pass,
+ * without creating intermediate strings or throwing exceptions.
+ *
+ * The scanner accepts the same syntax as {@link Double#parseDouble(String)}:
+ * leading and trailing whitespace, optional sign, digits with optional
+ * fraction and exponent, an optional `f`, `F`, `d` or `D` suffix, `NaN`,
+ * `Infinity` and hexadecimal floating point literals.
+ *
+ * Integers fitting in `long` are accumulated exactly while scanning. Floating
+ * point values with up to 15 significant digits and a small exponent are
+ * computed exactly with one multiplication or division. Other values fall
+ * back to the JDK parser once the syntax is known to be valid.
+ *
+ * The `parseXxx` methods are drop-in replacements of the JDK methods with the
+ * same name: input the scanner cannot handle is passed to the JDK method,
+ * so invalid input causes the same {@link NumberFormatException}.
+ */
+final class NumberScanner {
+
+    private static final double[] DOUBLE_POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final float[] FLOAT_POW10 = {
+            1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    // max significant digits kept in the mantissa
+    private static final int MAX_DIGITS = 18;
+
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+    private static final long MAX_EXACT_FLOAT = 1L << 24;
+
+    // returned by parseShortDecimal if the input is not a short decimal
+    static final long NOT_SHORT_DECIMAL = Long.MIN_VALUE;
+
+    private final CharSequence s;
+    // the region after whitespace trimmed
+    private int from;
+    private int to;
+
+    private boolean valid;
+    private boolean integral;
+    private boolean negative;
+    private boolean hasDot;
+    // the value if integral
+    private long longValue;
+    // significant digits and the decimal exponent applied to them
+    private long mantissa;
+    private int exponent;
+    // some non zero digits do not fit in mantissa
+    private boolean truncated;
+    // value of NaN, Infinity or hexadecimal literal, computed while scanning
+    private Double special;
+    private boolean hex;
+    // the region is a `-` sign and digits with no whitespace around
+    private boolean intSyntax;
+    // scanning stopped at a non ASCII char, which might be a non ASCII digit
+    private boolean nonAscii;
+
+    private NumberScanner(CharSequence s) {
+        this.s = s;
+    }
+
+    /**
+     * Scan the whole char sequence.
+     */
+    static NumberScanner scan(CharSequence s) {
+        return scan(s, 0, s.length());
+    }
+
+    /**
+     * Scan `s` from index `from` (inclusive) to `to` (exclusive).
+     */
+    static NumberScanner scan(CharSequence s, int from, int to) {
+        NumberScanner scanner = new NumberScanner(s);
+        scanner.doScan(from, to);
+        return scanner;
+    }
+
+    /**
+     * Returns `true` if the region is accepted by {@link Double#parseDouble(String)}.
+     */
+    boolean isNumber() {
+        return valid;
+    }
+
+    /**
+     * Returns `true` if the region is an optional sign followed by digits,
+     * and the value fits in `long`.
+     */
+    boolean isIntegral() {
+        return integral;
+    }
+
+    /**
+     * Returns `true` if the region is a valid number containing a `.`.
+     */
+    boolean hasDot() {
+        return valid && hasDot;
+    }
+
+    /**
+     * Returns `true` if the region, before whitespace is trimmed, is an optional
+     * `-` followed by digits, as accepted by {@link N#isInt(String)} for ASCII
+     * input, regardless of whether the value fits in `long`.
+     */
+    boolean isIntSyntax() {
+        return intSyntax;
+    }
+
+    /**
+     * Returns `true` if the region is not a number because the scan stopped
+     * at a non ASCII char. Such region might still be accepted by
+     * {@link N#isInt(String)} which takes non ASCII digits.
+     */
+    boolean stoppedAtNonAscii() {
+        return nonAscii;
+    }
+
+    boolean fitsInt() {
+        return integral && longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE;
+    }
+
+    long longValue() {
+        return longValue;
+    }
+
+    double doubleValue() {
+        if (null != special) {
+            return special;
+        }
+        if (integral && 0 != longValue && Math.abs(longValue) <= MAX_EXACT_DOUBLE) {
+            return longValue;
+        }
+        if (!truncated && mantissa <= MAX_EXACT_DOUBLE && Math.abs(exponent) < DOUBLE_POW10.length) {
+            double d = mantissa;
+            d = exponent < 0 ? d / DOUBLE_POW10[-exponent] : d * DOUBLE_POW10[exponent];
+            return negative ? -d : d;
+        }
+        return Double.parseDouble(text());
+    }
+
+    float floatValue() {
+        if (hex) {
+            return Float.parseFloat(text());
+        }
+        if (null != special) {
+            return special.floatValue();
+        }
+        if (!truncated && mantissa <= MAX_EXACT_FLOAT && Math.abs(exponent) < FLOAT_POW10.length) {
+            float f = mantissa;
+            f = exponent < 0 ? f / FLOAT_POW10[-exponent] : f * FLOAT_POW10[exponent];
+            return negative ? -f : f;
+        }
+        return Float.parseFloat(text());
+    }
+
+    /**
+     * Same as {@link Integer#parseInt(String)} on the region
+     */
+    static int parseInt(CharSequence s, int from, int to) {
+        long l = parseShortDecimal(s, from, to, 9);
+        if (NOT_SHORT_DECIMAL != l) {
+            return (int) l;
+        }
+        if (from < to && s.charAt(from) > ' ' && s.charAt(to - 1) > ' ') {
+            NumberScanner scanner = scan(s, from, to);
+            if (scanner.fitsInt()) {
+                return (int) scanner.longValue;
+            }
+        }
+        return Integer.parseInt(s.subSequence(from, to).toString());
+    }
+
+    /**
+     * Same as {@link Long#parseLong(String)} on the region
+     */
+    static long parseLong(CharSequence s, int from, int to) {
+        long l = parseShortDecimal(s, from, to, MAX_DIGITS);
+        if (NOT_SHORT_DECIMAL != l) {
+            return l;
+        }
+        if (from < to && s.charAt(from) > ' ' && s.charAt(to - 1) > ' ') {
+            NumberScanner scanner = scan(s, from, to);
+            if (scanner.integral) {
+                return scanner.longValue;
+            }
+        }
+        return Long.parseLong(s.subSequence(from, to).toString());
+    }
+
+    /**
+     * Same as {@link Float#parseFloat(String)} on the region
+     */
+    static float parseFloat(CharSequence s, int from, int to) {
+        NumberScanner scanner = scan(s, from, to);
+        return scanner.valid ? scanner.floatValue() : Float.parseFloat(s.subSequence(from, to).toString());
+    }
+
+    /**
+     * Same as {@link Double#parseDouble(String)} on the region
+     */
+    static double parseDouble(CharSequence s, int from, int to) {
+        double d = parseShortDouble(s, from, to);
+        if (!Double.isNaN(d)) {
+            return d;
+        }
+        NumberScanner scanner = scan(s, from, to);
+        return scanner.valid ? scanner.doubleValue() : Double.parseDouble(s.subSequence(from, to).toString());
+    }
+
+    /**
+     * Parse an optional sign followed by at most `maxDigits` ASCII digits, which
+     * never overflows. Returns {@link #NOT_SHORT_DECIMAL} for any other input.
+     */
+    static long parseShortDecimal(CharSequence s, int from, int to, int maxDigits) {
+        int i = from;
+        boolean negative = false;
+        if (i < to) {
+            char c = s.charAt(i);
+            if ('-' == c || '+' == c) {
+                negative = '-' == c;
+                i++;
+            }
+        }
+        int len = to - i;
+        if (len < 1 || len > maxDigits) {
+            return NOT_SHORT_DECIMAL;
+        }
+        long n = 0;
+        for (; i < to; ++i) {
+            int d = s.charAt(i) - '0';
+            if (d < 0 || d > 9) {
+                return NOT_SHORT_DECIMAL;
+            }
+            n = n * 10 + d;
+        }
+        return negative ? -n : n;
+    }
+
+    /**
+     * Parse an optional sign followed by at most 15 ASCII digits with an optional
+     * `.`, which is exact with one division. Returns `NaN` for any other input.
+     */
+    static double parseShortDouble(CharSequence s, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to) {
+            char c = s.charAt(i);
+            if ('-' == c || '+' == c) {
+                negative = '-' == c;
+                i++;
+            }
+        }
+        long n = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean dot = false;
+        for (; i < to; ++i) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > 15) {
+                    return Double.NaN;
+                }
+                n = n * 10 + (c - '0');
+                if (dot) {
+                    scale++;
+                }
+            } else if ('.' == c && !dot) {
+                dot = true;
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (0 == digits) {
+            return Double.NaN;
+        }
+        double d = 0 == scale ? n : n / DOUBLE_POW10[scale];
+        return negative ? -d : d;
+    }
+
+    /**
+     * Returns the index of the first char after leading whitespace, as
+     * per {@link String#trim()}.
+     */
+    static int trimStart(CharSequence s, int from, int to) {
+        while (from < to && s.charAt(from) <= ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Returns the index after the last char before trailing whitespace, as
+     * per {@link String#trim()}.
+     */
+    static int trimEnd(CharSequence s, int from, int to) {
+        while (to > from && s.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        return to;
+    }
+
+    static int indexOf(CharSequence s, char c, int from, int to) {
+        for (int i = from; i < to; ++i) {
+            if (c == s.charAt(i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String text() {
+        return s.subSequence(from, to).toString();
+    }
+
+    private void doScan(int start, int end) {
+        from = trimStart(s, start, end);
+        to = trimEnd(s, from, end);
+        int i = from;
+        if (i == to) {
+            return;
+        }
+        char c = s.charAt(i);
+        if ('-' == c || '+' == c) {
+            negative = '-' == c;
+            if (++i == to) {
+                return;
+            }
+            c = s.charAt(i);
+        }
+        if ('N' == c || 'I' == c) {
+            scanSpecial(i);
+            return;
+        }
+        if ('0' == c && i + 1 < to && ('x' == (s.charAt(i + 1) | 0x20))) {
+            scanHex();
+            return;
+        }
+        // accumulate the integral value as negative number like Long.parseLong does
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multmin = limit / 10;
+        long acc = 0;
+        boolean overflow = false;
+        boolean sawDigit = false;
+        int digits = 0;
+        for (; i < to; ++i) {
+            c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                int d = c - '0';
+                sawDigit = true;
+                if (!hasDot && !overflow) {
+                    if (acc < multmin || acc * 10 < limit + d) {
+                        overflow = true;
+                    } else {
+                        acc = acc * 10 - d;
+                    }
+                }
+                if (0 == mantissa && 0 == d) {
+                    // leading zero
+                    if (hasDot) {
+                        exponent--;
+                    }
+                } else if (digits < MAX_DIGITS) {
+                    mantissa = mantissa * 10 + d;
+                    digits++;
+                    if (hasDot) {
+                        exponent--;
+                    }
+                } else {
+                    truncated |= 0 != d;
+                    if (!hasDot) {
+                        exponent++;
+                    }
+                }
+            } else if ('.' == c && !hasDot) {
+                hasDot = true;
+            } else {
+                nonAscii = c > 0x7F;
+                break;
+            }
+        }
+        if (!sawDigit) {
+            return;
+        }
+        boolean plain = !hasDot;
+        if (i < to && ('e' == c || 'E' == c)) {
+            plain = false;
+            if (++i == to) {
+                return;
+            }
+            c = s.charAt(i);
+            boolean negativeExponent = '-' == c;
+            if ('-' == c || '+' == c) {
+                if (++i == to) {
+                    return;
+                }
+            }
+            int exp = 0;
+            boolean expDigit = false;
+            for (; i < to; ++i) {
+                c = s.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                expDigit = true;
+                if (exp < 100000) {
+                    exp = exp * 10 + (c - '0');
+                }
+            }
+            if (!expDigit) {
+                return;
+            }
+            exponent += negativeExponent ? -exp : exp;
+        }
+        if (i < to) {
+            c = s.charAt(i);
+            if ('f' == c || 'F' == c || 'd' == c || 'D' == c) {
+                plain = false;
+                i++;
+            }
+        }
+        if (i != to) {
+            return;
+        }
+        valid = true;
+        if (plain) {
+            intSyntax = from == start && to == end && '+' != s.charAt(from);
+            if (!overflow) {
+                integral = true;
+                longValue = negative ? acc : -acc;
+            }
+        }
+    }
+
+    private void scanSpecial(int i) {
+        if (matches(i, "NaN")) {
+            special = Double.NaN;
+        } else if (matches(i, "Infinity")) {
+            special = negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        } else {
+            return;
+        }
+        valid = true;
+    }
+
+    private boolean matches(int i, String word) {
+        int len = word.length();
+        if (to - i != len) {
+            return false;
+        }
+        for (int j = 0; j < len; ++j) {
+            if (s.charAt(i + j) != word.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void scanHex() {
+        // hexadecimal floating point literals are rare, leave them to the JDK
+        try {
+            special = Double.parseDouble(text());
+            valid = true;
+            hex = true;
+        } catch (NumberFormatException e) {
+            // not a number
+        }
+    }
+
+}
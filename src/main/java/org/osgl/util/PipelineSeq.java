@@ -0,0 +1,245 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.osgl.$;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A lazy sequence that applies a chain of map, filter, take, drop, takeWhile
+ * and dropWhile operations on a source iterable.
+ *
+ * Consecutive operations are fused: applying one of the above operations on
+ * a `PipelineSeq` returns a new `PipelineSeq` with the operation appended to
+ * the stage list instead of wrapping the sequence in another layer. The
+ * iterator runs all stages on each source element in a single loop, and stops
+ * pulling elements from the source once a take or takeWhile stage is exhausted.
+ */
+class PipelineSeq<T> extends SequenceBase<T> {
+
+    private static final int MAP = 0;
+    private static final int FILTER = 1;
+    private static final int TAKE = 2;
+    private static final int DROP = 3;
+    private static final int TAKE_WHILE = 4;
+    private static final int DROP_WHILE = 5;
+
+    private static final Stage[] NO_STAGES = new Stage[0];
+
+    private final Iterable<?> source;
+    private final Stage[] stages;
+
+    private PipelineSeq(Iterable<?> source, Stage[] stages) {
+        this.source = source;
+        this.stages = stages;
+    }
+
+    @Override
+    public int size() throws UnsupportedOperationException {
+        for (Stage stage : stages) {
+            if (MAP != stage.kind) {
+                throw new UnsupportedOperationException();
+            }
+        }
+        if (source instanceof C.Traversable) {
+            return ((C.Traversable<?>) source).size();
+        }
+        if (source instanceof java.util.Collection) {
+            return ((java.util.Collection<?>) source).size();
+        }
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new PipelineIterator<>(source.iterator(), stages);
+    }
+
+    @Override
+    public <R> C.Sequence<R> map($.Function<? super T, ? extends R> mapper) {
+        E.NPE(mapper);
+        return with(new Stage(MAP, $.f1(mapper), null, 0));
+    }
+
+    @Override
+    public C.Sequence<T> filter($.Function<? super T, Boolean> predicate) {
+        E.NPE(predicate);
+        return with(new Stage(FILTER, null, $.predicate(predicate), 0));
+    }
+
+    @Override
+    public C.Sequence<T> head(int n) {
+        if (n <= 0) {
+            return super.head(n);
+        }
+        return with(new Stage(TAKE, null, null, n));
+    }
+
+    @Override
+    public C.Sequence<T> tail() throws UnsupportedOperationException {
+        return drop(1);
+    }
+
+    @Override
+    public C.Sequence<T> drop(int n) throws IllegalArgumentException {
+        if (n <= 0) {
+            return super.drop(n);
+        }
+        return with(new Stage(DROP, null, null, n));
+    }
+
+    @Override
+    public C.Sequence<T> takeWhile($.Function<? super T, Boolean> predicate) {
+        E.NPE(predicate);
+        return with(new Stage(TAKE_WHILE, null, $.predicate(predicate), 0));
+    }
+
+    @Override
+    public C.Sequence<T> dropWhile($.Function<? super T, Boolean> predicate) {
+        E.NPE(predicate);
+        return with(new Stage(DROP_WHILE, null, $.predicate(predicate), 0));
+    }
+
+    private <R> PipelineSeq<R> with(Stage stage) {
+        int len = stages.length;
+        Stage[] newStages = new Stage[len + 1];
+        System.arraycopy(stages, 0, newStages, 0, len);
+        newStages[len] = stage;
+        return new PipelineSeq<>(source, newStages);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> PipelineSeq<T> of(Iterable<? extends T> source) {
+        E.NPE(source);
+        if (source instanceof PipelineSeq) {
+            return (PipelineSeq<T>) source;
+        }
+        return new PipelineSeq<>(source, NO_STAGES);
+    }
+
+    private static final class Stage {
+        final int kind;
+        final $.F1 mapper;
+        final $.Predicate predicate;
+        final int n;
+
+        Stage(int kind, $.F1 mapper, $.Predicate predicate, int n) {
+            this.kind = kind;
+            this.mapper = mapper;
+            this.predicate = predicate;
+            this.n = n;
+        }
+    }
+
+    private static final class PipelineIterator<T> extends ReadOnlyIterator<T> {
+        private final Iterator<?> source;
+        private final Stage[] stages;
+        // per stage state: element count for take/drop, started flag for dropWhile
+        private final int[] state;
+        private boolean ready;
+        private boolean done;
+        private Object next;
+
+        PipelineIterator(Iterator<?> source, Stage[] stages) {
+            this.source = source;
+            this.stages = stages;
+            this.state = new int[stages.length];
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!ready && !done) {
+                advance();
+            }
+            return ready;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T t = (T) next;
+            next = null;
+            ready = false;
+            return t;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            Stage[] stages = this.stages;
+            int[] state = this.state;
+            int len = stages.length;
+            outer:
+            while (!done && source.hasNext()) {
+                Object o = source.next();
+                for (int i = 0; i < len; ++i) {
+                    Stage stage = stages[i];
+                    switch (stage.kind) {
+                        case MAP:
+                            o = stage.mapper.apply(o);
+                            break;
+                        case FILTER:
+                            if (!stage.predicate.test(o)) {
+                                continue outer;
+                            }
+                            break;
+                        case TAKE:
+                            if (++state[i] >= stage.n) {
+                                // do not pull source any more
+                                done = true;
+                            }
+                            break;
+                        case DROP:
+                            if (state[i] < stage.n) {
+                                state[i]++;
+                                continue outer;
+                            }
+                            break;
+                        case TAKE_WHILE:
+                            if (!stage.predicate.test(o)) {
+                                done = true;
+                                return;
+                            }
+                            break;
+                        case DROP_WHILE:
+                            if (0 == state[i]) {
+                                if (stage.predicate.test(o)) {
+                                    continue outer;
+                                }
+                                state[i] = 1;
+                            }
+                            break;
+                        default:
+                            throw E.unexpected("unknown stage: %s", stage.kind);
+                    }
+                }
+                next = o;
+                ready = true;
+                return;
+            }
+            done = true;
+        }
+    }
+
+}
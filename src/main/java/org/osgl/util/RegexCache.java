@@ -0,0 +1,103 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * A bounded cache of compiled {@link Pattern}s used by the regex taking
+ * APIs in {@link S}, e.g. {@link S#split(CharSequence, String)} and
+ * {@link S._Replace#usingRegEx()}.
+ *
+ * Patterns are keyed by the regex string alone, as they are all compiled
+ * without flags. Up to {@link #CACHE_LIMIT} regexes no longer than
+ * {@link #MAX_CACHED_LENGTH} chars are kept; a longer regex is compiled on
+ * each call. Once the limit is reached all entries are dropped at once, so
+ * no usage needs to be tracked on lookup.
+ *
+ * The cache can be used by concurrent threads without locking: compiled
+ * patterns are immutable, and two threads missing the same regex at the
+ * same time both compile it and the last one is kept.
+ */
+final class RegexCache {
+
+    /**
+     * The max number of patterns cached
+     */
+    static final int CACHE_LIMIT = 256;
+
+    /**
+     * Regex longer than this will not be cached
+     */
+    static final int MAX_CACHED_LENGTH = 256;
+
+    private static final ConcurrentMap<String, Pattern> cache = new ConcurrentHashMap<>();
+
+    private RegexCache() {
+    }
+
+    static Pattern compile(String regex) {
+        Pattern pattern = cache.get(regex);
+        if (null == pattern) {
+            pattern = Pattern.compile(regex);
+            if (regex.length() <= MAX_CACHED_LENGTH) {
+                if (cache.size() >= CACHE_LIMIT) {
+                    cache.clear();
+                }
+                cache.put(regex, pattern);
+            }
+        }
+        return pattern;
+    }
+
+    /**
+     * Check if the regex matches a single char literally. {@link String#split(String)}
+     * splits by such regex without the regex engine.
+     */
+    static boolean isLiteralChar(String regex) {
+        int len = regex.length();
+        char ch;
+        if (1 == len) {
+            ch = regex.charAt(0);
+            if (".$|()[{^?*+\\".indexOf(ch) >= 0) {
+                return false;
+            }
+        } else if (2 == len && '\\' == regex.charAt(0)) {
+            ch = regex.charAt(1);
+            if (Character.isLetterOrDigit(ch) && ch < 128) {
+                return false;
+            }
+        } else {
+            return false;
+        }
+        return ch < Character.MIN_HIGH_SURROGATE || ch > Character.MAX_LOW_SURROGATE;
+    }
+
+    static void clear() {
+        cache.clear();
+    }
+
+    static int size() {
+        return cache.size();
+    }
+
+}
@@ -29,6 +29,7 @@ import org.osgl.exception.NotAppliedException;
 import org.osgl.util.algo.StringReplace;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.Writer;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
@@ -36,9 +37,10 @@ import java.security.SecureRandom;
 import java.text.MessageFormat;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Random;
-import java.util.UUID;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -205,13 +207,16 @@ public class S {
     /**
      * A handy alias for {@link String#format(String, Object...)}
      *
+     * Templates using only `%s`, `%d`, `%%` and `%n` are compiled and cached,
+     * other templates are formatted with {@link String#format(String, Object...)}
+     *
      * @param tmpl the message template
      * @param args the message arguments
      * @return the formatted string
      */
     public final static String fmt(String tmpl, Object... args) {
         if (0 == args.length) return tmpl;
-        return String.format(tmpl, args);
+        return FormatTemplate.printf(tmpl, args);
     }
 
 
@@ -227,6 +232,9 @@ public class S {
     /**
      * A handy alias for {@link MessageFormat#format(String, Object...)}
      *
+     * Templates using only simple placeholders like `{0}` are compiled and cached,
+     * other templates are formatted with {@link MessageFormat}
+     *
      * @param template the message template
      * @param args the message arguments
      * @return the formatted string or `""` if template is `null`
@@ -234,7 +242,7 @@ public class S {
     public static String msgFmt(String template, Object... args) {
         if (0 == args.length) return template;
         if (null == template) return "";
-        return MessageFormat.format(template, args);
+        return FormatTemplate.msgFmt(template, args);
     }
 
     /**
@@ -677,7 +685,13 @@ public class S {
      *      a list of string
      */
     public static List split(CharSequence csq, String regex) {
-        return isEmpty(csq) ? list() : listOf(csq.toString().split(regex));
+        if (isEmpty(csq)) {
+            return list();
+        }
+        if (RegexCache.isLiteralChar(regex)) {
+            return listOf(csq.toString().split(regex));
+        }
+        return listOf(RegexCache.compile(regex).split(csq));
     }
 
     /**
@@ -713,21 +727,64 @@ public class S {
         int lastPos = 0, len = string.length();
         while (true) {
             int pos = string.indexOf(separator, lastPos);
-            String part = string.substring(lastPos, pos < 0 ? len : pos);
-            if (notEmpty(part)) {
-                lb.add(part);
+            if (pos != lastPos) {
+                lb.add(string.substring(lastPos, pos < 0 ? len : pos));
             }
             if (pos < 0) {
                 break;
             }
             lastPos = pos + 1;
-            while (++lastPos < len && separator == string.charAt(lastPos)) {
+            while (lastPos < len && separator == string.charAt(lastPos)) {
+                lastPos++;
+            }
+            if (lastPos == len) {
+                break;
             }
-            lastPos--;
         }
         return ImmutableStringList.of(lb);
     }
 
+    /**
+     * Returns a {@link SplitCursor} that splits a char sequence by separator char lazily.
+     *
+     * Empty tokens are skipped, same as {@link #split(String, char)}.
+     *
+     * @param csq       the char sequence to be split
+     * @param separator the char to split the char sequence
+     * @return a split cursor
+     */
+    public static SplitCursor splitCursor(CharSequence csq, char separator) {
+        return new SplitCursor(csq, separator, null, null);
+    }
+
+    /**
+     * Returns a {@link SplitCursor} that splits a char sequence by separator literal lazily.
+     *
+     * Empty tokens are skipped, same as {@link #fastSplit(String, String)}.
+     *
+     * @param csq       the char sequence to be split
+     * @param separator the string literal to split the char sequence
+     * @return a split cursor
+     * @throws IllegalArgumentException if the separator is empty or `null`
+     */
+    public static SplitCursor splitCursor(CharSequence csq, String separator) {
+        E.illegalArgumentIf(S.isEmpty(separator), "seperator must not be empty string or null");
+        return new SplitCursor(csq, '\0', separator, null);
+    }
+
+    /**
+     * Returns a {@link SplitCursor} that splits a char sequence by regex pattern lazily.
+     *
+     * Empty tokens are skipped.
+     *
+     * @param csq     the char sequence to be split
+     * @param pattern the regex pattern to split the char sequence
+     * @return a split cursor
+     */
+    public static SplitCursor splitCursor(CharSequence csq, Pattern pattern) {
+        return new SplitCursor(csq, '\0', null, $.requireNotNull(pattern));
+    }
+
     public static String concat(String s1, String s2) {
         return buffer().append(s1).append(s2).toString();
     }
@@ -958,7 +1015,7 @@ public class S {
 
         public _SplitStage by(String separator) {
             if (useRegex) {
-                this.pattern = Pattern.compile(separator);
+                this.pattern = RegexCache.compile(separator);
             } else {
                 this.separator = requireNotEmpty(separator);
             }
@@ -983,7 +1040,7 @@ public class S {
         public _SplitStage useRegex() {
             useRegex = true;
             if (null == pattern && isNotEmpty(separator)) {
-                pattern = Pattern.compile(separator);
+                pattern = RegexCache.compile(separator);
             }
             return this;
         }
@@ -994,8 +1051,7 @@ public class S {
             }
             E.illegalStateIf($.allNull(separator, pattern));
             C.List<String> list;
-            if (useRegex && null == pattern) {
-                pattern = Pattern.compile(separator);
+            if (null != pattern) {
                 list = split(s, pattern);
             } else {
                 list = fastSplit(s.toString(), separator);
@@ -1006,12 +1062,240 @@ public class S {
             return list;
         }
 
+        /**
+         * Returns a {@link SplitCursor} that yields the elements lazily.
+         *
+         * Note empty elements are skipped, and the element wrapper
+         * is not stripped.
+         *
+         * @return a split cursor
+         */
+        public SplitCursor cursor() {
+            E.illegalStateIf($.allNull(separator, pattern));
+            return null != pattern ? splitCursor(s, pattern) : splitCursor(s, separator);
+        }
+
     }
 
     public static _SplitStage split(CharSequence csq) {
         return new _SplitStage(csq);
     }
 
+    /**
+     * Split a char sequence lazily.
+     *
+     * Tokens are found one at a time when {@link #hasNext()} is called, so
+     * a caller that needs only the first few tokens or the number of tokens
+     * does not pay for splitting the whole char sequence.
+     *
+     * {@link #next()} returns a {@link FastStr} view of the token. The view
+     * shares a char array copied from the source char sequence the first time
+     * a token is returned, or the buffer of the source if it is a `FastStr`.
+     * Use {@link #start()} and {@link #end()} to get the token position
+     * without creating the view.
+     *
+     * A cursor is not thread safe and can be iterated only once.
+     */
+    public static final class SplitCursor implements Iterator<CharSequence>, Iterable<CharSequence> {
+        private final CharSequence csq;
+        private final int len;
+        private final char separatorChar;
+        private final String separator;
+        private final Matcher matcher;
+        private int pos;
+        private int start = -1;
+        private int end = -1;
+        // is there a token found but not returned yet
+        private boolean found;
+        private FastStr buf;
+
+        private SplitCursor(CharSequence csq, char separatorChar, String separator, Pattern pattern) {
+            this.csq = null == csq ? "" : csq;
+            this.len = this.csq.length();
+            this.separatorChar = separatorChar;
+            this.separator = separator;
+            this.matcher = null == pattern ? null : pattern.matcher(this.csq);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return found || (found = find());
+        }
+
+        @Override
+        public FastStr next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            found = false;
+            if (null == buf) {
+                buf = csq instanceof FastStr ? (FastStr) csq : FastStr.unsafeOf(csq.toString());
+            }
+            return buf.subSequence(start, end);
+        }
+
+        /**
+         * Returns the next token as a String.
+         *
+         * @return the next token
+         */
+        public String nextString() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            found = false;
+            return csq.subSequence(start, end).toString();
+        }
+
+        /**
+         * Skip the next token without creating it.
+         *
+         * @return `true` if a token is skipped or `false` if there is no more token
+         */
+        public boolean skip() {
+            if (!hasNext()) {
+                return false;
+            }
+            found = false;
+            return true;
+        }
+
+        /**
+         * Returns the start position (inclusive) of the token found by the last {@link #hasNext()}
+         * call, or returned by the last {@link #next()} call.
+         *
+         * @return the start position of the current token
+         */
+        public int start() {
+            return start;
+        }
+
+        /**
+         * Returns the end position (exclusive) of the current token.
+         *
+         * @return the end position of the current token
+         * @see #start()
+         */
+        public int end() {
+            return end;
+        }
+
+        /**
+         * Count the remaining tokens without creating them.
+         *
+         * @return the number of tokens remaining
+         */
+        public int count() {
+            int n = 0;
+            while (skip()) {
+                n++;
+            }
+            return n;
+        }
+
+        /**
+         * Collect the remaining tokens into a list of strings.
+         *
+         * @return the remaining tokens
+         */
+        public List toList() {
+            ListBuilder<String> lb = ListBuilder.create();
+            while (hasNext()) {
+                lb.add(nextString());
+            }
+            return ImmutableStringList.of(lb);
+        }
+
+        @Override
+        public void remove() {
+            throw E.unsupport();
+        }
+
+        @Override
+        public Iterator<CharSequence> iterator() {
+            return this;
+        }
+
+        private boolean find() {
+            if (null != matcher) {
+                return findByPattern();
+            }
+            while (pos < len) {
+                int sepPos;
+                int sepLen;
+                if (null == separator) {
+                    sepPos = indexOf(separatorChar, pos);
+                    sepLen = 1;
+                } else {
+                    sepPos = indexOf(separator, pos);
+                    sepLen = separator.length();
+                }
+                int tokenEnd = sepPos < 0 ? len : sepPos;
+                int tokenStart = pos;
+                pos = sepPos < 0 ? len : sepPos + sepLen;
+                if (tokenEnd > tokenStart) {
+                    start = tokenStart;
+                    end = tokenEnd;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean findByPattern() {
+            while (pos < len) {
+                int tokenStart = pos;
+                int tokenEnd;
+                if (matcher.find()) {
+                    tokenEnd = matcher.start();
+                    pos = matcher.end();
+                } else {
+                    tokenEnd = len;
+                    pos = len;
+                }
+                if (tokenEnd > tokenStart) {
+                    start = tokenStart;
+                    end = tokenEnd;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int indexOf(char c, int from) {
+            if (csq instanceof String) {
+                return ((String) csq).indexOf(c, from);
+            }
+            for (int i = from; i < len; ++i) {
+                if (c == csq.charAt(i)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int indexOf(String s, int from) {
+            if (csq instanceof String) {
+                return ((String) csq).indexOf(s, from);
+            }
+            char first = s.charAt(0);
+            int sl = s.length();
+            outer:
+            for (int i = from, max = len - sl; i <= max; ++i) {
+                if (first != csq.charAt(i)) {
+                    continue;
+                }
+                for (int j = 1; j < sl; ++j) {
+                    if (s.charAt(j) != csq.charAt(i + j)) {
+                        continue outer;
+                    }
+                }
+                return i;
+            }
+            return -1;
+        }
+    }
+
 
     public static class _Replace2 {
         private String replacement;
@@ -1036,7 +1320,7 @@ public class S {
         }
 
         public _Replace2 usingRegEx() {
-            this.pattern = Pattern.compile(keyword);
+            this.pattern = RegexCache.compile(keyword);
             return this;
         }
 
@@ -1053,18 +1337,26 @@ public class S {
             if (null != pattern) {
                 return pattern.matcher(text).replaceAll(replacement);
             }
-            if (text.length() < keyword.length()) {
-                return text;
+            return replaceLiteral(text, keyword, replacement, replacer);
+        }
+
+        /**
+         * Replace in the text and append the result to the sink specified.
+         *
+         * @param text the text
+         * @param sink the appendable to write the result to, e.g. an {@link Output}
+         * @param <T> the type of the sink
+         * @return the sink
+         */
+        public <T extends Appendable> T in(String text, T sink) {
+            if (null != replacementFunction) {
+                E.illegalStateIf(null != pattern, "Replace with function doesnot support regex search");
+                replacement = replacementFunction.apply(keyword);
             }
-            int firstId = text.indexOf(this.keyword);
-            if (firstId < 0) {
-                return text;
+            if (null != pattern) {
+                return appendTo(sink, pattern.matcher(text).replaceAll(replacement));
             }
-            char[] textArray = text.toCharArray();
-            char[] target = this.keyword.toCharArray();
-            char[] replace = replacement.toCharArray();
-            char[] result = this.replacer.replace(textArray, target, replace, firstId);
-            return (result == textArray) ? text : new String(result);
+            return replaceLiteral(text, keyword, replacement, replacer, sink);
         }
     }
 
@@ -1085,7 +1377,7 @@ public class S {
         }
 
         public _Replace usingRegEx() {
-            this.pattern = Pattern.compile(keyword);
+            this.pattern = RegexCache.compile(keyword);
             return this;
         }
 
@@ -1102,21 +1394,69 @@ public class S {
         public String with(String replacement) {
             if (null != pattern) {
                 return pattern.matcher(text).replaceAll(replacement);
-            } else {
-                if (text.length() < keyword.length()) {
-                    return text;
-                }
-                int firstId = this.text.indexOf(this.keyword);
-                if (firstId < 0) {
-                    return this.text;
-                }
-                char[] text = this.text.toCharArray();
-                char[] target = this.keyword.toCharArray();
-                char[] replace = replacement.toCharArray();
-                char[] result = this.replacer.replace(text, target, replace, firstId);
-                return (result == text) ? this.text : new String(result);
             }
+            return replaceLiteral(text, keyword, replacement, replacer);
         }
+
+        /**
+         * Replace with the replacement and append the result to the sink specified.
+         *
+         * @param replacement the replacement
+         * @param sink the appendable to write the result to, e.g. an {@link Output}
+         * @param <T> the type of the sink
+         * @return the sink
+         */
+        public <T extends Appendable> T with(String replacement, T sink) {
+            if (null != pattern) {
+                return appendTo(sink, pattern.matcher(text).replaceAll(replacement));
+            }
+            return replaceLiteral(text, keyword, replacement, replacer, sink);
+        }
+    }
+
+    /*
+     * Replace all keyword in text with replacement, streaming into a single buffer
+     * sized to the result. Returns the text itself if keyword not found.
+     */
+    private static String replaceLiteral(String text, String keyword, String replacement, StringReplace replacer) {
+        int keywordLen = keyword.length();
+        if (0 == keywordLen || text.length() < keywordLen) {
+            return text;
+        }
+        int firstId = text.indexOf(keyword);
+        if (firstId < 0) {
+            return text;
+        }
+        int size = text.length();
+        int delta = replacement.length() - keywordLen;
+        if (delta > 0) {
+            for (int i = firstId; i >= 0; i = text.indexOf(keyword, i + keywordLen)) {
+                size += delta;
+            }
+        }
+        Buffer buf = sizedBuffer(size);
+        buf.ensureCapacity(size);
+        replacer.replace(text, keyword, replacement, firstId, buf);
+        return buf.toString();
+    }
+
+    private static <T extends Appendable> T replaceLiteral(String text, String keyword, String replacement, StringReplace replacer, T sink) {
+        int keywordLen = keyword.length();
+        int firstId = 0 == keywordLen || text.length() < keywordLen ? -1 : text.indexOf(keyword);
+        if (firstId < 0) {
+            return appendTo(sink, text);
+        }
+        replacer.replace(text, keyword, replacement, firstId, sink);
+        return sink;
+    }
+
+    private static <T extends Appendable> T appendTo(T sink, CharSequence csq) {
+        try {
+            sink.append(csq);
+        } catch (IOException e) {
+            throw E.ioException(e);
+        }
+        return sink;
     }
 
     public static class _WrapReplace extends _Replace {
@@ -1253,6 +1593,175 @@ public class S {
         return new _ReplaceStage(null == keyword ? "" : keyword);
     }
 
+    /**
+     * Returns a {@link BatchReplace} that replaces all keywords in the map with
+     * the mapped replacements in one pass.
+     *
+     * The `BatchReplace` returned is immutable and can be reused, e.g. to
+     * render many texts of a template.
+     *
+     * @param replacements the map from keyword to replacement
+     * @return a `BatchReplace` of the replacements
+     * @throws IllegalArgumentException if there is an empty keyword
+     */
+    public static BatchReplace batchReplace(java.util.Map<String, ?> replacements) {
+        return new BatchReplace(replacements);
+    }
+
+    /**
+     * Replace many keywords in one pass over the text.
+     *
+     * At each position of the text the longest keyword matched is replaced,
+     * the replacement is not searched again.
+     */
+    public static final class BatchReplace {
+        private static final int[] NONE = new int[0];
+
+        private final String[] keywords;
+        private final String[] replacements;
+        // keyword indexes, longest first, by the first char of the keyword
+        private final int[][] ascii = new int[128][];
+        private final java.util.Map<Character, int[]> others = new java.util.HashMap<>();
+        private final int minLength;
+
+        private BatchReplace(java.util.Map<String, ?> map) {
+            int size = map.size();
+            keywords = new String[size];
+            replacements = new String[size];
+            int i = 0, min = Integer.MAX_VALUE;
+            for (java.util.Map.Entry<String, ?> entry : map.entrySet()) {
+                String keyword = entry.getKey();
+                E.illegalArgumentIf(isEmpty(keyword), "keyword must not be empty string or null");
+                keywords[i] = keyword;
+                replacements[i] = string(entry.getValue());
+                min = Math.min(min, keyword.length());
+                i++;
+            }
+            minLength = min;
+            Integer[] order = new Integer[size];
+            for (i = 0; i < size; ++i) {
+                order[i] = i;
+            }
+            Arrays.sort(order, new java.util.Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    return keywords[o2].length() - keywords[o1].length();
+                }
+            });
+            for (int k : order) {
+                char c = keywords[k].charAt(0);
+                int[] bucket = bucket(c);
+                int[] grown = Arrays.copyOf(null == bucket ? NONE : bucket, null == bucket ? 1 : bucket.length + 1);
+                grown[grown.length - 1] = k;
+                if (c < 128) {
+                    ascii[c] = grown;
+                } else {
+                    others.put(c, grown);
+                }
+            }
+        }
+
+        /**
+         * Replace keywords in the text.
+         *
+         * @param text the text
+         * @return the result, or the text itself if no keyword found in a `String` text
+         */
+        public String in(CharSequence text) {
+            if (null == text) {
+                return "";
+            }
+            int len = text.length();
+            int first = find(text, 0, len);
+            if (first < 0) {
+                return text.toString();
+            }
+            Buffer buf = sizedBuffer(len);
+            buf.ensureCapacity(len + (len >> 3));
+            return replace(text, first, buf).toString();
+        }
+
+        /**
+         * Replace keywords in the text and append the result to the sink.
+         *
+         * @param text the text
+         * @param sink the appendable to write the result to, e.g. an {@link Output}
+         * @param <T> the type of the sink
+         * @return the sink
+         */
+        public <T extends Appendable> T in(CharSequence text, T sink) {
+            if (null == text) {
+                return sink;
+            }
+            int first = find(text, 0, text.length());
+            return first < 0 ? appendTo(sink, text) : replace(text, first, sink);
+        }
+
+        private <T extends Appendable> T replace(CharSequence text, int first, T sink) {
+            int len = text.length();
+            try {
+                int copied = 0;
+                for (int i = first, max = len - minLength; i <= max; ) {
+                    int[] bucket = bucket(text.charAt(i));
+                    int k = null == bucket ? -1 : matches(bucket, text, i, len);
+                    if (k < 0) {
+                        ++i;
+                        continue;
+                    }
+                    sink.append(text, copied, i).append(replacements[k]);
+                    i += keywords[k].length();
+                    copied = i;
+                }
+                sink.append(text, copied, len);
+            } catch (IOException e) {
+                throw E.ioException(e);
+            }
+            return sink;
+        }
+
+        /*
+         * Returns the position of the next keyword starting from `from`
+         */
+        private int find(CharSequence text, int from, int len) {
+            for (int i = from, max = len - minLength; i <= max; ++i) {
+                int[] bucket = bucket(text.charAt(i));
+                if (null != bucket && matches(bucket, text, i, len) >= 0) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int matches(int[] bucket, CharSequence text, int pos, int len) {
+            for (int k : bucket) {
+                if (regionMatches(text, pos, len, keywords[k])) {
+                    return k;
+                }
+            }
+            return -1;
+        }
+
+        private int[] bucket(char c) {
+            return c < 128 ? ascii[c] : others.get(c);
+        }
+
+        private static boolean regionMatches(CharSequence text, int pos, int len, String keyword) {
+            int kl = keyword.length();
+            if (pos + kl > len) {
+                return false;
+            }
+            if (text instanceof String) {
+                return ((String) text).regionMatches(pos, keyword, 0, kl);
+            }
+            for (int i = 1; i < kl; ++i) {
+                if (keyword.charAt(i) != text.charAt(pos + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
     public static _ReplaceCharStage replace(char c) {
         return new _ReplaceCharStage(c);
     }
@@ -2657,8 +3166,14 @@ public class S {
         return S.after(fileName, ".").trim().toLowerCase();
     }
 
+    /**
+     * Returns a random UUID string.
+     *
+     * @return a random UUID string
+     * @see IdGenerator#uuid()
+     */
     public static String uuid() {
-        return UUID.randomUUID().toString();
+        return IdGenerator.uuid();
     }
 
     /**
@@ -4264,8 +4779,12 @@ public class S {
                                 + s.length());
             int len = end - start;
             ensureCapacityInternal(count + len);
-            for (int i = start, j = count; i < end; i++, j++)
-                value[j] = s.charAt(i);
+            if (s instanceof String) {
+                ((String) s).getChars(start, end, value, count);
+            } else {
+                for (int i = start, j = count; i < end; i++, j++)
+                    value[j] = s.charAt(i);
+            }
             count += len;
             return this;
         }
@@ -32,7 +32,8 @@ import java.util.NoSuchElementException;
  *
  * <p>The most of the method of this implementation is lazy without
  * regarding to the {@link C.Feature#LAZY} setting of this
- * sequence instance</p>
+ * sequence instance. Consecutive map, filter, take and drop operations
+ * are fused into one {@link PipelineSeq}</p>
  */
 public abstract class SequenceBase<T>
 extends TraversableBase<T> implements C.Sequence<T> {
@@ -171,13 +172,13 @@ extends TraversableBase<T> implements C.Sequence<T> {
             if (isLimited() && n >= size()) {
                 return this;
             }
-            return IndexFilteredSeq.of(this, $.F.lessThan(n));
+            return PipelineSeq.of(this).head(n);
         }
     }
 
     @Override
     public C.Sequence<T> tail() throws UnsupportedOperationException {
-        return IndexFilteredSeq.of(this, $.F.greaterThan(0));
+        return PipelineSeq.of(this).drop(1);
     }
 
     @Override
@@ -187,7 +188,7 @@ extends TraversableBase<T> implements C.Sequence<T> {
 
     @Override
     public C.Sequence<T> takeWhile($.Function<? super T, Boolean> predicate) {
-        return FilteredSeq.of(this, predicate, FilteredIterator.Type.WHILE);
+        return PipelineSeq.of(this).takeWhile(predicate);
     }
 
     @Override
@@ -198,12 +199,12 @@ extends TraversableBase<T> implements C.Sequence<T> {
         if (n == 0) {
             return this;
         }
-        return IndexFilteredSeq.of(this, $.F.gte(n));
+        return PipelineSeq.of(this).drop(n);
     }
 
     @Override
     public C.Sequence<T> dropWhile($.Function<? super T, Boolean> predicate) {
-        return FilteredSeq.of(this, $.F.negate(predicate), FilteredIterator.Type.UNTIL);
+        return PipelineSeq.of(this).dropWhile(predicate);
     }
 
     @Override
@@ -280,12 +281,12 @@ extends TraversableBase<T> implements C.Sequence<T> {
 
     @Override
     public C.Sequence<T> filter($.Function<? super T, Boolean> predicate) {
-        return FilteredSeq.of(this, predicate);
+        return PipelineSeq.of(this).filter(predicate);
     }
 
     @Override
     public <R> C.Sequence<R> map($.Function<? super T, ? extends R> mapper) {
-        return MappedSeq.of(this, mapper);
+        return PipelineSeq.of(this).map(mapper);
     }
 
     @Override
@@ -318,34 +318,85 @@ public abstract class StringValueResolver<T> extends $.F1<String, T> {
             if (S.blank(value)) {
                 return null;
             }
-            if (S.isIntOrLong(value)) {
-                long l = Long.parseLong(value);
-                if ((l <= Integer.MAX_VALUE) && (l >= Integer.MIN_VALUE)) {
-                    return (int)l;
-                } else {
-                    return l;
-                }
+            NumberScanner scanner = NumberScanner.scan(value);
+            if (scanner.isIntSyntax()) {
+                // a value overflows long fails like it did with Long.parseLong
+                return narrow(scanner.isIntegral() ? scanner.longValue() : Long.parseLong(value));
+            } else if (scanner.isNumber()) {
+                return scanner.doubleValue();
+            } else if (scanner.stoppedAtNonAscii() && S.isIntOrLong(value)) {
+                // non ASCII digits
+                return narrow(Long.parseLong(value));
+            }
+            return Double.parseDouble(value);
+        }
+
+        private Number narrow(long l) {
+            if ((l <= Integer.MAX_VALUE) && (l >= Integer.MIN_VALUE)) {
+                return (int)l;
             } else {
-                return Double.parseDouble(value);
+                return l;
             }
         }
     };
 
     private static int _int(String s) {
-        s = s.trim();
-        if (s.contains(".")) {
-            float f = Float.valueOf(s);
-            return Math.round(f);
-        } else if (s.contains("*")) {
-            List<String> factors = S.fastSplit(s, "*");
-            int n = 1;
-            for (String factor : factors) {
-                n *= _int(factor);
+        return _int(s, 0, s.length());
+    }
+
+    /*
+     * Resolve `s[from, to)` as {@link Integer#valueOf(String)} does on the trimmed
+     * region, except that a value with `.` is rounded, and `a*b` is the
+     * product of `a` and `b`
+     */
+    private static int _int(CharSequence s, int from, int to) {
+        from = NumberScanner.trimStart(s, from, to);
+        to = NumberScanner.trimEnd(s, from, to);
+        long l = NumberScanner.parseShortDecimal(s, from, to, 9);
+        if (NumberScanner.NOT_SHORT_DECIMAL != l) {
+            return (int) l;
+        }
+        return _intSlow(s, from, to);
+    }
+
+    /*
+     * Kept out of `_int` so the plain int path stays small enough
+     * to be inlined, which a recursive method is not
+     */
+    private static int _intSlow(CharSequence s, int from, int to) {
+        if (NumberScanner.indexOf(s, '.', from, to) >= 0) {
+            return Math.round(NumberScanner.parseFloat(s, from, to));
+        }
+        int star = NumberScanner.indexOf(s, '*', from, to);
+        if (star < 0) {
+            return NumberScanner.parseInt(s, from, to);
+        }
+        int n = 1;
+        for (int pos = from; pos <= to; star = NumberScanner.indexOf(s, '*', pos, to)) {
+            int factorEnd = star < 0 ? to : star;
+            // empty factors are skipped like S.fastSplit does
+            if (factorEnd > pos) {
+                n *= _int(s, pos, factorEnd);
             }
-            return n;
-        } else {
-            return Integer.valueOf(s);
+            pos = factorEnd + 1;
         }
+        return n;
+    }
+
+    /*
+     * The number parsers used by predefined resolvers, for callers that
+     * resolve a region of a char sequence without creating a String
+     */
+    static int intOf(CharSequence s, int from, int to) {
+        return _int(s, from, to);
+    }
+
+    static long longOf(CharSequence s, int from, int to) {
+        return _long(s, from, to);
+    }
+
+    static double doubleOf(CharSequence s, int from, int to) {
+        return _double(s, from, to);
     }
 
     private static final StringValueResolver<Integer> _int = new StringValueResolver<Integer>() {
@@ -386,20 +437,37 @@ public abstract class StringValueResolver<T> extends $.F1<String, T> {
     };
 
     private static long _long(String s) {
-        s = s.trim();
-        if (s.contains(".")) {
-            double d = Double.valueOf(s);
-            return Math.round(d);
-        } else if (s.contains("*")) {
-            List<String> factors = S.fastSplit(s, "*");
-            long n = 1l;
-            for (String factor : factors) {
-                n *= _long(factor);
+        return _long(s, 0, s.length());
+    }
+
+    private static long _long(CharSequence s, int from, int to) {
+        from = NumberScanner.trimStart(s, from, to);
+        to = NumberScanner.trimEnd(s, from, to);
+        long l = NumberScanner.parseShortDecimal(s, from, to, 18);
+        if (NumberScanner.NOT_SHORT_DECIMAL != l) {
+            return l;
+        }
+        return _longSlow(s, from, to);
+    }
+
+    // see _intSlow
+    private static long _longSlow(CharSequence s, int from, int to) {
+        if (NumberScanner.indexOf(s, '.', from, to) >= 0) {
+            return Math.round(NumberScanner.parseDouble(s, from, to));
+        }
+        int star = NumberScanner.indexOf(s, '*', from, to);
+        if (star < 0) {
+            return NumberScanner.parseLong(s, from, to);
+        }
+        long n = 1L;
+        for (int pos = from; pos <= to; star = NumberScanner.indexOf(s, '*', pos, to)) {
+            int factorEnd = star < 0 ? to : star;
+            if (factorEnd > pos) {
+                n *= _long(s, pos, factorEnd);
             }
-            return n;
-        } else {
-            return Long.valueOf(s);
+            pos = factorEnd + 1;
         }
+        return n;
     }
     private static final StringValueResolver<Float> _float = new StringValueResolver<Float>() {
         @Override
@@ -429,17 +497,25 @@ public abstract class StringValueResolver<T> extends $.F1<String, T> {
     };
 
     private static float _float(String s) {
-        s = s.trim();
-        if (s.contains("*")) {
-            List<String> factors = S.fastSplit(s, "*");
-            float n = 1f;
-            for (String factor : factors) {
-                n *= _float(factor);
+        return _float(s, 0, s.length());
+    }
+
+    private static float _float(String s, int from, int to) {
+        from = NumberScanner.trimStart(s, from, to);
+        to = NumberScanner.trimEnd(s, from, to);
+        int star = NumberScanner.indexOf(s, '*', from, to);
+        if (star < 0) {
+            return NumberScanner.parseFloat(s, from, to);
+        }
+        float n = 1f;
+        for (int pos = from; pos <= to; star = NumberScanner.indexOf(s, '*', pos, to)) {
+            int factorEnd = star < 0 ? to : star;
+            if (factorEnd > pos) {
+                n *= _float(s, pos, factorEnd);
             }
-            return n;
-        } else {
-            return Float.valueOf(s);
+            pos = factorEnd + 1;
         }
+        return n;
     }
     private static final StringValueResolver<Double> _double = new StringValueResolver<Double>() {
         @Override
@@ -469,17 +545,25 @@ public abstract class StringValueResolver<T> extends $.F1<String, T> {
     };
 
     private static double _double(String s) {
-        s = s.trim();
-        if (s.contains("*")) {
-            List<String> factors = S.fastSplit(s, "*");
-            double n = 1d;
-            for (String factor : factors) {
-                n *= _double(factor);
+        return _double(s, 0, s.length());
+    }
+
+    private static double _double(CharSequence s, int from, int to) {
+        from = NumberScanner.trimStart(s, from, to);
+        to = NumberScanner.trimEnd(s, from, to);
+        int star = NumberScanner.indexOf(s, '*', from, to);
+        if (star < 0) {
+            return NumberScanner.parseDouble(s, from, to);
+        }
+        double n = 1d;
+        for (int pos = from; pos <= to; star = NumberScanner.indexOf(s, '*', pos, to)) {
+            int factorEnd = star < 0 ? to : star;
+            if (factorEnd > pos) {
+                n *= _double(s, pos, factorEnd);
             }
-            return n;
-        } else {
-            return Double.valueOf(s);
+            pos = factorEnd + 1;
         }
+        return n;
     }
     private static final StringValueResolver<String> _String = wrap($.F.<String>identity(), String.class);
     private static final StringValueResolver<Str> _Str = new StringValueResolver<Str>() {
@@ -23,6 +23,10 @@ package org.osgl.util;
 import com.alibaba.fastjson.JSON;
 import org.osgl.$;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
 import java.io.Serializable;
 import java.util.Map;
 
@@ -60,46 +64,46 @@ public class ValueObject implements Serializable {
         BOOL() {
             @Override
             <T> T get(ValueObject vo) {
-                return (T) vo.blVal;
+                return (T) Boolean.valueOf(0 != vo.bits);
             }
 
             @Override
             void set(Object o, ValueObject vo) {
-                vo.blVal = $.cast(o);
+                vo.bits = (Boolean) o ? 1 : 0;
             }
 
             @Override
             <T> T decode(String s, Class<T> type) {
-                E.illegalArgumentIf(boolean.class != type || Boolean.class != type);
+                E.illegalArgumentIf(boolean.class != type && Boolean.class != type);
                 return (T) Boolean.valueOf(s);
             }
         },
         BYTE() {
             @Override
             <T> T get(ValueObject vo) {
-                return (T) vo.byVal;
+                return (T) Byte.valueOf((byte) vo.bits);
             }
 
             @Override
             void set(Object o, ValueObject vo) {
-                vo.byVal = $.cast(o);
+                vo.bits = (Byte) o;
             }
 
             @Override
             <T> T decode(String s, Class<T> type) {
-                E.illegalArgumentIf(byte.class != type || Byte.class != type);
+                E.illegalArgumentIf(byte.class != type && Byte.class != type);
                 return (T) Byte.valueOf(s);
             }
         },
         CHAR() {
             @Override
             <T> T get(ValueObject vo) {
-                return (T) vo.chVal;
+                return (T) Character.valueOf((char) vo.bits);
             }
 
             @Override
             void set(Object o, ValueObject vo) {
-                vo.chVal = $.cast(o);
+                vo.bits = (Character) o;
             }
 
             @Override
@@ -109,104 +113,104 @@ public class ValueObject implements Serializable {
 
             @Override
             <T> T decode(String s, Class<T> type) {
-                E.illegalArgumentIf(char.class != type || Character.class != type);
+                E.illegalArgumentIf(char.class != type && Character.class != type);
                 return (T) Character.valueOf(s.charAt(0));
             }
         },
         SHORT() {
             @Override
             <T> T get(ValueObject vo) {
-                return (T) vo.shVal;
+                return (T) Short.valueOf((short) vo.bits);
             }
 
             @Override
             void set(Object o, ValueObject vo) {
-                vo.shVal = $.cast(o);
+                vo.bits = (Short) o;
             }
 
             @Override
             <T> T decode(String s, Class<T> type) {
-                E.illegalArgumentIf(short.class != type || Short.class != type);
+                E.illegalArgumentIf(short.class != type && Short.class != type);
                 return (T) Short.valueOf(s);
             }
         },
         INT() {
             @Override
             <T> T get(ValueObject vo) {
-                return (T) vo.iVal;
+                return (T) Integer.valueOf((int) vo.bits);
             }
 
             @Override
             void set(Object o, ValueObject vo) {
-                vo.iVal = $.cast(o);
+                vo.bits = (Integer) o;
             }
 
             @Override
             <T> T decode(String s, Class<T> type) {
-                E.illegalArgumentIf(int.class != type || Integer.class != type);
-                return (T) Integer.valueOf(s);
+                E.illegalArgumentIf(int.class != type && Integer.class != type);
+                return (T) Integer.valueOf(NumberScanner.parseInt(s, 0, s.length()));
             }
         },
         FLOAT() {
             @Override
             <T> T get(ValueObject vo) {
-                return (T) vo.fVal;
+                return (T) Float.valueOf(Float.intBitsToFloat((int) vo.bits));
             }
 
             @Override
             void set(Object o, ValueObject vo) {
-                vo.fVal = $.cast(o);
+                vo.bits = Float.floatToIntBits((Float) o);
             }
 
             @Override
             <T> T decode(String s, Class<T> type) {
-                E.illegalArgumentIf(float.class != type || Float.class != type);
-                return (T) Float.valueOf(s);
+                E.illegalArgumentIf(float.class != type && Float.class != type);
+                return (T) Float.valueOf(NumberScanner.parseFloat(s, 0, s.length()));
             }
         },
         LONG() {
             @Override
             <T> T get(ValueObject vo) {
-                return (T) vo.lVal;
+                return (T) Long.valueOf(vo.bits);
             }
 
             @Override
             void set(Object o, ValueObject vo) {
-                vo.lVal = $.cast(o);
+                vo.bits = (Long) o;
             }
 
             @Override
             <T> T decode(String s, Class<T> type) {
-                E.illegalArgumentIf(long.class != type || Long.class != type);
-                return (T) Long.valueOf(s);
+                E.illegalArgumentIf(long.class != type && Long.class != type);
+                return (T) Long.valueOf(NumberScanner.parseLong(s, 0, s.length()));
             }
         },
         DOUBLE() {
             @Override
             <T> T get(ValueObject vo) {
-                return (T) vo.dVal;
+                return (T) Double.valueOf(Double.longBitsToDouble(vo.bits));
             }
 
             @Override
             void set(Object o, ValueObject vo) {
-                vo.dVal = $.cast(o);
+                vo.bits = Double.doubleToLongBits((Double) o);
             }
 
             @Override
             <T> T decode(String s, Class<T> type) {
-                E.illegalArgumentIf(double.class != type || Double.class != type);
-                return (T) Double.valueOf(s);
+                E.illegalArgumentIf(double.class != type && Double.class != type);
+                return (T) Double.valueOf(NumberScanner.parseDouble(s, 0, s.length()));
             }
         },
         STRING() {
             @Override
             <T> T get(ValueObject vo) {
-                return (T) vo.sVal;
+                return (T) vo.ref;
             }
 
             @Override
             void set(Object o, ValueObject vo) {
-                vo.sVal = S.string(o);
+                vo.ref = S.string(o);
             }
 
             @Override
@@ -275,12 +279,12 @@ public class ValueObject implements Serializable {
         ENUM() {
             @Override
             <T> T get(ValueObject vo) {
-                return (T) vo.eVal;
+                return (T) vo.ref;
             }
 
             @Override
             void set(Object o, ValueObject vo) {
-                vo.eVal = $.cast(o);
+                vo.ref = o;
             }
 
             @Override
@@ -298,12 +302,12 @@ public class ValueObject implements Serializable {
         UDF() {
             @Override
             <T> T get(ValueObject vo) {
-                return $.cast(vo.udf);
+                return $.cast(vo.ref);
             }
 
             @Override
             void set(Object o, ValueObject vo) {
-                vo.udf = o;
+                vo.ref = o;
             }
 
             @Override
@@ -320,16 +324,16 @@ public class ValueObject implements Serializable {
 
             @Override
             String toString(ValueObject vo) {
-                Class objType = vo.udf.getClass();
+                Class objType = vo.ref.getClass();
                 Codec codec = findCodec(objType);
-                return null != codec ? codec.toString(vo.udf) : super.toString(vo);
+                return null != codec ? codec.toString(vo.ref) : super.toString(vo);
             }
 
             @Override
             String toJSONString(ValueObject vo) {
-                Class objType = vo.udf.getClass();
+                Class objType = vo.ref.getClass();
                 Codec codec = findCodec(objType);
-                return null != codec ? codec.toJSONString(vo.udf) : super.toJSONString(vo);
+                return null != codec ? codec.toJSONString(vo.ref) : super.toJSONString(vo);
             }
 
             private Codec findCodec(Class c) {
@@ -372,133 +376,151 @@ public class ValueObject implements Serializable {
         }
     }
 
-    private transient Type type;
+    private static final Type[] TYPES = Type.values();
 
-    private Boolean blVal;
-    private Byte byVal;
-    private Character chVal;
-    private Short shVal;
-    private Integer iVal;
-    private Float fVal;
-    private Long lVal;
-    private Double dVal;
-    private String sVal;
-    private Enum eVal;
-    private Object udf;
+    /*
+     * type codes used by KVStore
+     */
+    static final byte TYPE_INT = code(Type.INT);
+    static final byte TYPE_LONG = code(Type.LONG);
+
+    // ordinal of the type
+    private byte type;
+    // value of primitive types, floating point numbers are stored as raw bits
+    private long bits;
+    // value of String, Enum and UDF types
+    private Object ref;
+
+    /*
+     * Fields written before the compact layout, one per type. The
+     * serialVersionUID is kept so that such streams are mapped by
+     * readObject instead of being rejected
+     */
+    private static final String[] LEGACY_FIELDS = {
+            "sVal", "iVal", "dVal", "eVal", "lVal", "fVal", "blVal", "byVal", "chVal", "shVal"
+    };
 
     public ValueObject() {
         this("");
     }
 
     public ValueObject(boolean b) {
-        blVal = b;
-        type = Type.BOOL;
+        bits = b ? 1 : 0;
+        type = code(Type.BOOL);
     }
 
     public ValueObject(byte b) {
-        byVal = b;
-        type = Type.BYTE;
+        bits = b;
+        type = code(Type.BYTE);
     }
 
     public ValueObject(char c) {
-        chVal = c;
-        type = Type.CHAR;
+        bits = c;
+        type = code(Type.CHAR);
     }
 
     public ValueObject(short s) {
-        shVal = s;
-        type = Type.SHORT;
+        bits = s;
+        type = code(Type.SHORT);
     }
 
     public ValueObject(int i) {
-        iVal = i;
-        type = Type.INT;
+        bits = i;
+        type = code(Type.INT);
     }
 
     public ValueObject(float f) {
-        fVal = f;
-        type = Type.FLOAT;
+        bits = Float.floatToIntBits(f);
+        type = code(Type.FLOAT);
     }
 
     public ValueObject(long l) {
-        lVal = l;
-        type = Type.LONG;
+        bits = l;
+        type = code(Type.LONG);
     }
 
     public ValueObject(double d) {
-        dVal = d;
-        type = Type.DOUBLE;
+        bits = Double.doubleToLongBits(d);
+        type = code(Type.DOUBLE);
     }
 
     public ValueObject(String s) {
-        sVal = $.requireNotNull(s);
-        type = Type.STRING;
+        ref = $.requireNotNull(s);
+        type = code(Type.STRING);
     }
 
     public ValueObject(CharSequence s) {
-        sVal = s.toString();
-        type = Type.STRING;
+        ref = s.toString();
+        type = code(Type.STRING);
     }
 
     public ValueObject(Enum e) {
-        eVal = e;
-        type = Type.ENUM;
+        ref = e;
+        type = code(Type.ENUM);
     }
 
     public ValueObject(Object o) {
         if (o instanceof ValueObject) {
-            ValueObject that = (ValueObject) o;
-            type = that.type();
-            type.set(that.value(), this);
+            copy((ValueObject) o);
         } else {
-            type = typeOf(o);
+            Type type = typeOf(o);
+            this.type = code(type);
             type.set(o, this);
         }
     }
 
     public ValueObject(ValueObject copy) {
-        type = copy.type();
-        type.set(copy.value(), this);
+        copy(copy);
+    }
+
+    /*
+     * Used by KVStore to restore a value object from its storage slots
+     */
+    ValueObject(byte type, long bits, Object ref) {
+        this.type = type;
+        this.bits = bits;
+        this.ref = ref;
     }
 
     public boolean booleanValue() {
-        return blVal;
+        return 0 != bits(Type.BOOL);
     }
 
     public byte byteValue() {
-        return byVal;
+        return (byte) bits(Type.BYTE);
     }
 
     public char charValue() {
-        return chVal;
+        return (char) bits(Type.CHAR);
     }
 
     public short shortValue() {
-        return shVal;
+        return (short) bits(Type.SHORT);
     }
 
     public int intValue() {
-        return iVal;
+        return (int) bits(Type.INT);
     }
 
     public float floatValue() {
-        return fVal;
+        return Float.intBitsToFloat((int) bits(Type.FLOAT));
     }
 
     public long longValue() {
-        return lVal;
+        return bits(Type.LONG);
     }
 
     public double doubleValue() {
-        return dVal;
+        return Double.longBitsToDouble(bits(Type.DOUBLE));
     }
 
     public String stringValue() {
-        return $.requireNotNull(sVal);
+        bits(Type.STRING);
+        return (String) ref;
     }
 
     public <T extends Enum> T enumValue() {
-        return $.cast(eVal);
+        return Type.ENUM == type() ? $.<T>cast(ref) : null;
     }
 
     public <T> T value() {
@@ -512,8 +534,19 @@ public class ValueObject implements Serializable {
 
     @Override
     public int hashCode() {
-        Object v = type().get(this);
-        return $.hc(v);
+        if (isPrimitive()) {
+            // same as the hash code of the boxed value
+            switch (type()) {
+                case BOOL:
+                    return 0 != bits ? 1231 : 1237;
+                case LONG:
+                case DOUBLE:
+                    return (int) (bits ^ (bits >>> 32));
+                default:
+                    return (int) bits;
+            }
+        }
+        return $.hc(ref);
     }
 
     @Override
@@ -523,6 +556,9 @@ public class ValueObject implements Serializable {
         }
         if (obj instanceof ValueObject) {
             ValueObject that = (ValueObject) obj;
+            if (that.type == type && isPrimitive()) {
+                return that.bits == bits;
+            }
             return $.eq(that.type().get(that), this.type().get(this));
         }
         return false;
@@ -577,45 +613,83 @@ public class ValueObject implements Serializable {
         return new ValueObject(o);
     }
 
-    private Type type() {
-        if (null == type) {
-            type = findType();
-        }
+    byte typeCode() {
         return type;
     }
 
-    private Type findType() {
-        if (sVal != null) {
-            type = Type.STRING;
-        }
-        if (iVal != null) {
-            return Type.INT;
-        }
-        if (dVal != null) {
-            return Type.DOUBLE;
-        }
-        if (eVal != null) {
-            return Type.ENUM;
-        }
-        if (lVal != null) {
-            return Type.LONG;
-        }
-        if (fVal != null) {
-            return Type.FLOAT;
-        }
-        if (blVal != null) {
-            return Type.BOOL;
+    long bits() {
+        return bits;
+    }
+
+    Object ref() {
+        return ref;
+    }
+
+    /**
+     * Check if a type code refers to `byte`, `short`, `char`, `int` or `long`.
+     */
+    static boolean isIntegral(byte type) {
+        switch (TYPES[type]) {
+            case BYTE:
+            case SHORT:
+            case CHAR:
+            case INT:
+            case LONG:
+                return true;
+            default:
+                return false;
         }
-        if (byVal != null) {
-            return Type.BYTE;
+    }
+
+    private boolean isPrimitive() {
+        return type < Type.STRING.ordinal();
+    }
+
+    private Type type() {
+        return TYPES[type];
+    }
+
+    private long bits(Type expected) {
+        if (expected != type()) {
+            // what unboxing an absent value does
+            throw new NullPointerException();
         }
-        if (chVal != null) {
-            return Type.CHAR;
+        return bits;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        ObjectStreamClass desc = fields.getObjectStreamClass();
+        if (null != desc.getField("type")) {
+            type = fields.get("type", (byte) 0);
+            bits = fields.get("bits", 0L);
+            ref = fields.get("ref", null);
+            if (type < 0 || type >= TYPES.length) {
+                throw new InvalidObjectException("invalid value object type: " + type);
+            }
+            return;
         }
-        if (shVal != null) {
-            return Type.SHORT;
+        for (String name : LEGACY_FIELDS) {
+            Object value = null == desc.getField(name) ? null : fields.get(name, null);
+            if (null != value) {
+                Type type = typeOf(value);
+                this.type = code(type);
+                type.set(value, this);
+                return;
+            }
         }
-        return Type.UDF;
+        type = code(Type.UDF);
+        ref = null == desc.getField("udf") ? null : fields.get("udf", null);
+    }
+
+    private void copy(ValueObject that) {
+        type = that.type;
+        bits = that.bits;
+        ref = that.ref;
+    }
+
+    private static byte code(Type type) {
+        return (byte) type.ordinal();
     }
 
     private static Type typeOf(Object o) {
@@ -0,0 +1,737 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import static org.osgl.util.N.requirePositive;
+
+import org.osgl.$;
+import org.osgl.exception.UnsupportedException;
+import org.osgl.storage.ISObject;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Build a zip archive into an output stream.
+ *
+ * Compared to {@link java.util.zip.ZipOutputStream}:
+ *
+ * * entries are deflated in parallel by worker threads and written to the
+ *   sink in the order they are added, so only a bounded number of compressed
+ *   entries are held in memory
+ * * entries already compressed, e.g. `jpg`, `png`, `mp4`, `zip` and `docx`
+ *   files, are detected by {@link MimeType} and stored without compressing again
+ * * an entry is stored if deflating does not make it smaller
+ *
+ * Entries larger than 4MB, or of unknown size, are deflated by the calling
+ * thread and streamed to the sink once the entries before them are written.
+ *
+ * Zip64 extensions are used, as {@link java.util.zip.ZipOutputStream} does,
+ * for entries and offsets of 4GB or more and for archives of 65535 entries
+ * or more.
+ *
+ * Usage:
+ *
+ * ```java
+ * ZipBuilder zip = IO.zipTo(new File("reports.zip")).level(6);
+ * for (File report : reports) {
+ *     zip.add(report);
+ * }
+ * zip.close();
+ * ```
+ */
+public class ZipBuilder implements Closeable {
+
+    /**
+     * Entries larger than this are streamed by the calling thread.
+     */
+    static final int LARGE_ENTRY = 4 * 1024 * 1024;
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int DATA_DESCRIPTOR = 0x08074b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_OF_CENTRAL = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL = 0x06064b50;
+    private static final int ZIP64_LOCATOR = 0x07064b50;
+    private static final int ZIP64_EXTRA = 0x0001;
+
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    private static final int FLAG_DATA_DESCRIPTOR = 1 << 3;
+    private static final int FLAG_UTF8 = 1 << 11;
+
+    private static final int VERSION = 20;
+    private static final int VERSION_ZIP64 = 45;
+
+    // sizes, offsets and entry counts from these on are kept in zip64 records
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+    // image formats that are not compressed by themselves
+    private static final Set<String> RAW_IMAGES = C.newSet("bmp", "ico", "pbm", "pgm", "pnm", "ppm", "svg", "tif", "tiff", "xbm", "xpm", "xwd");
+
+    private final CountingOutputStream out;
+    private final boolean closeSink;
+    private int level = Deflater.DEFAULT_COMPRESSION;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private ExecutorService executor;
+    private boolean ownExecutor;
+    private final ArrayDeque<Future<Entry>> pending = new ArrayDeque<>();
+    private final List<Entry> entries = new ArrayList<>();
+    private final Set<String> names = new HashSet<>();
+    private boolean started;
+    private boolean finished;
+
+    ZipBuilder(OutputStream sink, boolean closeSink) {
+        this.out = new CountingOutputStream(new BufferedOutputStream($.requireNotNull(sink), 64 * 1024));
+        this.closeSink = closeSink;
+    }
+
+    /**
+     * Set compression level of entries added after this call.
+     *
+     * @param level
+     *      from `0` (no compression) to `9` (best compression), or
+     *      `-1` for the default level
+     * @return this builder
+     */
+    public ZipBuilder level(int level) {
+        E.illegalArgumentIf(level < -1 || level > 9, "Invalid compression level: %s", level);
+        this.level = level;
+        return this;
+    }
+
+    /**
+     * Set the number of threads deflating entries. Defaults to the number
+     * of processors. Must be called before any entry is added.
+     *
+     * @param threads
+     *      the number of threads, `1` means deflating in the calling thread
+     * @return this builder
+     */
+    public ZipBuilder threads(int threads) {
+        E.illegalStateIf(started, "entries already added");
+        this.threads = requirePositive(threads);
+        return this;
+    }
+
+    /**
+     * Deflate entries with an executor shared with others instead of
+     * creating threads for this builder. Must be called before any entry
+     * is added.
+     *
+     * @param executor
+     *      the executor
+     * @return this builder
+     */
+    public ZipBuilder executor(ExecutorService executor) {
+        E.illegalStateIf(started, "entries already added");
+        this.executor = $.requireNotNull(executor);
+        this.ownExecutor = false;
+        return this;
+    }
+
+    /**
+     * Add a file with the file name as entry name.
+     */
+    public ZipBuilder add(File file) {
+        return add(file.getName(), file);
+    }
+
+    /**
+     * Add a file.
+     *
+     * @param name
+     *      the entry name
+     * @param file
+     *      the file
+     * @return this builder
+     */
+    public ZipBuilder add(String name, final File file) {
+        $.requireNotNull(file);
+        return add(new Source(name, file.length(), file.lastModified(), null, true, new $.F0<InputStream>() {
+            @Override
+            public InputStream apply() {
+                return IO.inputStream(file);
+            }
+        }));
+    }
+
+    /**
+     * Add an entry with content from a byte array.
+     *
+     * @param name
+     *      the entry name
+     * @param bytes
+     *      the content
+     * @return this builder
+     */
+    public ZipBuilder add(String name, final byte[] bytes) {
+        return add(new Source(name, bytes.length, System.currentTimeMillis(), bytes, true, new $.F0<InputStream>() {
+            @Override
+            public InputStream apply() {
+                return new ByteArrayInputStream(bytes);
+            }
+        }));
+    }
+
+    /**
+     * Add an sobject with its {@link ISObject#ATTR_FILE_NAME filename} attribute
+     * as entry name.
+     */
+    public ZipBuilder add(ISObject sobj) {
+        return add(sobj.getAttribute(ISObject.ATTR_FILE_NAME), sobj);
+    }
+
+    /**
+     * Add an sobject.
+     *
+     * The sobject is read only once, thus it can be backed by an input stream,
+     * in which case its length is unknown unless the {@link ISObject#ATTR_CONTENT_LENGTH}
+     * attribute is set.
+     *
+     * @param name
+     *      the entry name
+     * @param sobj
+     *      the sobject
+     * @return this builder
+     */
+    public ZipBuilder add(String name, final ISObject sobj) {
+        $.requireNotNull(sobj);
+        return add(new Source(name, lengthOf(sobj), System.currentTimeMillis(), null, false, new $.F0<InputStream>() {
+            @Override
+            public InputStream apply() {
+                return sobj.asInputStream();
+            }
+        }));
+    }
+
+    /**
+     * Write all pending entries and the central directory without closing
+     * the sink.
+     */
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        try {
+            drain(0);
+            long start = out.count;
+            for (Entry entry : entries) {
+                writeCentralHeader(entry);
+            }
+            long size = out.count - start;
+            int count = entries.size();
+            if (count >= ZIP64_MAGIC_COUNT || size >= ZIP64_MAGIC || start >= ZIP64_MAGIC) {
+                long end = out.count;
+                writeInt(ZIP64_END_OF_CENTRAL);
+                // size of the remaining record
+                writeLong(44);
+                writeShort(VERSION_ZIP64);
+                writeShort(VERSION_ZIP64);
+                writeInt(0);
+                writeInt(0);
+                writeLong(count);
+                writeLong(count);
+                writeLong(size);
+                writeLong(start);
+                writeInt(ZIP64_LOCATOR);
+                writeInt(0);
+                writeLong(end);
+                writeInt(1);
+            }
+            writeInt(END_OF_CENTRAL);
+            writeShort(0);
+            writeShort(0);
+            writeShort(Math.min(count, ZIP64_MAGIC_COUNT));
+            writeShort(Math.min(count, ZIP64_MAGIC_COUNT));
+            writeInt(Math.min(size, ZIP64_MAGIC));
+            writeInt(Math.min(start, ZIP64_MAGIC));
+            writeShort(0);
+            out.flush();
+        } catch (IOException e) {
+            throw E.ioException(e);
+        } finally {
+            shutdown();
+        }
+    }
+
+    /**
+     * Stop building after a failure. Pending entries are discarded and the
+     * central directory is not written, thus the output is not a valid
+     * archive. The sink is closed if the builder is created to close it.
+     */
+    public void abort() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        try {
+            shutdown();
+        } finally {
+            if (closeSink) {
+                IO.close(out);
+            }
+        }
+    }
+
+    /**
+     * Finish the archive and close the sink.
+     */
+    @Override
+    public void close() {
+        try {
+            finish();
+        } finally {
+            if (closeSink) {
+                IO.close(out);
+            }
+        }
+    }
+
+    /**
+     * Check if an entry shall be stored without compression by the
+     * {@link MimeType} of its name.
+     */
+    static boolean alreadyCompressed(String name) {
+        int pos = name.lastIndexOf('.');
+        if (pos < 0 || pos < name.lastIndexOf('/')) {
+            return false;
+        }
+        String suffix = name.substring(pos + 1).toLowerCase();
+        MimeType mimeType = MimeType.findByName(suffix);
+        if (null == mimeType) {
+            return false;
+        }
+        if (mimeType.hasTrait(MimeType.Trait.image)) {
+            return !RAW_IMAGES.contains(suffix);
+        }
+        return mimeType.hasTrait(MimeType.Trait.archive)
+                || mimeType.hasTrait(MimeType.Trait.audio)
+                || mimeType.hasTrait(MimeType.Trait.video)
+                || mimeType.hasTrait(MimeType.Trait.docx)
+                || mimeType.hasTrait(MimeType.Trait.xlsx)
+                || mimeType.hasTrait(MimeType.Trait.pptx);
+    }
+
+    private static long lengthOf(ISObject sobj) {
+        try {
+            return sobj.getLength();
+        } catch (UnsupportedException e) {
+            // e.g. an sobject backed by an input stream
+            return -1;
+        }
+    }
+
+    private ZipBuilder add(final Source source) {
+        E.illegalStateIf(finished, "zip archive finished");
+        E.illegalArgumentIf(!names.add(source.name), "Duplicate entry: %s", source.name);
+        started = true;
+        final int level = alreadyCompressed(source.name) ? 0 : this.level;
+        try {
+            if (source.length < 0 || source.length > LARGE_ENTRY) {
+                drain(0);
+                stream(source, level);
+            } else if (threads > 1 || null != executor) {
+                pending.add(executor().submit(new Callable<Entry>() {
+                    @Override
+                    public Entry call() throws Exception {
+                        return prepare(source, level);
+                    }
+                }));
+                drain(2 * threads);
+            } else {
+                write(prepare(source, level));
+            }
+        } catch (IOException e) {
+            throw E.ioException(e);
+        }
+        return this;
+    }
+
+    private ExecutorService executor() {
+        if (null == executor) {
+            executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "zip-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+            ownExecutor = true;
+        }
+        return executor;
+    }
+
+    private void shutdown() {
+        for (Future<Entry> future : pending) {
+            future.cancel(true);
+        }
+        pending.clear();
+        if (ownExecutor) {
+            executor.shutdownNow();
+        }
+    }
+
+    // write pending entries in order until there are no more than `max` left
+    private void drain(int max) throws IOException {
+        while (pending.size() > max) {
+            Future<Entry> future = pending.poll();
+            try {
+                write(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw E.unexpected(cause);
+            }
+        }
+    }
+
+    /*
+     * Read and deflate an entry into memory
+     */
+    private static Entry prepare(Source source, int level) throws IOException {
+        byte[] bytes = source.bytes;
+        if (null == bytes) {
+            InputStream is = source.open.apply();
+            try {
+                bytes = IO.readContent(is);
+            } finally {
+                IO.close(is);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        Entry entry = new Entry(source, crc.getValue(), bytes.length);
+        byte[] deflated = 0 == level ? null : deflate(bytes, level);
+        if (null == deflated) {
+            entry.method = STORED;
+            entry.data = bytes;
+            entry.compressedSize = bytes.length;
+        } else {
+            entry.method = DEFLATED;
+            entry.data = deflated;
+            entry.compressedSize = deflated.length;
+        }
+        return entry;
+    }
+
+    // returns `null` if deflated bytes are not smaller than the input
+    private static byte[] deflate(byte[] bytes, int level) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            byte[] buf = new byte[Math.max(64, bytes.length / 2)];
+            int n = 0;
+            while (!deflater.finished()) {
+                if (n == buf.length) {
+                    if (n >= bytes.length) {
+                        return null;
+                    }
+                    buf = Arrays.copyOf(buf, Math.min(n * 2, bytes.length));
+                }
+                n += deflater.deflate(buf, n, buf.length - n);
+            }
+            return n < bytes.length ? (n == buf.length ? buf : Arrays.copyOf(buf, n)) : null;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void write(Entry entry) throws IOException {
+        entry.offset = out.count;
+        writeLocalHeader(entry);
+        out.write(entry.data, 0, entry.data.length);
+        entry.data = null;
+        entries.add(entry);
+    }
+
+    /*
+     * Write an entry read from its source by the calling thread. A deflated
+     * entry is followed by a data descriptor with the crc and sizes. A stored
+     * entry cannot have data descriptor, thus the crc and size are computed by
+     * a first pass. A source that can be read only once is spooled into a temp
+     * file during that pass and written from the temp file.
+     */
+    private void stream(Source source, int level) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buf = new byte[64 * 1024];
+        Entry entry = new Entry(source, 0, 0);
+        entry.offset = out.count;
+        if (0 == level) {
+            File spool = source.repeatable ? null : IO.tmpFile();
+            try {
+                long size = 0;
+                InputStream is = source.open.apply();
+                OutputStream os = null == spool ? null : IO.outputStream(spool);
+                try {
+                    int n;
+                    while ((n = is.read(buf)) > -1) {
+                        crc.update(buf, 0, n);
+                        size += n;
+                        if (null != os) {
+                            os.write(buf, 0, n);
+                        }
+                    }
+                } finally {
+                    IO.close(is);
+                    IO.close(os);
+                }
+                entry.method = STORED;
+                entry.crc = crc.getValue();
+                entry.size = entry.compressedSize = size;
+                writeLocalHeader(entry);
+                is = null == spool ? source.open.apply() : IO.inputStream(spool);
+                try {
+                    int n;
+                    while ((n = is.read(buf)) > -1) {
+                        out.write(buf, 0, n);
+                    }
+                } finally {
+                    IO.close(is);
+                }
+            } finally {
+                if (null != spool) {
+                    IO.delete(spool);
+                }
+            }
+        } else {
+            entry.method = DEFLATED;
+            entry.flags |= FLAG_DATA_DESCRIPTOR;
+            writeLocalHeader(entry);
+            Deflater deflater = new Deflater(level, true);
+            InputStream is = source.open.apply();
+            try {
+                DeflaterOutputStream dos = new DeflaterOutputStream(new UncloseableOutputStream(out), deflater, buf.length);
+                int n;
+                while ((n = is.read(buf)) > -1) {
+                    crc.update(buf, 0, n);
+                    dos.write(buf, 0, n);
+                }
+                dos.finish();
+                entry.crc = crc.getValue();
+                entry.size = deflater.getBytesRead();
+                entry.compressedSize = deflater.getBytesWritten();
+            } finally {
+                deflater.end();
+                IO.close(is);
+            }
+            writeInt(DATA_DESCRIPTOR);
+            writeInt(entry.crc);
+            if (entry.size >= ZIP64_MAGIC || entry.compressedSize >= ZIP64_MAGIC) {
+                writeLong(entry.compressedSize);
+                writeLong(entry.size);
+            } else {
+                writeInt(entry.compressedSize);
+                writeInt(entry.size);
+            }
+        }
+        entries.add(entry);
+    }
+
+    /*
+     * The sizes of an entry followed by a data descriptor are not known yet,
+     * they are written into the data descriptor, in 8 bytes if needed
+     */
+    private void writeLocalHeader(Entry entry) throws IOException {
+        boolean descriptor = 0 != (entry.flags & FLAG_DATA_DESCRIPTOR);
+        boolean zip64 = !descriptor && (entry.size >= ZIP64_MAGIC || entry.compressedSize >= ZIP64_MAGIC);
+        writeInt(LOCAL_HEADER);
+        writeShort(zip64 ? VERSION_ZIP64 : VERSION);
+        writeShort(entry.flags);
+        writeShort(entry.method);
+        writeShort(entry.time);
+        writeShort(entry.date);
+        writeInt(descriptor ? 0 : entry.crc);
+        writeInt(descriptor ? 0 : zip64 ? ZIP64_MAGIC : entry.compressedSize);
+        writeInt(descriptor ? 0 : zip64 ? ZIP64_MAGIC : entry.size);
+        writeShort(entry.name.length);
+        writeShort(zip64 ? 20 : 0);
+        out.write(entry.name);
+        if (zip64) {
+            writeShort(ZIP64_EXTRA);
+            writeShort(16);
+            writeLong(entry.size);
+            writeLong(entry.compressedSize);
+        }
+    }
+
+    /*
+     * Only the values that do not fit are written into the zip64 extra field,
+     * in the order of size, compressed size and offset
+     */
+    private void writeCentralHeader(Entry entry) throws IOException {
+        boolean zip64Size = entry.size >= ZIP64_MAGIC;
+        boolean zip64CompressedSize = entry.compressedSize >= ZIP64_MAGIC;
+        boolean zip64Offset = entry.offset >= ZIP64_MAGIC;
+        int extra = (zip64Size ? 8 : 0) + (zip64CompressedSize ? 8 : 0) + (zip64Offset ? 8 : 0);
+        int version = 0 == extra ? VERSION : VERSION_ZIP64;
+        writeInt(CENTRAL_HEADER);
+        writeShort(version);
+        writeShort(version);
+        writeShort(entry.flags);
+        writeShort(entry.method);
+        writeShort(entry.time);
+        writeShort(entry.date);
+        writeInt(entry.crc);
+        writeInt(zip64CompressedSize ? ZIP64_MAGIC : entry.compressedSize);
+        writeInt(zip64Size ? ZIP64_MAGIC : entry.size);
+        writeShort(entry.name.length);
+        writeShort(0 == extra ? 0 : extra + 4);
+        writeShort(0);
+        writeShort(0);
+        writeShort(0);
+        writeInt(0);
+        writeInt(zip64Offset ? ZIP64_MAGIC : entry.offset);
+        out.write(entry.name);
+        if (0 != extra) {
+            writeShort(ZIP64_EXTRA);
+            writeShort(extra);
+            if (zip64Size) {
+                writeLong(entry.size);
+            }
+            if (zip64CompressedSize) {
+                writeLong(entry.compressedSize);
+            }
+            if (zip64Offset) {
+                writeLong(entry.offset);
+            }
+        }
+    }
+
+    private void writeShort(int v) throws IOException {
+        out.write(v & 0xFF);
+        out.write((v >>> 8) & 0xFF);
+    }
+
+    private void writeInt(long v) throws IOException {
+        writeShort((int) (v & 0xFFFF));
+        writeShort((int) ((v >>> 16) & 0xFFFF));
+    }
+
+    private void writeLong(long v) throws IOException {
+        writeInt(v & 0xFFFFFFFFL);
+        writeInt(v >>> 32);
+    }
+
+    private static class Source {
+        final String name;
+        final long length;
+        final long lastModified;
+        final byte[] bytes;
+        // can `open` be called more than once
+        final boolean repeatable;
+        final $.Func0<InputStream> open;
+
+        Source(String name, long length, long lastModified, byte[] bytes, boolean repeatable, $.Func0<InputStream> open) {
+            this.name = S.requireNotBlank(name).replace('\\', '/');
+            this.length = length;
+            this.lastModified = lastModified;
+            this.bytes = bytes;
+            this.repeatable = repeatable;
+            this.open = open;
+        }
+    }
+
+    private static class Entry {
+        final byte[] name;
+        final int time;
+        final int date;
+        int flags = FLAG_UTF8;
+        int method;
+        long crc;
+        long size;
+        long compressedSize;
+        long offset;
+        byte[] data;
+
+        Entry(Source source, long crc, long size) {
+            this.name = source.name.getBytes(StandardCharsets.UTF_8);
+            this.crc = crc;
+            this.size = size;
+            Calendar c = Calendar.getInstance();
+            c.setTimeInMillis(source.lastModified);
+            int year = c.get(Calendar.YEAR);
+            if (year < 1980) {
+                time = 0;
+                date = (1 << 5) | 1;
+            } else {
+                time = (c.get(Calendar.HOUR_OF_DAY) << 11) | (c.get(Calendar.MINUTE) << 5) | (c.get(Calendar.SECOND) >> 1);
+                date = ((year - 1980) << 9) | ((c.get(Calendar.MONTH) + 1) << 5) | c.get(Calendar.DAY_OF_MONTH);
+            }
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    private static class UncloseableOutputStream extends FilterOutputStream {
+        UncloseableOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+}
@@ -23,8 +23,12 @@ package org.osgl.util.algo;
 import org.osgl.$;
 import org.osgl.OsglConfig;
 import org.osgl.exception.NotAppliedException;
+import org.osgl.util.E;
 import org.osgl.util.S;
 
+import java.io.IOException;
+import java.nio.CharBuffer;
+
 /**
  * Base class for implementing algorithm that perform replacement on {@link char[]}
  */
@@ -57,6 +61,28 @@ public abstract class StringReplace implements $.Func4<char[], char[], char[], I
      */
     public abstract char[] replace(char[] text, char[] target, char[] replacement, int firstId);
 
+    /**
+     * Replace all target in text with replacement and append the result to the sink.
+     *
+     * This implementation converts the arguments into `char[]` and calls
+     * {@link #replace(char[], char[], char[], int)}. Sub class can overwrite
+     * this method to stream the result into the sink without the conversion.
+     *
+     * @param text the text in which search string will be replaced
+     * @param target the target string to be replaced
+     * @param replacement the replacement string
+     * @param firstId the first index of targe inside text. If negative means not searched yet
+     * @param sink the appendable the result is written to
+     */
+    public void replace(CharSequence text, String target, String replacement, int firstId, Appendable sink) {
+        char[] result = replace(text.toString().toCharArray(), target.toCharArray(), replacement.toCharArray(), firstId);
+        try {
+            sink.append(CharBuffer.wrap(result));
+        } catch (IOException e) {
+            throw E.ioException(e);
+        }
+    }
+
     public static StringReplace wrap(final $.Func4<char[], char[], char[], Integer, char[]> replaceLogic) {
         return $.requireNotNull(replaceLogic) instanceof StringReplace ? (StringReplace) replaceLogic : new StringReplace() {
             @Override
@@ -117,5 +143,31 @@ public abstract class StringReplace implements $.Func4<char[], char[], char[], I
             buf.getChars(0, len, result, 0);
             return result;
         }
+
+        /**
+         * Stream the result into the sink with {@link String#indexOf(String, int)}
+         * if the searcher is a {@link StringSearch.SimpleStringSearch}, which finds
+         * the same positions.
+         */
+        @Override
+        public void replace(CharSequence text, String target, String replacement, int firstId, Appendable sink) {
+            if (searcher.getClass() != StringSearch.SimpleStringSearch.class) {
+                super.replace(text, target, replacement, firstId, sink);
+                return;
+            }
+            String s = text.toString();
+            try {
+                int i = target.isEmpty() ? -1 : firstId < 0 ? s.indexOf(target) : firstId;
+                int j = 0, targetLen = target.length();
+                while (i >= 0) {
+                    sink.append(s, j, i).append(replacement);
+                    j = i + targetLen;
+                    i = s.indexOf(target, j);
+                }
+                sink.append(s, j, s.length());
+            } catch (IOException e) {
+                throw E.ioException(e);
+            }
+        }
     }
 }
@@ -0,0 +1,109 @@
+package benchmark;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.osgl.BenchmarkBase;
+import org.osgl.util.Hash;
+import org.osgl.util.IO;
+import org.osgl.util.S;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.Random;
+
+/**
+ * Compare {@link IO#checksum(InputStream, Hash.Algorithm)} with the SHA1
+ * only implementation it replaced, and the non cryptographic algorithms.
+ */
+@BenchmarkOptions(warmupRounds = 10, benchmarkRounds = 30)
+public class ChecksumBenchmark extends BenchmarkBase {
+
+    private static final int SIZE = 16 * 1024 * 1024;
+
+    private static byte[] content;
+    private static File file;
+
+    private static int sink;
+
+    @BeforeClass
+    public static void prepare() {
+        content = new byte[SIZE];
+        new Random(1).nextBytes(content);
+        file = IO.tmpFile();
+        IO.write(content, file);
+    }
+
+    @AfterClass
+    public static void cleanUp() {
+        IO.delete(file);
+    }
+
+    @Test
+    public void sha1Legacy() throws Exception {
+        sink += legacyChecksum(new ByteArrayInputStream(content)).length();
+    }
+
+    @Test
+    public void sha1() {
+        sink += IO.checksum(new ByteArrayInputStream(content), Hash.SHA1).length();
+    }
+
+    @Test
+    public void crc32c() {
+        sink += IO.checksum(new ByteArrayInputStream(content), Hash.CRC32C).length();
+    }
+
+    @Test
+    public void xxhash64() {
+        sink += IO.checksum(new ByteArrayInputStream(content), Hash.XXHASH64).length();
+    }
+
+    @Test
+    public void sha1AndMd5() {
+        sink += IO.checksums(new ByteArrayInputStream(content), Hash.SHA1, Hash.MD5).size();
+    }
+
+    @Test
+    public void sha1Tree() {
+        sink += IO.treeChecksum(file, Hash.SHA1).length();
+    }
+
+    private static String legacyChecksum(InputStream is) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA1");
+        byte[] dataBytes = new byte[1024];
+        int nread;
+        while ((nread = is.read(dataBytes)) != -1) {
+            md.update(dataBytes, 0, nread);
+        }
+        byte[] mdbytes = md.digest();
+        S.Buffer sb = S.buffer();
+        for (int i = 0; i < mdbytes.length; i++) {
+            sb.append(Integer.toString((mdbytes[i] & 0xff) + 0x100, 16).substring(1));
+        }
+        return sb.toString();
+    }
+
+}
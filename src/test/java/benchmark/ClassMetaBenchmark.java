@@ -0,0 +1,73 @@
+package benchmark;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import benchmark.CopyBenchmarkModels.Foo;
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.osgl.$;
+import org.osgl.BenchmarkBase;
+import org.osgl.OsglConfig;
+import org.osgl.cache.CacheService;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+/**
+ * Measure class metadata lookup on a warm cache.
+ *
+ * `stringKeyedFieldsOf` reproduces the lookup `$.fieldsOf` used to do
+ * before the metadata registry: build a string key from the class name
+ * and flags and look it up in the internal cache service.
+ */
+@BenchmarkOptions(warmupRounds = 100 * 100, benchmarkRounds = 100 * 100 * 100)
+public class ClassMetaBenchmark extends BenchmarkBase {
+
+    private static final Foo foo = new Foo();
+
+    @BeforeClass
+    public static void warmUp() {
+        $.fieldsOf(Foo.class, Object.class, false, false);
+        $.getProperty(foo, "name");
+    }
+
+    @Test
+    public void fieldsOf() {
+        $.fieldsOf(Foo.class, Object.class, false, false);
+    }
+
+    @Test
+    public void stringKeyedFieldsOf() {
+        CacheService cache = OsglConfig.internalCache();
+        String key = new StringBuilder(Foo.class.getName()).append("-s").toString();
+        List<Field> fields = cache.get(key);
+        if (null == fields) {
+            cache.put(key, $.fieldsOf(Foo.class, Object.class, false, false));
+        }
+    }
+
+    @Test
+    public void getProperty() {
+        $.getProperty(foo, "name");
+    }
+
+}
@@ -0,0 +1,104 @@
+package benchmark;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.osgl.BenchmarkBase;
+import org.osgl.util.BigLines;
+import org.osgl.util.CsvReader;
+import org.osgl.util.IO;
+import org.osgl.util.S;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compare {@link CsvReader} with iterating {@link BigLines} and splitting
+ * each line with `String.split`.
+ */
+@BenchmarkOptions(warmupRounds = 3, benchmarkRounds = 10)
+public class CsvBenchmark extends BenchmarkBase {
+
+    private static final int ROWS = 200000;
+
+    private static File file;
+
+    private static long sink;
+
+    @BeforeClass
+    public static void prepare() {
+        Random random = new Random(1);
+        S.Buffer buf = S.buffer();
+        buf.append("id,name,amount,price,note\n");
+        for (int i = 0; i < ROWS; ++i) {
+            buf.append(i).append(",customer ").append(random.nextInt(1000)).append(',')
+                    .append(random.nextInt(100000)).append(',').append(random.nextInt(1000)).append(".25,")
+                    .append(i % 10 == 0 ? "\"quoted, note\"" : "plain").append('\n');
+        }
+        file = IO.tmpFile();
+        IO.write(buf.toString(), file);
+    }
+
+    @AfterClass
+    public static void cleanUp() {
+        IO.delete(file);
+    }
+
+    @Test
+    public void csvReader() {
+        long total = 0;
+        for (CsvReader.Record record : new CsvReader(file).header(true)) {
+            total += record.getLong(2);
+        }
+        sink += total;
+    }
+
+    @Test
+    public void csvReaderParallel() {
+        final AtomicLong total = new AtomicLong();
+        new CsvReader(file).header(true).accept(new CsvReader.RecordReader() {
+            @Override
+            public void read(CsvReader.Record record, long recordNo) {
+                total.addAndGet(record.getLong(2));
+            }
+        }, 4);
+        sink += total.get();
+    }
+
+    @Test
+    public void stringSplit() {
+        long total = 0;
+        boolean first = true;
+        for (String line : new BigLines(file)) {
+            if (first) {
+                first = false;
+                continue;
+            }
+            String[] fields = line.split(",");
+            total += Long.parseLong(fields[2]);
+        }
+        sink += total;
+    }
+
+}
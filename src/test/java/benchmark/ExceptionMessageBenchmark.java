@@ -0,0 +1,86 @@
+package benchmark;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import org.junit.Test;
+import org.osgl.$;
+import org.osgl.BenchmarkBase;
+import org.osgl.exception.UnexpectedException;
+import org.osgl.util.E;
+import org.osgl.util.S;
+
+/**
+ * Compare the cost of failed conversion attempts where the exception
+ * is caught and discarded.
+ *
+ * `eager` formats the message when constructing the exception, which
+ * is what `E` and `UnexpectedException` used to do; `lazy` goes through
+ * the current implementation where the message is never formatted.
+ */
+@BenchmarkOptions(warmupRounds = 100 * 100, benchmarkRounds = 100 * 100 * 100)
+public class ExceptionMessageBenchmark extends BenchmarkBase {
+
+    private static final String VALUE = "not-a-number";
+
+    private static Integer convert(String s, boolean eager) {
+        try {
+            if (!S.isInt(s)) {
+                if (eager) {
+                    throw new UnexpectedException(S.fmt("Cannot convert %s to %s", s, Integer.class));
+                }
+                throw E.unexpected("Cannot convert %s to %s", s, Integer.class);
+            }
+            return Integer.parseInt(s);
+        } catch (UnexpectedException e) {
+            return null;
+        }
+    }
+
+    @Test
+    public void eager() {
+        convert(VALUE, true);
+    }
+
+    @Test
+    public void lazy() {
+        convert(VALUE, false);
+    }
+
+    @Test
+    public void breakAllocated() {
+        try {
+            throw new $.Break(VALUE);
+        } catch ($.Break b) {
+            b.get();
+        }
+    }
+
+    @Test
+    public void breakShared() {
+        try {
+            throw $.BREAK;
+        } catch ($.Break b) {
+            b.get();
+        }
+    }
+
+}
@@ -56,4 +56,24 @@ public class FastSplitBenchmark extends BenchmarkBase {
         S.fastSplit(toBeSplited, "**");
     }
 
+    @Test
+    public void benchmarkRegexSplit() {
+        S.split(toBeSplited, "\\*\\*");
+    }
+
+    @Test
+    public void benchmarkCursorSplit() {
+        S.splitCursor(toBeSplited, "**").toList();
+    }
+
+    @Test
+    public void benchmarkCursorFirstToken() {
+        S.splitCursor(toBeSplited, "**").nextString();
+    }
+
+    @Test
+    public void benchmarkCursorCount() {
+        S.splitCursor(toBeSplited, "**").count();
+    }
+
 }
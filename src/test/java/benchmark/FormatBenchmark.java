@@ -0,0 +1,56 @@
+package benchmark;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import org.junit.Test;
+import org.osgl.BenchmarkBase;
+import org.osgl.util.S;
+
+import java.text.MessageFormat;
+
+@BenchmarkOptions(warmupRounds = 100 * 100, benchmarkRounds = 100 * 100 * 100)
+public class FormatBenchmark extends BenchmarkBase {
+
+    private static final String NAME = "java.lang.Integer";
+    private static final int COUNT = 42;
+
+    @Test
+    public void stringFormat() {
+        String.format("Cannot convert %s: %d attempts", NAME, COUNT);
+    }
+
+    @Test
+    public void osglFmt() {
+        S.fmt("Cannot convert %s: %d attempts", NAME, COUNT);
+    }
+
+    @Test
+    public void messageFormat() {
+        MessageFormat.format("Cannot convert {0}: {1} attempts", NAME, COUNT);
+    }
+
+    @Test
+    public void osglMsgFmt() {
+        S.msgFmt("Cannot convert {0}: {1} attempts", NAME, COUNT);
+    }
+
+}
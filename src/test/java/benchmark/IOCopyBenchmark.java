@@ -0,0 +1,97 @@
+package benchmark;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.osgl.BenchmarkBase;
+import org.osgl.util.IO;
+
+import java.io.*;
+import java.util.Random;
+
+/**
+ * Compare {@link IO#copy(File, File)} and {@link IO#copy(InputStream, OutputStream)}
+ * against the buffered `8096` bytes copy loop they used before.
+ */
+@BenchmarkOptions(warmupRounds = 20, benchmarkRounds = 50)
+public class IOCopyBenchmark extends BenchmarkBase {
+
+    private static final int SIZE = 8 * 1024 * 1024;
+
+    private static byte[] content;
+    private static File source;
+    private static File target;
+
+    private static long sink;
+
+    @BeforeClass
+    public static void prepare() {
+        content = new byte[SIZE];
+        new Random(1).nextBytes(content);
+        source = IO.tmpFile();
+        target = IO.tmpFile();
+        IO.write(content, source);
+    }
+
+    @AfterClass
+    public static void cleanUp() {
+        IO.delete(source);
+        IO.delete(target);
+    }
+
+    @Test
+    public void fileToFile() {
+        sink += IO.copy(source, target);
+    }
+
+    @Test
+    public void fileToFileLegacy() throws IOException {
+        sink += legacyCopy(new BufferedInputStream(new FileInputStream(source)), new BufferedOutputStream(new FileOutputStream(target)));
+    }
+
+    @Test
+    public void streamToStream() {
+        sink += IO.copy(new ByteArrayInputStream(content), new ByteArrayOutputStream(SIZE));
+    }
+
+    @Test
+    public void streamToStreamLegacy() throws IOException {
+        sink += legacyCopy(new ByteArrayInputStream(content), new ByteArrayOutputStream(SIZE));
+    }
+
+    private static int legacyCopy(InputStream is, OutputStream os) throws IOException {
+        try {
+            int read, total = 0;
+            byte[] buffer = new byte[8096];
+            while ((read = is.read(buffer)) > -1) {
+                os.write(buffer, 0, read);
+                total += read;
+            }
+            return total;
+        } finally {
+            IO.close(is);
+            IO.close(os);
+        }
+    }
+
+}
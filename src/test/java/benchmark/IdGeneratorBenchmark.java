@@ -0,0 +1,189 @@
+package benchmark;
+
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.osgl.BenchmarkBase;
+import org.osgl.util.Codec;
+import org.osgl.util.E;
+import org.osgl.util.IdGenerator;
+import org.osgl.util.N;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Throughput of id and token generation with {@link #THREADS} threads calling
+ * concurrently, compared with the JDK's {@link UUID#randomUUID()} and creating
+ * a {@link SecureRandom} per call.
+ *
+ * The threads are kept across rounds like request handling threads are.
+ */
+@BenchmarkOptions(warmupRounds = 3, benchmarkRounds = 10)
+public class IdGeneratorBenchmark extends BenchmarkBase {
+
+    private static final int THREADS = 4;
+
+    private static final int TIMES = 20000;
+
+    private static final IdGenerator.Snowflake SNOWFLAKE = IdGenerator.snowflake(1);
+
+    private static ExecutorService executor;
+
+    private static volatile long sink;
+
+    private interface Task {
+        long run(int i);
+    }
+
+    @BeforeClass
+    public static void prepare() {
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterClass
+    public static void cleanUp() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void jdkUuid() {
+        concurrently(TIMES, new Task() {
+            @Override
+            public long run(int i) {
+                return UUID.randomUUID().toString().length();
+            }
+        });
+    }
+
+    @Test
+    public void uuid() {
+        concurrently(TIMES, new Task() {
+            @Override
+            public long run(int i) {
+                return IdGenerator.uuid().length();
+            }
+        });
+    }
+
+    @Test
+    public void uuidV7() {
+        concurrently(TIMES, new Task() {
+            @Override
+            public long run(int i) {
+                return IdGenerator.uuidV7().length();
+            }
+        });
+    }
+
+    @Test
+    public void ulid() {
+        concurrently(TIMES, new Task() {
+            @Override
+            public long run(int i) {
+                return IdGenerator.ulid().length();
+            }
+        });
+    }
+
+    @Test
+    public void snowflake() {
+        concurrently(TIMES, new Task() {
+            @Override
+            public long run(int i) {
+                return SNOWFLAKE.nextId();
+            }
+        });
+    }
+
+    @Test
+    public void newSecureRandomToken() {
+        concurrently(TIMES, new Task() {
+            @Override
+            public long run(int i) {
+                byte[] bytes = new byte[16];
+                new SecureRandom().nextBytes(bytes);
+                return Codec.encodeUrlSafeBase64(bytes).length();
+            }
+        });
+    }
+
+    @Test
+    public void token() {
+        concurrently(TIMES, new Task() {
+            @Override
+            public long run(int i) {
+                return IdGenerator.token().length();
+            }
+        });
+    }
+
+    @Test
+    public void newSecureRandomInt() {
+        concurrently(TIMES, new Task() {
+            @Override
+            public long run(int i) {
+                return new SecureRandom().nextInt(100);
+            }
+        });
+    }
+
+    @Test
+    public void secureRandInt() {
+        concurrently(TIMES, new Task() {
+            @Override
+            public long run(int i) {
+                return N.secureRandInt(100);
+            }
+        });
+    }
+
+    private static void concurrently(final int times, final Task task) {
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; ++t) {
+            futures.add(executor.submit(new Callable<Long>() {
+                @Override
+                public Long call() {
+                    long total = 0;
+                    for (int i = 0; i < times; ++i) {
+                        total += task.run(i);
+                    }
+                    return total;
+                }
+            }));
+        }
+        try {
+            for (Future<Long> future : futures) {
+                sink += future.get();
+            }
+        } catch (Exception e) {
+            throw E.unexpected(e);
+        }
+    }
+
+}
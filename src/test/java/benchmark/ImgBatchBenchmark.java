@@ -0,0 +1,102 @@
+package benchmark;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.osgl.BenchmarkBase;
+import org.osgl.util.IO;
+import org.osgl.util.Img;
+import org.osgl.util.ImgBatch;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compare generating thumbnails of JPEG photos through {@link ImgBatch},
+ * which decodes subsampled, against decoding the full photo with
+ * {@link Img#source(java.io.InputStream)} and resizing it.
+ *
+ * The throughput and peak pixel memory of the batch are printed after
+ * the benchmark.
+ */
+@BenchmarkOptions(warmupRounds = 2, benchmarkRounds = 5)
+public class ImgBatchBenchmark extends BenchmarkBase {
+
+    private static final int PHOTOS = 8;
+    private static final byte[][] JPEGS = photos(PHOTOS, 4000, 3000);
+
+    private static ImgBatch.Stats batchStats;
+    private static final AtomicLong legacyPixelBytes = new AtomicLong();
+
+    private static long sink;
+
+    @Test
+    public void batch() throws Exception {
+        ImgBatch batch = Img.batch(Runtime.getRuntime().availableProcessors(), 4);
+        try {
+            for (byte[] jpeg : JPEGS) {
+                batch.submit(ImgBatch.job(jpeg).resize(200, 200).mimeType(Img.JPG_MIME_TYPE));
+            }
+            batchStats = batch.await();
+            sink += batchStats.jobs();
+        } finally {
+            batch.close();
+        }
+    }
+
+    @Test
+    public void legacy() {
+        for (byte[] jpeg : JPEGS) {
+            Img._Load photo = Img.source(IO.inputStream(jpeg));
+            BufferedImage image = photo.get();
+            legacyPixelBytes.set(4L * image.getWidth() * image.getHeight());
+            sink += photo.resize(200, 200).keepRatio().toByteArray(Img.JPG_MIME_TYPE).length;
+        }
+    }
+
+    @AfterClass
+    public static void report() {
+        if (null != batchStats) {
+            println("batch: %s", batchStats);
+        }
+        println("legacy: full decoded photo alone holds %sKB pixels", legacyPixelBytes.get() / 1024);
+    }
+
+    private static byte[][] photos(int n, int w, int h) {
+        byte[][] photos = new byte[n][];
+        Random r = new Random(n);
+        for (int i = 0; i < n; ++i) {
+            BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = image.createGraphics();
+            for (int j = 0; j < 200; ++j) {
+                g.setColor(new Color(r.nextInt()));
+                g.fillOval(r.nextInt(w), r.nextInt(h), 50 + r.nextInt(800), 50 + r.nextInt(800));
+            }
+            g.dispose();
+            photos[i] = Img.source(image).toByteArray(Img.JPG_MIME_TYPE);
+        }
+        return photos;
+    }
+
+}
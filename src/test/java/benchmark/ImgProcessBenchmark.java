@@ -0,0 +1,103 @@
+package benchmark;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import org.junit.Test;
+import org.osgl.BenchmarkBase;
+import org.osgl.util.Img;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.ConvolveOp;
+import java.awt.image.Kernel;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compare resizing and blurring through {@link Img}, which work on `int[]`
+ * pixels, against `Image.getScaledInstance` and `ConvolveOp` they used to run.
+ */
+@BenchmarkOptions(warmupRounds = 5, benchmarkRounds = 10)
+public class ImgProcessBenchmark extends BenchmarkBase {
+
+    private static final BufferedImage PHOTO = photo(3000, 2000);
+
+    private static long sink;
+
+    @Test
+    public void resizeToThumbnail() {
+        BufferedImage image = Img.source(PHOTO).resize(300, 200).get();
+        sink += image.getRGB(150, 100);
+    }
+
+    @Test
+    public void resizeToThumbnailLegacy() {
+        BufferedImage target = new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB);
+        Graphics g = target.getGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 300, 200);
+        g.drawImage(PHOTO.getScaledInstance(300, 200, Image.SCALE_SMOOTH), 0, 0, null);
+        sink += target.getRGB(150, 100);
+    }
+
+    @Test
+    public void resizeHalf() {
+        BufferedImage image = Img.source(PHOTO).resize(1500, 1000).get();
+        sink += image.getRGB(150, 100);
+    }
+
+    @Test
+    public void resizeHalfLegacy() {
+        BufferedImage target = new BufferedImage(1500, 1000, BufferedImage.TYPE_INT_RGB);
+        Graphics g = target.getGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 1500, 1000);
+        g.drawImage(PHOTO.getScaledInstance(1500, 1000, Image.SCALE_SMOOTH), 0, 0, null);
+        sink += target.getRGB(150, 100);
+    }
+
+    @Test
+    public void blur() {
+        BufferedImage image = Img.source(PHOTO).blur(9).get();
+        sink += image.getRGB(150, 100);
+    }
+
+    @Test
+    public void blurLegacy() {
+        float[] matrix = new float[81];
+        Arrays.fill(matrix, 1f / 81);
+        BufferedImage image = new ConvolveOp(new Kernel(9, 9, matrix), ConvolveOp.EDGE_NO_OP, null).filter(PHOTO, null);
+        sink += image.getRGB(150, 100);
+    }
+
+    private static BufferedImage photo(int w, int h) {
+        Random r = new Random(w);
+        BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = image.createGraphics();
+        for (int i = 0; i < 400; ++i) {
+            g.setColor(new Color(r.nextInt()));
+            g.fillOval(r.nextInt(w), r.nextInt(h), 20 + r.nextInt(400), 20 + r.nextInt(400));
+        }
+        g.dispose();
+        return image;
+    }
+
+}
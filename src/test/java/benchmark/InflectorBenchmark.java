@@ -0,0 +1,87 @@
+package benchmark;
+
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import org.junit.Test;
+import org.osgl.BenchmarkBase;
+import org.osgl.util.Inflector;
+
+/**
+ * Measure {@link Inflector} on a typical set of identifiers, repeated as it is
+ * when generating names for tables, routes and properties, and on distinct words.
+ */
+@BenchmarkOptions(warmupRounds = 3, benchmarkRounds = 10)
+public class InflectorBenchmark extends BenchmarkBase {
+
+    private static final String[] WORDS = {
+            "user", "order", "orderItem", "address", "category", "status", "person", "child",
+            "box", "wife", "matrix", "analysis", "query", "mouse", "datum", "photo", "bus",
+            "index", "quiz", "equipment", "customer", "invoice", "product", "shipment"
+    };
+
+    private static final int TIMES = 20000;
+
+    private static long sink;
+
+    private Inflector inflector = Inflector.getInstance();
+
+    @Test
+    public void pluralizeRepeated() {
+        long total = 0;
+        for (int i = 0; i < TIMES; ++i) {
+            for (String word : WORDS) {
+                total += inflector.pluralize(word).length();
+                total += inflector.singularize(word).length();
+            }
+        }
+        sink += total;
+    }
+
+    @Test
+    public void pluralizeDistinct() {
+        long total = 0;
+        for (int i = 0; i < TIMES / 10; ++i) {
+            for (String word : WORDS) {
+                String distinct = i + word;
+                total += inflector.pluralize(distinct).length();
+                total += inflector.singularize(distinct).length();
+            }
+        }
+        sink += total;
+    }
+
+    @Test
+    public void caseConversions() {
+        long total = 0;
+        for (int i = 0; i < TIMES / 10; ++i) {
+            for (String word : WORDS) {
+                String underscored = inflector.underscore(word);
+                total += underscored.length();
+                total += inflector.camelCase(underscored, false).length();
+                total += inflector.titleCase(underscored).length();
+            }
+        }
+        sink += total;
+    }
+
+}
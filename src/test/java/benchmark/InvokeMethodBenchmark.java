@@ -0,0 +1,100 @@
+package benchmark;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import org.junit.Test;
+import org.osgl.$;
+import org.osgl.BenchmarkBase;
+import org.osgl.util.C;
+import org.osgl.util.ClassMeta;
+import org.osgl.util.MethodInvoker;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+
+/**
+ * Compare `$.invokeVirtual` against direct method call, reflection with
+ * a method resolved beforehand, the resolution pipeline `$.invokeVirtual`
+ * used to run on every call: collect methods, scan them and `Method.invoke`,
+ * and the unboxed {@link MethodInvoker#invokeInt(Object, Object...)}.
+ */
+@BenchmarkOptions(warmupRounds = 100 * 100, benchmarkRounds = 100 * 100 * 100)
+public class InvokeMethodBenchmark extends BenchmarkBase {
+
+    public static class Calc {
+        public int add(int a, int b) {
+            return a + b;
+        }
+    }
+
+    private static final Calc calc = new Calc();
+    private static final Method ADD = $.getMethod(Calc.class, "add", int.class, int.class);
+    private static final MethodInvoker ADD_INVOKER = ClassMeta.of(Calc.class).invoker("add", new Class<?>[]{Integer.class, Integer.class}, true);
+
+    private static int sink;
+
+    @Test
+    public void direct() {
+        sink = calc.add(1, 2);
+    }
+
+    @Test
+    public void reflectionWithResolvedMethod() throws Exception {
+        sink = (Integer) ADD.invoke(calc, 1, 2);
+    }
+
+    @Test
+    public void invokeVirtual() {
+        sink = $.invokeVirtual(calc, "add", 1, 2);
+    }
+
+    @Test
+    public void invokeInt() {
+        sink = ADD_INVOKER.invokeInt(calc, 1, 2);
+    }
+
+    @Test
+    public void scanAndReflect() throws Exception {
+        Object[] pa = {1, 2};
+        Set<Method> methods = C.newSet();
+        methods.addAll(C.listOf(Calc.class.getMethods()));
+        methods.addAll(C.listOf(Calc.class.getDeclaredMethods()));
+        for (Method m : methods) {
+            if (!m.getName().equals("add")) {
+                continue;
+            }
+            Class[] pts = m.getParameterTypes();
+            boolean match = true;
+            for (int i = 0; i < pts.length; ++i) {
+                if (!$.wrapperClassOf(pts[i]).isAssignableFrom(pa[i].getClass())) {
+                    match = false;
+                    break;
+                }
+            }
+            if (match) {
+                sink = (Integer) m.invoke(calc, pa);
+                return;
+            }
+        }
+    }
+
+}
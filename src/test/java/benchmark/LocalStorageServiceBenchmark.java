@@ -0,0 +1,93 @@
+package benchmark;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.osgl.BenchmarkBase;
+import org.osgl.storage.impl.LocalStorageService;
+import org.osgl.storage.impl.SObject;
+import org.osgl.util.IO;
+import org.osgl.util.N;
+
+import java.io.File;
+import java.util.Random;
+
+@BenchmarkOptions(warmupRounds = 100, benchmarkRounds = 2000)
+public class LocalStorageServiceBenchmark extends BenchmarkBase {
+
+    private static File root;
+    private static LocalStorageService ss;
+    private static byte[] small;
+    private static byte[] large;
+
+    @BeforeClass
+    public static void prepare() {
+        root = IO.tmpFile();
+        IO.delete(root);
+        ss = new LocalStorageService(root);
+        Random r = new Random();
+        small = new byte[1024];
+        r.nextBytes(small);
+        large = new byte[8 * 1024 * 1024];
+        r.nextBytes(large);
+        for (int i = 0; i < 100; ++i) {
+            ss.put("small" + i, SObject.of(small));
+        }
+        ss.put("large", SObject.of(large));
+    }
+
+    @AfterClass
+    public static void cleanUp() {
+        IO.delete(root, true);
+    }
+
+    @Test
+    public void putSmall() {
+        ss.put("small" + N.randInt(100), SObject.of(small));
+    }
+
+    @Test
+    public void getSmall() {
+        ss.get("small" + N.randInt(100)).asByteArray();
+    }
+
+    @Test
+    @BenchmarkOptions(warmupRounds = 5, benchmarkRounds = 50)
+    public void putLarge() {
+        ss.put("large", SObject.of(large));
+    }
+
+    @Test
+    @BenchmarkOptions(warmupRounds = 5, benchmarkRounds = 50)
+    public void getLarge() {
+        ss.get("large").asByteArray();
+    }
+
+    @Test
+    @BenchmarkOptions(warmupRounds = 5, benchmarkRounds = 50)
+    public void mapLarge() {
+        ss.map("large").get(large.length - 1);
+    }
+
+}
@@ -0,0 +1,113 @@
+package benchmark;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import org.junit.Test;
+import org.osgl.$;
+import org.osgl.BenchmarkBase;
+import org.osgl.OsglConfig;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Compare `$.newInstance` and the global instance factory against plain `new`
+ * and the reflection path `$.newInstance` used to run on every call:
+ * look up the constructor, make it accessible and `Constructor.newInstance`.
+ */
+@BenchmarkOptions(warmupRounds = 100 * 100, benchmarkRounds = 100 * 100 * 10)
+public class NewInstanceBenchmark extends BenchmarkBase {
+
+    public static class Foo {
+        private String s;
+        private int i;
+
+        public Foo() {}
+
+        public Foo(String s, int i) {
+            this.s = s;
+            this.i = i;
+        }
+    }
+
+    // each round creates a batch of instances so the harness overhead does not dominate
+    private static final int BATCH = 100;
+
+    private static Object sink;
+
+    @Test
+    public void plainNew() {
+        for (int i = 0; i < BATCH; ++i) {
+            sink = new Foo();
+        }
+    }
+
+    @Test
+    public void newInstance() {
+        for (int i = 0; i < BATCH; ++i) {
+            sink = $.newInstance(Foo.class);
+        }
+    }
+
+    @Test
+    public void globalInstanceFactory() {
+        for (int i = 0; i < BATCH; ++i) {
+            sink = OsglConfig.globalInstanceFactory().apply(Foo.class);
+        }
+    }
+
+    @Test
+    public void lookupAndReflect() throws Exception {
+        for (int i = 0; i < BATCH; ++i) {
+            Constructor<Foo> ct = Foo.class.getDeclaredConstructor();
+            ct.setAccessible(true);
+            sink = ct.newInstance();
+        }
+    }
+
+    @Test
+    public void plainNewWithArgs() {
+        for (int i = 0; i < BATCH; ++i) {
+            sink = new Foo("foo", 5);
+        }
+    }
+
+    @Test
+    public void newInstanceWithArgs() {
+        for (int i = 0; i < BATCH; ++i) {
+            sink = $.newInstance(Foo.class, "foo", 5);
+        }
+    }
+
+    @Test
+    public void scanAndReflectWithArgs() throws Exception {
+        for (int i = 0; i < BATCH; ++i) {
+            for (Constructor<?> ct : Foo.class.getConstructors()) {
+                Class<?>[] pts = ct.getParameterTypes();
+                if (pts.length == 2 && pts[0] == String.class && pts[1] == int.class) {
+                    sink = ct.newInstance("foo", 5);
+                    break;
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,202 @@
+package benchmark;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import org.junit.Test;
+import org.osgl.BenchmarkBase;
+import org.osgl.util.N;
+import org.osgl.util.S;
+import org.osgl.util.StringValueResolver;
+
+/**
+ * Compare number parsing through the scanner backed {@link StringValueResolver}
+ * and {@link N#isNumeric(String)} against the `trim`, `contains` and JDK parse
+ * sequence, and the `try/catch` check, they used to run.
+ */
+@BenchmarkOptions(warmupRounds = 50, benchmarkRounds = 50)
+public class NumberParseBenchmark extends BenchmarkBase {
+
+    private static final String[] INTS = {"12", "-3456", "789012", " 42 ", "1000000", "7", "-99", "65535"};
+    private static final String[] DOUBLES = {"1.5", "-0.25", "3.14159", "100.0", "2.5e3", "0.001", "42", "-7.75"};
+    private static final String[] PRODUCTS = {"60*60", "24*60*60", "1024*1024", "7 * 7", "-3*5"};
+    private static final String[] INVALID = {"abc", "12a", "1,000", "--1", "N/A", "", "1.2.3", "x"};
+
+    private static final int BATCH = 20000;
+
+    private static final StringValueResolver<Integer> INT_RESOLVER = StringValueResolver.predefined(int.class);
+    private static final StringValueResolver<Double> DOUBLE_RESOLVER = StringValueResolver.predefined(double.class);
+
+    private static final StringValueResolver<Integer> LEGACY_INT_RESOLVER = new StringValueResolver<Integer>() {
+        @Override
+        public Integer resolve(String value) {
+            if (S.blank(value)) {
+                return 0;
+            }
+            return legacyInt(value);
+        }
+    };
+
+    private static final StringValueResolver<Double> LEGACY_DOUBLE_RESOLVER = new StringValueResolver<Double>() {
+        @Override
+        public Double resolve(String value) {
+            if (S.blank(value)) {
+                return 0d;
+            }
+            return legacyDouble(value);
+        }
+    };
+
+    private static int legacyInt(String s) {
+        s = s.trim();
+        if (s.contains(".")) {
+            return Math.round(Float.valueOf(s));
+        } else if (s.contains("*")) {
+            int n = 1;
+            for (String factor : S.fastSplit(s, "*")) {
+                n *= legacyInt(factor);
+            }
+            return n;
+        }
+        return Integer.valueOf(s);
+    }
+
+    private static double legacyDouble(String s) {
+        s = s.trim();
+        if (s.contains("*")) {
+            double n = 1d;
+            for (String factor : S.fastSplit(s, "*")) {
+                n *= legacyDouble(factor);
+            }
+            return n;
+        }
+        return Double.valueOf(s);
+    }
+
+    private static long sink;
+
+    @Test
+    public void resolveInt() {
+        long sum = 0;
+        for (int i = 0; i < BATCH; ++i) {
+            for (String s : INTS) {
+                sum += INT_RESOLVER.resolve(s);
+            }
+        }
+        sink = sum;
+    }
+
+    @Test
+    public void legacyResolveInt() {
+        long sum = 0;
+        for (int i = 0; i < BATCH; ++i) {
+            for (String s : INTS) {
+                sum += LEGACY_INT_RESOLVER.resolve(s);
+            }
+        }
+        sink = sum;
+    }
+
+    @Test
+    public void resolveDouble() {
+        double sum = 0;
+        for (int i = 0; i < BATCH; ++i) {
+            for (String s : DOUBLES) {
+                sum += DOUBLE_RESOLVER.resolve(s);
+            }
+        }
+        sink = (long) sum;
+    }
+
+    @Test
+    public void legacyResolveDouble() {
+        double sum = 0;
+        for (int i = 0; i < BATCH; ++i) {
+            for (String s : DOUBLES) {
+                sum += LEGACY_DOUBLE_RESOLVER.resolve(s);
+            }
+        }
+        sink = (long) sum;
+    }
+
+    @Test
+    public void resolveIntProduct() {
+        long sum = 0;
+        for (int i = 0; i < BATCH; ++i) {
+            for (String s : PRODUCTS) {
+                sum += INT_RESOLVER.resolve(s);
+            }
+        }
+        sink = sum;
+    }
+
+    @Test
+    public void legacyResolveIntProduct() {
+        long sum = 0;
+        for (int i = 0; i < BATCH; ++i) {
+            for (String s : PRODUCTS) {
+                sum += LEGACY_INT_RESOLVER.resolve(s);
+            }
+        }
+        sink = sum;
+    }
+
+    @Test
+    public void isNumericInvalid() {
+        long n = 0;
+        for (int i = 0; i < BATCH; ++i) {
+            for (String s : INVALID) {
+                if (N.isNumeric(s)) {
+                    n++;
+                }
+            }
+        }
+        sink = n;
+    }
+
+    @Test
+    public void legacyIsNumericInvalid() {
+        long n = 0;
+        for (int i = 0; i < BATCH; ++i) {
+            for (String s : INVALID) {
+                if (legacyIsNumeric(s)) {
+                    n++;
+                }
+            }
+        }
+        sink = n;
+    }
+
+    private static boolean legacyIsNumeric(String s) {
+        if (s.trim().isEmpty()) {
+            return false;
+        }
+        if (N.isInt(s)) {
+            return true;
+        }
+        try {
+            Double.parseDouble(s);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+package benchmark;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import org.junit.Test;
+import org.osgl.BenchmarkBase;
+import org.osgl.util.C;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compare updating a read only {@link C.Map} with {@link C.Map#with(Object, Object)},
+ * which shares the trie of the original map, against copying the whole map for each
+ * update as `C.Map._Builder.to` used to do.
+ */
+@BenchmarkOptions(warmupRounds = 100, benchmarkRounds = 500)
+public class PersistentMapBenchmark extends BenchmarkBase {
+
+    private static final int SIZE = 10000;
+
+    // updates made in each round
+    private static final int UPDATES = 100;
+
+    private static final C.Map<Integer, Integer> TRIE_MAP;
+    private static final Map<Integer, Integer> HASH_MAP;
+
+    static {
+        Map<Integer, Integer> map = new HashMap<>();
+        for (int i = 0; i < SIZE; ++i) {
+            map.put(i, i);
+        }
+        HASH_MAP = Collections.unmodifiableMap(map);
+        TRIE_MAP = C.Map(map);
+    }
+
+    private static Object sink;
+
+    @Test
+    public void trieWith() {
+        C.Map<Integer, Integer> map = TRIE_MAP;
+        for (int i = 0; i < UPDATES; ++i) {
+            map = map.with(i * 7, -i);
+        }
+        sink = map;
+    }
+
+    @Test
+    public void fullCopy() {
+        Map<Integer, Integer> map = HASH_MAP;
+        for (int i = 0; i < UPDATES; ++i) {
+            Map<Integer, Integer> copy = new HashMap<>(map);
+            copy.put(i * 7, -i);
+            map = Collections.unmodifiableMap(copy);
+        }
+        sink = map;
+    }
+
+    @Test
+    public void trieGet() {
+        long sum = 0;
+        for (int i = 0; i < SIZE; ++i) {
+            sum += TRIE_MAP.get(i);
+        }
+        sink = sum;
+    }
+
+    @Test
+    public void hashMapGet() {
+        long sum = 0;
+        for (int i = 0; i < SIZE; ++i) {
+            sum += HASH_MAP.get(i);
+        }
+        sink = sum;
+    }
+
+    @Test
+    public void trieIterate() {
+        long sum = 0;
+        for (Map.Entry<Integer, Integer> entry : TRIE_MAP.entrySet()) {
+            sum += entry.getValue();
+        }
+        sink = sum;
+    }
+
+    @Test
+    public void hashMapIterate() {
+        long sum = 0;
+        for (Map.Entry<Integer, Integer> entry : HASH_MAP.entrySet()) {
+            sum += entry.getValue();
+        }
+        sink = sum;
+    }
+
+}
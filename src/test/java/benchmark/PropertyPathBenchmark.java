@@ -0,0 +1,81 @@
+package benchmark;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import org.junit.Test;
+import org.osgl.$;
+import org.osgl.BenchmarkBase;
+import org.osgl.cache.CacheService;
+import org.osgl.cache.impl.InteralCacheService;
+import org.osgl.util.C;
+
+import java.util.List;
+
+/**
+ * Compare evaluating a property path with a compiled {@link $.PropertyPath},
+ * with `$.getProperty`, which interns compiled paths, and with a custom cache
+ * service, which parses the path and looks up handlers on every call.
+ */
+@BenchmarkOptions(warmupRounds = 100 * 100, benchmarkRounds = 100 * 100 * 100)
+public class PropertyPathBenchmark extends BenchmarkBase {
+
+    public static class Address {
+        private String city = "Sydney";
+    }
+
+    public static class Person {
+        private List<Address> history = C.list(new Address());
+    }
+
+    private static final String PATH = "history[0].city";
+    private static final Person person = new Person();
+    private static final $.PropertyPath compiled = $.PropertyPath.of(PATH);
+    private static final CacheService cache = new InteralCacheService();
+
+    private static Object sink;
+
+    @Test
+    public void compiledPath() {
+        sink = compiled.get(person);
+    }
+
+    @Test
+    public void getProperty() {
+        sink = $.getProperty(person, PATH);
+    }
+
+    @Test
+    public void getPropertyWithCacheService() {
+        sink = $.getProperty(cache, person, PATH);
+    }
+
+    @Test
+    public void compiledPathSet() {
+        compiled.set(person, "Sydney");
+    }
+
+    @Test
+    public void setPropertyWithCacheService() {
+        $.setProperty(cache, person, "Sydney", PATH);
+    }
+
+}
@@ -0,0 +1,107 @@
+package benchmark;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.osgl.$;
+import org.osgl.BenchmarkBase;
+import org.osgl.concurrent.Scheduler;
+import org.osgl.util.E;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Completes {@link #TASKS} callbacks each delayed by {@link #DELAY} milliseconds
+ * with {@link Scheduler} compared with sleeping inside a 2-thread pool, which is
+ * how {@link $#async(org.osgl.Lang.F0, int)} used to be implemented.
+ */
+@BenchmarkOptions(warmupRounds = 3, benchmarkRounds = 10)
+public class SchedulerBenchmark extends BenchmarkBase {
+
+    private static final int TASKS = 100;
+
+    private static final int DELAY = 5;
+
+    private static final $.F0<Integer> CALLBACK = new $.F0<Integer>() {
+        @Override
+        public Integer apply() {
+            return 1;
+        }
+    };
+
+    private static ExecutorService sleepingPool;
+
+    private static Scheduler scheduler;
+
+    private static volatile long sink;
+
+    @BeforeClass
+    public static void prepare() {
+        sleepingPool = Executors.newFixedThreadPool(2);
+        scheduler = new Scheduler(2);
+    }
+
+    @AfterClass
+    public static void cleanUp() {
+        sleepingPool.shutdown();
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void sleepingPool() {
+        List<Future<Integer>> futures = new ArrayList<>(TASKS);
+        for (int i = 0; i < TASKS; ++i) {
+            futures.add(sleepingPool.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    Thread.sleep(DELAY);
+                    return CALLBACK.apply();
+                }
+            }));
+        }
+        await(futures);
+    }
+
+    @Test
+    public void scheduler() {
+        List<Future<Integer>> futures = new ArrayList<>(TASKS);
+        for (int i = 0; i < TASKS; ++i) {
+            futures.add(scheduler.schedule(CALLBACK, DELAY, TimeUnit.MILLISECONDS));
+        }
+        await(futures);
+    }
+
+    private static void await(List<Future<Integer>> futures) {
+        try {
+            for (Future<Integer> future : futures) {
+                sink += future.get();
+            }
+        } catch (Exception e) {
+            throw E.unexpected(e);
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+package benchmark;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import org.junit.Test;
+import org.osgl.$;
+import org.osgl.BenchmarkBase;
+import org.osgl.exception.NotAppliedException;
+import org.osgl.util.C;
+
+import java.util.List;
+
+/**
+ * Run a 5-stage map/filter/drop/map/take pipeline over 1M elements with a lazy
+ * sequence, an eager list and a hand written loop.
+ */
+@BenchmarkOptions(warmupRounds = 10, benchmarkRounds = 50)
+public class SequencePipelineBenchmark extends BenchmarkBase {
+
+    private static final int SIZE = 1000 * 1000;
+
+    private static final List<Integer> data = C.newList();
+
+    static {
+        for (int i = 0; i < SIZE; ++i) {
+            data.add(i);
+        }
+    }
+
+    private static final $.F1<Integer, Integer> INC = new $.F1<Integer, Integer>() {
+        @Override
+        public Integer apply(Integer n) throws NotAppliedException, $.Break {
+            return n + 1;
+        }
+    };
+
+    private static final $.F1<Integer, Integer> HALF = new $.F1<Integer, Integer>() {
+        @Override
+        public Integer apply(Integer n) throws NotAppliedException, $.Break {
+            return n >> 1;
+        }
+    };
+
+    private static final $.Predicate<Integer> EVEN = new $.Predicate<Integer>() {
+        @Override
+        public boolean test(Integer n) {
+            return (n & 1) == 0;
+        }
+    };
+
+    private static long sink;
+
+    @Test
+    public void lazySequence() {
+        long sum = 0;
+        for (Integer n : C.seq(data.iterator()).map(INC).filter(EVEN).drop(10).map(HALF).take(SIZE / 3)) {
+            sum += n;
+        }
+        sink = sum;
+    }
+
+    @Test
+    public void eagerList() {
+        long sum = 0;
+        for (Integer n : C.list(data).map(INC).filter(EVEN).drop(10).map(HALF).take(SIZE / 3)) {
+            sum += n;
+        }
+        sink = sum;
+    }
+
+    @Test
+    public void handWrittenLoop() {
+        long sum = 0;
+        int dropped = 0, taken = 0;
+        for (Integer n : data) {
+            int m = INC.apply(n);
+            if (!EVEN.test(m)) {
+                continue;
+            }
+            if (dropped < 10) {
+                dropped++;
+                continue;
+            }
+            sum += HALF.apply(m);
+            if (++taken == SIZE / 3) {
+                break;
+            }
+        }
+        sink = sum;
+    }
+
+}
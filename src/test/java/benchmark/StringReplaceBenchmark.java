@@ -0,0 +1,91 @@
+package benchmark;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import org.junit.Test;
+import org.osgl.BenchmarkBase;
+import org.osgl.OsglConfig;
+import org.osgl.util.C;
+import org.osgl.util.S;
+
+import java.util.Map;
+
+/**
+ * Compare replacing through {@link S#replace(String)}, which streams into a
+ * single buffer, and {@link S#batchReplace(Map)} against the `char[]` round
+ * trip and chained replaces they used to need.
+ */
+@BenchmarkOptions(warmupRounds = 2000, benchmarkRounds = 2000)
+public class StringReplaceBenchmark extends BenchmarkBase {
+
+    private static final String TEXT = S.times("Dear {name}, your order {order} ships on {date}. ", 20);
+
+    private static final Map<String, Object> VARS = C.<String, Object>Map("{name}", "Green", "{order}", 12345, "{date}", "2026-10-20");
+
+    private static final S.BatchReplace BATCH = S.batchReplace(VARS);
+
+    private static final int BATCH_SIZE = 50;
+
+    private static long sink;
+
+    @Test
+    public void replace() {
+        for (int i = 0; i < BATCH_SIZE; ++i) {
+            sink += S.replace("{name}").with("Green").in(TEXT).length();
+        }
+    }
+
+    @Test
+    public void replaceLegacy() {
+        for (int i = 0; i < BATCH_SIZE; ++i) {
+            sink += legacyReplace(TEXT, "{name}", "Green").length();
+        }
+    }
+
+    @Test
+    public void template() {
+        for (int i = 0; i < BATCH_SIZE; ++i) {
+            sink += BATCH.in(TEXT).length();
+        }
+    }
+
+    @Test
+    public void templateChainedLegacy() {
+        for (int i = 0; i < BATCH_SIZE; ++i) {
+            String s = TEXT;
+            for (Map.Entry<String, Object> entry : VARS.entrySet()) {
+                s = legacyReplace(s, entry.getKey(), S.string(entry.getValue()));
+            }
+            sink += s.length();
+        }
+    }
+
+    private static String legacyReplace(String text, String keyword, String replacement) {
+        int firstId = text.indexOf(keyword);
+        if (firstId < 0) {
+            return text;
+        }
+        char[] textArray = text.toCharArray();
+        char[] result = OsglConfig.DEF_STRING_REPLACE.replace(textArray, keyword.toCharArray(), replacement.toCharArray(), firstId);
+        return result == textArray ? text : new String(result);
+    }
+
+}
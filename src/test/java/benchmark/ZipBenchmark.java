@@ -0,0 +1,124 @@
+package benchmark;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.osgl.BenchmarkBase;
+import org.osgl.util.IO;
+import org.osgl.util.S;
+import org.osgl.util.ZipBuilder;
+
+import java.io.*;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Compare {@link ZipBuilder} against the `ZipOutputStream` loop
+ * {@link IO#zipInto(File, File...)} used before, with text reports and
+ * already compressed images.
+ */
+@BenchmarkOptions(warmupRounds = 5, benchmarkRounds = 20)
+public class ZipBenchmark extends BenchmarkBase {
+
+    private static final int FILES = 200;
+
+    private static File dir;
+    private static File[] files;
+    private static File target;
+
+    private static long sink;
+
+    @BeforeClass
+    public static void prepare() {
+        dir = IO.tmpFile();
+        IO.delete(dir);
+        dir.mkdirs();
+        files = new File[FILES];
+        Random random = new Random(1);
+        for (int i = 0; i < FILES; ++i) {
+            if (i % 4 == 0) {
+                byte[] image = new byte[64 * 1024];
+                random.nextBytes(image);
+                files[i] = new File(dir, "photo-" + i + ".jpg");
+                IO.write(image, files[i]);
+            } else {
+                S.Buffer buf = S.buffer();
+                for (int row = 0; row < 500; ++row) {
+                    buf.append(row).append(',').append(random.nextInt(100000)).append(",report ").append(i).append('\n');
+                }
+                files[i] = new File(dir, "report-" + i + ".csv");
+                IO.write(buf.toString(), files[i]);
+            }
+        }
+        target = new File(dir, "target.zip");
+    }
+
+    @AfterClass
+    public static void cleanUp() {
+        IO.delete(dir, true);
+    }
+
+    @Test
+    public void zipBuilder() {
+        ZipBuilder zip = IO.zipTo(target);
+        for (File file : files) {
+            zip.add(file);
+        }
+        zip.close();
+        sink += target.length();
+    }
+
+    @Test
+    public void zipBuilderSingleThread() {
+        ZipBuilder zip = IO.zipTo(target).threads(1);
+        for (File file : files) {
+            zip.add(file);
+        }
+        zip.close();
+        sink += target.length();
+    }
+
+    @Test
+    public void zipOutputStreamLegacy() throws IOException {
+        ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(target)));
+        try {
+            byte[] buffer = new byte[128];
+            for (File f : files) {
+                ZipEntry entry = new ZipEntry(f.getName());
+                InputStream is = new BufferedInputStream(new FileInputStream(f));
+                zos.putNextEntry(entry);
+                int read;
+                while ((read = is.read(buffer)) != -1) {
+                    zos.write(buffer, 0, read);
+                }
+                zos.closeEntry();
+                IO.close(is);
+            }
+        } finally {
+            IO.close(zos);
+        }
+        sink += target.length();
+    }
+
+}
@@ -30,4 +30,13 @@ public class BreakTest extends TestBase {
         $.Break b = new $.Break(payload);
         eq(payload, b.get());
     }
+
+    @Test
+    public void testSharedBreakIsStackless() {
+        $.Break b = $.BREAK;
+        eq(0, b.getStackTrace().length);
+        b.addSuppressed(new RuntimeException());
+        eq(0, b.getSuppressed().length);
+        isNull(b.get());
+    }
 }
@@ -21,9 +21,13 @@ package org.osgl;
  */
 
 import org.junit.Test;
+import org.osgl.exception.UnexpectedMethodInvocationException;
 import org.osgl.exception.UnexpectedNoSuchMethodException;
+import org.osgl.util.ClassMeta;
 import org.osgl.util.E;
+import org.osgl.util.MethodInvoker;
 
+import java.io.IOException;
 import java.lang.reflect.Method;
 
 /**
@@ -48,6 +52,44 @@ public class InvokeMethodTest extends TestBase {
         public static void minusOne($.Var<Integer> num) {
             num.set(num.get() - 1);
         }
+
+        public String o(Object o) {
+            return "object";
+        }
+
+        public String o(CharSequence o) {
+            return "charSequence";
+        }
+
+        public int sum(int a, long b) {
+            return (int) (a + b);
+        }
+
+        private String secret() {
+            return "secret";
+        }
+
+        public void io() throws IOException {
+            throw new IOException("io");
+        }
+    }
+
+    @Test
+    public void testPrimitiveFastPaths() {
+        Foo foo = new Foo();
+        MethodInvoker sum = ClassMeta.of(Foo.class).invoker("sum", new Class<?>[]{Integer.class, Long.class}, true);
+        eq(3, sum.invokeInt(foo, 1, 2L));
+        eq(3L, sum.invokeLong(foo, 1, 2L));
+        eq(3d, sum.invokeDouble(foo, 1, 2L));
+        MethodInvoker b = ClassMeta.of(Foo.class).invoker("b", new Class<?>[]{String.class}, true);
+        yes(b.invokeBoolean(foo, "true"));
+        no(b.invokeBoolean(foo, "false"));
+        try {
+            ClassMeta.of(Foo.class).invoker("v", new Class<?>[]{Integer.class, Integer.class}, true).invokeInt(foo, 1, 2);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
     }
 
     @Test
@@ -90,6 +132,51 @@ public class InvokeMethodTest extends TestBase {
         eq("12", $.invokeStatic(method, "1", 2));
     }
 
+    @Test
+    public void testMostSpecificOverload() {
+        eq("charSequence", $.invokeVirtual(new Foo(), "o", "str"));
+        eq("object", $.invokeVirtual(new Foo(), "o", 1));
+    }
+
+    @Test
+    public void testNullArgument() {
+        eq("null0", $.invokeStatic(Foo.class, "bar", null, 0));
+    }
+
+    @Test
+    public void testPrimitiveArguments() {
+        eq(3, $.invokeVirtual(new Foo(), "sum", 1, 2L));
+    }
+
+    @Test(expected = UnexpectedNoSuchMethodException.class)
+    public void testArgumentCountMismatch() {
+        $.invokeVirtual(new Foo(), "sum", 1);
+    }
+
+    @Test
+    public void testInvokePrivateMethod() {
+        eq("secret", $.invokeVirtual(new Foo(), "secret"));
+    }
+
+    @Test
+    public void testCheckedExceptionWrapped() {
+        try {
+            $.invokeVirtual(new Foo(), "io");
+            fail("expect UnexpectedMethodInvocationException");
+        } catch (UnexpectedMethodInvocationException e) {
+            yes(e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void testResolutionCached() {
+        $.Var<Method> bag1 = $.var();
+        $.Var<Method> bag2 = $.var();
+        $.invokeStatic(bag1, Foo.class, "bar", "foo", 1);
+        $.invokeStatic(bag2, Foo.class, "bar", "foo", 2);
+        same(bag1.get(), bag2.get());
+    }
+
     @Test
     public void testInvokeStaticAndCache() {
         $.Var<Method> bag = $.var();
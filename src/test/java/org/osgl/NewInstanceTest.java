@@ -22,7 +22,13 @@ package org.osgl;
 
 import org.junit.Test;
 import org.osgl.exception.UnexpectedNewInstanceException;
+import org.osgl.util.C;
+import org.osgl.util.ClassMeta;
 import org.osgl.util.E;
+import org.osgl.util.InstanceFactory;
+
+import java.io.IOException;
+import java.util.*;
 
 /**
  * Test `newInstance(...)` method of {@link Osgl} class
@@ -39,6 +45,42 @@ public class NewInstanceTest extends TestBase {
         }
     }
 
+    private static class Bar {
+        private final String s;
+        private Bar() {
+            this("bar");
+        }
+        Bar(String s) {
+            this.s = s;
+        }
+        Bar(Object o) {
+            this.s = "object";
+        }
+    }
+
+    private static class Broken {
+        Broken() throws IOException {
+            throw new IOException("broken");
+        }
+    }
+
+    // neither an Exception nor an Error
+    private static class Failure extends Throwable {
+    }
+
+    private static class Failing {
+        Failing() throws Failure {
+            throw new Failure();
+        }
+    }
+
+    private static abstract class Abstract {
+    }
+
+    private static class NoDefault {
+        NoDefault(String s) {}
+    }
+
     private static final Class<Foo> FOO_CLASS = Foo.class;
 
     @Test
@@ -72,4 +114,84 @@ public class NewInstanceTest extends TestBase {
             // pass
         }
     }
+
+    @Test
+    public void testNewInstanceWithNonPublicConstructor() {
+        eq("bar", $.newInstance(Bar.class).s);
+        eq("bar", $.newInstance(Bar.class).s);
+        notNull(ClassMeta.of(Bar.class).defaultConstructor());
+        same(ClassMeta.of(Bar.class).instantiator(), ClassMeta.of(Bar.class).instantiator());
+    }
+
+    @Test
+    public void testMostSpecificConstructor() {
+        eq("x", $.newInstance(Bar.class, "x").s);
+        eq("object", $.newInstance(Bar.class, 1).s);
+        // null matches any non primitive parameter
+        notNull($.newInstance(FOO_CLASS, null, 5));
+    }
+
+    @Test
+    public void testNewInstanceOfBuiltInTypes() {
+        eq(0, $.newInstance(int.class));
+        eq("", $.newInstance(String.class));
+        yes($.newInstance(Map.class) instanceof HashMap);
+        yes($.newInstance(Queue.class) instanceof LinkedList);
+        notSame($.newInstance(List.class), $.newInstance(List.class));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testNewInstanceOfUnknownInterface() {
+        $.newInstance(Runnable.class);
+    }
+
+    @Test(expected = UnexpectedNewInstanceException.class)
+    public void testNoDefaultConstructor() {
+        $.newInstance(NoDefault.class);
+    }
+
+    @Test(expected = UnexpectedNewInstanceException.class)
+    public void testAbstractClass() {
+        $.newInstance(Abstract.class);
+    }
+
+    @Test
+    public void testCheckedExceptionWrapped() {
+        try {
+            $.newInstance(Broken.class);
+            fail("It shall throw out UnexpectedNewInstanceException");
+        } catch (UnexpectedNewInstanceException e) {
+            yes(e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void testCustomThrowableWrapped() {
+        try {
+            $.newInstance(Failing.class);
+            fail("It shall throw out UnexpectedNewInstanceException");
+        } catch (UnexpectedNewInstanceException e) {
+            yes(e.getCause() instanceof Failure);
+        }
+    }
+
+    @Test
+    public void testRegisteredInstanceFactory() {
+        final Bar managed = new Bar("managed");
+        InstanceFactory factory = new InstanceFactory() {
+            @Override
+            public <T> T newInstance(Class<T> type) {
+                return Bar.class == type ? (T) managed : null;
+            }
+        };
+        OsglConfig.registerInstanceFactory(factory);
+        try {
+            same(managed, OsglConfig.globalInstanceFactory().apply(Bar.class));
+            yes(OsglConfig.globalInstanceFactory().apply(C.List.class) instanceof C.List);
+            eq("", OsglConfig.globalInstanceFactory().apply(String.class));
+        } finally {
+            OsglConfig.unregisterInstanceFactory(factory);
+        }
+        notSame(managed, OsglConfig.globalInstanceFactory().apply(Bar.class));
+    }
 }
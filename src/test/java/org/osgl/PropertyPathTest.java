@@ -0,0 +1,177 @@
+package org.osgl;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.osgl.cache.CacheService;
+import org.osgl.util.C;
+
+import java.util.List;
+import java.util.Map;
+
+public class PropertyPathTest extends TestBase {
+
+    public static class Address {
+        private String city;
+        private String[] lines;
+
+        public Address() {}
+
+        Address(String city, String... lines) {
+            this.city = city;
+            this.lines = lines;
+        }
+
+        public String getCity() {
+            return city;
+        }
+    }
+
+    public static class Person {
+        private String name;
+        private Address address;
+        private List<Address> history = C.newList();
+        private Map<String, Address> places = C.newMap();
+        private Map<String, Integer> scores = C.newMap();
+
+        public Person() {}
+
+        Person(String name, Address address) {
+            this.name = name;
+            this.address = address;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    public static class Employee extends Person {
+        private String title;
+
+        Employee(String name, Address address, String title) {
+            super(name, address);
+            this.title = title;
+        }
+    }
+
+    public static class Company {
+        private String name;
+        private Address address;
+
+        Company(String name, Address address) {
+            this.name = name;
+            this.address = address;
+        }
+    }
+
+    private static final String[] PATHS = {
+            "name", "address.city", "address/city", "address.lines.1", "address.lines[0]",
+            "history.0.city", "history[1].city", "history.city", "places.home.city",
+            "places[work][city]", "scores.math", "address.lines.5", "places.none.city"
+    };
+
+    @Test
+    public void testInterned() {
+        same($.PropertyPath.of("a.b.c"), $.PropertyPath.of("a.b.c"));
+        eq("a[0].b", $.PropertyPath.of("a[0].b").toString());
+    }
+
+    @Test
+    public void testSameAsUncompiled() {
+        Person person = person();
+        for (String path : PATHS) {
+            Object expected = $.getProperty((CacheService) null, person, path);
+            eq(expected, $.PropertyPath.of(path).get(person));
+            eq(expected, $.getProperty(person, path));
+        }
+    }
+
+    @Test
+    public void testGet() {
+        Person person = person();
+        $.PropertyPath path = $.PropertyPath.of("address.city");
+        eq("Sydney", path.get(person));
+        eq("Sydney", path.get(person));
+        eq("b", $.getProperty(person, "address.lines[1]"));
+        eq("Hobart", $.getProperty(person, "history.city"));
+        eq("Perth", $.getProperty(person, "places.work.city"));
+        eq(90, $.getProperty(person, "scores.math"));
+        isNull($.getProperty(person, "address.lines.5"));
+        isNull($.getProperty(person, "places.none.city"));
+        isNull(path.get(null));
+        person.address = null;
+        isNull(path.get(person));
+    }
+
+    @Test
+    public void testPolymorphicEntities() {
+        $.PropertyPath path = $.PropertyPath.of("address.city");
+        Person person = person();
+        Employee employee = new Employee("Jack", new Address("Darwin"), "dev");
+        Company company = new Company("OSGL", new Address("Cairns"));
+        for (int i = 0; i < 3; ++i) {
+            eq("Sydney", path.get(person));
+            eq("Darwin", path.get(employee));
+            eq("Cairns", path.get(company));
+        }
+        eq("dev", $.getProperty(employee, "title"));
+        eq("OSGL", $.getProperty(company, "name"));
+        eq("Tom", $.getProperty(person, "name"));
+    }
+
+    @Test
+    public void testSet() {
+        Person person = new Person();
+        $.PropertyPath path = $.PropertyPath.of("address.city");
+        path.set(person, "Sydney");
+        eq("Sydney", person.address.city);
+        path.set(person, "Melbourne");
+        eq("Melbourne", person.address.city);
+        $.setProperty(person, "Tom", "name");
+        eq("Tom", person.name);
+        $.setProperty(person, "Hobart", "history[0].city");
+        eq("Hobart", person.history.get(0).city);
+        $.setProperty(person, "Perth", "places.work.city");
+        eq("Perth", person.places.get("work").city);
+        $.setProperty(person, 80, "scores.math");
+        eq(80, person.scores.get("math"));
+        Company company = new Company("OSGL", null);
+        path.set(company, "Cairns");
+        eq("Cairns", company.address.city);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testSetOnNull() {
+        $.PropertyPath.of("address.city").set(null, "Sydney");
+    }
+
+    private static Person person() {
+        Person person = new Person("Tom", new Address("Sydney", "a", "b"));
+        person.history.add(new Address("Hobart"));
+        person.history.add(new Address("Adelaide"));
+        person.places.put("home", new Address("Brisbane"));
+        person.places.put("work", new Address("Perth"));
+        person.scores.put("math", 90);
+        return person;
+    }
+
+}
@@ -0,0 +1,370 @@
+package org.osgl.concurrent;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgl.$;
+import org.osgl.TestBase;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SchedulerTest extends TestBase {
+
+    private ExecutorService workers;
+    private Scheduler scheduler;
+
+    @Before
+    public void prepare() {
+        workers = Executors.newFixedThreadPool(2);
+        scheduler = new Scheduler(workers);
+    }
+
+    @After
+    public void cleanUp() {
+        scheduler.shutdown();
+        workers.shutdownNow();
+    }
+
+    private static $.F0<String> constant(final String s) {
+        return new $.F0<String>() {
+            @Override
+            public String apply() {
+                return s;
+            }
+        };
+    }
+
+    private static $.F0<Integer> counter(final AtomicInteger count) {
+        return new $.F0<Integer>() {
+            @Override
+            public Integer apply() {
+                return count.incrementAndGet();
+            }
+        };
+    }
+
+    @Test
+    public void testSchedule() throws Exception {
+        long start = System.nanoTime();
+        Scheduler.Task<String> task = scheduler.schedule(constant("foo"), 50, TimeUnit.MILLISECONDS);
+        eq("foo", task.get(5, TimeUnit.SECONDS));
+        yes(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        yes(task.isDone());
+        no(task.isCancelled());
+    }
+
+    @Test
+    public void testDelayedTasksDoNotOccupyWorkers() throws Exception {
+        for (int i = 0; i < 10; ++i) {
+            scheduler.schedule(constant("later"), 10, TimeUnit.SECONDS);
+        }
+        long start = System.nanoTime();
+        eq("now", scheduler.submit(constant("now")).get(5, TimeUnit.SECONDS));
+        yes(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        eq(10, scheduler.metrics().delayed());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        Scheduler.Task<Integer> task = scheduler.schedule(counter(count), 200, TimeUnit.MILLISECONDS);
+        eq(1, scheduler.metrics().queueDepth());
+        yes(task.cancel(false));
+        no(task.cancel(false));
+        yes(task.isCancelled());
+        yes(task.isDone());
+        eq(0, scheduler.metrics().queueDepth());
+        eq(1L, scheduler.metrics().cancellations());
+        try {
+            task.get();
+            fail("CancellationException expected");
+        } catch (CancellationException e) {
+            // expected
+        }
+        Thread.sleep(300);
+        eq(0, count.get());
+    }
+
+    @Test
+    public void testCancelRunningTask() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        Scheduler.Task<Void> task = scheduler.submit(new $.F0<Void>() {
+            @Override
+            public Void apply() {
+                started.countDown();
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return null;
+            }
+        });
+        yes(started.await(5, TimeUnit.SECONDS));
+        yes(task.cancel(true));
+        yes(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCancelInterruptDoesNotLeak() throws Exception {
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        Scheduler scheduler = new Scheduler(single);
+        try {
+            $.F0<Boolean> probe = new $.F0<Boolean>() {
+                @Override
+                public Boolean apply() {
+                    return Thread.currentThread().isInterrupted();
+                }
+            };
+            for (int i = 0; i < 200; ++i) {
+                final CountDownLatch started = new CountDownLatch(1);
+                Scheduler.Task<Void> task = scheduler.submit(new $.F0<Void>() {
+                    @Override
+                    public Void apply() {
+                        started.countDown();
+                        // busy, returns around the time it is cancelled
+                        long end = System.nanoTime() + 100000;
+                        while (System.nanoTime() < end) {
+                            Thread.yield();
+                        }
+                        return null;
+                    }
+                });
+                yes(started.await(5, TimeUnit.SECONDS));
+                task.cancel(true);
+                no(scheduler.submit(probe).get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            scheduler.shutdown();
+            single.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFixedRate() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(5);
+        Scheduler.Task<Void> task = scheduler.scheduleAtFixedRate(new $.F0<Void>() {
+            @Override
+            public Void apply() {
+                count.incrementAndGet();
+                latch.countDown();
+                return null;
+            }
+        }, 0, 10, TimeUnit.MILLISECONDS);
+        yes(latch.await(5, TimeUnit.SECONDS));
+        no(task.isDone());
+        task.cancel(false);
+        int n = count.get();
+        Thread.sleep(100);
+        eq(n, count.get());
+        yes(scheduler.metrics().executions() >= 5);
+    }
+
+    @Test
+    public void testFixedDelayNeverOverlaps() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger overlaps = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(5);
+        Scheduler.Task<Void> task = scheduler.scheduleWithFixedDelay(new $.F0<Void>() {
+            @Override
+            public Void apply() {
+                if (running.incrementAndGet() > 1) {
+                    overlaps.incrementAndGet();
+                }
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                latch.countDown();
+                return null;
+            }
+        }, 0, 1, TimeUnit.MILLISECONDS);
+        yes(latch.await(5, TimeUnit.SECONDS));
+        task.cancel(false);
+        eq(0, overlaps.get());
+    }
+
+    @Test
+    public void testBreakStopsRepeating() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        Scheduler.Task<String> task = scheduler.scheduleAtFixedRate(new $.F0<String>() {
+            @Override
+            public String apply() {
+                if (count.incrementAndGet() == 3) {
+                    throw $.breakOut("done");
+                }
+                return null;
+            }
+        }, 0, 5, TimeUnit.MILLISECONDS);
+        eq("done", task.get(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        eq(3, count.get());
+    }
+
+    @Test
+    public void testFailureStopsRepeating() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        Scheduler.Task<Void> task = scheduler.scheduleWithFixedDelay(new $.F0<Void>() {
+            @Override
+            public Void apply() {
+                count.incrementAndGet();
+                throw new IllegalStateException("boom");
+            }
+        }, 0, 5, TimeUnit.MILLISECONDS);
+        try {
+            task.get(5, TimeUnit.SECONDS);
+            fail("ExecutionException expected");
+        } catch (ExecutionException e) {
+            yes(e.getCause() instanceof IllegalStateException);
+        }
+        yes(task.isFailed());
+        Thread.sleep(50);
+        eq(1, count.get());
+        eq(1L, scheduler.metrics().failures());
+    }
+
+    @Test
+    public void testComposition() throws Exception {
+        Scheduler.Task<Integer> task = scheduler.schedule(constant("osgl"), 10, TimeUnit.MILLISECONDS)
+                .map(new $.F1<String, Integer>() {
+                    @Override
+                    public Integer apply(String s) {
+                        return s.length();
+                    }
+                })
+                .flatMap(new $.F1<Integer, Scheduler.Task<Integer>>() {
+                    @Override
+                    public Scheduler.Task<Integer> apply(final Integer n) {
+                        return scheduler.schedule(new $.F0<Integer>() {
+                            @Override
+                            public Integer apply() {
+                                return n * 10;
+                            }
+                        }, 10, TimeUnit.MILLISECONDS);
+                    }
+                });
+        eq(40, task.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRecover() throws Exception {
+        final AtomicInteger failures = new AtomicInteger();
+        Scheduler.Task<String> task = scheduler.submit(new $.F0<String>() {
+            @Override
+            public String apply() {
+                throw new IllegalStateException("boom");
+            }
+        }).onFailure(new $.F1<Throwable, Void>() {
+            @Override
+            public Void apply(Throwable t) {
+                failures.incrementAndGet();
+                return null;
+            }
+        }).recover(new $.F1<Throwable, String>() {
+            @Override
+            public String apply(Throwable t) {
+                return t.getMessage();
+            }
+        });
+        eq("boom", task.get(5, TimeUnit.SECONDS));
+        eq(1, failures.get());
+    }
+
+    @Test
+    public void testCompositionOnCompletedTask() throws Exception {
+        Scheduler.Task<String> task = scheduler.submit(constant("x"));
+        eq("x", task.get(5, TimeUnit.SECONDS));
+        final AtomicInteger successes = new AtomicInteger();
+        Scheduler.Task<String> next = task.onSuccess(new $.F1<String, Void>() {
+            @Override
+            public Void apply(String s) {
+                successes.incrementAndGet();
+                return null;
+            }
+        });
+        yes(next.isDone());
+        eq("x", next.get());
+        eq(1, successes.get());
+    }
+
+    @Test
+    public void testCancellationPropagatesToDerivedTask() throws Exception {
+        Scheduler.Task<String> task = scheduler.schedule(constant("x"), 10, TimeUnit.SECONDS);
+        Scheduler.Task<String> next = task.map(new $.F1<String, String>() {
+            @Override
+            public String apply(String s) {
+                return s + s;
+            }
+        });
+        task.cancel(false);
+        try {
+            next.get(5, TimeUnit.SECONDS);
+            fail("ExecutionException expected");
+        } catch (ExecutionException e) {
+            yes(e.getCause() instanceof CancellationException);
+        }
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void testGetTimeout() throws Exception {
+        scheduler.schedule(constant("x"), 10, TimeUnit.SECONDS).get(10, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        for (int i = 0; i < 5; ++i) {
+            scheduler.submit(constant("x")).get(5, TimeUnit.SECONDS);
+        }
+        scheduler.schedule(constant("y"), 10, TimeUnit.SECONDS);
+        Scheduler.Metrics metrics = scheduler.metrics();
+        eq(6L, metrics.submitted());
+        eq(5L, metrics.executions());
+        eq(1, metrics.delayed());
+        eq(0, metrics.queued());
+        yes(metrics.maxLag(TimeUnit.NANOSECONDS) >= metrics.averageLag(TimeUnit.NANOSECONDS));
+        yes(metrics.averageLag(TimeUnit.NANOSECONDS) >= 0);
+    }
+
+    @Test
+    public void testShutdown() throws Exception {
+        scheduler.shutdown();
+        Scheduler.Task<String> task = scheduler.schedule(constant("x"), 10, TimeUnit.MILLISECONDS);
+        try {
+            task.get(5, TimeUnit.SECONDS);
+            fail("ExecutionException expected");
+        } catch (ExecutionException e) {
+            yes(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    @Test
+    public void testAsync() throws Exception {
+        eq("foo", $.async(constant("foo"), 10).get(5, TimeUnit.SECONDS));
+    }
+
+}
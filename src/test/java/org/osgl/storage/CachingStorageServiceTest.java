@@ -0,0 +1,282 @@
+package org.osgl.storage;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgl.TestBase;
+import org.osgl.storage.impl.CachingStorageService;
+import org.osgl.storage.impl.LocalStorageService;
+import org.osgl.storage.impl.SObject;
+import org.osgl.util.C;
+import org.osgl.util.IO;
+import org.osgl.util.S;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CachingStorageServiceTest extends TestBase {
+
+    private static class CountingStorageService extends LocalStorageService {
+        final AtomicInteger fetches = new AtomicInteger();
+        volatile long latency;
+
+        CountingStorageService(File root) {
+            super(root);
+        }
+
+        @Override
+        public ISObject getFull(String key) {
+            fetches.incrementAndGet();
+            if (latency > 0) {
+                try {
+                    Thread.sleep(latency);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.getFull(key);
+        }
+
+        @Override
+        public ISObject put(String key, ISObject stuff) {
+            ISObject sobj = super.put(key, stuff);
+            // do not count the getFull call made inside put
+            fetches.decrementAndGet();
+            return sobj;
+        }
+    }
+
+    private File root;
+    private File cacheDir;
+    private CountingStorageService backend;
+    private CachingStorageService ss;
+
+    @Before
+    public void prepare() {
+        root = IO.tmpFile();
+        IO.delete(root);
+        cacheDir = IO.tmpFile();
+        IO.delete(cacheDir);
+        backend = new CountingStorageService(root);
+        ss = new CachingStorageService(backend, 8 * 1024, cacheDir, 64 * 1024);
+    }
+
+    @After
+    public void cleanUp() {
+        IO.delete(root, true);
+        IO.delete(cacheDir, true);
+    }
+
+    @Test
+    public void testMemoryHit() {
+        ss.put("k", SObject.of("hello"));
+        eq("hello", ss.get("k").asString());
+        eq("hello", ss.get("k").asString());
+        eq("hello", ss.getFull("k").asString());
+        eq(1, backend.fetches.get());
+        eq(2L, ss.metrics().memoryHits());
+        eq(1L, ss.metrics().misses());
+    }
+
+    @Test
+    public void testNotFound() {
+        isNull(ss.get("x"));
+        isNull(ss.get("x"));
+        eq(2, backend.fetches.get());
+    }
+
+    @Test
+    public void testAttributesPreserved() {
+        SObject stuff = SObject.of("abc");
+        stuff.setAttribute("owner", "osgl");
+        ss.put("k", stuff);
+        ss.get("k");
+        ISObject sobj = ss.get("k");
+        eq("osgl", sobj.getAttribute("owner"));
+        yes(ss.isManaged(sobj));
+    }
+
+    @Test
+    public void testInvalidateOnPut() {
+        ss.put("k", SObject.of("v1"));
+        eq("v1", ss.get("k").asString());
+        ss.put("k", SObject.of("v2"));
+        eq("v2", ss.get("k").asString());
+        eq(2, backend.fetches.get());
+    }
+
+    @Test
+    public void testInvalidateOnRemove() {
+        ss.put("k", SObject.of("v1"));
+        eq("v1", ss.get("k").asString());
+        ss.remove("k");
+        isNull(ss.get("k"));
+    }
+
+    @Test
+    public void testEvictToDiskTier() {
+        String content = S.times("x", 1000);
+        for (int i = 0; i < 20; ++i) {
+            ss.put("k" + i, SObject.of(content));
+            ss.get("k" + i);
+        }
+        yes(ss.memorySize() <= 8 * 1024);
+        yes(ss.metrics().memoryEvictions() > 0);
+        eq(20, backend.fetches.get());
+        // k0 has been evicted from memory tier, but still in disk tier
+        eq(content, ss.get("k0").asString());
+        eq(20, backend.fetches.get());
+        eq(1L, ss.metrics().diskHits());
+    }
+
+    @Test
+    public void testLargeObjectServedFromDisk() {
+        String content = S.times("y", 4096);
+        ss.put("big", SObject.of(content));
+        eq(content, ss.get("big").asString());
+        eq(content, ss.get("big").asString());
+        eq(1, backend.fetches.get());
+        eq(0L, ss.memorySize());
+        eq(4096L, ss.diskSize());
+    }
+
+    @Test
+    public void testDiskTierEviction() {
+        String content = S.times("z", 4096);
+        for (int i = 0; i < 20; ++i) {
+            ss.put("k" + i, SObject.of(content));
+            ss.get("k" + i);
+        }
+        yes(ss.diskSize() <= 64 * 1024);
+        yes(ss.metrics().diskEvictions() > 0);
+        eq(content, ss.get("k0").asString());
+        eq(21, backend.fetches.get());
+    }
+
+    @Test
+    public void testMemoryOnly() {
+        CachingStorageService ss = new CachingStorageService(backend, 8 * 1024);
+        ss.put("k", SObject.of("v"));
+        eq("v", ss.get("k").asString());
+        eq("v", ss.get("k").asString());
+        eq(1, backend.fetches.get());
+        String big = S.times("b", 2048);
+        ss.put("big", SObject.of(big));
+        eq(big, ss.get("big").asString());
+        eq(big, ss.get("big").asString());
+        eq(3, backend.fetches.get());
+    }
+
+    @Test
+    public void testLazyLoadThroughCache() {
+        ss.put("k", SObject.of("lazy"));
+        eq("lazy", ss.getLazy("k", C.<String, String>Map()).asString());
+        eq("lazy", ss.getLazy("k", C.<String, String>Map()).asString());
+        eq(1, backend.fetches.get());
+    }
+
+    @Test
+    public void testSubFolder() {
+        IStorageService sub = ss.subFolder("sub");
+        sub.put("k", SObject.of("sub"));
+        ss.put("k", SObject.of("root"));
+        eq("sub", sub.get("k").asString());
+        eq("root", ss.get("k").asString());
+        eq("sub", sub.get("k").asString());
+        eq(2L, ss.metrics().misses());
+        eq(1L, ss.metrics().hits());
+    }
+
+    @Test
+    public void testMultipartUploadInvalidatesCache() {
+        ss.put("k", SObject.of("old"));
+        eq("old", ss.get("k").asString());
+        IMultipartUpload upload = ss.startMultipartUpload("k", null);
+        upload.uploadPart(1, IO.is("new"));
+        upload.uploadPart(0, IO.is("brand "));
+        eq("brand new", upload.complete().asString());
+        eq("brand new", ss.get("k").asString());
+    }
+
+    @Test
+    public void testInvalidateOtherKeyDuringFetch() throws Exception {
+        ss.put("a", SObject.of("a"));
+        ss.put("b", SObject.of("b"));
+        backend.latency = 200;
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> future = executor.submit(new Callable<String>() {
+            @Override
+            public String call() {
+                return ss.get("b").asString();
+            }
+        });
+        Thread.sleep(50);
+        ss.invalidate("a");
+        eq("b", future.get());
+        executor.shutdown();
+        backend.latency = 0;
+        eq("b", ss.get("b").asString());
+        eq(1, backend.fetches.get());
+    }
+
+    @Test
+    public void testDiskObjectReadableAfterEviction() {
+        String content = S.times("y", 4096);
+        ss.put("big", SObject.of(content));
+        ss.get("big");
+        ISObject sobj = ss.get("big");
+        eq(1L, ss.metrics().diskHits());
+        ss.invalidate("big");
+        eq(0L, ss.diskSize());
+        eq(content, sobj.asString());
+    }
+
+    @Test
+    public void testCoalesceConcurrentMisses() throws Exception {
+        ss.put("k", SObject.of("slow"));
+        backend.latency = 200;
+        final int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> futures = C.newList();
+        for (int i = 0; i < threads; ++i) {
+            futures.add(executor.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    start.await();
+                    return ss.get("k").asString();
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<String> future : futures) {
+            eq("slow", future.get());
+        }
+        executor.shutdown();
+        eq(1, backend.fetches.get());
+        eq((long) threads, ss.metrics().misses() + ss.metrics().hits());
+    }
+
+}
@@ -0,0 +1,259 @@
+package org.osgl.storage;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgl.TestBase;
+import org.osgl.storage.impl.LocalStorageService;
+import org.osgl.storage.impl.SObject;
+import org.osgl.util.C;
+import org.osgl.util.IO;
+import org.osgl.util.S;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.channels.Channels;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LocalStorageServiceTest extends TestBase {
+
+    private File root;
+    private LocalStorageService ss;
+
+    @Before
+    public void prepare() {
+        root = IO.tmpFile();
+        IO.delete(root);
+        ss = new LocalStorageService(root);
+    }
+
+    @After
+    public void cleanUp() {
+        IO.delete(root, true);
+    }
+
+    @Test
+    public void testPutAndGet() {
+        ss.put("foo/bar.txt", SObject.of("hello world"));
+        ISObject sobj = ss.get("foo/bar.txt");
+        eq("hello world", sobj.asString());
+        eq(11L, sobj.getLength());
+        yes(ss.isManaged(sobj));
+    }
+
+    @Test
+    public void testGetNotFound() {
+        isNull(ss.get("not-found"));
+    }
+
+    @Test
+    public void testAttributes() {
+        SObject stuff = SObject.of("abc");
+        stuff.setFilename("abc.txt");
+        stuff.setAttribute("owner", "osgl");
+        ss.put("abc", stuff);
+        ISObject sobj = ss.get("abc");
+        eq("abc.txt", sobj.getFilename());
+        eq("osgl", sobj.getAttribute("owner"));
+        isNull(sobj.getAttribute("__blob"));
+    }
+
+    @Test
+    public void testOverwrite() {
+        ss.put("k", SObject.of("v1"));
+        ss.put("k", SObject.of("v2"));
+        eq("v2", ss.get("k").asString());
+    }
+
+    @Test
+    public void testRemove() {
+        ss.put("k", SObject.of("v1"));
+        ss.remove("k");
+        isNull(ss.get("k"));
+    }
+
+    @Test
+    public void testLazyLoad() {
+        ss.put("k", SObject.of("lazy"));
+        Map<String, String> attrs = C.Map("owner", "osgl");
+        ISObject lazy = ss.getLazy("k", attrs);
+        yes(lazy instanceof SObject.LazyLoadSObject);
+        eq("lazy", lazy.asString());
+        ISObject loaded = ss.loadContent(lazy);
+        eq("lazy", loaded.asString());
+        eq("osgl", loaded.getAttribute("owner"));
+        eq("lazy", ss.forceGet("k").asString());
+    }
+
+    @Test
+    public void testSubFolder() {
+        IStorageService sub = ss.subFolder("sub");
+        sub.put("k", SObject.of("in sub"));
+        isNull(ss.get("k"));
+        eq("in sub", sub.get("k").asString());
+        eq("in sub", ss.get("sub/k").asString());
+        eq("sub", sub.getContextPath());
+        eq("sub/k", sub.getKey("k"));
+        same(sub, ss.subFolder("sub"));
+        no(ss.isManaged(sub.get("k")));
+    }
+
+    @Test
+    public void testUrl() {
+        LocalStorageService ss = new LocalStorageService(C.Map(
+                LocalStorageService.CONF_HOME_DIR, root.getAbsolutePath(),
+                LocalStorageService.CONF_HOME_URL, "http://cdn.osgl.org"));
+        ss.put("k", SObject.of("v"));
+        String url = ss.get("k").getUrl();
+        yes(url.startsWith("http://cdn.osgl.org/"));
+        yes(url.endsWith("/k"));
+    }
+
+    @Test
+    public void testTransferToAndMap() {
+        ss.put("k", SObject.of("content"));
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        eq(7L, ss.transferTo("k", Channels.newChannel(baos)));
+        eq("content", new String(baos.toByteArray()));
+        eq(7, ss.map("k").remaining());
+        eq(-1L, ss.transferTo("x", Channels.newChannel(baos)));
+    }
+
+    @Test
+    public void testDedup() {
+        LocalStorageService ss = new LocalStorageService(C.Map(
+                LocalStorageService.CONF_HOME_DIR, root.getAbsolutePath(),
+                LocalStorageService.CONF_DEDUP, "true"));
+        ss.put("a", SObject.of("same content"));
+        ss.put("b", SObject.of("same content"));
+        eq("same content", ss.get("a").asString());
+        eq("same content", ss.get("b").asString());
+        File blobRoot = new File(root, ".blob");
+        eq(1, countFiles(blobRoot));
+        ss.remove("a");
+        eq("same content", ss.get("b").asString());
+        eq(1, countFiles(blobRoot));
+        ss.put("b", SObject.of("new content"));
+        eq("new content", ss.get("b").asString());
+        // the blob of the overwritten content is released
+        eq(1, countFiles(blobRoot));
+        ss.put("b", SObject.of("newer content"));
+        ss.put("b", SObject.of("newer content"));
+        eq("newer content", ss.get("b").asString());
+        eq(1, countFiles(blobRoot));
+        ss.remove("b");
+        eq(0, countFiles(blobRoot));
+        eq(0, countFiles(new File(root, ".tmp")));
+    }
+
+    @Test
+    public void testMultipartUpload() {
+        IMultipartUpload upload = ss.startMultipartUpload("big", C.Map(ISObject.ATTR_FILE_NAME, "big.txt"));
+        upload.uploadPart(2, IO.is("world"));
+        upload.uploadPart(0, IO.is("hello"));
+        upload.uploadPart(1, SObject.of("--"));
+        upload.uploadPart(1, SObject.of(" "));
+        eq(11L, upload.getUploadedLength());
+        ISObject sobj = upload.complete();
+        eq("hello world", sobj.asString());
+        eq("big.txt", ss.get("big").getFilename());
+        eq(0, countFiles(new File(root, ".tmp")));
+    }
+
+    @Test
+    public void testAbortMultipartUpload() {
+        IMultipartUpload upload = ss.startMultipartUpload("big", null);
+        upload.uploadPart(0, IO.is("hello"));
+        upload.abort();
+        isNull(ss.get("big"));
+        eq(0, countFiles(new File(root, ".tmp")));
+    }
+
+    @Test
+    public void concurrencyStressTest() throws Exception {
+        final int threads = 8;
+        final int keys = 16;
+        final int rounds = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final AtomicInteger errors = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = C.newList();
+        for (int t = 0; t < threads; ++t) {
+            final int seed = t;
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < rounds; ++i) {
+                        String key = "k" + ((i + seed) % keys);
+                        if ((i + seed) % 3 == 0) {
+                            ss.put(key, SObject.of(content(key)));
+                        } else {
+                            ISObject sobj = ss.get(key);
+                            if (null != sobj && !content(key).equals(sobj.asString())) {
+                                errors.incrementAndGet();
+                            }
+                        }
+                    }
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        eq(0, errors.get());
+        for (int i = 0; i < keys; ++i) {
+            String key = "k" + i;
+            ISObject sobj = ss.get(key);
+            if (null != sobj) {
+                eq(content(key), sobj.asString());
+            }
+        }
+        eq(0, countFiles(new File(root, ".tmp")));
+    }
+
+    private static String content(String key) {
+        return S.times(key, 1000);
+    }
+
+    private static int countFiles(File dir) {
+        if (!dir.exists()) {
+            return 0;
+        }
+        int n = 0;
+        for (File f : dir.listFiles()) {
+            n += f.isDirectory() ? countFiles(f) : 1;
+        }
+        return n;
+    }
+
+}
@@ -25,6 +25,9 @@ import org.osgl.$;
 import org.osgl.TestBase;
 import org.osgl.storage.impl.SObject;
 
+import org.osgl.util.IO;
+
+import java.io.ByteArrayInputStream;
 import java.io.CharArrayReader;
 import java.io.InputStream;
 import java.io.Reader;
@@ -45,4 +48,49 @@ public class ProbeBinaryTest extends TestBase {
         yes(SObject.of($.convert(reader).to(InputStream.class)).isBinary());
     }
 
+    @Test
+    public void probeShallNotConsumeInputStream() {
+        byte[] content = {'a', 'b', 'c', 0, 'd'};
+        ISObject sobj = SObject.of(new ByteArrayInputStream(content) {
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        });
+        yes(sobj.isBinary());
+        eq(content, sobj.asByteArray());
+    }
+
+    @Test
+    public void probeShallNotConsumeStreamHandedOutBefore() {
+        byte[] content = {'a', 'b', 'c', 0, 'd'};
+        ISObject sobj = SObject.of(new ByteArrayInputStream(content) {
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        });
+        InputStream is = sobj.asInputStream();
+        yes(sobj.isBinary());
+        eq(content, IO.readContent(is));
+    }
+
+    @Test
+    public void contentTypeShallBeSniffedWhenUnknown() {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n', 0, 0, 0, 0x0d};
+        ISObject sobj = SObject.of(new ByteArrayInputStream(png));
+        eq("image/png", sobj.getContentType());
+        yes(sobj.isBinary());
+        eq(png, IO.readContent(sobj.asInputStream()));
+        // attribute takes precedence
+        sobj = SObject.of(png);
+        sobj.setContentType("application/octet-stream");
+        eq("application/octet-stream", sobj.getContentType());
+        // so does filename extension
+        sobj = SObject.of(png);
+        sobj.setFilename("image.gif");
+        eq("image/gif", sobj.getContentType());
+        isNull(SObject.of("plain text").getContentType());
+    }
+
 }
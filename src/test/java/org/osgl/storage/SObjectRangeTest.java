@@ -0,0 +1,190 @@
+package org.osgl.storage;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.osgl.$;
+import org.osgl.TestBase;
+import org.osgl.storage.impl.SObject;
+import org.osgl.util.C;
+import org.osgl.util.IO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Test ranged access API on {@link ISObject}
+ */
+public class SObjectRangeTest extends TestBase {
+
+    private static final String CONTENT = "0123456789abcdefghij";
+
+    private static List<ISObject> samples() {
+        File file = IO.tmpFile();
+        IO.write(CONTENT, file);
+        file.deleteOnExit();
+        return C.<ISObject>list(
+                SObject.of(CONTENT),
+                SObject.of(CONTENT.getBytes()),
+                SObject.of(file)
+        );
+    }
+
+    private static String str(ByteBuffer buf) {
+        byte[] ba = new byte[buf.remaining()];
+        buf.get(ba);
+        return new String(ba);
+    }
+
+    private static String str(ReadableByteChannel channel) {
+        InputStream is = Channels.newInputStream(channel);
+        return IO.readContentAsString(is);
+    }
+
+    @Test
+    public void testRead() {
+        for (ISObject sobj : samples()) {
+            eq("234", str(sobj.read(2, 3)));
+            eq("hij", str(sobj.read(17, 10)));
+            eq("", str(sobj.read(30, 10)));
+        }
+    }
+
+    @Test
+    public void testAsChannel() {
+        for (ISObject sobj : samples()) {
+            eq("abcde", str(sobj.asChannel(10, 5)));
+            eq("fghij", str(sobj.asChannel(15, -1)));
+            eq(CONTENT, str(sobj.asChannel(0, -1)));
+        }
+    }
+
+    @Test
+    public void testTransferTo() {
+        for (ISObject sobj : samples()) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            eq(20L, sobj.transferTo(Channels.newChannel(baos)));
+            eq(CONTENT, new String(baos.toByteArray()));
+            baos = new ByteArrayOutputStream();
+            eq(4L, sobj.transferTo(1, 4, Channels.newChannel(baos)));
+            eq("1234", new String(baos.toByteArray()));
+        }
+    }
+
+    @Test
+    public void testInputStreamSObjectRange() {
+        ISObject sobj = SObject.of(IO.is(CONTENT));
+        eq("5678", str(sobj.read(5, 4)));
+    }
+
+    @Test
+    public void testInputStreamSObjectLength() {
+        ISObject sobj = SObject.of("k", IO.is(CONTENT), ISObject.ATTR_CONTENT_LENGTH, "20");
+        eq(20L, sobj.getLength());
+        sobj = SObject.of(IO.is(CONTENT));
+        sobj.asFile();
+        eq(20L, sobj.getLength());
+        eq(CONTENT, sobj.asString());
+    }
+
+    @Test
+    public void testReadToEnd() {
+        for (ISObject sobj : samples()) {
+            eq(CONTENT, str(sobj.read(0, -1)));
+            eq("fghij", str(sobj.read(15, -1)));
+            eq("", str(sobj.read(30, -1)));
+        }
+        // input stream sobject can be read only once
+        eq(CONTENT, str(SObject.of(IO.is(CONTENT)).read(0, -1)));
+        eq("fghij", str(SObject.of(IO.is(CONTENT)).read(15, -1)));
+        eq("", str(SObject.of(IO.is(CONTENT)).read(30, -1)));
+    }
+
+    @Test
+    public void testDefaultRangeMethods() {
+        final ISObject delegate = SObject.of(CONTENT);
+        ISObject sobj = new DelegateSObject(delegate);
+        eq("234", str(sobj.read(2, 3)));
+        eq("abcdefghij", str(sobj.read(10, -1)));
+        eq("fghij", str(sobj.asChannel(15, -1)));
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        eq(4L, sobj.transferTo(1, 4, Channels.newChannel(baos)));
+        eq("1234", new String(baos.toByteArray()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativePosition() {
+        SObject.of(CONTENT).read(-1, 3);
+    }
+
+    @Test
+    public void testReadOnlyByteArrayView() throws IOException {
+        byte[] ba = CONTENT.getBytes();
+        ByteBuffer buf = SObject.of(ba).read(0, 5);
+        yes(buf.isReadOnly());
+        eq(5, buf.remaining());
+    }
+
+    // implements the content access methods only, relies on the
+    // default range methods of ISObject
+    private static class DelegateSObject implements ISObject {
+        private final ISObject delegate;
+
+        DelegateSObject(ISObject delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override public String getKey() { return delegate.getKey(); }
+        @Override public long getLength() { return delegate.getLength(); }
+        @Override public String getUrl() { return delegate.getUrl(); }
+        @Override public String getFilename() { return delegate.getFilename(); }
+        @Override public String getContentType() { return delegate.getContentType(); }
+        @Override public void setFilename(String filename) { delegate.setFilename(filename); }
+        @Override public void setContentType(String contentType) { delegate.setContentType(contentType); }
+        @Override public String getAttribute(String key) { return delegate.getAttribute(key); }
+        @Override public ISObject setAttribute(String key, String val) { delegate.setAttribute(key, val); return this; }
+        @Override public ISObject setAttributes(Map<String, String> attrs) { delegate.setAttributes(attrs); return this; }
+        @Override public boolean hasAttribute() { return delegate.hasAttribute(); }
+        @Override public Map<String, String> getAttributes() { return delegate.getAttributes(); }
+        @Override public boolean isEmpty() { return delegate.isEmpty(); }
+        @Override public boolean isExists() { return delegate.isExists(); }
+        @Override public boolean isValid() { return delegate.isValid(); }
+        @Override public boolean isAccessDenied() { return delegate.isAccessDenied(); }
+        @Override public Throwable getException() { return delegate.getException(); }
+        @Override public File asFile() { return delegate.asFile(); }
+        @Override public String asString() { return delegate.asString(); }
+        @Override public String asString(Charset charset) { return delegate.asString(charset); }
+        @Override public byte[] asByteArray() { return delegate.asByteArray(); }
+        @Override public InputStream asInputStream() { return delegate.asInputStream(); }
+        @Override public void consumeOnce($.Function<InputStream, ?> consumer) { delegate.consumeOnce(consumer); }
+        @Override public boolean isDumb() { return delegate.isDumb(); }
+        @Override public boolean isBinary() { return delegate.isBinary(); }
+    }
+
+}
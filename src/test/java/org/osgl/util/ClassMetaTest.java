@@ -0,0 +1,121 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.osgl.$;
+import org.osgl.TestBase;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+
+public class ClassMetaTest extends TestBase {
+
+    public static class Base<T> {
+        public static int counter;
+        protected T id;
+    }
+
+    public static class Foo extends Base<String> {
+        private String name;
+        private int age;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class Bar extends Foo {
+    }
+
+    @Test
+    public void sameMetaForSameClass() {
+        same(ClassMeta.of(Foo.class), ClassMeta.of(Foo.class));
+        same(Foo.class, ClassMeta.of(Foo.class).type());
+    }
+
+    @Test
+    public void fieldsShallBeCached() {
+        List<Field> fields = $.fieldsOf(Foo.class);
+        same(fields, $.fieldsOf(Foo.class));
+        eq(3, fields.size());
+        eq(4, $.fieldsOf(Foo.class, false).size());
+        eq(2, $.fieldsOf(Foo.class, Base.class, true).size());
+        eq(3, $.fieldsOf(Foo.class, Base.class, true, true).size());
+        eq(2, $.fieldsOf(Bar.class, Foo.class, true, true).size());
+    }
+
+    @Test
+    public void typeParamImplementationsShallBeCached() {
+        List<Type> types = Generics.typeParamImplementations(Foo.class, Base.class);
+        eq(1, types.size());
+        same(String.class, types.get(0));
+        same(types, Generics.typeParamImplementations(Foo.class, Base.class));
+        same(types, Generics.tryGetTypeParamImplementations(Foo.class, Base.class));
+        eq(types, Generics.typeParamImplementations(Bar.class, Base.class));
+    }
+
+    @Test
+    public void propertyHandlersShallBeCached() {
+        Foo foo = new Foo();
+        $.setProperty(foo, "Tom", "name");
+        eq("Tom", $.getProperty(foo, "name"));
+        notNull(ClassMeta.of(Foo.class).propertyGetter("name", false));
+        notNull(ClassMeta.of(Foo.class).propertySetter("name"));
+    }
+
+    @Test
+    public void classesWithSameNameShallNotCollide() throws Exception {
+        URL location = Foo.class.getProtectionDomain().getCodeSource().getLocation();
+        ClassLoader loader = new URLClassLoader(new URL[]{location}, null);
+        Class<?> foo2 = loader.loadClass(Foo.class.getName());
+        notSame(Foo.class, foo2);
+        List<Field> fields = $.fieldsOf(Foo.class);
+        List<Field> fields2 = $.fieldsOf(foo2);
+        notSame(fields, fields2);
+        for (Field field : fields2) {
+            same(foo2.getClassLoader(), field.getDeclaringClass().getClassLoader());
+        }
+    }
+
+    @Test
+    public void argumentTypesFromOtherLoaderShallNotBeCached() throws Exception {
+        URL location = Foo.class.getProtectionDomain().getCodeSource().getLocation();
+        ClassLoader loader = new URLClassLoader(new URL[]{location}, null);
+        Object foo2 = loader.loadClass(Foo.class.getName()).newInstance();
+        Foo foo = new Foo();
+        no($.<Foo, Boolean>invokeVirtual(foo, "equals", foo2));
+        no(ClassMeta.of(Foo.class).cached("equals", new Class<?>[]{foo2.getClass()}, false));
+        yes($.<Foo, Boolean>invokeVirtual(foo, "equals", foo));
+        yes(ClassMeta.of(Foo.class).cached("equals", new Class<?>[]{Foo.class}, false));
+        // classes of the bootstrap loader are always visible
+        no($.<Foo, Boolean>invokeVirtual(foo, "equals", "foo"));
+        yes(ClassMeta.of(Foo.class).cached("equals", new Class<?>[]{String.class}, false));
+    }
+
+}
@@ -0,0 +1,134 @@
+package org.osgl.util;
+
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.osgl.TestBase;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class ContentSnifferTest extends TestBase {
+
+    private static byte[] bytes(int... ia) {
+        byte[] ba = new byte[ia.length];
+        for (int i = 0; i < ia.length; ++i) {
+            ba[i] = (byte) ia[i];
+        }
+        return ba;
+    }
+
+    private static ContentSniffer.Result sniff(String s) {
+        return ContentSniffer.sniff(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testMagicNumbers() {
+        eq("image/png", ContentSniffer.sniff(bytes(0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n', 0, 0)).contentType());
+        eq("image/jpeg", ContentSniffer.sniff(bytes(0xff, 0xd8, 0xff, 0xe0)).contentType());
+        eq("image/gif", sniff("GIF89a....").contentType());
+        eq("application/pdf", sniff("%PDF-1.4\n").contentType());
+        eq("application/zip", ContentSniffer.sniff(bytes('P', 'K', 3, 4, 20, 0)).contentType());
+        eq("application/java", ContentSniffer.sniff(bytes(0xca, 0xfe, 0xba, 0xbe, 0, 0, 0, 52)).contentType());
+        eq("video/mp4", ContentSniffer.sniff(bytes(0, 0, 0, 0x18, 'f', 't', 'y', 'p', 'm', 'p', '4', '2')).contentType());
+        yes(ContentSniffer.sniff(bytes(0xff, 0xd8, 0xff, 0xe0)).isBinary());
+        // known magic without mime type registered
+        ContentSniffer.Result xz = ContentSniffer.sniff(bytes(0xfd, '7', 'z', 'X', 'Z', 0));
+        yes(xz.isBinary());
+        isNull(xz.mimeType());
+    }
+
+    @Test
+    public void testBinaryWithoutMagic() {
+        yes(ContentSniffer.sniff(bytes('a', 'b', 'c', 0)).isBinary());
+        yes(ContentSniffer.sniff(bytes(1, 2, 3)).isBinary());
+        // "BM" alone is not a bitmap
+        no(sniff("BMW").isBinary());
+        isNull(sniff("BMW").mimeType());
+    }
+
+    @Test
+    public void testText() {
+        ContentSniffer.Result result = sniff("hello\tworld\r\n");
+        no(result.isBinary());
+        eq(StandardCharsets.US_ASCII, result.charset());
+        isNull(result.mimeType());
+        eq(StandardCharsets.UTF_8, sniff("\u4e2d\u6587 text").charset());
+        eq(StandardCharsets.UTF_8, sniff("\ufeffbom").charset());
+        // Latin-1 text is not UTF-8
+        result = ContentSniffer.sniff("caf\u00e9 au lait".getBytes(StandardCharsets.ISO_8859_1));
+        no(result.isBinary());
+        isNull(result.charset());
+        // UTF-16 text has zero bytes but a BOM
+        result = ContentSniffer.sniff("text".getBytes(StandardCharsets.UTF_16));
+        no(result.isBinary());
+        eq(StandardCharsets.UTF_16BE, result.charset());
+        no(ContentSniffer.sniff(new byte[0]).isBinary());
+    }
+
+    @Test
+    public void testInvalidUtf8() {
+        // overlong encoding of '/'
+        isNull(ContentSniffer.sniff(bytes('a', 0xc0, 0xaf)).charset());
+        // surrogate encoded in UTF-8
+        isNull(ContentSniffer.sniff(bytes('a', 0xed, 0xa0, 0x80)).charset());
+        // cut at the end of the prefix
+        eq(StandardCharsets.UTF_8, ContentSniffer.sniff(bytes('a', 0xe4, 0xb8)).charset());
+    }
+
+    @Test
+    public void testTextMagic() {
+        eq("text/xml", sniff("<?xml version=\"1.0\"?><a/>").contentType());
+        eq("text/html", sniff("\n  <!DOCTYPE HTML><html></html>").contentType());
+        eq("text/html", sniff("<HTML><body>").contentType());
+        eq("image/svg+xml", sniff("<svg xmlns=\"http://www.w3.org/2000/svg\"/>").contentType());
+        no(sniff("<?xml version=\"1.0\"?>").isBinary());
+    }
+
+    @Test
+    public void testPeekDoesNotConsume() {
+        byte[] content = "%PDF-1.7 the rest of the content".getBytes(StandardCharsets.UTF_8);
+        InputStream is = new BufferedInputStream(new ByteArrayInputStream(content));
+        eq("application/pdf", ContentSniffer.sniff(is).contentType());
+        eq(new String(content), IO.readContentAsString(is));
+    }
+
+    @Test
+    public void testPeekBeyondPeekSize() {
+        byte[] content = new byte[ContentSniffer.PEEK_SIZE * 2];
+        for (int i = 0; i < content.length; ++i) {
+            content[i] = i < ContentSniffer.PEEK_SIZE ? (byte) 'a' : 0;
+        }
+        // zero bytes after the prefix are not examined
+        no(ContentSniffer.sniff(content).isBinary());
+        no(ContentSniffer.sniff(ByteBuffer.wrap(content).asReadOnlyBuffer()).isBinary());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPeekRequiresMark() {
+        ContentSniffer.peek(IO.inputStream(IO.tmpFile()), 10);
+    }
+
+}
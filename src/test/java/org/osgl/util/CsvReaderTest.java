@@ -0,0 +1,239 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.junit.Test;
+import org.osgl.TestBase;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class CsvReaderTest extends TestBase {
+
+    private static List<List<String>> readAll(CsvReader csv) {
+        List<List<String>> records = new ArrayList<>();
+        for (CsvReader.Record record : csv) {
+            records.add(record.toList());
+        }
+        return records;
+    }
+
+    private static CsvReader csv(String content) {
+        return new CsvReader(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testRfc4180() {
+        String content = "a,b,c\r\n" +
+                "\"x,y\",\"line1\nline2\",\"say \"\"hi\"\"\"\r\n" +
+                ",,\n" +
+                "\n" +
+                "last,\"\",é";
+        List<List<String>> records = readAll(csv(content));
+        eq(4, records.size());
+        eq(Arrays.asList("a", "b", "c"), records.get(0));
+        eq(Arrays.asList("x,y", "line1\nline2", "say \"hi\""), records.get(1));
+        eq(Arrays.asList("", "", ""), records.get(2));
+        eq(Arrays.asList("last", "", "é"), records.get(3));
+    }
+
+    @Test
+    public void testTrailingSeparatorAndCarriageReturn() {
+        List<List<String>> records = readAll(csv("a,\rb\r\n\r\nc,\n"));
+        eq(Arrays.asList(Arrays.asList("a", ""), Arrays.asList("b"), Arrays.asList("c", "")), records);
+    }
+
+    @Test
+    public void testMalformedQuotes() {
+        List<List<String>> records = readAll(csv("\"ab\"c,d\n\"open,e"));
+        eq(Arrays.asList("abc", "d"), records.get(0));
+        eq(Arrays.asList("open,e"), records.get(1));
+    }
+
+    @Test
+    public void testHeaderAndTypedGetters() {
+        CsvReader csv = csv("﻿id,amount,price,active,big\n1,1024*1024,\"2.5\",TRUE,12.30\n2, ,-0.25,no,1\n").header(true);
+        eq(Arrays.asList("id", "amount", "price", "active", "big"), csv.headers());
+        List<CsvReader.Record> seen = new ArrayList<>();
+        long total = 0;
+        double price = 0;
+        int active = 0;
+        for (CsvReader.Record record : csv) {
+            total += record.getLong("amount");
+            price += record.getDouble("price");
+            if (record.getBoolean("active")) {
+                active++;
+            }
+            if (0 == record.recordNo()) {
+                eq(1, record.getInt(0));
+                eq(new BigDecimal("12.30"), record.get("big", BigDecimal.class));
+                eq(Integer.valueOf(1024 * 1024), record.get(1, Integer.class));
+            } else {
+                yes(record.isBlank(1));
+                isNull(record.get(1, Integer.class));
+            }
+            seen.add(record);
+        }
+        eq(2, seen.size());
+        eq(1024L * 1024, total);
+        eq(2.25, price);
+        eq(1, active);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownHeader() {
+        csv("a\n1\n").header(true).iterator().next().get("b");
+    }
+
+    @Test
+    public void testSeparator() {
+        eq(Arrays.asList(Arrays.asList("a,b", "c")), readAll(csv("a,b;c").separator(';')));
+    }
+
+    @Test
+    public void testRandomContentAcrossBuffers() {
+        Random r = new Random();
+        List<List<String>> expected = randomRecords(r, 3000, 10);
+        // a field larger than the read buffer
+        expected.add(Arrays.asList("big", S.times("x\"y,\n", 30000)));
+        expected.addAll(randomRecords(r, 100, 10));
+        eq(expected, readAll(csv(toCsv(expected, r))));
+    }
+
+    @Test
+    public void testParallelRead() {
+        Random r = new Random();
+        List<List<String>> expected = randomRecords(r, 30000, 30);
+        File file = IO.tmpFile();
+        IO.write("h1,h2\n" + toCsv(expected, r), file);
+        try {
+            CsvReader csv = new CsvReader(file).header(true);
+            yes(file.length() > CsvReader.MIN_PARALLEL_SIZE);
+            eq(4, csv.split(4).size());
+            final List<String>[] records = new List[expected.size()];
+            final int[] batches = {0};
+            csv.accept(new CsvReader.RecordReader() {
+                @Override
+                public void read(CsvReader.Record record, long recordNo) {
+                    isNull(records[(int) recordNo]);
+                    records[(int) recordNo] = record.toList();
+                }
+
+                @Override
+                public void batchFinished() {
+                    synchronized (batches) {
+                        batches[0]++;
+                    }
+                }
+            }, 4);
+            eq(4, batches[0]);
+            for (int i = 0; i < records.length; ++i) {
+                eq(expected.get(i), records[i], "record %s", i);
+            }
+        } finally {
+            IO.delete(file);
+        }
+    }
+
+    @Test
+    public void testParallelReadMalformed() {
+        // random bytes with quotes anywhere, split points can fall in any state
+        Random r = new Random();
+        String alphabet = "ab,,\"\"\n\r";
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < CsvReader.MIN_PARALLEL_SIZE + 1000) {
+            sb.append(alphabet.charAt(r.nextInt(alphabet.length())));
+        }
+        CsvReader csv = csv(sb.toString());
+        List<List<String>> expected = readAll(csv);
+        for (int threads = 2; threads < 8; ++threads) {
+            final List<String>[] records = new List[expected.size()];
+            csv.accept(new CsvReader.RecordReader() {
+                @Override
+                public void read(CsvReader.Record record, long recordNo) {
+                    records[(int) recordNo] = record.toList();
+                }
+            }, threads);
+            eq(expected, Arrays.asList(records));
+        }
+    }
+
+    @Test
+    public void testBigLinesCsv() {
+        File file = IO.tmpFile();
+        IO.write("name,note\nGreen,\"multi\nline\"\n", file);
+        try {
+            BigLines bigLines = new BigLines(file);
+            eq(Arrays.asList(Arrays.asList("Green", "multi\nline")), readAll(bigLines.csv()));
+        } finally {
+            IO.delete(file);
+        }
+    }
+
+    private static List<List<String>> randomRecords(Random r, int count, int maxFieldLength) {
+        String alphabet = "abcXYZ019 ,\"\n\ré-";
+        List<List<String>> records = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            int fields = 1 + r.nextInt(6);
+            List<String> record = new ArrayList<>();
+            for (int j = 0; j < fields; ++j) {
+                StringBuilder sb = new StringBuilder();
+                int len = r.nextInt(maxFieldLength);
+                for (int k = 0; k < len; ++k) {
+                    sb.append(alphabet.charAt(r.nextInt(alphabet.length())));
+                }
+                record.add(sb.toString());
+            }
+            if (1 == fields && record.get(0).isEmpty()) {
+                // a blank line is not a record
+                record.set(0, "a");
+            }
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static String toCsv(List<List<String>> records, Random r) {
+        StringBuilder sb = new StringBuilder();
+        for (List<String> record : records) {
+            for (int i = 0; i < record.size(); ++i) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                String field = record.get(i);
+                boolean quote = r.nextBoolean() || field.indexOf(',') >= 0 || field.indexOf('"') >= 0
+                        || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0;
+                if (quote) {
+                    sb.append('"').append(field.replace("\"", "\"\"")).append('"');
+                } else {
+                    sb.append(field);
+                }
+            }
+            sb.append(r.nextBoolean() ? "\n" : "\r\n");
+        }
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,124 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.osgl.TestBase;
+import org.osgl.exception.FastRuntimeException;
+import org.osgl.exception.ToBeImplemented;
+import org.osgl.exception.UnexpectedException;
+
+import java.io.*;
+
+public class ETest extends TestBase {
+
+    private static class Counter {
+        int n;
+
+        @Override
+        public String toString() {
+            return String.valueOf(++n);
+        }
+    }
+
+    @Test
+    public void mutableArgsShallBeFormattedEagerly() {
+        Counter counter = new Counter();
+        UnexpectedException e = new UnexpectedException("count: %s", counter);
+        eq(1, counter.n);
+        eq("count: 1", e.getMessage());
+        eq("count: 1", e.getMessage());
+        eq(1, counter.n);
+        StringBuilder sb = new StringBuilder("a");
+        e = new UnexpectedException("value: %s", sb);
+        sb.append("b");
+        eq("value: a", e.getMessage());
+    }
+
+    @Test
+    public void fastRuntimeExceptionMessage() {
+        FastRuntimeException e = new FastRuntimeException(new IOException(), "count: %s", 1);
+        eq("count: 1", e.getMessage());
+        yes(e.getCause() instanceof IOException);
+    }
+
+    @Test
+    public void malformedTemplateShallNotFailGetMessage() {
+        UnexpectedException e = new UnexpectedException("count: %d", "x");
+        eq("count: %d [x]", e.getMessage());
+        eq("count: %d [x]", e.toString().substring(e.toString().indexOf(": ") + 2));
+        e = new UnexpectedException("bad %q: %s", new StringBuilder("sb"));
+        eq("bad %q: %s [sb]", e.getMessage());
+    }
+
+    @Test
+    public void messageWithoutArgsIsNotFormatted() {
+        eq("100%", new UnexpectedException("100%").getMessage());
+        eq("100%", new UnexpectedException("100%", new Object[0]).getMessage());
+        isNull(new UnexpectedException().getMessage());
+    }
+
+    @Test
+    public void illegalArgumentMessage() {
+        try {
+            E.illegalArgumentIf(true, "bad value: %s", 5);
+            fail("expect IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            eq("bad value: 5", e.getMessage());
+        }
+    }
+
+    @Test
+    public void illegalStateMessage() {
+        try {
+            E.illegalStateIfNot(false, "bad state: %s", "x");
+            fail("expect IllegalStateException");
+        } catch (IllegalStateException e) {
+            eq("bad state: x", e.getMessage());
+        }
+    }
+
+    @Test
+    public void toBeImplementedKeepsCause() {
+        IOException cause = new IOException();
+        ToBeImplemented e = new ToBeImplemented(cause, "todo: %s", "x");
+        same(cause, e.getCause());
+        eq("todo: x", e.getMessage());
+    }
+
+    @Test
+    public void serializeFormattedMessage() throws Exception {
+        UnexpectedException e = new UnexpectedException("value: %s", new Object() {
+            @Override
+            public String toString() {
+                return "not serializable";
+            }
+        });
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        oos.writeObject(e);
+        oos.close();
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        UnexpectedException copy = (UnexpectedException) ois.readObject();
+        eq("value: not serializable", copy.getMessage());
+    }
+
+}
@@ -0,0 +1,164 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.osgl.$;
+import org.osgl.TestBase;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.text.MessageFormat;
+import java.util.Date;
+import java.util.Formattable;
+import java.util.Formatter;
+import java.util.Locale;
+import java.util.MissingFormatArgumentException;
+
+public class FormatTemplateTest extends TestBase {
+
+    private static final Object[][] ARGS = {
+            {"foo", "bar"},
+            {1, 2L},
+            {-123, (short) 7},
+            {null, null},
+            {(byte) 3, BigInteger.valueOf(-9999999)},
+            {new StringBuilder("sb"), 'c'},
+            {12345, 1.5},
+            {new Date(0), BigDecimal.ONE}
+    };
+
+    private static final String[] PRINTF = {
+            "%s and %s",
+            "%s%s",
+            "[%s] 100%% done%n",
+            "no placeholder",
+            "%d-%s",
+            "%5s|%s",
+            "%1$s %2$s",
+            "%.2f %s",
+            "%S %s"
+    };
+
+    private static final String[] MESSAGE = {
+            "{0} and {1}",
+            "{1}{0}",
+            "{0} {2}",
+            "no placeholder",
+            "{0,number} {1}",
+            "it''s {0}",
+            "'{0}' {1}"
+    };
+
+    @Test
+    public void printfShallMatchJdk() {
+        for (final String tmpl : PRINTF) {
+            for (final Object[] args : ARGS) {
+                verify(new $.F0<String>() {
+                    @Override
+                    public String apply() {
+                        return String.format(tmpl, args);
+                    }
+                }, new $.F0<String>() {
+                    @Override
+                    public String apply() {
+                        return S.fmt(tmpl, args);
+                    }
+                });
+            }
+        }
+    }
+
+    @Test
+    public void msgFmtShallMatchJdk() {
+        for (final String tmpl : MESSAGE) {
+            for (final Object[] args : ARGS) {
+                verify(new $.F0<String>() {
+                    @Override
+                    public String apply() {
+                        return MessageFormat.format(tmpl, args);
+                    }
+                }, new $.F0<String>() {
+                    @Override
+                    public String apply() {
+                        return S.msgFmt(tmpl, args);
+                    }
+                });
+            }
+        }
+    }
+
+    private void verify($.F0<String> jdk, $.F0<String> osgl) {
+        String expected;
+        try {
+            expected = jdk.apply();
+        } catch (RuntimeException e) {
+            try {
+                osgl.apply();
+                fail("expect %s", e.getClass().getSimpleName());
+            } catch (RuntimeException e2) {
+                eq(e.getClass(), e2.getClass());
+            }
+            return;
+        }
+        eq(expected, osgl.apply());
+    }
+
+    @Test(expected = MissingFormatArgumentException.class)
+    public void missingArgument() {
+        S.fmt("%s %s", "x");
+    }
+
+    @Test
+    public void formattableShallBeDelegated() {
+        Formattable formattable = new Formattable() {
+            @Override
+            public void formatTo(Formatter formatter, int flags, int width, int precision) {
+                formatter.format("formatted");
+            }
+        };
+        eq("[formatted]", S.fmt("[%s]", formattable));
+    }
+
+    @Test
+    public void localizedDigits() {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        try {
+            Locale.setDefault(Locale.Category.FORMAT, new Locale("ar", "SA"));
+            eq(String.format("%d", 42), S.fmt("%d", 42));
+            eq(MessageFormat.format("{0}", 42), S.msgFmt("{0}", 42));
+        } finally {
+            Locale.setDefault(Locale.Category.FORMAT, locale);
+        }
+    }
+
+    @Test
+    public void cacheShallBeBounded() {
+        FormatTemplate.clearCache();
+        for (int i = 0; i < FormatTemplate.CACHE_LIMIT * 3; ++i) {
+            S.fmt("key-" + i + ": %s", i);
+        }
+        yes(FormatTemplate.cacheSize() <= FormatTemplate.CACHE_LIMIT);
+        S.fmt(S.times("x", FormatTemplate.MAX_CACHED_LENGTH + 1) + "%s", 1);
+        yes(FormatTemplate.cacheSize() <= FormatTemplate.CACHE_LIMIT);
+    }
+
+}
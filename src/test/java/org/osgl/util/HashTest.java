@@ -0,0 +1,145 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.junit.Test;
+import org.osgl.TestBase;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Random;
+
+public class HashTest extends TestBase {
+
+    private static String hex(Hash.Algorithm algorithm, String s) {
+        return IO.checksum(s.getBytes(), algorithm);
+    }
+
+    @Test
+    public void testMessageDigest() {
+        eq("900150983cd24fb0d6963f7d28e17f72", hex(Hash.MD5, "abc"));
+        eq("a9993e364706816aba3e25717850c26c9cd0d89d", hex(Hash.SHA1, "abc"));
+        eq("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", hex(Hash.SHA256, "abc"));
+        eq(hex(Hash.SHA1, "abc"), IO.checksum("abc".getBytes()));
+        eq(Codec.hexSHA1("abc").toLowerCase(), IO.checksum(IO.inputStream("abc")));
+    }
+
+    @Test
+    public void testCrc() {
+        eq("cbf43926", hex(Hash.CRC32, "123456789"));
+        eq("e3069283", hex(Hash.CRC32C, "123456789"));
+        eq("00000000", hex(Hash.CRC32C, ""));
+    }
+
+    @Test
+    public void testCrc32cAgainstBitwise() {
+        byte[] ba = randomBytes(1000);
+        int c = 0xFFFFFFFF;
+        for (byte b : ba) {
+            c ^= b & 0xFF;
+            for (int k = 0; k < 8; ++k) {
+                c = (c & 1) != 0 ? (c >>> 1) ^ 0x82F63B78 : c >>> 1;
+            }
+        }
+        eq(String.format("%08x", ~c), IO.checksum(ba, Hash.CRC32C));
+    }
+
+    @Test
+    public void testXxHash64() {
+        eq("ef46db3751d8e999", hex(Hash.XXHASH64, ""));
+        eq("d24ec4f1a98c6e5b", hex(Hash.XXHASH64, "a"));
+        eq("44bc2cf5ad770999", hex(Hash.XXHASH64, "abc"));
+        eq("fbcea83c8a378bf1", hex(Hash.XXHASH64, "Nobody inspects the spammish repetition"));
+    }
+
+    @Test
+    public void testStreamingUpdateMatchesOneShot() {
+        byte[] ba = randomBytes(10000);
+        Random r = new Random();
+        for (Hash.Algorithm algorithm : new Hash.Algorithm[]{Hash.SHA256, Hash.CRC32, Hash.CRC32C, Hash.XXHASH64}) {
+            Hash.Hasher hasher = algorithm.newHasher();
+            int i = 0;
+            while (i < ba.length) {
+                int len = Math.min(ba.length - i, r.nextInt(70));
+                if (r.nextBoolean()) {
+                    hasher.update(ba, i, len);
+                } else {
+                    ByteBuffer direct = ByteBuffer.allocateDirect(len);
+                    direct.put(ba, i, len).flip();
+                    hasher.update(direct);
+                }
+                i += len;
+            }
+            eq(Codec.byteToHexString(hasher.digest(), false), IO.checksum(ba, algorithm), "algorithm: %s", algorithm);
+        }
+    }
+
+    @Test
+    public void testMultipleDigestsInOnePass() {
+        byte[] ba = randomBytes(200 * 1024);
+        Map<Hash.Algorithm, String> checksums = IO.checksums(new ByteArrayInputStream(ba), Hash.MD5, Hash.SHA256, Hash.XXHASH64);
+        eq(3, checksums.size());
+        eq(IO.checksum(ba, Hash.MD5), checksums.get(Hash.MD5));
+        eq(IO.checksum(ba, Hash.SHA256), checksums.get(Hash.SHA256));
+        eq(IO.checksum(ba, Hash.XXHASH64), checksums.get(Hash.XXHASH64));
+    }
+
+    @Test
+    public void testTreeChecksum() {
+        byte[] ba = randomBytes(10 * 1024 + 7);
+        File file = IO.tmpFile();
+        IO.write(ba, file);
+        eq(IO.checksum(file, Hash.SHA256), IO.checksum(ba, Hash.SHA256));
+        int chunkSize = 1024;
+        Hash.Hasher root = Hash.SHA256.newHasher();
+        for (int i = 0; i < ba.length; i += chunkSize) {
+            Hash.Hasher hasher = Hash.SHA256.newHasher();
+            hasher.update(ba, i, Math.min(chunkSize, ba.length - i));
+            byte[] chunk = hasher.digest();
+            root.update(chunk, 0, chunk.length);
+        }
+        eq(Codec.byteToHexString(root.digest(), false), IO.treeChecksum(file, Hash.SHA256, chunkSize));
+        IO.delete(file);
+    }
+
+    @Test
+    public void testValueOf() {
+        same(Hash.SHA256, Hash.valueOf("sha256"));
+        same(Hash.SHA256, Hash.valueOf("SHA-256"));
+        same(Hash.XXHASH64, Hash.valueOf("xxhash64"));
+        eq(IO.checksum("abc".getBytes(), Hash.messageDigest("SHA-384")), IO.checksum("abc".getBytes(), Hash.valueOf("SHA-384")));
+    }
+
+    @Test
+    public void testHexLowerCase() {
+        byte[] ba = {0, 15, 16, (byte) 0xAB, (byte) 0xFF};
+        eq("000F10ABFF", Codec.byteToHexString(ba));
+        eq("000f10abff", Codec.byteToHexString(ba, false));
+    }
+
+    private static byte[] randomBytes(int len) {
+        byte[] ba = new byte[len];
+        new Random().nextBytes(ba);
+        return ba;
+    }
+
+}
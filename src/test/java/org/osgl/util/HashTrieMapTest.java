@@ -0,0 +1,226 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.junit.Test;
+import org.osgl.TestBase;
+
+import java.util.*;
+
+public class HashTrieMapTest extends TestBase {
+
+    // a key with controlled hash code to produce collisions
+    private static class Key {
+        final int id;
+        final int hash;
+
+        Key(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && ((Key) obj).id == id;
+        }
+
+        @Override
+        public String toString() {
+            return "k" + id;
+        }
+    }
+
+    @Test
+    public void testWithAndWithout() {
+        HashTrieMap<String, Integer> m0 = HashTrieMap.empty();
+        HashTrieMap<String, Integer> m1 = m0.with("a", 1);
+        HashTrieMap<String, Integer> m2 = m1.with("b", 2);
+        eq(0, m0.size());
+        eq(1, m1.size());
+        eq(2, m2.size());
+        isNull(m1.get("b"));
+        eq(2, m2.get("b"));
+        same(m2, m2.with("b", 2));
+        eq(3, m2.with("b", 3).get("b"));
+        same(m2, m2.without("x"));
+        HashTrieMap<String, Integer> m3 = m2.without("a");
+        eq(1, m3.size());
+        no(m3.containsKey("a"));
+        yes(m2.containsKey("a"));
+        eq(0, m3.without("b").size());
+    }
+
+    @Test
+    public void testNullKeyAndValue() {
+        HashTrieMap<String, Integer> m = HashTrieMap.<String, Integer>empty().with(null, 1).with("x", null);
+        eq(2, m.size());
+        eq(1, m.get(null));
+        yes(m.containsKey("x"));
+        isNull(m.get("x"));
+        no(m.without(null).containsKey(null));
+    }
+
+    @Test
+    public void testCollisions() {
+        Key k1 = new Key(1, 7), k2 = new Key(2, 7), k3 = new Key(3, 7), k4 = new Key(4, 7 | 1 << 30);
+        HashTrieMap<Key, String> m = HashTrieMap.<Key, String>empty().with(k1, "1").with(k2, "2").with(k3, "3").with(k4, "4");
+        eq(4, m.size());
+        eq("2", m.get(k2));
+        eq("4", m.get(k4));
+        isNull(m.get(new Key(5, 7)));
+        m = m.without(k1).without(k3);
+        eq(2, m.size());
+        eq("2", m.get(k2));
+        eq("4", m.get(k4));
+        eq(C.Map(k2, "2", k4, "4"), m);
+        m = m.without(k2);
+        eq("4", m.get(k4));
+        eq(1, m.size());
+    }
+
+    @Test
+    public void testAgainstHashMap() {
+        Random r = new Random(3);
+        Map<Integer, Integer> expected = new HashMap<>();
+        HashTrieMap<Integer, Integer> trie = HashTrieMap.empty();
+        List<HashTrieMap<Integer, Integer>> versions = new ArrayList<>();
+        List<Map<Integer, Integer>> snapshots = new ArrayList<>();
+        for (int i = 0; i < 20000; ++i) {
+            // hash codes colliding in the lower bits
+            Integer k = r.nextInt(5000) << (r.nextBoolean() ? 16 : 0);
+            if (r.nextInt(3) == 0) {
+                expected.remove(k);
+                trie = trie.without(k);
+            } else {
+                expected.put(k, i);
+                trie = trie.with(k, i);
+            }
+            if (i % 2000 == 0) {
+                versions.add(trie);
+                snapshots.add(new HashMap<>(expected));
+            }
+        }
+        verify(expected, trie);
+        for (int i = 0; i < versions.size(); ++i) {
+            verify(snapshots.get(i), versions.get(i));
+        }
+    }
+
+    @Test
+    public void testBuilder() {
+        HashTrieMap.Builder<Integer, String> builder = HashTrieMap.builder();
+        for (int i = 0; i < 1000; ++i) {
+            builder.put(i, "v" + i);
+        }
+        HashTrieMap<Integer, String> m1 = builder.build();
+        eq(1000, m1.size());
+        for (int i = 0; i < 1000; i += 2) {
+            builder.remove(i);
+        }
+        builder.put(1000, "v1000");
+        HashTrieMap<Integer, String> m2 = builder.build();
+        // m1 must not be affected by changes made after it is built
+        eq(1000, m1.size());
+        eq("v0", m1.get(0));
+        isNull(m1.get(1000));
+        eq(501, m2.size());
+        isNull(m2.get(0));
+        eq("v1", m2.get(1));
+        eq("v1000", m2.get(1000));
+        HashTrieMap<Integer, String> m3 = m2.toBuilder().remove(1).build();
+        eq(500, m3.size());
+        eq("v1", m2.get(1));
+    }
+
+    @Test
+    public void testCanonicalShape() {
+        // the same entries produce equal maps and iteration order regardless of history
+        HashTrieMap<Integer, Integer> m1 = HashTrieMap.empty();
+        HashTrieMap<Integer, Integer> m2 = HashTrieMap.empty();
+        for (int i = 0; i < 100; ++i) {
+            m1 = m1.with(i << 10, i);
+        }
+        for (int i = 200; i >= 0; --i) {
+            m2 = m2.with(i << 10, i);
+        }
+        for (int i = 100; i <= 200; ++i) {
+            m2 = m2.without(i << 10);
+        }
+        eq(m1, m2);
+        eq(new ArrayList<>(m1.keySet()), new ArrayList<>(m2.keySet()));
+    }
+
+    @Test
+    public void testReadOnly() {
+        HashTrieMap<String, Integer> m = HashTrieMap.<String, Integer>empty().with("a", 1);
+        try {
+            m.put("b", 2);
+            fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            m.entrySet().iterator().next().setValue(2);
+            fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            m.keySet().clear();
+            fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testCMapWithAndWithout() {
+        C.Map<String, Integer> m1 = C.Map("a", 1, "b", 2);
+        C.Map<String, Integer> m2 = m1.with("c", 3);
+        C.Map<String, Integer> m3 = m2.without("a");
+        eq(2, m1.size());
+        eq(C.Map("a", 1, "b", 2, "c", 3), m2);
+        eq(C.Map("b", 2, "c", 3), m3);
+        yes(m3.isReadOnly());
+        eq(C.Map("a", 1, "b", 2, "x", 0), m1.map("x").to(0));
+        C.Map<String, Integer> writable = C.newMap("a", 1);
+        same(writable, writable.with("b", 2));
+        eq(2, writable.size());
+    }
+
+    private static <K, V> void verify(Map<K, V> expected, HashTrieMap<K, V> trie) {
+        eq(expected.size(), trie.size());
+        eq(expected, trie);
+        eq(trie, expected);
+        eq(expected.hashCode(), trie.hashCode());
+        int n = 0;
+        for (Map.Entry<K, V> entry : trie.entrySet()) {
+            eq(expected.get(entry.getKey()), entry.getValue());
+            n++;
+        }
+        eq(expected.size(), n);
+    }
+
+}
@@ -20,6 +20,7 @@ package org.osgl.util;
  * #L%
  */
 
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -27,11 +28,11 @@ import org.junit.experimental.runners.Enclosed;
 import org.junit.runner.RunWith;
 import org.osgl.TestBase;
 
-import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.IOException;
-import java.io.StringReader;
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Test {@link IO} utilities
@@ -117,4 +118,183 @@ public class IOTest extends TestBase {
 
     }
 
+
+    public static class CopyTest extends Base {
+
+        private static byte[] randomBytes(int len) {
+            byte[] ba = new byte[len];
+            new Random().nextBytes(ba);
+            return ba;
+        }
+
+        private static File tmpFile(byte[] content) {
+            File file = IO.tmpFile();
+            IO.write(content, file);
+            return file;
+        }
+
+        @Test
+        public void testCopyFileToFile() {
+            byte[] ba = randomBytes(ByteCopier.BUFFER_SIZE * 3 + 17);
+            File from = tmpFile(ba);
+            File to = IO.tmpFile();
+            eq((long) ba.length, IO.copy(from, to));
+            eq(ba, IO.readContent(to));
+            IO.delete(from);
+            IO.delete(to);
+        }
+
+        @Test
+        public void testCopyStreamLargerThanBuffer() {
+            byte[] ba = randomBytes(ByteCopier.BUFFER_SIZE * 2 + 1);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            eq(ba.length, IO.copy(new ByteArrayInputStream(ba), baos));
+            eq(ba, baos.toByteArray());
+            baos = new ByteArrayOutputStream();
+            eq((long) ba.length, IO.transfer(new ByteArrayInputStream(ba), baos));
+            eq(ba, baos.toByteArray());
+        }
+
+        @Test
+        public void testCopyFromCurrentPosition() throws IOException {
+            byte[] ba = randomBytes(1000);
+            File from = tmpFile(ba);
+            File to = IO.tmpFile();
+            FileInputStream fis = new FileInputStream(from);
+            eq(100L, fis.skip(100));
+            eq(900, IO.copy(fis, new FileOutputStream(to)));
+            byte[] expected = new byte[900];
+            System.arraycopy(ba, 100, expected, 0, 900);
+            eq(expected, IO.readContent(to));
+            IO.delete(from);
+            IO.delete(to);
+        }
+
+        @Test
+        public void testWriteInputStreamToFile() {
+            byte[] ba = randomBytes(5000);
+            File to = IO.tmpFile();
+            eq(5000, IO.write(new ByteArrayInputStream(ba), to));
+            eq(ba, IO.readContent(to));
+            // file output stream has been closed
+            yes(to.delete());
+        }
+
+        @Test
+        public void testProgress() {
+            byte[] ba = randomBytes(ByteCopier.BUFFER_SIZE * 2 + 5);
+            File from = tmpFile(ba);
+            final List<Long> copied = C.newList();
+            final List<Long> totals = C.newList();
+            IO.ProgressListener listener = new IO.ProgressListener() {
+                @Override
+                public void onProgress(long n, long total) {
+                    copied.add(n);
+                    totals.add(total);
+                }
+            };
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            eq((long) ba.length, IO.write(from).progress(listener).transferTo(baos));
+            eq(ba, baos.toByteArray());
+            eq((long) ba.length, copied.get(copied.size() - 1));
+            eq((long) ba.length, totals.get(0));
+
+            copied.clear();
+            totals.clear();
+            IO.write(new ByteArrayInputStream(ba)).progress(listener).to(new ByteArrayOutputStream());
+            eq(3, copied.size());
+            eq((long) ba.length, copied.get(2));
+            eq(-1L, totals.get(0));
+            IO.delete(from);
+        }
+
+        @Test
+        public void testThrottle() {
+            byte[] ba = randomBytes(30 * 1024);
+            long start = System.currentTimeMillis();
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            IO.write(ba).throttle(100 * 1024).to(baos);
+            long elapsed = System.currentTimeMillis() - start;
+            eq(ba, baos.toByteArray());
+            yes(elapsed >= 250, "copy completed in %sms", elapsed);
+        }
+
+        @Test
+        public void testTransferChannels() throws IOException {
+            byte[] ba = randomBytes(ByteCopier.BUFFER_SIZE + 3);
+            File file = IO.tmpFile();
+            FileChannel out = new FileOutputStream(file).getChannel();
+            try {
+                eq((long) ba.length, IO.transfer(Channels.newChannel(new ByteArrayInputStream(ba)), out));
+            } finally {
+                IO.close(out);
+            }
+            eq(ba, IO.readContent(file));
+
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            FileChannel in = new FileInputStream(file).getChannel();
+            try {
+                eq((long) ba.length, IO.transfer(in, Channels.newChannel(baos)));
+            } finally {
+                IO.close(in);
+            }
+            eq(ba, baos.toByteArray());
+            IO.delete(file);
+        }
+
+        @Test
+        public void testCopyFromFifo() throws Exception {
+            byte[] ba = randomBytes(ByteCopier.BUFFER_SIZE + 3);
+            File fifo = mkfifo();
+            writeLater(fifo, ba);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            IO.write(fifo).to(baos);
+            eq(ba, baos.toByteArray());
+
+            File to = IO.tmpFile();
+            writeLater(fifo, ba);
+            eq((long) ba.length, IO.copy(fifo, to));
+            eq(ba, IO.readContent(to));
+            IO.delete(fifo);
+            IO.delete(to);
+        }
+
+        @Test
+        public void testCopyFromProcFile() {
+            File proc = new File("/proc/self/status");
+            Assume.assumeTrue(proc.canRead());
+            // procfs files report a size of 0
+            File to = IO.tmpFile();
+            yes(IO.copy(proc, to) > 0);
+            yes(IO.read(to).toString().contains("Name:"));
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            IO.write(proc).to(baos);
+            yes(baos.size() > 0);
+            IO.delete(to);
+        }
+
+        private static File mkfifo() throws Exception {
+            File fifo = IO.tmpFile();
+            IO.delete(fifo);
+            try {
+                Process p = new ProcessBuilder("mkfifo", fifo.getAbsolutePath()).start();
+                Assume.assumeTrue(0 == p.waitFor());
+            } catch (IOException e) {
+                Assume.assumeNoException(e);
+            }
+            return fifo;
+        }
+
+        private static void writeLater(final File fifo, final byte[] content) {
+            Thread writer = new Thread() {
+                @Override
+                public void run() {
+                    IO.write(content).to(fifo);
+                }
+            };
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
 }
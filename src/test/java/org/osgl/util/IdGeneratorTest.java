@@ -0,0 +1,209 @@
+package org.osgl.util;
+
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.osgl.TestBase;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+public class IdGeneratorTest extends TestBase {
+
+    @Test
+    public void testUuid() {
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 1000; ++i) {
+            String s = IdGenerator.uuid();
+            yes(ids.add(s));
+            UUID uuid = UUID.fromString(s);
+            eq(4, uuid.version());
+            eq(2, uuid.variant());
+            eq(uuid.toString(), s);
+        }
+        UUID uuid = IdGenerator.randomUUID();
+        eq(4, uuid.version());
+        eq(2, uuid.variant());
+    }
+
+    @Test
+    public void testUuidIntoBuffer() {
+        char[] buf = new char[40];
+        Arrays.fill(buf, '#');
+        IdGenerator.uuid(buf, 2);
+        eq("##", new String(buf, 0, 2));
+        eq("##", new String(buf, 38, 2));
+        eq(4, UUID.fromString(new String(buf, 2, 36)).version());
+    }
+
+    @Test
+    public void testUuidV7() {
+        long before = System.currentTimeMillis();
+        String s = IdGenerator.uuidV7();
+        long after = System.currentTimeMillis();
+        UUID uuid = UUID.fromString(s);
+        eq(7, uuid.version());
+        eq(2, uuid.variant());
+        long millis = uuid.getMostSignificantBits() >>> 16;
+        yes(millis >= before && millis <= after);
+        eq(7, IdGenerator.timeOrderedUUID().version());
+    }
+
+    @Test
+    public void testToString() {
+        for (int i = 0; i < 100; ++i) {
+            UUID uuid = UUID.randomUUID();
+            eq(uuid.toString(), IdGenerator.toString(uuid));
+        }
+        UUID uuid = new UUID(0L, -1L);
+        eq(uuid.toString(), IdGenerator.toString(uuid));
+    }
+
+    @Test
+    public void testUlid() throws Exception {
+        long before = System.currentTimeMillis();
+        String first = IdGenerator.ulid();
+        eq(26, first.length());
+        yes(first.matches("[0-9A-HJKMNP-TV-Z]{26}"));
+        long timestamp = IdGenerator.timestampOfUlid(first);
+        yes(timestamp >= before && timestamp <= System.currentTimeMillis());
+        Thread.sleep(2);
+        String second = IdGenerator.ulid();
+        yes(first.compareTo(second) < 0);
+        eq(timestamp, IdGenerator.timestampOfUlid(first.toLowerCase()));
+    }
+
+    @Test
+    public void testSnowflake() {
+        IdGenerator.Snowflake snowflake = IdGenerator.snowflake(5);
+        long before = System.currentTimeMillis();
+        long prev = -1;
+        for (int i = 0; i < 10000; ++i) {
+            long id = snowflake.nextId();
+            yes(id > prev);
+            eq(5, IdGenerator.Snowflake.nodeOf(id));
+            prev = id;
+        }
+        long timestamp = snowflake.timestampOf(prev);
+        yes(timestamp >= before);
+    }
+
+    @Test
+    public void testSnowflakeSequenceCarries() {
+        IdGenerator.Snowflake snowflake = new IdGenerator.Snowflake(IdGenerator.Snowflake.MAX_NODE_ID);
+        long first = snowflake.nextId();
+        // more than 4096 ids in a millisecond run the time part ahead
+        for (int i = 0; i < 5000; ++i) {
+            snowflake.nextId();
+        }
+        long last = snowflake.nextId();
+        yes(last > first);
+        eq(IdGenerator.Snowflake.MAX_NODE_ID, IdGenerator.Snowflake.nodeOf(last));
+        yes(IdGenerator.Snowflake.sequenceOf(last) <= 4095);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSnowflakeInvalidNode() {
+        IdGenerator.snowflake(1024);
+    }
+
+    @Test
+    public void testSnowflakeConcurrent() throws Exception {
+        final IdGenerator.Snowflake snowflake = IdGenerator.snowflake(1);
+        final int threads = 4, perThread = 20000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; ++t) {
+            futures.add(executor.submit(new Callable<long[]>() {
+                @Override
+                public long[] call() {
+                    long[] ids = new long[perThread];
+                    for (int i = 0; i < perThread; ++i) {
+                        ids[i] = snowflake.nextId();
+                    }
+                    return ids;
+                }
+            }));
+        }
+        Set<Long> all = new HashSet<>();
+        for (Future<long[]> future : futures) {
+            long[] ids = future.get();
+            for (int i = 0; i < ids.length; ++i) {
+                if (i > 0) {
+                    yes(ids[i] > ids[i - 1]);
+                }
+                all.add(ids[i]);
+            }
+        }
+        executor.shutdown();
+        eq(threads * perThread, all.size());
+    }
+
+    @Test
+    public void testToken() {
+        String token = IdGenerator.token();
+        // 16 bytes without padding
+        eq(22, token.length());
+        yes(token.matches("[A-Za-z0-9_\\-]+"));
+        eq(43, IdGenerator.token(32).length());
+        yes(!IdGenerator.token().equals(IdGenerator.token()));
+    }
+
+    @Test
+    public void testSecureRandomPerThread() throws Exception {
+        final Random mine = IdGenerator.secureRandom();
+        same(mine, IdGenerator.secureRandom());
+        final Random[] other = new Random[1];
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                other[0] = IdGenerator.secureRandom();
+            }
+        };
+        thread.start();
+        thread.join();
+        yes(mine != other[0]);
+    }
+
+    @Test
+    public void testSecureBytes() {
+        // smaller and larger than half of the prefetch size
+        for (int len : new int[]{1, 7, 100, IdGenerator.PREFETCH_SIZE, IdGenerator.PREFETCH_SIZE * 3}) {
+            byte[] a = IdGenerator.secureBytes(len);
+            byte[] b = IdGenerator.secureBytes(len);
+            eq(len, a.length);
+            if (len > 4) {
+                no(Arrays.equals(a, b));
+            }
+        }
+        // rough uniformity check of bounded ints
+        Random r = IdGenerator.secureRandom();
+        int[] counts = new int[10];
+        for (int i = 0; i < 10000; ++i) {
+            counts[r.nextInt(10)]++;
+        }
+        for (int count : counts) {
+            yes(count > 800 && count < 1200);
+        }
+    }
+
+}
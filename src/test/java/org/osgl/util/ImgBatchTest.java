@@ -0,0 +1,167 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.junit.Test;
+import org.osgl.$;
+import org.osgl.TestBase;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+public class ImgBatchTest extends TestBase {
+
+    // left half red, right half blue
+    private static final byte[] PHOTO = Img.source(photo(1600, 1200)).toByteArray(Img.PNG_MIME_TYPE);
+
+    @Test
+    public void testResizeSubsampled() throws Exception {
+        ImgBatch batch = Img.batch(2, 4);
+        try {
+            BufferedImage thumb = decode(batch.submit(ImgBatch.job(PHOTO).resize(200, 200)).get());
+            eq(200, thumb.getWidth());
+            eq(150, thumb.getHeight());
+            eq(0xFFFF0000, thumb.getRGB(20, 75));
+            eq(0xFF0000FF, thumb.getRGB(180, 75));
+            ImgBatch.Stats stats = batch.await();
+            eq(1, stats.jobs());
+            eq(0, stats.failures());
+            // decoded with 4x subsampling instead of the full 1600x1200 image
+            yes(stats.peakPixelBytes() < 4L * 1600 * 1200 / 4);
+            yes(stats.peakPixelBytes() > 0);
+        } finally {
+            batch.close();
+        }
+    }
+
+    @Test
+    public void testCropAndStretch() throws Exception {
+        ImgBatch batch = Img.batch(1, 1);
+        try {
+            BufferedImage thumb = decode(batch.submit(ImgBatch.job(PHOTO).crop(800, 0, 1600, 1200).resize(50, 100, false)).get());
+            eq(50, thumb.getWidth());
+            eq(100, thumb.getHeight());
+            eq(0xFF0000FF, thumb.getRGB(0, 0));
+            eq(0xFF0000FF, thumb.getRGB(49, 99));
+        } finally {
+            batch.close();
+        }
+    }
+
+    @Test
+    public void testWatermarkAndFileTarget() throws Exception {
+        File file = IO.tmpFile();
+        File jpg = new File(file.getParentFile(), file.getName() + ".jpg");
+        ImgBatch batch = Img.batch(1, 1);
+        try {
+            isNull(batch.submit(ImgBatch.job(PHOTO).resize(400, 300).watermark("osgl").compressionQuality(0.9f).to(jpg)).get());
+            BufferedImage thumb = Img.read(jpg);
+            eq(400, thumb.getWidth());
+            boolean watermarked = false;
+            for (int x = 0; x < 400 && !watermarked; ++x) {
+                for (int y = 0; y < 300 && !watermarked; ++y) {
+                    Color c = new Color(thumb.getRGB(x, y));
+                    // the light gray watermark mixes green into red and blue
+                    watermarked = c.getGreen() > 100;
+                }
+            }
+            yes(watermarked);
+        } finally {
+            batch.close();
+            IO.delete(file);
+            IO.delete(jpg);
+        }
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        ImgBatch batch = Img.batch(1, 1);
+        try {
+            Future<byte[]> future = batch.submit(ImgBatch.job("not an image".getBytes()).resize(10, 10));
+            try {
+                future.get();
+                fail("expected failure");
+            } catch (ExecutionException e) {
+                // expected
+            }
+            eq(1, batch.await().failures());
+        } finally {
+            batch.close();
+        }
+    }
+
+    @Test
+    public void testBackPressure() throws Exception {
+        final ImgBatch batch = Img.batch(1, 2);
+        final CountDownLatch latch = new CountDownLatch(1);
+        $.Func0<InputStream> slowSource = new $.F0<InputStream>() {
+            @Override
+            public InputStream apply() {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    throw E.unexpected(e);
+                }
+                return IO.inputStream(PHOTO);
+            }
+        };
+        try {
+            batch.submit(ImgBatch.job(slowSource).resize(10, 10));
+            batch.submit(ImgBatch.job(slowSource).resize(10, 10));
+            Thread submitter = new Thread() {
+                @Override
+                public void run() {
+                    batch.submit(ImgBatch.job(PHOTO).resize(10, 10));
+                }
+            };
+            submitter.start();
+            submitter.join(200);
+            yes(submitter.isAlive());
+            latch.countDown();
+            submitter.join(10000);
+            no(submitter.isAlive());
+            eq(3, batch.await().jobs());
+        } finally {
+            latch.countDown();
+            batch.close();
+        }
+    }
+
+    private static BufferedImage decode(byte[] bytes) {
+        return Img.read(IO.inputStream(bytes));
+    }
+
+    private static BufferedImage photo(int w, int h) {
+        BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.RED);
+        g.fillRect(0, 0, w / 2, h);
+        g.setColor(Color.BLUE);
+        g.fillRect(w / 2, 0, w - w / 2, h);
+        g.dispose();
+        return image;
+    }
+
+}
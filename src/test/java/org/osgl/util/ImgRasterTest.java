@@ -0,0 +1,164 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.junit.Test;
+import org.osgl.TestBase;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ConvolveOp;
+import java.awt.image.Kernel;
+import java.util.Arrays;
+import java.util.Random;
+
+public class ImgRasterTest extends TestBase {
+
+    @Test
+    public void testResizeSolidColor() {
+        BufferedImage image = fill(new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB), 0x336699);
+        BufferedImage resized = ImgRaster.of(image).resize(37, 23).toImage();
+        eq(37, resized.getWidth());
+        eq(23, resized.getHeight());
+        eq(BufferedImage.TYPE_INT_RGB, resized.getType());
+        for (int y = 0; y < 23; ++y) {
+            for (int x = 0; x < 37; ++x) {
+                eq(0xFF336699, resized.getRGB(x, y));
+            }
+        }
+        resized = ImgRaster.of(image).resize(1000, 700).toImage();
+        eq(0xFF336699, resized.getRGB(0, 0));
+        eq(0xFF336699, resized.getRGB(999, 699));
+        eq(0xFF336699, resized.getRGB(500, 350));
+    }
+
+    @Test
+    public void testResizeGradient() {
+        BufferedImage image = new BufferedImage(512, 64, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 64; ++y) {
+            for (int x = 0; x < 512; ++x) {
+                int v = x / 2;
+                image.setRGB(x, y, (v << 16) | (v << 8) | v);
+            }
+        }
+        BufferedImage resized = ImgRaster.of(image).resize(64, 8).toImage();
+        for (int x = 4; x < 60; ++x) {
+            // mean of source pixels covered by the target pixel
+            int expected = (x * 8 + 4) / 2;
+            int actual = resized.getRGB(x, 4) & 0xFF;
+            yes(Math.abs(expected - actual) <= 1, "x: %s, expected: %s, actual: %s", x, expected, actual);
+        }
+    }
+
+    @Test
+    public void testResizeKeepsTransparentColor() {
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < 64; ++y) {
+            for (int x = 32; x < 64; ++x) {
+                image.setRGB(x, y, 0xFFFF0000);
+            }
+        }
+        BufferedImage resized = ImgRaster.of(image).resize(10, 10).toImage();
+        eq(BufferedImage.TYPE_INT_ARGB, resized.getType());
+        eq(0, resized.getRGB(0, 5) >>> 24);
+        eq(0xFFFF0000, resized.getRGB(9, 5));
+        // the edge is half transparent but remains red
+        int edge = resized.getRGB(5, 5);
+        int alpha = edge >>> 24;
+        yes(alpha > 0 && alpha < 255);
+        eq(0xFF0000, edge & 0xFFFFFF);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testResizeToZero() {
+        ImgRaster.of(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB)).resize(0, 10);
+    }
+
+    @Test
+    public void testBoxBlurSameAsConvolve() {
+        for (int level : new int[]{2, 3, 5, 8}) {
+            verifyBlur(random(61, 47, BufferedImage.TYPE_INT_RGB), level);
+        }
+        // large enough to be processed in parallel bands
+        verifyBlur(random(700, 500, BufferedImage.TYPE_INT_RGB), 4);
+        verifyBlur(random(30, 20, BufferedImage.TYPE_3BYTE_BGR), 3);
+    }
+
+    @Test
+    public void testBoxBlurLargerThanImage() {
+        BufferedImage image = random(5, 5, BufferedImage.TYPE_INT_RGB);
+        BufferedImage blurred = ImgRaster.of(image).boxBlur(6).toImage();
+        eq(Arrays.toString(pixels(image)), Arrays.toString(pixels(blurred)));
+    }
+
+    private void verifyBlur(BufferedImage image, int level) {
+        float[] matrix = new float[level * level];
+        Arrays.fill(matrix, 1f / matrix.length);
+        BufferedImage expected = new ConvolveOp(new Kernel(level, level, matrix), ConvolveOp.EDGE_NO_OP, null).filter(image, null);
+        BufferedImage actual = ImgRaster.of(image).boxBlur(level).toImage();
+        int[] pe = pixels(expected), pa = pixels(actual);
+        for (int i = 0; i < pe.length; ++i) {
+            for (int shift = 0; shift < 24; shift += 8) {
+                int e = (pe[i] >> shift) & 0xFF, a = (pa[i] >> shift) & 0xFF;
+                yes(Math.abs(e - a) <= 2, "level: %s, pixel %s, expected: %s, actual: %s", level, i, e, a);
+            }
+        }
+    }
+
+    @Test
+    public void testToImageTwice() {
+        BufferedImage image = fill(new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB), 0x80336699);
+        ImgRaster raster = ImgRaster.of(image);
+        BufferedImage first = raster.toImage();
+        BufferedImage second = raster.toImage();
+        for (int y = 0; y < 64; ++y) {
+            for (int x = 0; x < 64; ++x) {
+                eq(first.getRGB(x, y), second.getRGB(x, y));
+            }
+        }
+        int p = first.getRGB(10, 10);
+        eq(0x80, p >>> 24);
+        yes(Math.abs(((p >> 16) & 0xFF) - 0x33) <= 1);
+    }
+
+    private static BufferedImage fill(BufferedImage image, int rgb) {
+        for (int y = 0; y < image.getHeight(); ++y) {
+            for (int x = 0; x < image.getWidth(); ++x) {
+                image.setRGB(x, y, rgb);
+            }
+        }
+        return image;
+    }
+
+    private static BufferedImage random(int w, int h, int type) {
+        Random r = new Random(w * 31 + h);
+        BufferedImage image = new BufferedImage(w, h, type);
+        for (int y = 0; y < h; ++y) {
+            for (int x = 0; x < w; ++x) {
+                image.setRGB(x, y, r.nextInt());
+            }
+        }
+        return image;
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+}
@@ -0,0 +1,275 @@
+package org.osgl.util;
+
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2021 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+import org.osgl.TestBase;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Differential test: the memoized, suffix indexed {@link Inflector} must produce
+ * exactly what trying every rule in order and the original regular expressions produce.
+ */
+public class InflectorTest extends TestBase {
+
+    private static final String[] WORDS = {
+            "post", "posts", "octopus", "octopi", "virus", "viri", "sheep", "words", "word",
+            "the blue mailman", "the blue mailmen", "CamelOctopus", "CamelOctopi",
+            "axis", "axes", "testis", "testes", "crisis", "crises", "alias", "aliases",
+            "status", "statuses", "bus", "buses", "buffalo", "buffaloes", "tomato", "tomatoes",
+            "potato", "shoe", "shoes", "datum", "data", "medium", "media", "analysis", "analyses",
+            "basis", "bases", "diagnosis", "parenthesis", "prognosis", "synopsis", "thesis",
+            "wife", "wives", "knife", "life", "half", "halves", "wolf", "wolves", "elf",
+            "hive", "hives", "objective", "objectives", "query", "queries", "ability", "day", "days",
+            "box", "boxes", "church", "churches", "kiss", "kisses", "wish", "wishes", "fox",
+            "matrix", "matrices", "vertex", "vertices", "index", "indices", "appendix", "complex",
+            "mouse", "mice", "louse", "lice", "house", "houses", "ox", "oxen", "box",
+            "quiz", "quizzes", "person", "people", "man", "men", "woman", "women", "child",
+            "children", "sex", "sexes", "move", "moves", "stadium", "stadiums", "news",
+            "series", "species", "movie", "movies", "equipment", "information", "rice",
+            "money", "fish", "sheep", "salesperson", "user", "users", "order_item",
+            "OrderItem", "order_items", "address", "addresses", "category", "categories",
+            "status_code", "ID", "id", "ids", "s", "ss", "x", "y", "a", "i", "us", "is", "es",
+            "ies", "ves", "ices", "xes", "news_item", "photo", "photos", "hero", "heroes",
+            "dress", "process", "processes", "foo.bar", "foo-bar", "FooBar", "fooBar",
+            "HTTPServer", "XMLHttpRequest", "utf8", "v2", "abc123", "ABC", "résumé",
+            "naïve", "東京", "ſ", "İ", "I", "Key", "octopus\u0085", "bus ",
+            "cow\r\nbus", "s$", "a\\b", "$", "\\", "quizzes_and_tests", "matrix_", "_matrix",
+            "CHILD", "PEOPLE", "Mice", "MOUSE", "OX", "oX", "Ox", "ox ox", "cats and dogs"
+    };
+
+    @Test
+    public void testPluralizeSameAsScan() {
+        Inflector inflector = new Inflector();
+        for (String word : corpus()) {
+            for (int round = 0; round < 2; ++round) {
+                eq(inflector.inflectByScan(word, true), inflector.pluralize(word), word);
+                eq(inflector.inflectByScan(word, false), inflector.singularize(word), word);
+            }
+        }
+        yes(inflector.cacheSize() > 0);
+    }
+
+    @Test
+    public void testCustomRules() {
+        Inflector inflector = new Inflector();
+        eq("cactus", inflector.singularize("cactus"));
+        inflector.addIrregular("cactus", "cacti");
+        eq("cacti", inflector.pluralize("cactus"));
+        eq("cactus", inflector.singularize("cacti"));
+        inflector.addPluralize("(?i)(f)oo$", "$1ooz");
+        inflector.addPluralize("x|y$", "z");
+        inflector.addSingularize("(a|)bc$", "$1");
+        inflector.addSingularize("[m|l]ice\\b", "!");
+        for (String word : corpus()) {
+            eq(inflector.inflectByScan(word, true), inflector.pluralize(word), word);
+            eq(inflector.inflectByScan(word, false), inflector.singularize(word), word);
+        }
+    }
+
+    @Test
+    public void testUncountablesInvalidateCache() {
+        Inflector inflector = new Inflector();
+        eq("posts", inflector.pluralize("post"));
+        inflector.addUncountable("post");
+        eq("post", inflector.pluralize("post"));
+        inflector.getUncountables().remove("post");
+        eq("posts", inflector.pluralize("post"));
+        inflector.getUncountables().add("post");
+        eq("post", inflector.pluralize("post"));
+        Iterator<String> itr = inflector.getUncountables().iterator();
+        while (itr.hasNext()) {
+            if ("post".equals(itr.next())) itr.remove();
+        }
+        eq("posts", inflector.pluralize("post"));
+        inflector.clear();
+        eq(0, inflector.cacheSize());
+        eq("post", inflector.pluralize("post"));
+    }
+
+    @Test
+    public void testCopy() {
+        Inflector inflector = new Inflector();
+        inflector.addIrregular("cactus", "cacti");
+        Inflector copy = inflector.clone();
+        eq("cacti", copy.pluralize("cactus"));
+        copy.addUncountable("cactus");
+        eq("cactus", copy.pluralize("cactus"));
+        eq("cacti", inflector.pluralize("cactus"));
+    }
+
+    @Test
+    public void testCacheBounded() {
+        Inflector inflector = new Inflector();
+        for (int i = 0; i < Inflector.CACHE_LIMIT + 10; ++i) {
+            inflector.pluralize("word" + i);
+        }
+        yes(inflector.cacheSize() <= Inflector.CACHE_LIMIT);
+        String longWord = S.times("a", Inflector.MAX_CACHED_LENGTH) + "x";
+        inflector.clear();
+        inflector.addPluralize("$", "s");
+        eq(longWord + "s", inflector.pluralize(longWord));
+        eq(0, inflector.cacheSize());
+    }
+
+    @Test
+    public void testLocaleChange() {
+        Locale locale = Locale.getDefault();
+        Inflector inflector = new Inflector();
+        try {
+            eq("FISH", inflector.pluralize("FISH"));
+            Locale.setDefault(new Locale("tr", "TR"));
+            // `I` is lowercased to dotless `ı` in Turkish
+            eq(inflector.inflectByScan("FISH", true), inflector.pluralize("FISH"));
+            for (String word : corpus(false)) {
+                eq(camelCaseByRegex(word), inflector.camelCase(word, true, '-', '.'), word);
+                eq(titleCaseByRegex(inflector, word), inflector.titleCase(word), word);
+            }
+        } finally {
+            Locale.setDefault(locale);
+        }
+        eq("FISH", inflector.pluralize("FISH"));
+    }
+
+    @Test
+    public void testCaseConversionsSameAsRegex() {
+        Inflector inflector = new Inflector();
+        for (String word : corpus(false)) {
+            eq(underscoreByRegex(word), inflector.underscore(word, '.'), word);
+            eq(camelCaseByRegex(word), inflector.camelCase(word, true, '-', '.'), word);
+            eq(titleCaseByRegex(inflector, word), inflector.titleCase(word), word);
+        }
+        eq("activeRecord", inflector.lowerCamelCase("active_record"));
+        eq("TheFirstName", inflector.upperCamelCase("the-first_name", '-'));
+        eq("active_record", inflector.underscore("ActiveRecord"));
+        eq("http_server", inflector.underscore("HTTPServer"));
+        eq("Author", inflector.humanize("author_id"));
+        eq("Man From The Boondocks", inflector.titleCase("man from the boondocks"));
+    }
+
+    @Test
+    public void testSpecialCharsInCamelCase() {
+        Inflector inflector = new Inflector();
+        try {
+            camelCaseByRegex("a_$b");
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            try {
+                inflector.camelCase("a_$b", true);
+                fail("expected IllegalArgumentException");
+            } catch (IllegalArgumentException e2) {
+                // same as before
+            }
+        }
+    }
+
+    @Test
+    public void testSuffixesOf() {
+        eq(Arrays.asList("s"), Arrays.asList(suffixesOf("s$")));
+        eq(Arrays.asList("is"), Arrays.asList(suffixesOf("(ax|test)is$")));
+        eq(Arrays.asList("x", "ch", "ss", "sh"), Arrays.asList(suffixesOf("(x|ch|ss|sh)$")));
+        eq(Arrays.asList("ox"), Arrays.asList(suffixesOf("^(ox)$")));
+        eq(Arrays.asList("ouse"), Arrays.asList(suffixesOf("([m|l])ouse$")));
+        isNull(suffixesOf("$"));
+        isNull(suffixesOf("^(ox)en"));
+        isNull(suffixesOf("(matr|vert|ind)ix|ex$"));
+        isNull(suffixesOf("(?:([^f])fe|([lr])f)$"));
+        isNull(suffixesOf("(?m)s$"));
+        isNull(suffixesOf("s\\b$"));
+        isNull(suffixesOf("(a|)$"));
+        isNull(suffixesOf("es?$"));
+    }
+
+    private static String[] suffixesOf(String regex) {
+        return Inflector.RuleIndex.suffixesOf(regex);
+    }
+
+    private static List<String> corpus() {
+        return corpus(true);
+    }
+
+    /*
+     * `$` and `\` break the regex replacement, see testSpecialCharsInCamelCase
+     */
+    private static List<String> corpus(boolean withReplacementChars) {
+        List<String> corpus = new ArrayList<>();
+        for (String word : WORDS) {
+            if (!withReplacementChars && (word.contains("$") || word.contains("\\"))) {
+                continue;
+            }
+            corpus.add(word);
+            corpus.add(word.toUpperCase(Locale.ROOT));
+            corpus.add(S.capFirst(word));
+            corpus.add(" " + word + " ");
+            corpus.add("my " + word);
+            corpus.add("big_" + word);
+        }
+        Random random = new Random(47);
+        String alphabet = "abcdefghijklmnopqrstuvwxyzAEIOSXY_-. 0123456789é\u0085";
+        for (int i = 0; i < 2000; ++i) {
+            int len = 1 + random.nextInt(10);
+            StringBuilder sb = new StringBuilder(len);
+            for (int j = 0; j < len; ++j) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            corpus.add(sb.toString());
+        }
+        return corpus;
+    }
+
+    // --- the regular expression based implementations the inflector used to have
+
+    private static String underscoreByRegex(String camelCaseWord) {
+        String result = camelCaseWord.trim();
+        if (result.length() == 0) return "";
+        result = result.replaceAll("([A-Z]+)([A-Z][a-z])", "$1_$2");
+        result = result.replaceAll("([a-z\\d])([A-Z])", "$1_$2");
+        result = result.replace('-', '_');
+        result = result.replace('.', '_');
+        return result.toLowerCase();
+    }
+
+    private static String camelCaseByRegex(String word) {
+        String result = word.trim();
+        if (result.length() == 0) return "";
+        result = result.replace('-', '_').replace('.', '_');
+        return replaceAllWithUppercase(result, "(^|_)(.)", 2);
+    }
+
+    private static String titleCaseByRegex(Inflector inflector, String words) {
+        return replaceAllWithUppercase(inflector.humanize(words), "\\b([a-z])", 1);
+    }
+
+    private static String replaceAllWithUppercase(String input, String regex, int group) {
+        Matcher matcher = Pattern.compile(regex).matcher(input);
+        StringBuffer sb = new StringBuffer();
+        while (matcher.find()) {
+            matcher.appendReplacement(sb, matcher.group(group).toUpperCase());
+        }
+        matcher.appendTail(sb);
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,241 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.junit.Test;
+import org.osgl.TestBase;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+public class KVStoreTest extends TestBase {
+
+    @Test
+    public void testPutAndGet() {
+        KVStore store = new KVStore();
+        store.putValue("i", 5).putValue("l", 10L).putValue("s", "abc").putValue("b", true);
+        eq(4, store.size());
+        eq(5, store.<Integer>getValue("i"));
+        eq(10L, store.<Long>getValue("l"));
+        eq("abc", store.getValue("s"));
+        eq(true, store.getValue("b"));
+        eq(new ValueObject(5), store.get("i"));
+        isNull(store.get("x"));
+        isNull(store.getValue("x"));
+        eq(new ValueObject("abc"), store.put("s", new ValueObject("xyz")));
+        eq("xyz", store.getValue("s"));
+        eq(4, store.size());
+    }
+
+    @Test
+    public void testGetIntAndLong() {
+        KVStore store = new KVStore();
+        store.putValue("i", 5).putValue("l", Long.MAX_VALUE).putValue("s", "12").putValue("d", 3.7d);
+        eq(5, store.getInt("i"));
+        eq(5L, store.getLong("i"));
+        eq(Long.MAX_VALUE, store.getLong("l"));
+        eq(12, store.getInt("s"));
+        eq(3, store.getInt("d"));
+        eq(0, store.getInt("x"));
+        eq(-1L, store.getLong("x", -1L));
+    }
+
+    @Test
+    public void testNullKeyAndValue() {
+        KVStore store = new KVStore();
+        store.put(null, new ValueObject(1));
+        store.put("n", null);
+        eq(2, store.size());
+        eq(1, store.getInt(null));
+        yes(store.containsKey("n"));
+        isNull(store.get("n"));
+        eq(7, store.getInt("n", 7));
+        yes(store.containsKey(null));
+        store.remove(null);
+        no(store.containsKey(null));
+    }
+
+    @Test
+    public void testAgainstHashMap() {
+        Random r = new Random(1);
+        Map<String, ValueObject> expected = new HashMap<>();
+        KVStore store = new KVStore();
+        for (int i = 0; i < 20000; ++i) {
+            String key = "k" + r.nextInt(3000);
+            if (r.nextInt(3) == 0) {
+                eq(expected.remove(key), store.remove(key));
+            } else {
+                ValueObject vo = new ValueObject(i);
+                eq(expected.put(key, vo), store.put(key, vo));
+            }
+        }
+        eq(expected.size(), store.size());
+        eq(expected, store);
+        eq(store, expected);
+        eq(expected.hashCode(), store.hashCode());
+    }
+
+    @Test
+    public void testRemoveWhileIterating() {
+        KVStore store = new KVStore();
+        for (int i = 0; i < 1000; ++i) {
+            store.putValue("k" + i, i);
+        }
+        Set<String> visited = new HashSet<>();
+        Iterator<Map.Entry<String, ValueObject>> itr = store.entrySet().iterator();
+        while (itr.hasNext()) {
+            Map.Entry<String, ValueObject> entry = itr.next();
+            yes(visited.add(entry.getKey()));
+            if (entry.getValue().intValue() % 2 == 0) {
+                itr.remove();
+            }
+        }
+        eq(1000, visited.size());
+        eq(500, store.size());
+        for (int i = 0; i < 1000; ++i) {
+            eq(i % 2 != 0, store.containsKey("k" + i));
+        }
+    }
+
+    @Test
+    public void testEntrySetValue() {
+        KVStore store = new KVStore();
+        store.putValue("a", 1);
+        for (Map.Entry<String, ValueObject> entry : store.entrySet()) {
+            entry.setValue(new ValueObject(2));
+        }
+        eq(2, store.getInt("a"));
+    }
+
+    @Test
+    public void testCopyAndSerialize() throws Exception {
+        KVStore store = new KVStore();
+        store.putValue("a", 1).putValue("b", "x");
+        store.put(null, null);
+        KVStore copy = new KVStore(store);
+        copy.putValue("c", 3L);
+        eq(3, store.size());
+        eq(4, copy.size());
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        oos.writeObject(copy);
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        KVStore read = (KVStore) ois.readObject();
+        eq(copy, read);
+        eq(3L, read.getLong("c"));
+    }
+
+    /*
+     * Written by the HashMap based KVStore: int 42, long 7L, str "hello",
+     * bool true and unit TimeUnit.SECONDS
+     */
+    private static final String LEGACY_STREAM =
+            "rO0ABXNyABVvcmcub3NnbC51dGlsLktWU3RvcmU3ziKaQ0UvAgIAAHhyABFqYXZhLnV0aWwuSGFzaE1hcAUH2sHDFmDRAwACRgAK" +
+            "bG9hZEZhY3RvckkACXRocmVzaG9sZHhwP0AAAAAAAAx3CAAAABAAAAAFdAADc3Ryc3IAGW9yZy5vc2dsLnV0aWwuVmFsdWVPYmpl" +
+            "Y3SrS/30qG38BwIAC0wABWJsVmFsdAATTGphdmEvbGFuZy9Cb29sZWFuO0wABWJ5VmFsdAAQTGphdmEvbGFuZy9CeXRlO0wABWNo" +
+            "VmFsdAAVTGphdmEvbGFuZy9DaGFyYWN0ZXI7TAAEZFZhbHQAEkxqYXZhL2xhbmcvRG91YmxlO0wABGVWYWx0ABBMamF2YS9sYW5n" +
+            "L0VudW07TAAEZlZhbHQAEUxqYXZhL2xhbmcvRmxvYXQ7TAAEaVZhbHQAE0xqYXZhL2xhbmcvSW50ZWdlcjtMAARsVmFsdAAQTGph" +
+            "dmEvbGFuZy9Mb25nO0wABHNWYWx0ABJMamF2YS9sYW5nL1N0cmluZztMAAVzaFZhbHQAEUxqYXZhL2xhbmcvU2hvcnQ7TAADdWRm" +
+            "dAASTGphdmEvbGFuZy9PYmplY3Q7eHBwcHBwcHBwcHQABWhlbGxvcHB0AAR1bml0c3EAfgAEcHBwcH5yAB1qYXZhLnV0aWwuY29u" +
+            "Y3VycmVudC5UaW1lVW5pdAAAAAAAAAAAEgAAeHIADmphdmEubGFuZy5FbnVtAAAAAAAAAAASAAB4cHQAB1NFQ09ORFNwcHBwcHB0" +
+            "AARib29sc3EAfgAEc3IAEWphdmEubGFuZy5Cb29sZWFuzSBygNWc+u4CAAFaAAV2YWx1ZXhwAXBwcHBwcHBwcHB0AANpbnRzcQB+" +
+            "AARwcHBwcHBzcgARamF2YS5sYW5nLkludGVnZXIS4qCk94GHOAIAAUkABXZhbHVleHIAEGphdmEubGFuZy5OdW1iZXKGrJUdC5Tg" +
+            "iwIAAHhwAAAAKnBwcHB0AARsb25nc3EAfgAEcHBwcHBwcHNyAA5qYXZhLmxhbmcuTG9uZzuL5JDMjyPfAgABSgAFdmFsdWV4cQB+" +
+            "AB8AAAAAAAAAB3BwcHg=";
+
+    @Test
+    public void testDeserializeLegacyStream() throws Exception {
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(Codec.decodeBase64(LEGACY_STREAM)));
+        KVStore store = (KVStore) ois.readObject();
+        eq(5, store.size());
+        eq(42, store.getInt("int"));
+        eq(7L, store.getLong("long"));
+        eq("hello", store.getValue("str"));
+        eq(true, store.getValue("bool"));
+        eq(TimeUnit.SECONDS, store.getValue("unit"));
+        store.putValue("x", 1);
+        eq(6, store.size());
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        oos.writeObject(store);
+        ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        eq(store, ois.readObject());
+    }
+
+    @Test
+    public void testMapOperations() {
+        KVStore store = new KVStore();
+        store.putValue("a", 1).putValue("b", 2);
+        eq(C.set("a", "b"), new HashSet<>(store.keySet()));
+        yes(store.values().contains(new ValueObject(2)));
+        yes(store.containsValue(new ValueObject(1)));
+        eq(new ValueObject(0), store.getOrDefault("x", new ValueObject(0)));
+        isNull(store.putIfAbsent("c", new ValueObject(3)));
+        eq(new ValueObject(3), store.putIfAbsent("c", new ValueObject(4)));
+        yes(store.replace("c", new ValueObject(3), new ValueObject(5)));
+        eq(5, store.getInt("c"));
+        eq(new ValueObject(11), store.merge("a", new ValueObject(10), new BiFunction<ValueObject, ValueObject, ValueObject>() {
+            @Override
+            public ValueObject apply(ValueObject v1, ValueObject v2) {
+                return new ValueObject(v1.intValue() + v2.intValue());
+            }
+        }));
+        eq(11, store.getInt("a"));
+        no(store.remove("b", new ValueObject(3)));
+        yes(store.remove("b", new ValueObject(2)));
+        store.keySet().remove("c");
+        eq(C.set("a"), new HashSet<>(store.keySet()));
+
+        KVStore clone = store.clone();
+        clone.putValue("d", 4);
+        eq(1, store.size());
+        eq(2, clone.size());
+        eq(11, clone.getInt("a"));
+    }
+
+    @Test
+    public void testToMap() {
+        KVStore store = new KVStore(C.<String, Object>Map("a", 1, "b", "x"));
+        eq(C.newMap("a", 1, "b", "x"), store.toMap());
+    }
+
+    @Test
+    public void testFootprint() {
+        final int n = 200000;
+        KVStore store = new KVStore();
+        for (int i = 0; i < n; ++i) {
+            store.putValue("key" + i, i);
+        }
+        eq(n, store.size());
+        // load factor 3/4, i.e. four parallel arrays of 2^19 slots
+        eq(1 << 19, store.capacity());
+        // int values are kept in the long array, no object per value
+        eq(0, store.references());
+        store.putValue("s", "string");
+        eq(1, store.references());
+        store.remove("s");
+        eq(0, store.references());
+    }
+
+}
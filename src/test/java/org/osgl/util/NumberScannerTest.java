@@ -0,0 +1,149 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.junit.Test;
+import org.osgl.TestBase;
+
+import java.util.Random;
+
+public class NumberScannerTest extends TestBase {
+
+    private static final String[] SAMPLES = {
+            "0", "-0", "+0", "5", "-5", "+5", "007", "1.", ".5", ".", "-.", "+", "-", "",
+            " 12 ", "\t3\n", "1 2", "1.5", "-1.5", "2.5", "0.1", "0.000123", "123456.789",
+            "1e3", "1E-3", "1e+3", "1e", "e3", "1.5e", "1.5e-", "1.5f", "1.5D", "2d", "2x", "1ff",
+            "NaN", "-NaN", "Infinity", "-Infinity", "+Infinity", "Inf", "nan",
+            "0x10", "0x1p3", "0X1.8P1", "0x", "0xg",
+            "2147483647", "2147483648", "-2147483648", "-2147483649",
+            "9223372036854775807", "9223372036854775808", "-9223372036854775808", "-9223372036854775809",
+            "12345678901234567890123", "0.12345678901234567890123", "1e400", "1e-400", "4.9e-324",
+            "1.7976931348623157E308", "9007199254740993", "0.1e22", "123456789012345678e-5",
+            "3.4028235e38", "1.4e-45", "123456789012345", "1234567890123456", "99999999999999.9", "0.000000000000001", "16777217", "0.49999997", "abc", "1a", "a1", "1.2.3", "--1", "١٢"
+    };
+
+    @Test
+    public void testSamplesAgainstJdk() {
+        for (String s : SAMPLES) {
+            verify(s);
+        }
+    }
+
+    @Test
+    public void testRandomAgainstJdk() {
+        Random r = new Random(7);
+        String chars = "0123456789012345678901234567890123456789.-+eE f";
+        for (int i = 0; i < 20000; ++i) {
+            int len = 1 + r.nextInt(12);
+            StringBuilder sb = new StringBuilder(len);
+            for (int j = 0; j < len; ++j) {
+                sb.append(chars.charAt(r.nextInt(chars.length())));
+            }
+            verify(sb.toString());
+        }
+        for (int i = 0; i < 20000; ++i) {
+            verify(Double.toString(r.nextDouble() * Math.pow(10, r.nextInt(40) - 20)));
+            verify(Float.toString(r.nextFloat() * (float) Math.pow(10, r.nextInt(20) - 10)));
+            verify(Long.toString(r.nextLong()));
+            verify(Integer.toString(r.nextInt()));
+            verify(S.fmt("%d.%d", r.nextInt(100000), r.nextInt(100000)));
+        }
+    }
+
+    @Test
+    public void testRegion() {
+        String s = "x-12.5*3y";
+        NumberScanner scanner = NumberScanner.scan(s, 1, 6);
+        yes(scanner.isNumber());
+        no(scanner.isIntegral());
+        eq(-12.5d, scanner.doubleValue());
+        eq(3, NumberScanner.parseInt(s, 7, 8));
+    }
+
+    @Test
+    public void testIsNumeric() {
+        yes(N.isNumeric("12"));
+        yes(N.isNumeric("-1.5e3"));
+        yes(N.isNumeric(" 3.0 "));
+        no(N.isNumeric("1,000"));
+        no(N.isNumeric("abc"));
+        no(N.isNumeric(" "));
+        yes(S.isNumeric("1e3"));
+        // non ASCII digits are accepted by N.isInt
+        yes(N.isNumeric("\u0661\u0662"));
+        no(N.isNumeric("1\u00e9"));
+    }
+
+    @Test
+    public void testResolveNumber() {
+        StringValueResolver<Number> resolver = StringValueResolver.predefined(Number.class);
+        eq(12, resolver.resolve("12"));
+        eq(-5000000000L, resolver.resolve("-5000000000"));
+        // not an int as per N.isInt, resolved as double
+        eq(12d, resolver.resolve(" 12"));
+        eq(12d, resolver.resolve("+12"));
+        eq(1.5d, resolver.resolve("1.5"));
+        eq(12, resolver.resolve("\u0661\u0662"));
+        try {
+            resolver.resolve("99999999999999999999");
+            fail("expected NumberFormatException");
+        } catch (NumberFormatException e) {
+            // expected
+        }
+    }
+
+    private static void verify(String s) {
+        NumberScanner scanner = NumberScanner.scan(s);
+        Double d = null;
+        try {
+            d = Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            // not a number
+        }
+        eq(null != d, scanner.isNumber(), s);
+        if (null != d) {
+            eq(d, scanner.doubleValue(), s);
+            eq(Float.parseFloat(s), scanner.floatValue(), s);
+            eq(Double.parseDouble(s), NumberScanner.parseDouble(s, 0, s.length()), s);
+        }
+        Long l = null;
+        try {
+            l = Long.parseLong(s);
+        } catch (NumberFormatException e) {
+            // not a long
+        }
+        if (null != l) {
+            eq(l, NumberScanner.parseLong(s, 0, s.length()), s);
+            if (l.intValue() == l) {
+                eq(l.intValue(), NumberScanner.parseInt(s, 0, s.length()), s);
+            }
+        }
+        if (scanner.isIntegral()) {
+            eq(Long.parseLong(s.trim()), scanner.longValue(), s);
+        }
+    }
+
+    private static void eq(Object expected, Object actual, String input) {
+        if (!expected.equals(actual)) {
+            fail("input [%s]: expected %s, found %s", input, expected, actual);
+        }
+    }
+
+}
@@ -0,0 +1,163 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.junit.Test;
+import org.osgl.$;
+import org.osgl.exception.NotAppliedException;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PipelineSeqTest extends UtilTestBase {
+
+    // an infinite sequence of natural numbers that counts elements pulled
+    private static class Naturals implements Iterable<Integer> {
+        final AtomicInteger pulled = new AtomicInteger();
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return new ReadOnlyIterator<Integer>() {
+                int n = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return true;
+                }
+
+                @Override
+                public Integer next() {
+                    pulled.incrementAndGet();
+                    return n++;
+                }
+            };
+        }
+    }
+
+    private static final $.F1<Integer, Integer> DOUBLE = new $.F1<Integer, Integer>() {
+        @Override
+        public Integer apply(Integer n) throws NotAppliedException, $.Break {
+            return n * 2;
+        }
+    };
+
+    private static final $.Predicate<Integer> NOT_DIV_3 = new $.Predicate<Integer>() {
+        @Override
+        public boolean test(Integer n) {
+            return n % 3 != 0;
+        }
+    };
+
+    private static $.Predicate<Integer> lessThan(final int max) {
+        return new $.Predicate<Integer>() {
+            @Override
+            public boolean test(Integer n) {
+                return n < max;
+            }
+        };
+    }
+
+    @Test
+    public void testStagesAreFused() {
+        C.Sequence<Integer> seq = seqOf(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        C.Sequence<Integer> pipeline = seq.map(DOUBLE).filter(NOT_DIV_3).drop(1).take(3).map(DOUBLE);
+        yes(pipeline instanceof PipelineSeq);
+        same(pipeline, PipelineSeq.of(pipeline));
+        eq(seqOf(8, 16, 20), pipeline);
+    }
+
+    @Test
+    public void testSameAsEager() {
+        List<Integer> data = C.list(5, 1, 4, 2, 8, 3, 9, 7, 6, 10, 12, 11);
+        C.Sequence<Integer> seq = C.seq(data.iterator());
+        C.Sequence<Integer> pipeline = seq.dropWhile(lessThan(5)).map(DOUBLE).filter(NOT_DIV_3).takeWhile(lessThan(20));
+        eq(C.list(10, 2, 8, 4, 16, 14), C.list(pipeline));
+    }
+
+    @Test
+    public void testTakeShortCircuits() {
+        Naturals naturals = new Naturals();
+        C.Sequence<Integer> seq = C.seq(naturals).filter(NOT_DIV_3).map(DOUBLE).take(4);
+        eq(C.list(2, 4, 8, 10), C.list(seq));
+        // 0 .. 5 pulled, 6th pull would be wasted
+        eq(6, naturals.pulled.get());
+    }
+
+    @Test
+    public void testTakeWhileShortCircuits() {
+        Naturals naturals = new Naturals();
+        C.Sequence<Integer> seq = C.seq(naturals).takeWhile(lessThan(5));
+        eq(C.list(0, 1, 2, 3, 4), C.list(seq));
+        eq(6, naturals.pulled.get());
+    }
+
+    @Test
+    public void testTakeThenFilter() {
+        C.Sequence<Integer> seq = seqOf(1, 2, 3, 4, 5, 6, 7).take(3).filter(NOT_DIV_3);
+        eq(C.list(1, 2), C.list(seq));
+    }
+
+    @Test
+    public void testNullElements() {
+        C.Sequence<String> seq = C.seq(Arrays.asList("a", null, "b")).map($.F.<String>identity()).drop(1);
+        Iterator<String> itr = seq.iterator();
+        yes(itr.hasNext());
+        isNull(itr.next());
+        eq("b", itr.next());
+        no(itr.hasNext());
+    }
+
+    @Test
+    public void testIteratorCanBeRepeated() {
+        C.Sequence<Integer> seq = C.seq(C.list(1, 2, 3, 4)).drop(1).take(2);
+        eq(C.list(2, 3), C.list(seq));
+        eq(C.list(2, 3), C.list(seq));
+    }
+
+    @Test
+    public void testSize() {
+        eq(3, C.seq(Arrays.asList(1, 2, 3)).map(DOUBLE).size());
+        try {
+            C.seq(Arrays.asList(1, 2, 3)).filter(NOT_DIV_3).size();
+            fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testLazySeqTailMemoized() {
+        final AtomicInteger evaluated = new AtomicInteger();
+        C.Sequence<Integer> seq = new LazySeq<>(1, new $.F0<C.Sequence<Integer>>() {
+            @Override
+            public C.Sequence<Integer> apply() throws NotAppliedException, $.Break {
+                evaluated.incrementAndGet();
+                return C.seq(C.list(2, 3));
+            }
+        });
+        eq(C.list(1, 2, 3), C.list(seq));
+        eq(C.list(1, 2, 3), C.list(seq));
+        same(seq.tail(), seq.tail());
+        eq(1, evaluated.get());
+    }
+
+}
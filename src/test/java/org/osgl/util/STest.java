@@ -21,6 +21,14 @@ package org.osgl.util;
  */
 
 import org.junit.Test;
+import org.osgl.$;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.regex.Pattern;
 
 public class STest extends UtilTestBase {
     @Test
@@ -285,6 +293,71 @@ public class STest extends UtilTestBase {
         eq(C.list("abc", "xyz", "ijk"), S.split("abc1xyz23ijk", "[0-9]+"));
         eq(C.list("tmp", "foo", "bar"), S.fastSplit("/tmp/foo/bar", "/"));
         eq(C.list("tmp", "foo", "bar"), S.split("/tmp/foo/bar").by("/").get());
+        eq(C.list("abc", "xyz"), S.split("abc12xyz").useRegex().by("[0-9]+").get());
+        eq(C.list("abc", "xyz"), S.split("abc12xyz").by(Pattern.compile("[0-9]+")).get());
+        eq(C.list("a", "b", "c"), S.split("a.b.c", "\\."));
+        eq(C.list("a", "b", "c"), S.split("a;b;c", ";"));
+        eq(C.list("a", "b"), S.split(",a,,b,", ','));
+    }
+
+    @Test
+    public void testSplitCursor() {
+        S.SplitCursor cursor = S.splitCursor("//tmp//foo/bar/", '/');
+        yes(cursor.hasNext());
+        eq("tmp", cursor.next().toString());
+        eq(2, cursor.start());
+        eq(5, cursor.end());
+        eq("foo", cursor.nextString());
+        eq(1, cursor.count());
+        no(cursor.hasNext());
+        eq(C.list("abc", "12345", "abxyd"), S.splitCursor("abc**12345****abxyd**", "**").toList());
+        eq(C.list("abc", "xyz", "ijk"), S.splitCursor("abc1xyz23ijk4", Pattern.compile("[0-9]+")).toList());
+        eq(C.list("a", "b"), S.splitCursor("ab", Pattern.compile("x*")).toList());
+        eq(C.list("a", "b"), S.splitCursor(FastStr.of("xxaxbxx"), "x").toList());
+        eq(C.list("abc", "xyz"), S.split(S.buffer("abc-xyz")).by("-").cursor().toList());
+        eq(0, S.splitCursor("", ',').count());
+        eq(0, S.splitCursor(",,,", ',').count());
+        List<String> tokens = C.newList();
+        for (CharSequence token : S.splitCursor("a,b,c", ',')) {
+            tokens.add(token.toString());
+        }
+        eq(C.list("a", "b", "c"), tokens);
+        cursor = S.splitCursor("a", ',');
+        cursor.next();
+        try {
+            cursor.next();
+            fail("expected NoSuchElementException");
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSplitCursorSameAsFastSplit() {
+        String[] samples = {"abc", "a,b", ",a,,b,", ",,,", "a,,", ",,a", "x"};
+        for (String sample : samples) {
+            eq(S.split(sample, ','), S.splitCursor(sample, ',').toList());
+            eq(S.fastSplit(sample, ",,"), S.splitCursor(sample, ",,").toList());
+        }
+    }
+
+    @Test
+    public void testRegexCache() {
+        RegexCache.clear();
+        S.split("a1b", "[0-9]");
+        S.replace("[0-9]").with("").usingRegEx().in("a1");
+        S.given("a1").replace("[0-9]").usingRegEx().with("");
+        eq(1, RegexCache.size());
+        same(RegexCache.compile("[0-9]"), RegexCache.compile("[0-9]"));
+        for (int i = 0; i <= RegexCache.CACHE_LIMIT; ++i) {
+            RegexCache.compile("x" + i);
+        }
+        yes(RegexCache.size() <= RegexCache.CACHE_LIMIT);
+        yes(RegexCache.isLiteralChar(","));
+        yes(RegexCache.isLiteralChar("\\."));
+        no(RegexCache.isLiteralChar("."));
+        no(RegexCache.isLiteralChar("\\d"));
+        no(RegexCache.isLiteralChar("ab"));
     }
 
     @Test
@@ -294,6 +367,60 @@ public class STest extends UtilTestBase {
         eq("hello foo", S.given("hello world").replace("world").with("foo"));
     }
 
+    @Test
+    public void testReplaceLiteral() {
+        eq("a-b-c-", S.replace("**").with("-").in("a**b**c**"));
+        eq("xxaxxbxx", S.replace("-").with("xx").in("-a-b-"));
+        eq("abc", S.replace("").with("x").in("abc"));
+        String text = "hello world";
+        same(text, S.replace("xyz").with("abc").in(text));
+        same(text, S.given(text).replace("xyz").with("abc"));
+        eq("hello osgl", S.replace("world").with("osgl").in(text, S.newBuffer()).toString());
+        eq("hello osgl", S.given(text).replace("world").with("osgl", new StringBuilder()).toString());
+        eq("hello world", S.given(text).replace("xyz").with("osgl", new StringBuilder()).toString());
+        eq("times [N]", S.given("times 10").replace("[0-9]+").usingRegEx().with("[N]", new StringBuilder()).toString());
+        String longText = S.times("ab", 1000);
+        eq(S.times("xyzb", 1000), S.replace("a").with("xyz").in(longText));
+        eq(longText.replace("ab", "-"), S.replace("ab").with("-").in(longText));
+    }
+
+    @Test
+    public void testReplaceWithCustomReplacer() {
+        $.Func4<char[], char[], char[], Integer, char[]> upper = new $.Func4<char[], char[], char[], Integer, char[]>() {
+            @Override
+            public char[] apply(char[] text, char[] target, char[] replacement, Integer firstId) {
+                return new String(text).toUpperCase().toCharArray();
+            }
+        };
+        eq("HELLO WORLD", S.replace("world").with("osgl").replacer(upper).in("hello world"));
+        eq("HELLO WORLD", S.given("hello world").replace("world").replacer(upper).with("osgl"));
+    }
+
+    @Test
+    public void testBatchReplace() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("{name}", "osgl");
+        map.put("{n}", 3);
+        map.put("{na", "!");
+        map.put("\u00e9", "e");
+        S.BatchReplace replace = S.batchReplace(map);
+        eq("osgl has 3 tools, !", replace.in("{name} has {n} tools, {na"));
+        eq("cafe", replace.in("caf\u00e9"));
+        eq("!m", replace.in("{nam"));
+        String text = "nothing to replace";
+        same(text, replace.in(text));
+        eq("osgl osgl", replace.in(S.buffer("{name} {name}")));
+        eq("[osgl]", replace.in("{name}", new StringBuilder("[")).append("]").toString());
+        eq("", replace.in(""));
+        same(text, S.batchReplace(new HashMap<String, Object>()).in(text));
+        try {
+            S.batchReplace(C.<String, Object>Map("", "x"));
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
     @Test
     public void testRepeat() {
         eq("aaa", S.repeat('a').times(3));
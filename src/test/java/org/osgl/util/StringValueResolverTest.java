@@ -175,11 +175,13 @@ public abstract class StringValueResolverTest extends TestBase {
         public void testWithRounding() {
             verify(6, "5.5");
             verify(5, "5.4");
+            verify(2, " 1.5 ");
         }
 
         @Test
         public void testWithTimesOperator() {
             verify(600, "60 * 10");
+            verify(6, "2**3");
         }
 
         @Test
@@ -233,6 +235,9 @@ public abstract class StringValueResolverTest extends TestBase {
         @Test
         public void testWithTimesOperator() {
             verify(10f, "1.25 * 8");
+            verify(2f, "2* ");
+            verify(3f, "\t*3");
+            verify(6f, " 2 *\t3 ");
         }
 
         @Test
@@ -259,6 +264,9 @@ public abstract class StringValueResolverTest extends TestBase {
         @Test
         public void testWithTimesOperator() {
             verify(10d, "1.25 * 8");
+            verify(2d, "2* ");
+            verify(3d, "\t*3");
+            verify(6d, " 2 *\t3 ");
         }
 
         @Test
@@ -25,9 +25,14 @@ import org.mockito.Mockito;
 import static org.mockito.Mockito.when;
 import org.osgl.TestBase;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 public class ValueObjectTest extends TestBase {
 
@@ -179,10 +184,82 @@ public class ValueObjectTest extends TestBase {
         vo.intValue();
     }
 
+    @Test
+    public void testDecode() {
+        eq(12, ValueObject.decode("12", int.class));
+        eq(-12L, ValueObject.decode("-12", Long.class));
+        eq(1.5d, ValueObject.decode("1.5", double.class));
+        eq(2.5f, ValueObject.decode("2.5", Float.class));
+        eq(true, ValueObject.decode("true", boolean.class));
+        eq("abc", ValueObject.decode("abc", String.class));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testDecodeInvalidInt() {
+        ValueObject.decode("1.5", int.class);
+    }
+
     @Test
     public void testCopyConstructor() {
         ValueObject vo = new ValueObject(5);
         ValueObject copy = new ValueObject(vo);
         eq(copy, vo);
     }
+
+    @Test
+    public void testSerialization() throws Exception {
+        ValueObject[] values = {new ValueObject(42), new ValueObject("hello"), new ValueObject(true),
+                new ValueObject(3.5d), new ValueObject(TimeUnit.SECONDS)};
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        for (ValueObject vo : values) {
+            oos.writeObject(vo);
+        }
+        oos.close();
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        for (ValueObject vo : values) {
+            eq(vo, ois.readObject());
+        }
+    }
+
+    /*
+     * Written by ValueObject before the compact layout, which had one boxed
+     * field per type: 42, "hello", true, 3.5d, 7L, 'x', 1.5f, (short) 3,
+     * (byte) 2 and TimeUnit.SECONDS
+     */
+    private static final String LEGACY_STREAM =
+            "rO0ABXNyABlvcmcub3NnbC51dGlsLlZhbHVlT2JqZWN0q0v99Kht/AcCAAtMAAVibFZhbHQAE0xqYXZhL2xhbmcvQm9vbGVh" +
+            "bjtMAAVieVZhbHQAEExqYXZhL2xhbmcvQnl0ZTtMAAVjaFZhbHQAFUxqYXZhL2xhbmcvQ2hhcmFjdGVyO0wABGRWYWx0ABJM" +
+            "amF2YS9sYW5nL0RvdWJsZTtMAARlVmFsdAAQTGphdmEvbGFuZy9FbnVtO0wABGZWYWx0ABFMamF2YS9sYW5nL0Zsb2F0O0wA" +
+            "BGlWYWx0ABNMamF2YS9sYW5nL0ludGVnZXI7TAAEbFZhbHQAEExqYXZhL2xhbmcvTG9uZztMAARzVmFsdAASTGphdmEvbGFu" +
+            "Zy9TdHJpbmc7TAAFc2hWYWx0ABFMamF2YS9sYW5nL1Nob3J0O0wAA3VkZnQAEkxqYXZhL2xhbmcvT2JqZWN0O3hwcHBwcHBw" +
+            "c3IAEWphdmEubGFuZy5JbnRlZ2VyEuKgpPeBhzgCAAFJAAV2YWx1ZXhyABBqYXZhLmxhbmcuTnVtYmVyhqyVHQuU4IsCAAB4" +
+            "cAAAACpwcHBwc3EAfgAAcHBwcHBwcHB0AAVoZWxsb3Bwc3EAfgAAc3IAEWphdmEubGFuZy5Cb29sZWFuzSBygNWc+u4CAAFa" +
+            "AAV2YWx1ZXhwAXBwcHBwcHBwcHBzcQB+AABwcHBzcgAQamF2YS5sYW5nLkRvdWJsZYCzwkopa/sEAgABRAAFdmFsdWV4cQB+" +
+            "AA5ADAAAAAAAAHBwcHBwcHBzcQB+AABwcHBwcHBwc3IADmphdmEubGFuZy5Mb25nO4vkkMyPI98CAAFKAAV2YWx1ZXhxAH4A" +
+            "DgAAAAAAAAAHcHBwc3EAfgAAcHBzcgATamF2YS5sYW5nLkNoYXJhY3RlcjSLR9lrGiZ4AgABQwAFdmFsdWV4cAB4cHBwcHBw" +
+            "cHBzcQB+AABwcHBwcHNyAA9qYXZhLmxhbmcuRmxvYXTa7cmi2zzw7AIAAUYABXZhbHVleHEAfgAOP8AAAHBwcHBwc3EAfgAA" +
+            "cHBwcHBwcHBwc3IAD2phdmEubGFuZy5TaG9ydGhNNxM0YNpSAgABUwAFdmFsdWV4cQB+AA4AA3BzcQB+AABwc3IADmphdmEu" +
+            "bGFuZy5CeXRlnE5ghO5Q9RwCAAFCAAV2YWx1ZXhxAH4ADgJwcHBwcHBwcHBzcQB+AABwcHBwfnIAHWphdmEudXRpbC5jb25j" +
+            "dXJyZW50LlRpbWVVbml0AAAAAAAAAAASAAB4cgAOamF2YS5sYW5nLkVudW0AAAAAAAAAABIAAHhwdAAHU0VDT05EU3BwcHBw" +
+            "cA==";
+
+    @Test
+    public void testDeserializeLegacyStream() throws Exception {
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(Codec.decodeBase64(LEGACY_STREAM)));
+        try {
+            eq(42, ((ValueObject) ois.readObject()).intValue());
+            eq("hello", ((ValueObject) ois.readObject()).stringValue());
+            yes(((ValueObject) ois.readObject()).booleanValue());
+            eq(3.5d, ((ValueObject) ois.readObject()).doubleValue());
+            eq(7L, ((ValueObject) ois.readObject()).longValue());
+            eq('x', ((ValueObject) ois.readObject()).charValue());
+            eq(1.5f, ((ValueObject) ois.readObject()).floatValue());
+            eq((short) 3, ((ValueObject) ois.readObject()).shortValue());
+            eq((byte) 2, ((ValueObject) ois.readObject()).byteValue());
+            eq(TimeUnit.SECONDS, ((ValueObject) ois.readObject()).value());
+        } finally {
+            ois.close();
+        }
+    }
 }
@@ -0,0 +1,295 @@
+package org.osgl.util;
+
+/*-
+ * #%L
+ * Java Tool
+ * %%
+ * Copyright (C) 2014 - 2017 OSGL (Open Source General Library)
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgl.TestBase;
+import org.osgl.exception.ResourceNotFoundException;
+import org.osgl.storage.ISObject;
+import org.osgl.storage.impl.SObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+public class ZipBuilderTest extends TestBase {
+
+    private File target;
+
+    @Before
+    public void prepare() {
+        target = IO.tmpFile();
+    }
+
+    @After
+    public void cleanUp() {
+        IO.delete(target);
+    }
+
+    @Test
+    public void testParallelEntriesInOrder() throws IOException {
+        Map<String, byte[]> contents = C.newMap();
+        ZipBuilder zip = IO.zipTo(target).threads(4);
+        for (int i = 0; i < 50; ++i) {
+            String name = "report-" + i + ".csv";
+            byte[] content = S.times("line " + i + ",a,b,c\n", 100 + i * 10).getBytes();
+            contents.put(name, content);
+            zip.add(name, content);
+        }
+        zip.close();
+        ZipFile zipFile = new ZipFile(target);
+        try {
+            eq(50, zipFile.size());
+            int i = 0;
+            for (ZipEntry entry : java.util.Collections.list(zipFile.entries())) {
+                eq("report-" + i++ + ".csv", entry.getName());
+                eq(ZipEntry.DEFLATED, entry.getMethod());
+                eq(contents.get(entry.getName()), IO.readContent(zipFile.getInputStream(entry)));
+            }
+        } finally {
+            zipFile.close();
+        }
+    }
+
+    @Test
+    public void testStoreAlreadyCompressed() throws IOException {
+        byte[] photo = randomBytes(10000);
+        byte[] text = S.times("hello ", 1000).getBytes();
+        IO.zipTo(target).threads(2)
+                .add("photo.JPG", photo)
+                .add("dir/notes.txt", text)
+                .add("random.bin", photo)
+                .close();
+        ZipFile zipFile = new ZipFile(target);
+        try {
+            eq(ZipEntry.STORED, zipFile.getEntry("photo.JPG").getMethod());
+            eq(ZipEntry.DEFLATED, zipFile.getEntry("dir/notes.txt").getMethod());
+            // deflating random bytes does not make it smaller
+            eq(ZipEntry.STORED, zipFile.getEntry("random.bin").getMethod());
+            eq(photo, IO.readContent(zipFile.getInputStream(zipFile.getEntry("photo.JPG"))));
+            eq(text, IO.readContent(zipFile.getInputStream(zipFile.getEntry("dir/notes.txt"))));
+        } finally {
+            zipFile.close();
+        }
+    }
+
+    @Test
+    public void testLevelZero() throws IOException {
+        IO.zipTo(target).level(0).add("a.txt", "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa".getBytes()).close();
+        ZipFile zipFile = new ZipFile(target);
+        try {
+            eq(ZipEntry.STORED, zipFile.getEntry("a.txt").getMethod());
+        } finally {
+            zipFile.close();
+        }
+    }
+
+    @Test
+    public void testLargeEntriesStreamed() throws IOException {
+        byte[] text = S.times("0123456789abcdef", ZipBuilder.LARGE_ENTRY / 8).getBytes();
+        byte[] image = randomBytes(ZipBuilder.LARGE_ENTRY + 1);
+        File textFile = IO.tmpFile();
+        File imageFile = IO.tmpFile();
+        IO.write(text, textFile);
+        IO.write(image, imageFile);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        IO.zipTo(baos)
+                .add("small.txt", "small".getBytes())
+                .add("large.txt", textFile)
+                .add("large.png", imageFile)
+                .add("last.txt", "last".getBytes())
+                .close();
+        IO.delete(textFile);
+        IO.delete(imageFile);
+        // read sequentially to check local headers and data descriptors
+        ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        try {
+            eq("small.txt", zis.getNextEntry().getName());
+            eq("small", new String(IO.readContent(new NonClosing(zis))));
+            ZipEntry entry = zis.getNextEntry();
+            eq("large.txt", entry.getName());
+            eq(text, IO.readContent(new NonClosing(zis)));
+            entry = zis.getNextEntry();
+            eq("large.png", entry.getName());
+            eq(ZipEntry.STORED, entry.getMethod());
+            eq(image, IO.readContent(new NonClosing(zis)));
+            eq("last.txt", zis.getNextEntry().getName());
+            isNull(zis.getNextEntry());
+        } finally {
+            zis.close();
+        }
+        yes(baos.size() < text.length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateEntry() {
+        ZipBuilder zip = IO.zipTo(new ByteArrayOutputStream());
+        zip.add("a.txt", new byte[1]);
+        zip.add("a.txt", new byte[1]);
+    }
+
+    @Test
+    public void testZipSObjects() throws IOException {
+        ISObject a = SObject.of("a", "content of a");
+        a.setAttribute(ISObject.ATTR_FILE_NAME, "a.txt");
+        ISObject b = SObject.of("b", "content of b");
+        b.setAttribute(ISObject.ATTR_FILE_NAME, "b.txt");
+        ISObject zipped = IO.zip(a, b);
+        ZipInputStream zis = new ZipInputStream(zipped.asInputStream());
+        try {
+            eq("a.txt", zis.getNextEntry().getName());
+            eq("content of a", new String(IO.readContent(new NonClosing(zis))));
+            eq("b.txt", zis.getNextEntry().getName());
+            eq("content of b", new String(IO.readContent(new NonClosing(zis))));
+        } finally {
+            zis.close();
+        }
+    }
+
+    @Test
+    public void testLargeByteArrayEntries() throws IOException {
+        byte[] zeros = new byte[5 * 1024 * 1024];
+        byte[] photo = randomBytes(ZipBuilder.LARGE_ENTRY + 1);
+        IO.zipTo(target).add("big.bin", zeros).add("big.jpg", photo).close();
+        ZipFile zipFile = new ZipFile(target);
+        try {
+            ZipEntry entry = zipFile.getEntry("big.bin");
+            eq(ZipEntry.DEFLATED, entry.getMethod());
+            eq(zeros, IO.readContent(zipFile.getInputStream(entry)));
+            entry = zipFile.getEntry("big.jpg");
+            eq(ZipEntry.STORED, entry.getMethod());
+            eq(photo, IO.readContent(zipFile.getInputStream(entry)));
+        } finally {
+            zipFile.close();
+        }
+    }
+
+    @Test
+    public void testZipInputStreamSObjects() throws IOException {
+        byte[] text = S.times("0123456789abcdef", 1000).getBytes();
+        byte[] photo = randomBytes(ZipBuilder.LARGE_ENTRY + 1);
+        ISObject a = SObject.of("a", new ByteArrayInputStream(text));
+        a.setAttribute(ISObject.ATTR_FILE_NAME, "a.txt");
+        // stored entry, the stream can be read only once
+        ISObject b = SObject.of("b", new ByteArrayInputStream(photo));
+        b.setAttribute(ISObject.ATTR_FILE_NAME, "b.jpg");
+        ISObject zipped = IO.zip(a, b);
+        ZipInputStream zis = new ZipInputStream(zipped.asInputStream());
+        try {
+            eq("a.txt", zis.getNextEntry().getName());
+            eq(text, IO.readContent(new NonClosing(zis)));
+            ZipEntry entry = zis.getNextEntry();
+            eq("b.jpg", entry.getName());
+            eq(ZipEntry.STORED, entry.getMethod());
+            eq(photo, IO.readContent(new NonClosing(zis)));
+            isNull(zis.getNextEntry());
+        } finally {
+            zis.close();
+        }
+    }
+
+    @Test
+    public void testZip64EntryCount() throws IOException {
+        final int n = 70000;
+        ZipBuilder zip = IO.zipTo(target).threads(1).level(0);
+        for (int i = 0; i < n; ++i) {
+            zip.add("e" + i, new byte[]{(byte) i});
+        }
+        zip.close();
+        ZipFile zipFile = new ZipFile(target);
+        try {
+            eq(n, zipFile.size());
+            ZipEntry entry = zipFile.getEntry("e" + (n - 1));
+            eq((byte) (n - 1), IO.readContent(zipFile.getInputStream(entry))[0]);
+        } finally {
+            zipFile.close();
+        }
+        ZipInputStream zis = new ZipInputStream(IO.inputStream(target));
+        try {
+            int count = 0;
+            while (null != zis.getNextEntry()) {
+                count++;
+            }
+            eq(n, count);
+        } finally {
+            zis.close();
+        }
+    }
+
+    @Test
+    public void testFailedZipIntoIsAborted() throws IOException {
+        File a = IO.tmpFile();
+        IO.write("content of a", a);
+        File missing = new File(a.getParentFile(), S.random() + ".txt");
+        try {
+            IO.zipInto(target, a, missing);
+            fail("ResourceNotFoundException expected");
+        } catch (ResourceNotFoundException e) {
+            // expected
+        } finally {
+            IO.delete(a);
+        }
+        // no central directory is written for the broken archive
+        try {
+            new ZipFile(target).close();
+            fail("ZipException expected");
+        } catch (ZipException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testAlreadyCompressed() {
+        yes(ZipBuilder.alreadyCompressed("a.png"));
+        yes(ZipBuilder.alreadyCompressed("a/b.zip"));
+        yes(ZipBuilder.alreadyCompressed("movie.mp4"));
+        yes(ZipBuilder.alreadyCompressed("report.docx"));
+        no(ZipBuilder.alreadyCompressed("image.bmp"));
+        no(ZipBuilder.alreadyCompressed("report.2024.csv"));
+        no(ZipBuilder.alreadyCompressed("v1.0/README"));
+    }
+
+    private static byte[] randomBytes(int len) {
+        byte[] ba = new byte[len];
+        new Random().nextBytes(ba);
+        return ba;
+    }
+
+    // IO.readContent closes the stream
+    private static class NonClosing extends java.io.FilterInputStream {
+        NonClosing(java.io.InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+}